@@ -33,22 +33,19 @@ import org.wso2.testgrid.common.util.StringUtil;
 import org.wso2.testgrid.common.util.TestGridUtil;
 
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Iterator;
+import java.util.ArrayList;
 import java.util.List;
-import javax.xml.stream.XMLEventReader;
+import java.util.function.Consumer;
 import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
-import javax.xml.stream.events.Attribute;
-import javax.xml.stream.events.Characters;
-import javax.xml.stream.events.EndElement;
-import javax.xml.stream.events.StartElement;
-import javax.xml.stream.events.XMLEvent;
+import javax.xml.stream.XMLStreamReader;
 
 import static org.wso2.testgrid.common.TestGridConstants.SCENARIO_RESULTS_FILTER_PATTERN;
 
@@ -91,14 +88,12 @@ public class FunctionalTestResultParser extends ResultParser {
      * </li><li>
      *  2. set the failure state to true/false along with message
      * </li><li>
-     *  3. Add the test case into the test scenario.
+     *  3. Add the test case into the test scenario, or pass it to the test case sink in the streaming mode.
      * </li></ul>
      * @throws JTLResultParserException result parser error
      */
     @Override
-    public void parseResults() throws JTLResultParserException {
-        boolean failureMsgElement = false;
-        XMLInputFactory factory = XMLInputFactory.newInstance();
+    public void parseResults() throws ResultParserException {
         String[] scenarioResultFiles = ResultParserUtil.getJTLFiles(this.testLocation);
         String testScenarioName = testScenario.getName();
 
@@ -108,61 +103,72 @@ public class FunctionalTestResultParser extends ResultParser {
             return;
         }
 
+        List<Path> jtlFiles = new ArrayList<>();
         for (String jtlFile : scenarioResultFiles) {
-            try (InputStream inputStream = Files.newInputStream(Paths.get(testLocation, jtlFile))) {
-                if (logger.isDebugEnabled()) {
-                    logger.debug("Parsing scenario-results file of the TestScenario : '"
-                            + testScenarioName + "' using the FunctionalTestResultParser");
-                }
+            jtlFiles.add(Paths.get(testLocation, jtlFile));
+        }
+        parseFiles(jtlFiles, this::parseJTLFile);
+    }
+
+    /**
+     * Parses a JTL file with the XML stream reader (cursor) API, which does not create an object per XML node.
+     *
+     * @param jtlFile   JTL file to parse
+     * @param testCases consumer of the test cases found
+     * @throws JTLResultParserException thrown when error on parsing the file
+     */
+    private void parseJTLFile(Path jtlFile, Consumer<TestCase> testCases) throws JTLResultParserException {
+        String testScenarioName = testScenario.getName();
+        try (InputStream inputStream = Files.newInputStream(jtlFile)) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Parsing scenario-results file of the TestScenario : '"
+                        + testScenarioName + "' using the FunctionalTestResultParser");
+            }
 
-                XMLEventReader eventReader = factory.createXMLEventReader(inputStream);
+            // files may be parsed concurrently, and input factories are not guaranteed to be thread-safe
+            XMLStreamReader streamReader = XMLInputFactory.newInstance().createXMLStreamReader(inputStream);
+            try {
                 TestCase testCase = null;
-                while (eventReader.hasNext()) {
-                    XMLEvent event = eventReader.nextEvent();
-                    switch (event.getEventType()) {
+                while (streamReader.hasNext()) {
+                    switch (streamReader.next()) {
                         case XMLStreamConstants.START_ELEMENT:
-                            StartElement startElement = event.asStartElement();
-                            String elementName = startElement.getName().getLocalPart();
-                            if (HTTP_SAMPLE_ELEMENT.equalsIgnoreCase(elementName) ||
-                                    SAMPLE_ELEMENT.equalsIgnoreCase(elementName)) {
-                                testCase = this.buildTestCase(startElement);
-                            } else if (FAILURE_MESSAGE_ELEMENT.equalsIgnoreCase(elementName)) {
-                                failureMsgElement = true;
-                            }
-                            break;
-                        case XMLStreamConstants.CHARACTERS:
-                            Characters characters = event.asCharacters();
-                            if (failureMsgElement) {
-                                testCase.setFailureMessage(characters.getData());
-                                failureMsgElement = false;
+                            String elementName = streamReader.getLocalName();
+                            if (isSampleElement(elementName)) {
+                                testCase = this.buildTestCase(streamReader);
+                            } else if (FAILURE_MESSAGE_ELEMENT.equalsIgnoreCase(elementName) && testCase != null) {
+                                String failureMessage = streamReader.getElementText();
+                                if (!failureMessage.isEmpty()) {
+                                    testCase.setFailureMessage(failureMessage);
+                                }
                             }
                             break;
                         case XMLStreamConstants.END_ELEMENT:
-                            EndElement endElement = event.asEndElement();
-                            String nodeName = endElement.getName().getLocalPart();
-                            if (HTTP_SAMPLE_ELEMENT.equalsIgnoreCase(nodeName) ||
-                                    SAMPLE_ELEMENT.equalsIgnoreCase(nodeName)) {
-                                this.testScenario.addTestCase(testCase);
+                            // a test case is handed over only once, even if it has nested samples
+                            if (isSampleElement(streamReader.getLocalName()) && testCase != null) {
+                                testCases.accept(testCase);
+                                testCase = null;
                             }
                             break;
                         default:
                             break;
                     }
                 }
+            } finally {
+                streamReader.close();
+            }
 
-                if (logger.isDebugEnabled()) {
-                    logger.debug("End parsing scenario-results file of the TestScenario : '" + testScenarioName +
-                            "' using the FunctionalTestResultParser");
-                }
-            } catch (XMLStreamException e) {
-                throw new JTLResultParserException("Unable to parse the scenario-results file of TestScenario :" +
-                        testScenarioName, e);
-            } catch (FileNotFoundException e) {
-                throw new JTLResultParserException("Unable to locate the scenario-results file.", e);
-            } catch (IOException e) {
-                throw new JTLResultParserException("Unable to close the input stream of scenario results file of " +
-                        "the TestScenario : " + testScenarioName, e);
+            if (logger.isDebugEnabled()) {
+                logger.debug("End parsing scenario-results file of the TestScenario : '" + testScenarioName +
+                        "' using the FunctionalTestResultParser");
             }
+        } catch (XMLStreamException e) {
+            throw new JTLResultParserException("Unable to parse the scenario-results file of TestScenario :" +
+                    testScenarioName, e);
+        } catch (NoSuchFileException e) {
+            throw new JTLResultParserException("Unable to locate the scenario-results file.", e);
+        } catch (IOException e) {
+            throw new JTLResultParserException("Unable to close the input stream of scenario results file of " +
+                    "the TestScenario : " + testScenarioName, e);
         }
     }
 
@@ -187,26 +193,26 @@ public class FunctionalTestResultParser extends ResultParser {
         }
     }
 
-    private TestCase buildTestCase(StartElement sampleElement) {
+    private static boolean isSampleElement(String elementName) {
+        return HTTP_SAMPLE_ELEMENT.equalsIgnoreCase(elementName) || SAMPLE_ELEMENT.equalsIgnoreCase(elementName);
+    }
+
+    private TestCase buildTestCase(XMLStreamReader sampleElement) {
         TestCase testCase = new TestCase();
         testCase.setTestScenario(this.testScenario);
-        Iterator<Attribute> attributes = sampleElement.getAttributes();
-
-        while (attributes.hasNext()) {
-            Attribute attribute = attributes.next();
-            if (TEST_NAME_ATTRIBUTE.equals(attribute.getName().getLocalPart())) {
-                testCase.setName(attribute.getValue());
-            } else if (TEST_SUCCESS_ATTRIBUTE.equals(attribute.getName().getLocalPart())) {
-                if (Boolean.valueOf(attribute.getValue())) {
+
+        for (int i = 0; i < sampleElement.getAttributeCount(); i++) {
+            String attributeName = sampleElement.getAttributeLocalName(i);
+            if (TEST_NAME_ATTRIBUTE.equals(attributeName)) {
+                testCase.setName(sampleElement.getAttributeValue(i));
+            } else if (TEST_SUCCESS_ATTRIBUTE.equals(attributeName)) {
+                if (Boolean.valueOf(sampleElement.getAttributeValue(i))) {
                     testCase.setSuccess(Status.SUCCESS);
-                } else if (!Boolean.valueOf(attribute.getValue())) {
-                    testCase.setSuccess(Status.FAIL);
                 } else {
-                    testCase.setSuccess(Status.SKIP);
+                    testCase.setSuccess(Status.FAIL);
                 }
             }
         }
         return testCase;
     }
 }
-
@@ -15,21 +15,45 @@
  *  specific language governing permissions and limitations
  *  under the License.
  */
-
 package org.wso2.testgrid.automation.parser;
 
 import org.wso2.testgrid.automation.exception.ResultParserException;
+import org.wso2.testgrid.common.TestCase;
 import org.wso2.testgrid.common.TestScenario;
 
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
 /**
  * Defines the contract for result parser implementations.
+ * <p>
+ * By default, the parsed test cases are added to the test scenario. In the streaming mode (see
+ * {@link #setTestCaseSink(TestCaseSink, int)}) the result files are parsed concurrently and the test cases are
+ * passed to a sink in batches instead, so that only the {@link TestResultSummary} is kept in memory.
  *
  * @since 1.0.0
  */
 public abstract class ResultParser {
 
+    private static final int BATCH_SIZE = 500;
+    private static final List<TestCase> END_OF_FILE = Collections.unmodifiableList(new ArrayList<>());
+
     protected TestScenario testScenario;
     protected String testLocation;
+    private TestCaseSink testCaseSink;
+    private int parserThreads = 1;
+    private final TestResultSummary resultSummary = new TestResultSummary();
 
     /**
      * Superclass implementation holds the variable values and this constructor must be called to set them
@@ -58,5 +82,180 @@ public abstract class ResultParser {
      * @see org.wso2.testgrid.common.util.DataBucketsHelper
      */
     public abstract void archiveResults() throws ResultParserException;
-}
 
+    /**
+     * Switches the parser to the streaming mode. The test cases are passed to the given sink in batches
+     * instead of being added to the test scenario, and up to the given number of result files are parsed
+     * concurrently.
+     *
+     * @param testCaseSink  sink receiving the parsed test cases
+     * @param parserThreads maximum number of result files to parse concurrently
+     */
+    public void setTestCaseSink(TestCaseSink testCaseSink, int parserThreads) {
+        this.testCaseSink = testCaseSink;
+        this.parserThreads = Math.max(1, parserThreads);
+    }
+
+    /**
+     * Returns the counts of the test cases parsed so far.
+     *
+     * @return summary of the parsed test cases
+     */
+    public TestResultSummary getResultSummary() {
+        return resultSummary;
+    }
+
+    /**
+     * Parses the given result files and hands over the test cases found.
+     * <p>
+     * The files are parsed one after the other on the calling thread, unless in the streaming mode. In the
+     * streaming mode the files are parsed on a pool of threads, which queue their test cases in batches; the
+     * calling thread passes the queued batches to the sink. The queue is bounded, hence parsing is paused
+     * while the sink is behind. A failure to parse a file does not stop parsing the other files, but is
+     * thrown once all of them are parsed.
+     *
+     * @param files      result files to parse
+     * @param fileParser parses a result file, passing each test case found to the given consumer
+     * @throws ResultParserException thrown when error on parsing a file or handling the test cases
+     */
+    protected void parseFiles(List<Path> files, FileParser fileParser) throws ResultParserException {
+        if (testCaseSink == null) {
+            for (Path file : files) {
+                fileParser.parse(file, this::addTestCase);
+            }
+            return;
+        }
+        if (files.isEmpty()) {
+            return;
+        }
+
+        int threads = Math.min(parserThreads, files.size());
+        BlockingQueue<List<TestCase>> batches = new ArrayBlockingQueue<>(2 * threads);
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executorService = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "result-parser-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        List<Future<?>> parses = new ArrayList<>();
+        try {
+            for (Path file : files) {
+                parses.add(executorService.submit(() -> {
+                    BatchingConsumer batchingConsumer = new BatchingConsumer(batches);
+                    try {
+                        fileParser.parse(file, batchingConsumer);
+                        batchingConsumer.flush();
+                    } finally {
+                        batchingConsumer.put(END_OF_FILE);
+                    }
+                    return null;
+                }));
+            }
+            int parsedFiles = 0;
+            while (parsedFiles < files.size()) {
+                List<TestCase> batch = batches.take();
+                if (batch == END_OF_FILE) {
+                    parsedFiles++;
+                    continue;
+                }
+                for (TestCase testCase : batch) {
+                    onTestCase(testCase);
+                    resultSummary.add(testCase.getStatus());
+                }
+                testCaseSink.accept(batch);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResultParserException("Interrupted while parsing the results of TestScenario: " +
+                    testScenario.getName(), e);
+        } finally {
+            // stops the parsing threads, if the sink has failed
+            executorService.shutdownNow();
+        }
+
+        for (Future<?> parse : parses) {
+            try {
+                parse.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof ResultParserException) {
+                    throw (ResultParserException) e.getCause();
+                }
+                throw new ResultParserException("Error while parsing the results of TestScenario: " +
+                        testScenario.getName(), e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ResultParserException("Interrupted while parsing the results of TestScenario: " +
+                        testScenario.getName(), e);
+            }
+        }
+    }
+
+    /**
+     * Called for each test case found, before it is handed over. Always called on the thread calling
+     * {@link #parseResults()}, one test case at a time.
+     *
+     * @param testCase test case found
+     */
+    protected void onTestCase(TestCase testCase) {
+        // no processing by default
+    }
+
+    private void addTestCase(TestCase testCase) {
+        onTestCase(testCase);
+        resultSummary.add(testCase.getStatus());
+        testScenario.addTestCase(testCase);
+    }
+
+    /**
+     * Parses a single result file.
+     */
+    @FunctionalInterface
+    protected interface FileParser {
+
+        /**
+         * Parses the given result file.
+         *
+         * @param file              result file to parse
+         * @param testCaseConsumer  consumer of the test cases found
+         * @throws ResultParserException thrown when error on parsing the file
+         */
+        void parse(Path file, Consumer<TestCase> testCaseConsumer) throws ResultParserException;
+    }
+
+    /**
+     * Queues the test cases of a result file in batches.
+     */
+    private static class BatchingConsumer implements Consumer<TestCase> {
+
+        private final BlockingQueue<List<TestCase>> batches;
+        private List<TestCase> batch = new ArrayList<>(BATCH_SIZE);
+
+        BatchingConsumer(BlockingQueue<List<TestCase>> batches) {
+            this.batches = batches;
+        }
+
+        @Override
+        public void accept(TestCase testCase) {
+            batch.add(testCase);
+            if (batch.size() >= BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (!batch.isEmpty()) {
+                put(batch);
+                batch = new ArrayList<>(BATCH_SIZE);
+            }
+        }
+
+        void put(List<TestCase> testCases) {
+            try {
+                batches.put(testCases);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Parsing is cancelled.");
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ *  Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.wso2.testgrid.automation.parser;
+
+import org.wso2.testgrid.automation.exception.ResultParserException;
+import org.wso2.testgrid.common.TestCase;
+
+import java.util.List;
+
+/**
+ * Receives the test cases found by a {@link ResultParser} running in the streaming mode.
+ *
+ * @see ResultParser#setTestCaseSink(TestCaseSink, int)
+ * @since 1.0.0
+ */
+@FunctionalInterface
+public interface TestCaseSink {
+
+    /**
+     * Accepts a batch of parsed test cases. Batches are passed one at a time, on the thread that called
+     * {@link ResultParser#parseResults()}.
+     *
+     * @param testCases batch of test cases
+     * @throws ResultParserException thrown when error on handling the test cases, which stops the parsing
+     */
+    void accept(List<TestCase> testCases) throws ResultParserException;
+}
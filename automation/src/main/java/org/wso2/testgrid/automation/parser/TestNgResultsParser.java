@@ -41,21 +41,15 @@ import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
-import java.util.List;
-import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
-import javax.xml.stream.XMLEventReader;
 import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
-import javax.xml.stream.events.Attribute;
-import javax.xml.stream.events.StartElement;
-import javax.xml.stream.events.XMLEvent;
+import javax.xml.stream.XMLStreamReader;
 
 /**
  * Surefire reports parser implementation related to parsing testng integration
@@ -129,141 +123,140 @@ public class TestNgResultsParser extends ResultParser {
         Set<Path> inputFiles = getResultInputFiles(dataBucket);
 
         Path outputLocation = DataBucketsHelper.getOutputLocation(testScenario.getTestPlan());
-        outputLocation = Paths.get(outputLocation.toString(), TestGridConstants.TEST_RESULTS_DIR,
+        final Path testOutputLocation = Paths.get(outputLocation.toString(), TestGridConstants.TEST_RESULTS_DIR,
                 testScenario.getOutputDir(), testScenario.getName());
 
         logger.info("Found TEST-TestSuite.xml result files at: " + inputFiles.stream().map
-                (outputLocation::relativize).collect(Collectors.toSet()));
-        for (Path resultsFile : inputFiles) {
-            try (final InputStream stream = Files.newInputStream(resultsFile, StandardOpenOption.READ)) {
-                logger.info("Processing results file: " + outputLocation.relativize(resultsFile));
-                if (logger.isDebugEnabled()) {
-                    logger.debug(
-                            "File content: " + new String(Files.readAllBytes(resultsFile), StandardCharsets.UTF_8));
-                }
+                (testOutputLocation::relativize).collect(Collectors.toSet()));
+        parseFiles(new ArrayList<>(inputFiles),
+                (resultsFile, testCases) -> parseResultsFile(resultsFile, testOutputLocation, testCases));
+        logger.info(String.format("Found total of %s test cases. %s test cases has failed.",
+                getResultSummary().getTotalCount(), getResultSummary().getFailedCount()));
+    }
+
+    /**
+     * Makes the name of the test case unique within its results file, by suffixing the duplicate names
+     * (ex: tests run with data providers). The names are tracked per results file, so that the names of all
+     * the test cases of the scenario are not held in memory while the results are streamed.
+     *
+     * @param testCase      test case found
+     * @param testCaseNames names of the test cases found in the results file so far
+     */
+    private static void makeNameUnique(TestCase testCase, Set<String> testCaseNames) {
+        int suffix = 1;
+        String testCaseName = testCase.getName();
+        while (testCaseNames.contains(testCase.getName())) {
+            testCase.setName(StringUtil
+                    .concatStrings(testCaseName, "#data_provider_", suffix));
+            suffix++;
+        }
+        testCaseNames.add(testCase.getName());
+    }
+
+    /**
+     * Parses a results file with the XML stream reader (cursor) API, which does not create an object per XML
+     * node. A parsing error is logged, and the test cases found until then are retained.
+     *
+     * @param resultsFile    results file to parse
+     * @param outputLocation test outputs location of the scenario
+     * @param testCases      consumer of the test cases found
+     */
+    private void parseResultsFile(Path resultsFile, Path outputLocation, Consumer<TestCase> testCases) {
+        try (final InputStream stream = Files.newInputStream(resultsFile, StandardOpenOption.READ)) {
+            logger.info("Processing results file: " + outputLocation.relativize(resultsFile));
+            if (logger.isDebugEnabled()) {
+                logger.debug(
+                        "File content: " + new String(Files.readAllBytes(resultsFile), StandardCharsets.UTF_8));
+            }
 
-                final XMLEventReader eventReader = XMLInputFactory.newInstance().createXMLEventReader(stream);
-                while (eventReader.hasNext()) {
-                    XMLEvent event = eventReader.nextEvent();
-                    if (event.getEventType() == XMLStreamConstants.START_ELEMENT) {
-                        StartElement startElement = event.asStartElement();
-                        if (startElement.getName().getLocalPart().equals("testcase")) {
-                            final String classNameStr = getClassName(startElement);
-                            List<TestCase> testCases = getTestCasesFor(classNameStr, eventReader);
-                            if (logger.isDebugEnabled()) {
-                                logger.debug(String.format("Found %s test cases in class '%s'", testCases.size(),
-                                        classNameStr));
-                            }
-                            testCases.stream().forEachOrdered(tc -> testScenario.addTestCase(tc));
+            // files may be parsed concurrently, and input factories are not guaranteed to be thread-safe
+            final XMLStreamReader streamReader = XMLInputFactory.newInstance().createXMLStreamReader(stream);
+            Set<String> testCaseNames = new HashSet<>();
+            try {
+                while (streamReader.hasNext()) {
+                    if (streamReader.next() == XMLStreamConstants.START_ELEMENT
+                            && TEST_CASE.equals(streamReader.getLocalName())) {
+                        final String classNameStr = getClassName(streamReader);
+                        TestCase testCase = getTestCaseFor(classNameStr, streamReader);
+                        if (testCase != null) {
+                            makeNameUnique(testCase, testCaseNames);
+                            testCases.accept(testCase);
                         }
                     }
                 }
-                //start processing duplicate testcase names
-                List<TestCase> testCases = testScenario.getTestCases();
-                Map<String, TestCase> finalTestCases = new HashMap<>();
-                for (TestCase testCase : testCases) {
-                    int suffix = 1;
-                    String testCaseName = testCase.getName();
-                    while (finalTestCases.containsKey(testCase.getName())) {
-                        testCase.setName(StringUtil
-                                .concatStrings(testCaseName, "#data_provider_", suffix));
-                        suffix++;
-                    }
-                    finalTestCases.put(testCase.getName(), testCase);
-                }
-                logger.info(String.format("Found total of %s test cases. %s test cases has failed.", testScenario
-                                .getTestCases().size(),
-                        testScenario.getTestCases().stream().filter(tc -> Status.FAIL.equals(tc.getStatus())).count()));
-            } catch (IOException | XMLStreamException e) {
-                logger.error("Error while parsing testng-results.xml at " + resultsFile + " for " +
-                        testScenario.getName(), e);
+            } finally {
+                streamReader.close();
             }
+        } catch (IOException | XMLStreamException e) {
+            logger.error("Error while parsing testng-results.xml at " + resultsFile + " for " +
+                    testScenario.getName(), e);
         }
     }
 
     /**
      * Read the name attribute from the classElement input.
      *
-     * @param classElement the class element
+     * @param classElement the stream reader positioned at the class element
      * @return the name attribute
      */
-    private String getClassName(StartElement classElement) {
+    private String getClassName(XMLStreamReader classElement) {
         String classNameStr = "unknown";
-        final Iterator attributes = classElement.getAttributes();
-        while (attributes.hasNext()) {
-            Attribute att = (Attribute) attributes.next();
-            if (att.getName().getLocalPart().equals("classname")) {
-                String[] split = att.getValue().split("\\.");
-                //get the class name from fully qualified class name
-                classNameStr = split[split.length - 1];
-            }
-            if (att.getName().getLocalPart().equals("name")) {
-                classNameStr = StringUtil
-                        .concatStrings(classNameStr, "#", att.getValue());
-            }
+        String className = classElement.getAttributeValue(null, "classname");
+        if (className != null) {
+            String[] split = className.split("\\.");
+            //get the class name from fully qualified class name
+            classNameStr = split[split.length - 1];
+        }
+        String testName = classElement.getAttributeValue(null, "name");
+        if (testName != null) {
+            classNameStr = StringUtil.concatStrings(classNameStr, "#", testName);
         }
         return classNameStr;
     }
 
     /**
-     * Searches the child elements of class element for test-methods where
-     * status == !PASS.
+     * Searches the child elements of the testcase element for its status.
      *
      * @param classNameStr class name
-     * @param eventReader  XMLEventReader
-     * @return true if all test-methods has PASS status, false otherwise.
+     * @param streamReader XMLStreamReader positioned at the testcase element
+     * @return the test case, or null if the end of the file is reached before the status is found
      * @throws XMLStreamException {@link XMLStreamException}
      */
-    private List<TestCase> getTestCasesFor(String classNameStr, XMLEventReader eventReader) throws XMLStreamException {
-        List<TestCase> testCases = new ArrayList<>();
-        while (eventReader.hasNext()) {
-            XMLEvent event = eventReader.nextEvent();
-            if (event.getEventType() == XMLStreamConstants.END_ELEMENT && TEST_CASE
-                    .equals(event.asEndElement().getName().getLocalPart())) {
-                TestCase testCase = buildTestCase(classNameStr, Status.SUCCESS, "");
-                testCases.add(testCase);
-                break;
+    private TestCase getTestCaseFor(String classNameStr, XMLStreamReader streamReader) throws XMLStreamException {
+        while (streamReader.hasNext()) {
+            int eventType = streamReader.next();
+            if (eventType == XMLStreamConstants.END_ELEMENT && TEST_CASE.equals(streamReader.getLocalName())) {
+                return buildTestCase(classNameStr, Status.SUCCESS, "");
             }
-            if (event.getEventType() == XMLStreamConstants.START_ELEMENT && SKIPPED
-                    .equals(event.asStartElement().getName().getLocalPart())) {
-                TestCase testCase = buildTestCase(classNameStr, Status.SKIP, "Test Skipped");
-                testCases.add(testCase);
-                break;
+            if (eventType == XMLStreamConstants.START_ELEMENT && SKIPPED.equals(streamReader.getLocalName())) {
+                return buildTestCase(classNameStr, Status.SKIP, "Test Skipped");
             }
-            if (event.getEventType() == XMLStreamConstants.START_ELEMENT && FAILED
-                    .equals(event.asStartElement().getName().getLocalPart())) {
-                String failureMessage = "unknown";
-                Iterator attributes = event.asStartElement().getAttributes();
-                failureMessage = readFailureMessage(eventReader);
-                while (attributes.hasNext()) {
-                    Attribute attribute = (Attribute) attributes.next();
-                    if (MESSAGE.equals(attribute.getName().getLocalPart())) {
-                        failureMessage = attribute.getValue();
-                        break;
-                    }
+            if (eventType == XMLStreamConstants.START_ELEMENT && FAILED.equals(streamReader.getLocalName())) {
+                String failureMessage = streamReader.getAttributeValue(null, MESSAGE);
+                if (failureMessage == null) {
+                    failureMessage = readFailureMessage(streamReader);
                 }
-                TestCase testCase = buildTestCase(classNameStr, Status.FAIL, failureMessage);
-                testCases.add(testCase);
-                break;
+                return buildTestCase(classNameStr, Status.FAIL, failureMessage);
             }
         }
-        return testCases;
+        return null;
     }
 
     /**
      * Reads the text content data inside the <failure></failure> element and builds the
      * error message.
      *
-     * @param eventReader XMLEventReader
+     * @param streamReader XMLStreamReader positioned at the failure element
      * @return error message
      * @throws XMLStreamException when theres an error reading the XML events
      */
-    private String readFailureMessage(XMLEventReader eventReader) throws XMLStreamException {
+    private String readFailureMessage(XMLStreamReader streamReader) throws XMLStreamException {
         StringBuilder builder = new StringBuilder();
         for (int i = 0; i < ERROR_LINE_LIMIT; i++) {
-            XMLEvent xmlEvent = eventReader.nextEvent();
-            if (xmlEvent.isCharacters()) {
-                builder.append(xmlEvent.asCharacters().getData());
+            int eventType = streamReader.next();
+            if (eventType == XMLStreamConstants.CHARACTERS || eventType == XMLStreamConstants.CDATA
+                    || eventType == XMLStreamConstants.SPACE) {
+                builder.append(streamReader.getText());
             } else {
                 break;
             }
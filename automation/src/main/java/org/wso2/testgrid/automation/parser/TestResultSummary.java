@@ -0,0 +1,82 @@
+/*
+ *  Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.wso2.testgrid.automation.parser;
+
+import org.wso2.testgrid.common.Status;
+
+/**
+ * Aggregated counts of the test cases found by a {@link ResultParser}.
+ *
+ * @since 1.0.0
+ */
+public class TestResultSummary {
+
+    private long totalCount;
+    private long failedCount;
+    private long skippedCount;
+
+    /**
+     * Counts a test case of the given status.
+     *
+     * @param status status of the test case
+     */
+    void add(Status status) {
+        totalCount++;
+        if (Status.FAIL.equals(status)) {
+            failedCount++;
+        } else if (Status.SKIP.equals(status)) {
+            skippedCount++;
+        }
+    }
+
+    /**
+     * Returns the number of test cases.
+     *
+     * @return number of test cases
+     */
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * Returns the number of failed test cases.
+     *
+     * @return number of failed test cases
+     */
+    public long getFailedCount() {
+        return failedCount;
+    }
+
+    /**
+     * Returns the number of skipped test cases.
+     *
+     * @return number of skipped test cases
+     */
+    public long getSkippedCount() {
+        return skippedCount;
+    }
+
+    /**
+     * Returns the number of test cases neither failed nor skipped.
+     *
+     * @return number of passed test cases
+     */
+    public long getSuccessCount() {
+        return totalCount - failedCount - skippedCount;
+    }
+}
@@ -29,9 +29,11 @@ import org.wso2.testgrid.automation.exception.ResultParserException;
 import org.wso2.testgrid.automation.parser.ResultParser;
 import org.wso2.testgrid.automation.parser.ResultParserFactory;
 import org.wso2.testgrid.automation.parser.TestNgResultsParser;
+import org.wso2.testgrid.automation.parser.TestResultSummary;
 import org.wso2.testgrid.common.DeploymentPattern;
 import org.wso2.testgrid.common.Product;
 import org.wso2.testgrid.common.Status;
+import org.wso2.testgrid.common.TestCase;
 import org.wso2.testgrid.common.TestGridConstants;
 import org.wso2.testgrid.common.TestPlan;
 import org.wso2.testgrid.common.TestScenario;
@@ -119,6 +121,40 @@ public class TestNgResultsParserTest {
         Assert.assertEquals(skipTestCases, 1, "skip test cases does not match.");
     }
 
+    @Test(description = "Test for parsing the results in streaming mode")
+    public void testTestNgResultsParserStreaming() throws Exception {
+        final Path outputFile = DataBucketsHelper.getOutputLocation(testPlan).resolve(SUREFIRE_REPORTS_DIR_OUT)
+                .resolve(TestNgResultsParser.RESULTS_TEST_SUITE_FILE);
+        Files.createDirectories(outputFile.getParent());
+        copyTestngResultsXml(outputFile);
+
+        Optional<ResultParser> parser = ResultParserFactory.getParser(testPlan, testScenario, scenarioConfig);
+        Assert.assertTrue(parser.isPresent());
+
+        List<TestCase> testCases = new ArrayList<>();
+        Thread callerThread = Thread.currentThread();
+        parser.get().setTestCaseSink(batch -> {
+            Assert.assertSame(Thread.currentThread(), callerThread, "test cases are not passed on caller thread.");
+            testCases.addAll(batch);
+        }, 2);
+        parser.get().parseResults();
+
+        Assert.assertTrue(testScenario.getTestCases().isEmpty(), "test cases are kept in the test scenario.");
+        Assert.assertEquals(testCases.size(), 9, "generated test cases does not match.");
+        Assert.assertEquals(testCases.stream().filter(tc -> Status.SUCCESS.equals(tc.getStatus())).count(), 6,
+                "success test cases does not match.");
+        Assert.assertEquals(testCases.stream().filter(tc -> Status.FAIL.equals(tc.getStatus())).count(), 2,
+                "failure test cases does not match.");
+        Assert.assertEquals(testCases.stream().filter(tc -> Status.SKIP.equals(tc.getStatus())).count(), 1,
+                "skip test cases does not match.");
+
+        TestResultSummary resultSummary = parser.get().getResultSummary();
+        Assert.assertEquals(resultSummary.getTotalCount(), 9);
+        Assert.assertEquals(resultSummary.getSuccessCount(), 6);
+        Assert.assertEquals(resultSummary.getFailedCount(), 2);
+        Assert.assertEquals(resultSummary.getSkippedCount(), 1);
+    }
+
     @Test
     public void testArchiveResults() throws Exception {
         Optional<ResultParser> parser = ResultParserFactory.getParser(testPlan, testScenario, scenarioConfig);
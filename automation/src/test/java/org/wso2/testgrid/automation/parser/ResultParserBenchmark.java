@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.testgrid.automation.parser;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.testgrid.automation.exception.ResultParserException;
+import org.wso2.testgrid.common.DeploymentPattern;
+import org.wso2.testgrid.common.Product;
+import org.wso2.testgrid.common.TestGridConstants;
+import org.wso2.testgrid.common.TestPlan;
+import org.wso2.testgrid.common.TestScenario;
+import org.wso2.testgrid.common.util.DataBucketsHelper;
+import org.wso2.testgrid.common.util.StringUtil;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+/**
+ * Compares the time and heap taken to parse synthetic JTL and TestNG result files with the in-memory mode
+ * and the streaming mode of the result parsers.
+ * <p>
+ * This is a benchmark and is not part of the regular test suite. Run it with
+ * {@code mvn test -Dtest=ResultParserBenchmark [-Dbenchmark.fileCount=8] [-Dbenchmark.testCaseCount=100000]
+ * [-Dbenchmark.parserThreads=4]}.
+ */
+public class ResultParserBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResultParserBenchmark.class);
+    private static final String TESTGRID_HOME = Paths.get("target", "testgrid-home").toString();
+    private static final String SCENARIO_NAME = "BenchmarkScenario";
+    private static final int FILE_COUNT = Integer.getInteger("benchmark.fileCount", 8);
+    private static final int TEST_CASE_COUNT = Integer.getInteger("benchmark.testCaseCount", 100000);
+    private static final int PARSER_THREADS = Integer.getInteger("benchmark.parserThreads", 4);
+    private static final int FAILURE_INTERVAL = 20;
+
+    private Path jtlLocation;
+    private Path testNgLocation;
+    private TestPlan testPlan;
+
+    @BeforeClass
+    public void generateResults() throws IOException {
+        System.setProperty(TestGridConstants.TESTGRID_HOME_SYSTEM_PROPERTY, TESTGRID_HOME);
+        testPlan = new TestPlan();
+        testPlan.setJobName("benchmark");
+        Product product = new Product();
+        product.setName("benchmark-product");
+        DeploymentPattern deploymentPattern = new DeploymentPattern();
+        deploymentPattern.setName("benchmark-pattern");
+        deploymentPattern.setProduct(product);
+        testPlan.setDeploymentPattern(deploymentPattern);
+        testPlan.setScenarioTestsRepository("benchmark");
+
+        jtlLocation = Paths.get("target", "result-parser-benchmark", "jtl");
+        Files.createDirectories(jtlLocation);
+        for (int i = 0; i < FILE_COUNT; i++) {
+            writeJtlFile(jtlLocation.resolve("results-" + i + ".jtl"), i);
+        }
+
+        testNgLocation = DataBucketsHelper.getOutputLocation(testPlan).resolve(Paths.get(
+                TestGridConstants.TEST_RESULTS_DIR, TestGridConstants.TEST_RESULTS_SCENARIO_DIR, SCENARIO_NAME));
+        for (int i = 0; i < FILE_COUNT; i++) {
+            Path reportsDir = testNgLocation.resolve(Paths.get("module-" + i, "surefire-reports"));
+            Files.createDirectories(reportsDir);
+            writeTestNgFile(reportsDir.resolve(TestNgResultsParser.RESULTS_TEST_SUITE_FILE), i);
+        }
+        logger.info(StringUtil.concatStrings("Generated ", FILE_COUNT, " JTL and TestNG result files of ",
+                TEST_CASE_COUNT, " test cases each."));
+    }
+
+    @Test
+    public void benchmarkJtlParsing() throws ResultParserException {
+        benchmark("JTL", FunctionalTestResultParser::new, jtlLocation.toString());
+    }
+
+    @Test
+    public void benchmarkTestNgParsing() throws ResultParserException {
+        benchmark("TestNG", TestNgResultsParser::new, testNgLocation.toString());
+    }
+
+    private void benchmark(String format, BiFunction<TestScenario, String, ResultParser> parserFactory,
+                           String testLocation) throws ResultParserException {
+        long expectedCount = (long) FILE_COUNT * TEST_CASE_COUNT;
+
+        TestScenario testScenario = createTestScenario();
+        ResultParser resultParser = parserFactory.apply(testScenario, testLocation);
+        System.gc();
+        long startTime = System.nanoTime();
+        resultParser.parseResults();
+        long inMemoryMillis = (System.nanoTime() - startTime) / 1000000;
+        long inMemoryHeap = usedHeap();
+        Assert.assertEquals(testScenario.getTestCases().size(), expectedCount);
+        testScenario = null;
+        resultParser = null;
+
+        TestScenario streamedScenario = createTestScenario();
+        ResultParser streamingParser = parserFactory.apply(streamedScenario, testLocation);
+        AtomicLong sinkCount = new AtomicLong();
+        AtomicLong peakHeap = new AtomicLong();
+        streamingParser.setTestCaseSink(testCases -> {
+            sinkCount.addAndGet(testCases.size());
+            peakHeap.accumulateAndGet(usedHeap(), Math::max);
+        }, PARSER_THREADS);
+        System.gc();
+        startTime = System.nanoTime();
+        streamingParser.parseResults();
+        long streamingMillis = (System.nanoTime() - startTime) / 1000000;
+        Assert.assertEquals(sinkCount.get(), expectedCount);
+        Assert.assertEquals(streamingParser.getResultSummary().getTotalCount(), expectedCount);
+        Assert.assertEquals(streamingParser.getResultSummary().getFailedCount(), expectedCount / FAILURE_INTERVAL);
+        Assert.assertTrue(streamedScenario.getTestCases().isEmpty());
+
+        logger.info(StringUtil.concatStrings(format, " results of ", expectedCount, " test cases: in-memory ",
+                inMemoryMillis, " ms (heap ", FileUtils.byteCountToDisplaySize(inMemoryHeap), "), streaming with ",
+                PARSER_THREADS, " threads ", streamingMillis, " ms (peak heap ",
+                FileUtils.byteCountToDisplaySize(peakHeap.get()), ")"));
+    }
+
+    private TestScenario createTestScenario() {
+        TestScenario testScenario = new TestScenario();
+        testScenario.setName(SCENARIO_NAME);
+        testScenario.setOutputDir("");
+        testScenario.setTestPlan(testPlan);
+        return testScenario;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static void writeJtlFile(Path file, int fileIndex) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<testResults version=\"1.2\">\n");
+            for (int i = 0; i < TEST_CASE_COUNT; i++) {
+                boolean success = i % FAILURE_INTERVAL != 0;
+                writer.write(StringUtil.concatStrings("<httpSample t=\"12\" lt=\"10\" ts=\"1525414900000\" s=\"",
+                        success, "\" lb=\"sample-", fileIndex, "-", i, "\" rc=\"200\" rm=\"OK\">"
+                                + "<assertionResult><name>Response Assertion</name><failure>", !success,
+                        "</failure><error>false</error><failureMessage>",
+                        success ? "" : "Test failed: code expected to equal 200", "</failureMessage>"
+                                + "</assertionResult></httpSample>\n"));
+            }
+            writer.write("</testResults>\n");
+        }
+    }
+
+    private static void writeTestNgFile(Path file, int fileIndex) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<testsuite name=\"TestSuite\">\n");
+            for (int i = 0; i < TEST_CASE_COUNT; i++) {
+                writer.write(StringUtil.concatStrings("<testcase name=\"test", i,
+                        "\" classname=\"org.wso2.benchmark.Module", fileIndex, "TestCase\" time=\"0.01\""));
+                if (i % FAILURE_INTERVAL == 0) {
+                    writer.write("><failure message=\"expected:&lt;true&gt; but was:&lt;false&gt;\""
+                            + " type=\"java.lang.AssertionError\"><![CDATA[java.lang.AssertionError\n"
+                            + "\tat org.testng.Assert.fail(Assert.java:93)]]></failure></testcase>\n");
+                } else {
+                    writer.write("/>\n");
+                }
+            }
+            writer.write("</testsuite>\n");
+        }
+    }
+
+    @AfterClass
+    public void tearDown() {
+        FileUtils.deleteQuietly(Paths.get("target", "result-parser-benchmark").toFile());
+        FileUtils.deleteQuietly(DataBucketsHelper.getBuildOutputsDir(testPlan).toFile());
+    }
+}
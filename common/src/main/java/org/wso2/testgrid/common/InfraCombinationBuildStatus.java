@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.testgrid.common;
+
+import org.wso2.testgrid.common.util.StringUtil;
+
+import java.io.Serializable;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+/**
+ * The latest build of an infrastructure combination of a deployment pattern, that is the {@link TestPlan} with
+ * the highest test run number for the deployment pattern and infrastructure parameters.
+ * <p>
+ * An infrastructure combination is keyed by the hash of the infrastructure parameters, as the test plans are.
+ *
+ * @since 1.0.0
+ */
+@Entity
+@Table(
+        name = InfraCombinationBuildStatus.INFRA_COMBINATION_STATUS_TABLE,
+        uniqueConstraints = {
+                @UniqueConstraint(columnNames = {InfraCombinationBuildStatus.DEPLOYMENT_PATTERN_ID_COLUMN,
+                        InfraCombinationBuildStatus.INFRA_PARAMETERS_HASH_COLUMN})
+        })
+public class InfraCombinationBuildStatus extends AbstractUUIDEntity implements Serializable {
+
+    /**
+     * InfraCombinationBuildStatus table name.
+     */
+    public static final String INFRA_COMBINATION_STATUS_TABLE = "infra_combination_status";
+
+    /**
+     * Column names of the table.
+     */
+    public static final String DEPLOYMENT_PATTERN_ID_COLUMN = "DEPLOYMENTPATTERN_id";
+    public static final String INFRA_PARAMETERS_COLUMN = "infra_parameters";
+    public static final String INFRA_PARAMETERS_HASH_COLUMN = "infra_parameters_hash";
+
+    private static final long serialVersionUID = 2618357924160349175L;
+
+    @Column(name = "product_id", nullable = false)
+    private String productId;
+
+    @Column(name = DEPLOYMENT_PATTERN_ID_COLUMN, nullable = false)
+    private String deploymentPatternId;
+
+    @Column(name = INFRA_PARAMETERS_COLUMN)
+    private String infraParameters;
+
+    @Column(name = INFRA_PARAMETERS_HASH_COLUMN, length = 64)
+    private String infraParametersHash;
+
+    @Column(name = "test_plan_id", nullable = false)
+    private String testPlanId;
+
+    @Column(name = "test_run_number")
+    private int testRunNumber;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 50)
+    private Status status;
+
+    public String getProductId() {
+        return productId;
+    }
+
+    public void setProductId(String productId) {
+        this.productId = productId;
+    }
+
+    public String getDeploymentPatternId() {
+        return deploymentPatternId;
+    }
+
+    public void setDeploymentPatternId(String deploymentPatternId) {
+        this.deploymentPatternId = deploymentPatternId;
+    }
+
+    public String getInfraParameters() {
+        return infraParameters;
+    }
+
+    public void setInfraParameters(String infraParameters) {
+        this.infraParameters = infraParameters;
+    }
+
+    public String getInfraParametersHash() {
+        return infraParametersHash;
+    }
+
+    public void setInfraParametersHash(String infraParametersHash) {
+        this.infraParametersHash = infraParametersHash;
+    }
+
+    public String getTestPlanId() {
+        return testPlanId;
+    }
+
+    public void setTestPlanId(String testPlanId) {
+        this.testPlanId = testPlanId;
+    }
+
+    public int getTestRunNumber() {
+        return testRunNumber;
+    }
+
+    public void setTestRunNumber(int testRunNumber) {
+        this.testRunNumber = testRunNumber;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    @Override
+    public String toString() {
+        String id = this.getId() != null ? this.getId() : "";
+        return StringUtil.concatStrings("InfraCombinationBuildStatus{",
+                "id='", id, "\'",
+                ", productId='", productId, "\'",
+                ", deploymentPatternId='", deploymentPatternId, "\'",
+                ", infraParameters='", infraParameters, "\'",
+                ", infraParametersHash='", infraParametersHash, "\'",
+                ", testPlanId='", testPlanId, "\'",
+                ", testRunNumber='", testRunNumber, "\'",
+                ", status='", status, "\'",
+                '}');
+    }
+}
@@ -24,6 +24,7 @@ import java.io.Serializable;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.List;
+import javax.persistence.Cacheable;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.ColumnResult;
@@ -50,6 +51,7 @@ import javax.persistence.UniqueConstraint;
                                 @ColumnResult(name = "deploymentPatternId"), @ColumnResult(name = "deploymentPattern"),
                                 @ColumnResult(name = "status"), @ColumnResult(name = "testExecutionTime") }) })
 @Entity
+@Cacheable
 @Table(
         name = Product.PRODUCT_TABLE,
         uniqueConstraints = {
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.testgrid.common;
+
+import org.wso2.testgrid.common.util.StringUtil;
+
+import java.io.Serializable;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Table;
+
+/**
+ * Materialized status of a {@link Product}, derived from the statuses of the latest builds of its infrastructure
+ * combinations ({@link InfraCombinationBuildStatus}). The id of the entity is the id of the product.
+ * <p>
+ * The status is maintained when a {@link TestPlan} is persisted, so that the product statuses are read without
+ * going through the test plan history.
+ *
+ * @since 1.0.0
+ */
+@Entity
+@Table(name = ProductBuildStatus.PRODUCT_STATUS_TABLE)
+public class ProductBuildStatus extends AbstractUUIDEntity implements Serializable {
+
+    /**
+     * ProductBuildStatus table name.
+     */
+    public static final String PRODUCT_STATUS_TABLE = "product_status";
+
+    private static final long serialVersionUID = -4083957613245091254L;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 50)
+    private Status status;
+
+    /**
+     * Returns the status of the product.
+     *
+     * @return product status
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Sets the status of the product.
+     *
+     * @param status product status
+     */
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    @Override
+    public String toString() {
+        String id = this.getId() != null ? this.getId() : "";
+        return StringUtil.concatStrings("ProductBuildStatus{",
+                "productId='", id, "\'",
+                ", status='", status, "\'",
+                '}');
+    }
+}
@@ -38,6 +38,8 @@ import javax.persistence.Enumerated;
 import javax.persistence.FetchType;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
 import javax.persistence.PrimaryKeyJoinColumn;
 import javax.persistence.Table;
 import javax.persistence.Transient;
@@ -73,12 +75,24 @@ public class TestPlan extends AbstractUUIDEntity implements Serializable, Clonea
     @Column(name = "infra_parameters")
     private String infraParameters;
 
+    @Column(name = "infra_parameters_hash", length = 64)
+    private String infraParametersHash;
+
     @Column(name = "test_run_number")
     private int testRunNumber;
 
     @Column(name = "log_url")
     private String logUrl;
 
+    @Column(name = "success_count")
+    private int successCount;
+
+    @Column(name = "fail_count")
+    private int failCount;
+
+    @Column(name = "skip_count")
+    private int skipCount;
+
     @ManyToOne(optional = false, cascade = CascadeType.ALL, targetEntity = DeploymentPattern.class,
                fetch = FetchType.LAZY)
     @PrimaryKeyJoinColumn(name = "DEPLOYMENTPATTERN_id", referencedColumnName = ID_COLUMN)
@@ -129,6 +143,9 @@ public class TestPlan extends AbstractUUIDEntity implements Serializable, Clonea
     @Transient
     private String emailToList;
 
+    @Transient
+    private int scenarioConcurrency = 1;
+
     @Transient
     private String workspace = Paths.get(TestGridUtil.getTestGridHomePath(), TestGridConstants.TESTGRID_JOB_DIR,
             "sample-").toString();
@@ -170,6 +187,26 @@ public class TestPlan extends AbstractUUIDEntity implements Serializable, Clonea
      */
     public void setInfraParameters(String infraParameters) {
         this.infraParameters = infraParameters;
+        this.infraParametersHash = TestGridUtil.getSha256Hash(infraParameters);
+    }
+
+    /**
+     * Returns the SHA-256 hash of the infra parameters. The infra combinations are looked up by the hash, as
+     * the infra parameters are too long to be indexed.
+     *
+     * @return hash of the infra parameters
+     */
+    public String getInfraParametersHash() {
+        return infraParametersHash;
+    }
+
+    /**
+     * Updates the hash of the infra parameters before the test plan is written to the database.
+     */
+    @PrePersist
+    @PreUpdate
+    public void updateInfraParametersHash() {
+        this.infraParametersHash = TestGridUtil.getSha256Hash(infraParameters);
     }
 
     /**
@@ -208,6 +245,60 @@ public class TestPlan extends AbstractUUIDEntity implements Serializable, Clonea
         this.testRunNumber = testRunNumber;
     }
 
+    /**
+     * Returns the number of successful test cases of the test plan.
+     *
+     * @return number of successful test cases
+     */
+    public int getSuccessCount() {
+        return successCount;
+    }
+
+    /**
+     * Sets the number of successful test cases of the test plan.
+     *
+     * @param successCount number of successful test cases
+     */
+    public void setSuccessCount(int successCount) {
+        this.successCount = successCount;
+    }
+
+    /**
+     * Returns the number of failed test cases of the test plan.
+     *
+     * @return number of failed test cases
+     */
+    public int getFailCount() {
+        return failCount;
+    }
+
+    /**
+     * Sets the number of failed test cases of the test plan.
+     *
+     * @param failCount number of failed test cases
+     */
+    public void setFailCount(int failCount) {
+        this.failCount = failCount;
+    }
+
+    /**
+     * Returns the number of skipped test cases of the test plan.
+     *
+     * @return number of skipped test cases
+     */
+    public int getSkipCount() {
+        return skipCount;
+    }
+
+    /**
+     * Sets the number of skipped test cases of the test plan.
+     *
+     * @param skipCount number of skipped test cases
+     */
+    public void setSkipCount(int skipCount) {
+        this.skipCount = skipCount;
+    }
+
     /**
      * Returns the associated test scenarios.
      *
@@ -406,6 +497,25 @@ public class TestPlan extends AbstractUUIDEntity implements Serializable, Clonea
         this.resultFormat = resultFormat;
     }
 
+    /**
+     * Returns the maximum number of scenario configs that are allowed to run concurrently
+     * against the deployment of this test plan.
+     *
+     * @return scenario concurrency limit
+     */
+    public int getScenarioConcurrency() {
+        return scenarioConcurrency;
+    }
+
+    /**
+     * Sets the maximum number of scenario configs that are allowed to run concurrently.
+     *
+     * @param scenarioConcurrency scenario concurrency limit
+     */
+    public void setScenarioConcurrency(int scenarioConcurrency) {
+        this.scenarioConcurrency = scenarioConcurrency;
+    }
+
     /**
      * Get the location of the key file used to access the instances.
      *
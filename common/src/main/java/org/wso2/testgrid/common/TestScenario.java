@@ -84,11 +84,22 @@ public class TestScenario extends AbstractUUIDEntity implements Serializable {
     @Column(name = "is_post_script_success")
     private boolean isPostScriptSuccessful = false;
 
+    @Column(name = "success_count")
+    private int successCount;
+
+    @Column(name = "fail_count")
+    private int failCount;
+
+    @Column(name = "skip_count")
+    private int skipCount;
+
     @ManyToOne(optional = false, cascade = CascadeType.ALL, targetEntity = TestPlan.class, fetch = FetchType.LAZY)
     @PrimaryKeyJoinColumn(name = "TESTPLAN_id", referencedColumnName = ID_COLUMN)
     private TestPlan testPlan;
 
-    @OneToMany(mappedBy = "testScenario", cascade = CascadeType.ALL, orphanRemoval = true)
+    // merges are not cascaded to the test cases, as they are inserted in bulk (see TestScenarioUOW)
+    @OneToMany(mappedBy = "testScenario",
+            cascade = {CascadeType.PERSIST, CascadeType.REMOVE, CascadeType.REFRESH, CascadeType.DETACH})
     private List<TestCase> testCases = new ArrayList<>();
 
     @Transient
@@ -306,6 +317,60 @@ public class TestScenario extends AbstractUUIDEntity implements Serializable {
         testCases.add(testCase);
     }
 
+    /**
+     * Returns the number of successful test cases of the test scenario.
+     *
+     * @return number of successful test cases
+     */
+    public int getSuccessCount() {
+        return successCount;
+    }
+
+    /**
+     * Sets the number of successful test cases of the test scenario.
+     *
+     * @param successCount number of successful test cases
+     */
+    public void setSuccessCount(int successCount) {
+        this.successCount = successCount;
+    }
+
+    /**
+     * Returns the number of failed test cases of the test scenario.
+     *
+     * @return number of failed test cases
+     */
+    public int getFailCount() {
+        return failCount;
+    }
+
+    /**
+     * Sets the number of failed test cases of the test scenario.
+     *
+     * @param failCount number of failed test cases
+     */
+    public void setFailCount(int failCount) {
+        this.failCount = failCount;
+    }
+
+    /**
+     * Returns the number of skipped test cases of the test scenario.
+     *
+     * @return number of skipped test cases
+     */
+    public int getSkipCount() {
+        return skipCount;
+    }
+
+    /**
+     * Sets the number of skipped test cases of the test scenario.
+     *
+     * @param skipCount number of skipped test cases
+     */
+    public void setSkipCount(int skipCount) {
+        this.skipCount = skipCount;
+    }
+
     /**
      *Returns the performance results data section
      *
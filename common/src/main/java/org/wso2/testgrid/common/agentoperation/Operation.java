@@ -28,6 +28,9 @@ import java.util.Map;
  */
 public abstract class Operation {
 
+    // Gson instances are thread-safe, and costly to create per message
+    private static final Gson gson = new Gson();
+
     private String operationId;
 
     private OperationCode code;
@@ -104,7 +107,6 @@ public abstract class Operation {
      * @return json formatted String.
      */
     public String toJSON() {
-        Gson gson = new Gson();
         return gson.toJson(this);
     }
 }
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.testgrid.common.agentoperation;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Batches the segments sent over a connection into {@link OperationFrameCodec} frames.
+ * <p>
+ * A frame is sent once the batched responses reach the batch length, once the oldest batched segment waited for
+ * the batch delay, or right away when a completed segment is batched, so that the completion of an operation is
+ * never delayed. Frames are sent in the order the segments are batched.
+ *
+ * @since 1.0.0
+ */
+public class OperationFrameBatcher {
+
+    /**
+     * Default length of the responses to batch into a frame.
+     */
+    public static final int DEFAULT_BATCH_LENGTH = 64 * 1024;
+
+    /**
+     * Default time in milliseconds a segment waits for a frame to fill.
+     */
+    public static final long DEFAULT_BATCH_DELAY = 50;
+
+    private final boolean deflate;
+    private final int batchLength;
+    private final long batchDelay;
+    private final ScheduledExecutorService scheduler;
+    private final Consumer<ByteBuffer> frameSender;
+    private final List<OperationSegment> batch = new ArrayList<>();
+    private int batchedLength;
+    private ScheduledFuture<?> scheduledFlush;
+
+    /**
+     * Create a batcher with the default batch length and delay.
+     *
+     * @param deflate       Whether to deflate the frames
+     * @param scheduler     Scheduler to send the frames which are not filled within the batch delay
+     * @param frameSender   Sends an encoded frame over the connection
+     */
+    public OperationFrameBatcher(boolean deflate, ScheduledExecutorService scheduler,
+                                 Consumer<ByteBuffer> frameSender) {
+        this(deflate, DEFAULT_BATCH_LENGTH, DEFAULT_BATCH_DELAY, scheduler, frameSender);
+    }
+
+    /**
+     * Create a batcher.
+     *
+     * @param deflate       Whether to deflate the frames
+     * @param batchLength   Length of the responses to batch into a frame
+     * @param batchDelay    Time in milliseconds a segment waits for a frame to fill
+     * @param scheduler     Scheduler to send the frames which are not filled within the batch delay
+     * @param frameSender   Sends an encoded frame over the connection
+     */
+    public OperationFrameBatcher(boolean deflate, int batchLength, long batchDelay,
+                                 ScheduledExecutorService scheduler, Consumer<ByteBuffer> frameSender) {
+        this.deflate = deflate;
+        this.batchLength = batchLength;
+        this.batchDelay = batchDelay;
+        this.scheduler = scheduler;
+        this.frameSender = frameSender;
+    }
+
+    /**
+     * Add a segment to the current batch.
+     *
+     * @param segment   The segment to send
+     */
+    public synchronized void add(OperationSegment segment) {
+        batch.add(segment);
+        if (segment.getResponse() != null) {
+            batchedLength += segment.getResponse().length();
+        }
+        if (segment.getCompleted() || batchedLength >= batchLength) {
+            flush();
+        } else if (scheduledFlush == null) {
+            scheduledFlush = scheduler.schedule(this::flush, batchDelay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Send the current batch, if any.
+     */
+    public synchronized void flush() {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        byte[] frame = OperationFrameCodec.encode(batch, deflate);
+        batch.clear();
+        batchedLength = 0;
+        frameSender.accept(ByteBuffer.wrap(frame));
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.testgrid.common.agentoperation;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Encodes batches of {@link OperationSegment}s into binary web socket messages, and decodes them back.
+ * <p>
+ * A frame is laid out as below. All numbers are big-endian, and the body is deflated when the
+ * {@link #FLAG_DEFLATE} flag is set.
+ * <pre>
+ * frame   := version(byte) flags(byte) body
+ * body    := segmentCount(int) segment*
+ * segment := operationId(nullable UTF) code(byte, -1 if null) completed(boolean) exitValue(int)
+ *            responseLength(int, -1 if null) response(UTF-8 bytes)
+ * </pre>
+ * The agent and the Tinkerer agree on the framing per connection through the web socket sub-protocol. When no
+ * sub-protocol is negotiated, the segments are sent as JSON text messages.
+ *
+ * @since 1.0.0
+ */
+public final class OperationFrameCodec {
+
+    /**
+     * Sub-protocol of binary frames with a plain body.
+     */
+    public static final String FRAMED_SUBPROTOCOL = "testgrid-frame";
+
+    /**
+     * Sub-protocol of binary frames with a deflated body.
+     */
+    public static final String DEFLATE_FRAMED_SUBPROTOCOL = "testgrid-frame-deflate";
+
+    static final byte VERSION = 1;
+    static final byte FLAG_DEFLATE = 0x01;
+    private static final int HEADER_LENGTH = 2;
+
+    private OperationFrameCodec() {
+    }
+
+    /**
+     * Check whether the given negotiated sub-protocol uses binary frames.
+     *
+     * @param subprotocol   Negotiated sub-protocol of the connection
+     * @return              true if segments are sent as binary frames, else false
+     */
+    public static boolean isFramed(String subprotocol) {
+        return FRAMED_SUBPROTOCOL.equals(subprotocol) || DEFLATE_FRAMED_SUBPROTOCOL.equals(subprotocol);
+    }
+
+    /**
+     * Check whether the given negotiated sub-protocol deflates the frames.
+     *
+     * @param subprotocol   Negotiated sub-protocol of the connection
+     * @return              true if the frame body is deflated, else false
+     */
+    public static boolean isDeflated(String subprotocol) {
+        return DEFLATE_FRAMED_SUBPROTOCOL.equals(subprotocol);
+    }
+
+    /**
+     * Encode the given segments into a frame.
+     *
+     * @param segments  Segments to encode, in the order to deliver
+     * @param deflate   Whether to deflate the body
+     * @return          The encoded frame
+     */
+    public static byte[] encode(List<OperationSegment> segments, boolean deflate) {
+        int bodyLength = estimateLength(segments);
+        ByteArrayOutputStream frame = new ByteArrayOutputStream(
+                HEADER_LENGTH + (deflate ? bodyLength / 4 : bodyLength));
+        frame.write(VERSION);
+        frame.write(deflate ? FLAG_DEFLATE : 0);
+        Deflater deflater = deflate ? new Deflater(Deflater.BEST_SPEED) : null;
+        try {
+            OutputStream bodyStream = deflate ? new DeflaterOutputStream(frame, deflater, 8192) : frame;
+            DataOutputStream body = new DataOutputStream(bodyStream);
+            body.writeInt(segments.size());
+            for (OperationSegment segment : segments) {
+                writeSegment(body, segment);
+            }
+            body.close();
+        } catch (IOException e) {
+            // Writing to memory does not fail
+            throw new IllegalStateException("Error while encoding operation segments.", e);
+        } finally {
+            if (deflater != null) {
+                deflater.end();
+            }
+        }
+        return frame.toByteArray();
+    }
+
+    /**
+     * Decode the segments of the given frame.
+     *
+     * @param frame     The frame to decode
+     * @return          Segments of the frame, in the order sent
+     * @throws IOException  thrown when the frame is malformed, truncated or followed by unexpected data
+     */
+    public static List<OperationSegment> decode(byte[] frame) throws IOException {
+        if (frame.length < HEADER_LENGTH) {
+            throw new IOException("Operation frame of " + frame.length + " bytes is too short.");
+        }
+        if (frame[0] != VERSION) {
+            throw new IOException("Unsupported operation frame version " + frame[0]);
+        }
+        boolean deflated = (frame[1] & FLAG_DEFLATE) != 0;
+        InputStream bodyStream = new ByteArrayInputStream(frame, HEADER_LENGTH, frame.length - HEADER_LENGTH);
+        Inflater inflater = deflated ? new Inflater() : null;
+        try {
+            if (deflated) {
+                bodyStream = new InflaterInputStream(bodyStream, inflater, 8192);
+            }
+            DataInputStream body = new DataInputStream(bodyStream);
+            int segmentCount = body.readInt();
+            if (segmentCount < 0) {
+                throw new IOException("Invalid segment count " + segmentCount + " in operation frame.");
+            }
+            List<OperationSegment> segments = new ArrayList<>(Math.min(segmentCount, 1024));
+            for (int i = 0; i < segmentCount; i++) {
+                segments.add(readSegment(body));
+            }
+            // also reads the end of a deflated body, which verifies its checksum
+            if (body.read() != -1) {
+                throw new IOException("Unexpected data after the " + segmentCount + " segments of operation frame.");
+            }
+            return segments;
+        } finally {
+            if (inflater != null) {
+                inflater.end();
+            }
+        }
+    }
+
+    private static void writeSegment(DataOutputStream body, OperationSegment segment) throws IOException {
+        body.writeBoolean(segment.getOperationId() != null);
+        if (segment.getOperationId() != null) {
+            body.writeUTF(segment.getOperationId());
+        }
+        body.writeByte(segment.getCode() == null ? -1 : segment.getCode().ordinal());
+        body.writeBoolean(segment.getCompleted());
+        body.writeInt(segment.getExitValue());
+        if (segment.getResponse() == null) {
+            body.writeInt(-1);
+        } else {
+            byte[] response = segment.getResponse().getBytes(StandardCharsets.UTF_8);
+            body.writeInt(response.length);
+            body.write(response);
+        }
+    }
+
+    private static OperationSegment readSegment(DataInputStream body) throws IOException {
+        OperationSegment segment = new OperationSegment();
+        if (body.readBoolean()) {
+            segment.setOperationId(body.readUTF());
+        }
+        int code = body.readByte();
+        if (code < -1 || code >= Operation.OperationCode.values().length) {
+            throw new IOException("Unknown operation code " + code + " in operation frame.");
+        }
+        segment.setCode(code < 0 ? null : Operation.OperationCode.values()[code]);
+        segment.setCompleted(body.readBoolean());
+        segment.setExitValue(body.readInt());
+        int responseLength = body.readInt();
+        if (responseLength >= 0) {
+            byte[] response = new byte[responseLength];
+            body.readFully(response);
+            segment.setResponse(new String(response, StandardCharsets.UTF_8));
+        }
+        return segment;
+    }
+
+    private static int estimateLength(List<OperationSegment> segments) {
+        int length = 4;
+        for (OperationSegment segment : segments) {
+            length += 64 + (segment.getResponse() == null ? 0 : segment.getResponse().length());
+        }
+        return length;
+    }
+}
@@ -60,6 +60,46 @@ public class ConfigurationContext {
         return properties.getProperty(property.toString());
     }
 
+    /**
+     * Retrieve an integer property from the property file.
+     *
+     * @param property     Property key as in the property file.
+     * @param defaultValue Value returned if the property is not set, or is not a valid integer.
+     * @return Property value read from property file, or the default value.
+     */
+    public static int getIntProperty(Enum property, int defaultValue) {
+        String value = getProperty(property);
+        if (!StringUtil.isStringNullOrEmpty(value)) {
+            try {
+                return Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                logger.warn(StringUtil.concatStrings("Invalid value for ", property, ": ", value,
+                        ". Using the default value ", defaultValue));
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Retrieve a long property from the property file.
+     *
+     * @param property     Property key as in the property file.
+     * @param defaultValue Value returned if the property is not set, or is not a valid long.
+     * @return Property value read from property file, or the default value.
+     */
+    public static long getLongProperty(Enum property, long defaultValue) {
+        String value = getProperty(property);
+        if (!StringUtil.isStringNullOrEmpty(value)) {
+            try {
+                return Long.parseLong(value.trim());
+            } catch (NumberFormatException e) {
+                logger.warn(StringUtil.concatStrings("Invalid value for ", property, ": ", value,
+                        ". Using the default value ", defaultValue));
+            }
+        }
+        return defaultValue;
+    }
+
     public static boolean isGrafanaDashboardEnabled() {
         return getProperty(ConfigurationProperties.GRAFANA_URL) != null
                 && getProperty(ConfigurationProperties.INFLUXDB_URL) != null;
@@ -89,6 +129,48 @@ public class ConfigurationContext {
          */
         DB_USER_PASS("DB_USER_PASS"),
 
+        /**
+         * Number of database connections to open when the connection pool is created
+         */
+        DB_POOL_INITIAL_SIZE("DB_POOL_INITIAL_SIZE"),
+
+        /**
+         * Minimum number of database connections kept in the connection pool
+         */
+        DB_POOL_MIN_SIZE("DB_POOL_MIN_SIZE"),
+
+        /**
+         * Maximum number of database connections in the connection pool
+         */
+        DB_POOL_MAX_SIZE("DB_POOL_MAX_SIZE"),
+
+        /**
+         * Time (in milliseconds) to wait for a free connection when the connection pool is exhausted
+         */
+        DB_POOL_WAIT_TIMEOUT("DB_POOL_WAIT_TIMEOUT"),
+
+        /**
+         * Whether to keep the reference entities (products, deployment patterns and infrastructure parameters)
+         * in the shared cache of the persistence unit. Disabled unless set to true
+         */
+        DB_SHARED_CACHE("DB_SHARED_CACHE"),
+
+        /**
+         * Time (in seconds) an entity is kept in the shared cache before it is read again from the database
+         */
+        DB_SHARED_CACHE_EXPIRY("DB_SHARED_CACHE_EXPIRY"),
+
+        /**
+         * Maximum number of inserts and updates sent to the database in a single JDBC batch. Batch writing is
+         * disabled when set to 0
+         */
+        DB_BATCH_WRITING_SIZE("DB_BATCH_WRITING_SIZE"),
+
+        /**
+         * Maximum number of test cases inserted in a single transaction
+         */
+        TEST_CASE_COMMIT_SIZE("TEST_CASE_COMMIT_SIZE"),
+
         /**
          * Jenkins host propertyName
          */
@@ -267,7 +349,72 @@ public class ConfigurationContext {
         /**
          * Repeateble json string section of all logs
          */
-        REPEATABLE_ALL_LOGS_JSON("REPEATABLE_ALL_LOGS_JSON");
+        REPEATABLE_ALL_LOGS_JSON("REPEATABLE_ALL_LOGS_JSON"),
+
+        /**
+         * Maximum number of threads used to watch files for changes (ex: live logs of the dashboard)
+         */
+        FILE_WATCHER_MAX_THREADS("FILE_WATCHER_MAX_THREADS"),
+
+        /**
+         * Maximum number of resolved S3 artifact paths cached. The cache is disabled when set to 0
+         */
+        S3_LAYOUT_CACHE_SIZE("S3_LAYOUT_CACHE_SIZE"),
+
+        /**
+         * Time (in seconds) to cache a resolved S3 artifact path
+         */
+        S3_LAYOUT_CACHE_TTL("S3_LAYOUT_CACHE_TTL"),
+
+        /**
+         * Time (in seconds) to cache that the artifacts of a test-plan are not found in S3
+         */
+        S3_LAYOUT_CACHE_NEGATIVE_TTL("S3_LAYOUT_CACHE_NEGATIVE_TTL"),
+
+        /**
+         * Maximum number of open HTTP connections of the shared AWS S3 client
+         */
+        AWS_S3_MAX_CONNECTIONS("AWS_S3_MAX_CONNECTIONS"),
+
+        /**
+         * Time (in milliseconds) a pooled AWS S3 connection is kept alive before it is closed
+         */
+        AWS_S3_CONNECTION_TTL("AWS_S3_CONNECTION_TTL"),
+
+        /**
+         * Maximum number of times a failed AWS S3 request is retried
+         */
+        AWS_S3_MAX_RETRIES("AWS_S3_MAX_RETRIES"),
+
+        /**
+         * Whether the test results are parsed in streaming mode, persisting the test cases in batches
+         */
+        RESULT_PARSER_STREAMING("RESULT_PARSER_STREAMING"),
+
+        /**
+         * Number of threads parsing the result files of a test scenario in streaming mode
+         */
+        RESULT_PARSER_THREADS("RESULT_PARSER_THREADS"),
+
+        /**
+         * Time (in seconds) to cache the materialized product statuses. The cache is disabled when set to 0
+         */
+        PRODUCT_STATUS_CACHE_TTL("PRODUCT_STATUS_CACHE_TTL"),
+
+        /**
+         * Maximum number of agents the deployment outputs are collected from at the same time, across test plans
+         */
+        DEPLOYMENT_OUTPUT_COLLECTOR_THREADS("DEPLOYMENT_OUTPUT_COLLECTOR_THREADS"),
+
+        /**
+         * Deflate level (0-9) of the archives of the test outputs. The files are stored when set to 0
+         */
+        ARCHIVE_COMPRESSION_LEVEL("ARCHIVE_COMPRESSION_LEVEL"),
+
+        /**
+         * Maximum number of threads deflating the files of an archive
+         */
+        ARCHIVE_COMPRESSION_THREADS("ARCHIVE_COMPRESSION_THREADS");
 
 
         private String propertyName;
@@ -53,6 +53,7 @@ public class ScenarioConfig implements Serializable {
     private Status status;
     private TestPlan testPlan;
     private String outputDir;
+    private List<String> dependsOn = new ArrayList<>();
 
     /**
      * This method returns the list of scenarios.
@@ -205,5 +206,28 @@ public class ScenarioConfig implements Serializable {
         this.outputDir = outputDir;
     }
 
+    /**
+     * Returns the names of the scenario configs that must complete before this scenario config
+     * can be executed. This is only an ordering hint for the scenario scheduler; scenario configs
+     * without dependencies may run concurrently.
+     *
+     * @return names of the scenario configs this depends on
+     */
+    public List<String> getDependsOn() {
+        if (dependsOn == null) {
+            return new ArrayList<>();
+        }
+        return dependsOn;
+    }
+
+    /**
+     * Sets the names of the scenario configs that must complete before this scenario config.
+     *
+     * @param dependsOn names of the scenario configs this depends on
+     */
+    public void setDependsOn(List<String> dependsOn) {
+        this.dependsOn = dependsOn;
+    }
+
 }
 
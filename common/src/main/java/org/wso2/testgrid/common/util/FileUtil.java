@@ -17,6 +17,7 @@
  */
 package org.wso2.testgrid.common.util;
 
+import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wso2.testgrid.common.TestPlan;
@@ -34,25 +35,20 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.UnsupportedEncodingException;
-import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.DirectoryStream;
-import java.nio.file.FileSystem;
-import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
+import java.util.zip.ZipInputStream;
 
 import static org.wso2.testgrid.common.TestGridConstants.PRODUCT_TEST_PLANS_DIR;
 
@@ -189,24 +185,54 @@ public class FileUtil {
 
     /**
      * Creates a archive file of the list of files passing in the given destination.
+     * <p>
+     * If the archive file exists, the files are added to it, replacing the entries of the same name.
      *
      * @param files       list of files to be archive
      * @param destination path of the archive file
      */
     public static void compressFiles(List<String> files, String destination) throws TestGridException {
-        Map<String, String> env = new HashMap<>();
-        env.put("create", "true");
-
-        URI uri = URI.create("jar:file:" + destination);
-
-        try (FileSystem zipFileSystem = FileSystems.newFileSystem(uri, env)) {
-            for (String filePath : files) {
-                File file = new File(filePath);
-                Path destinationPath = zipFileSystem.getPath(file.getName());
-                Files.copy(file.toPath(), destinationPath, StandardCopyOption.REPLACE_EXISTING);
+        Path destinationPath = Paths.get(destination);
+        Path workingDir = null;
+        try {
+            List<Path> paths = files.stream().map(Paths::get).collect(Collectors.toList());
+            if (Files.isRegularFile(destinationPath) && Files.size(destinationPath) > 0) {
+                // the archive is written again from its existing entries and the files
+                workingDir = Files.createTempDirectory("testgrid-archive");
+                extract(destinationPath, workingDir);
+                for (Path path : paths) {
+                    Files.copy(path, workingDir.resolve(path.getFileName().toString()),
+                            StandardCopyOption.REPLACE_EXISTING);
+                }
+                new ZipArchiver().archiveDirectory(workingDir, destinationPath);
+            } else {
+                new ZipArchiver().archiveFiles(paths, destinationPath);
             }
         } catch (IOException e) {
             throw new TestGridException("Error occurred while making the archive: " + destination, e);
+        } finally {
+            if (workingDir != null) {
+                FileUtils.deleteQuietly(workingDir.toFile());
+            }
+        }
+    }
+
+    private static void extract(Path archive, Path destinationDir) throws IOException {
+        try (ZipInputStream zipInputStream = new ZipInputStream(Files.newInputStream(archive))) {
+            ZipEntry entry;
+            while ((entry = zipInputStream.getNextEntry()) != null) {
+                Path path = destinationDir.resolve(entry.getName()).normalize();
+                if (!path.startsWith(destinationDir)) {
+                    throw new IOException(StringUtil.concatStrings("Entry ", entry.getName(), " of ", archive,
+                            " is outside of the archive"));
+                }
+                if (entry.isDirectory()) {
+                    Files.createDirectories(path);
+                } else {
+                    Files.createDirectories(path.getParent());
+                    Files.copy(zipInputStream, path, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
         }
     }
 
@@ -215,28 +241,11 @@ public class FileUtil {
      *
      * @param sourceDir   the source dir that has contents to archive
      * @param destination the zip file location
+     * @see ZipArchiver
      */
     public static void compress(String sourceDir, String destination) throws IOException {
         Path destPath = Files.createFile(Paths.get(destination));
-        try (ZipOutputStream zs = new ZipOutputStream(Files.newOutputStream(destPath))) {
-            Path sourcePath = Paths.get(sourceDir);
-            Files.walk(sourcePath)
-                    .filter(path -> !Files.isDirectory(path))
-                    .forEach(path -> {
-                        try {
-                            if (Files.isSameFile(path, destPath)) {
-                                return;
-                            }
-                            ZipEntry zipEntry = new ZipEntry(sourcePath.relativize(path).toString());
-                            zs.putNextEntry(zipEntry);
-                            Files.copy(path, zs);
-                            zs.closeEntry();
-                        } catch (IOException e) {
-                            logger.debug(e.getMessage(), e);
-                            //ignore the exception and continue
-                        }
-                    });
-        }
+        new ZipArchiver().archiveDirectory(Paths.get(sourceDir), destPath);
     }
 
     /**
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.testgrid.common.util;
+
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.auth.PropertiesFileCredentialsProvider;
+import com.amazonaws.retry.PredefinedRetryPolicies;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import com.amazonaws.services.s3.transfer.TransferManager;
+import com.amazonaws.services.s3.transfer.TransferManagerBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.testgrid.common.config.ConfigurationContext;
+import org.wso2.testgrid.common.config.ConfigurationContext.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Provides the AWS S3 clients shared across TestGrid.
+ * <p>
+ * Building an S3 client sets up its own connection pool and TLS context, which dominates the latency of small
+ * artifact requests. Hence a single client (and transfer manager) is created per region and reused by all the
+ * callers. The clients are configured with the {@code AWS_S3_MAX_CONNECTIONS}, {@code AWS_S3_CONNECTION_TTL}
+ * and {@code AWS_S3_MAX_RETRIES} properties, and authenticate with the credentials in the TestGrid config file.
+ * <p>
+ * {@link #shutdown()} releases the clients; they are created again when requested afterwards.
+ *
+ * @since 1.0.0
+ */
+public final class S3ClientProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(S3ClientProvider.class);
+
+    private static final Map<String, AmazonS3> s3Clients = new HashMap<>();
+    private static final Map<String, TransferManager> transferManagers = new HashMap<>();
+
+    private S3ClientProvider() {
+    }
+
+    /**
+     * Returns the S3 client of the configured region.
+     *
+     * @return shared S3 client
+     */
+    public static AmazonS3 getS3Client() {
+        return getS3Client(ConfigurationContext.getProperty(ConfigurationProperties.AWS_REGION_NAME));
+    }
+
+    /**
+     * Returns the S3 client of the given region.
+     *
+     * @param region AWS region
+     * @return shared S3 client
+     */
+    public static synchronized AmazonS3 getS3Client(String region) {
+        AmazonS3 s3Client = s3Clients.get(region);
+        if (s3Client == null) {
+            s3Client = AmazonS3ClientBuilder.standard()
+                    .withCredentials(new PropertiesFileCredentialsProvider(
+                            TestGridUtil.getConfigFilePath().toString()))
+                    .withClientConfiguration(createClientConfiguration())
+                    .withRegion(region)
+                    .build();
+            s3Clients.put(region, s3Client);
+            logger.debug(StringUtil.concatStrings("Created S3 client for region ", region));
+        }
+        return s3Client;
+    }
+
+    /**
+     * Returns the transfer manager of the configured region. The transfer manager uses the shared S3 client
+     * of the region.
+     *
+     * @return shared transfer manager
+     */
+    public static synchronized TransferManager getTransferManager() {
+        String region = ConfigurationContext.getProperty(ConfigurationProperties.AWS_REGION_NAME);
+        TransferManager transferManager = transferManagers.get(region);
+        if (transferManager == null) {
+            transferManager = TransferManagerBuilder.standard()
+                    .withS3Client(getS3Client(region))
+                    .build();
+            transferManagers.put(region, transferManager);
+        }
+        return transferManager;
+    }
+
+    /**
+     * Shuts down the shared transfer managers and S3 clients, releasing their connections and threads.
+     */
+    public static synchronized void shutdown() {
+        // the S3 clients are shut down separately, since transfer managers do not own them
+        transferManagers.values().forEach(transferManager -> transferManager.shutdownNow(false));
+        transferManagers.clear();
+        s3Clients.values().forEach(AmazonS3::shutdown);
+        s3Clients.clear();
+    }
+
+    private static ClientConfiguration createClientConfiguration() {
+        ClientConfiguration clientConfiguration = new ClientConfiguration().withTcpKeepAlive(true);
+        clientConfiguration.setMaxConnections(ConfigurationContext.getIntProperty(
+                ConfigurationProperties.AWS_S3_MAX_CONNECTIONS, ClientConfiguration.DEFAULT_MAX_CONNECTIONS));
+        clientConfiguration.setConnectionTTL(ConfigurationContext.getLongProperty(
+                ConfigurationProperties.AWS_S3_CONNECTION_TTL, ClientConfiguration.DEFAULT_CONNECTION_TTL));
+        clientConfiguration.setRetryPolicy(PredefinedRetryPolicies.getDefaultRetryPolicyWithCustomMaxRetries(
+                ConfigurationContext.getIntProperty(ConfigurationProperties.AWS_S3_MAX_RETRIES,
+                        PredefinedRetryPolicies.DEFAULT_MAX_ERROR_RETRY)));
+        return clientConfiguration;
+    }
+}
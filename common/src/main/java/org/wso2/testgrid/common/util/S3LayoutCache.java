@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.testgrid.common.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.testgrid.common.config.ConfigurationContext;
+import org.wso2.testgrid.common.config.ConfigurationContext.ConfigurationProperties;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of the S3 paths resolved by {@link S3StorageUtil}.
+ * <p>
+ * The artifacts of a test-plan can be stored in one of several layouts, and resolving the layout in use
+ * takes a round trip to S3 per candidate path. The resolved paths are cached per test-plan. A path found in
+ * S3 is cached for {@code S3_LAYOUT_CACHE_TTL} seconds. When none of the candidates exist (ex: the artifacts
+ * are not uploaded yet) the fallback path is cached for the shorter {@code S3_LAYOUT_CACHE_NEGATIVE_TTL}
+ * seconds, so that it is resolved again soon after the upload.
+ * The least recently used entries are evicted beyond {@code S3_LAYOUT_CACHE_SIZE} entries.
+ *
+ * @since 1.0.0
+ */
+final class S3LayoutCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(S3LayoutCache.class);
+    private static final int DEFAULT_SIZE = 10000;
+    private static final long DEFAULT_TTL = TimeUnit.HOURS.toSeconds(1);
+    private static final long DEFAULT_NEGATIVE_TTL = TimeUnit.MINUTES.toSeconds(1);
+
+    private final int maxSize;
+    private final long ttlMillis;
+    private final long negativeTtlMillis;
+    private final LongSupplier clock;
+    private final Map<String, Entry> entries;
+
+    S3LayoutCache() {
+        this(ConfigurationContext.getIntProperty(ConfigurationProperties.S3_LAYOUT_CACHE_SIZE, DEFAULT_SIZE),
+                TimeUnit.SECONDS.toMillis(ConfigurationContext.getLongProperty(
+                        ConfigurationProperties.S3_LAYOUT_CACHE_TTL, DEFAULT_TTL)),
+                TimeUnit.SECONDS.toMillis(ConfigurationContext.getLongProperty(
+                        ConfigurationProperties.S3_LAYOUT_CACHE_NEGATIVE_TTL, DEFAULT_NEGATIVE_TTL)),
+                System::currentTimeMillis);
+    }
+
+    /**
+     * Creates a cache with the given size and TTLs.
+     *
+     * @param maxSize           maximum number of cached paths, or 0 to disable the cache
+     * @param ttlMillis         time to cache a path found in S3
+     * @param negativeTtlMillis time to cache the fallback path when none of the candidates exist
+     * @param clock             source of the current time in milliseconds
+     */
+    S3LayoutCache(int maxSize, long ttlMillis, long negativeTtlMillis, LongSupplier clock) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.negativeTtlMillis = negativeTtlMillis;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            private static final long serialVersionUID = -2870924283564021784L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > S3LayoutCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached path for the given key, resolving it when it is not cached or has expired.
+     * <p>
+     * The resolver is called without holding the cache lock, so concurrent requests for the same uncached key
+     * may resolve it more than once.
+     *
+     * @param key      cache key, prefixed by the test-plan id
+     * @param resolver resolves the path in use; returns {@code null} when none of the candidates exist
+     * @param fallback path to return when none of the candidates exist
+     * @return resolved path
+     */
+    String resolve(String key, Supplier<String> resolver, String fallback) {
+        if (maxSize < 1) {
+            String path = resolver.get();
+            return path == null ? fallback : path;
+        }
+        long now = clock.getAsLong();
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAt > now) {
+                return entry.path == null ? fallback : entry.path;
+            }
+        }
+        String path = resolver.get();
+        long ttl = path == null ? negativeTtlMillis : ttlMillis;
+        synchronized (entries) {
+            entries.put(key, new Entry(path, clock.getAsLong() + ttl));
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug(StringUtil.concatStrings("Resolved S3 path of ", key, " to ",
+                    path == null ? fallback + " (not found)" : path));
+        }
+        return path == null ? fallback : path;
+    }
+
+    /**
+     * Removes the cached paths starting with the given prefix.
+     *
+     * @param prefix prefix of the keys to remove
+     */
+    void invalidate(String prefix) {
+        synchronized (entries) {
+            for (Iterator<String> iterator = entries.keySet().iterator(); iterator.hasNext(); ) {
+                if (iterator.next().startsWith(prefix)) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * A resolved path and its expiry time. A {@code null} path records that none of the candidates exist.
+     */
+    private static final class Entry {
+        private final String path;
+        private final long expiresAt;
+
+        Entry(String path, long expiresAt) {
+            this.path = path;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -2,17 +2,18 @@ package org.wso2.testgrid.common.util;
 
 import com.amazonaws.AmazonServiceException;
 import com.amazonaws.SdkClientException;
-import com.amazonaws.auth.PropertiesFileCredentialsProvider;
 import com.amazonaws.services.s3.AmazonS3;
-import com.amazonaws.services.s3.AmazonS3ClientBuilder;
-import com.amazonaws.services.s3.model.DeleteObjectRequest;
-import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.ListObjectsV2Result;
+import com.amazonaws.services.s3.model.MultiObjectDeleteException;
 import com.amazonaws.services.s3.model.S3ObjectSummary;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wso2.testgrid.common.TestGridConstants;
 import org.wso2.testgrid.common.TestPlan;
 import org.wso2.testgrid.common.config.ConfigurationContext;
+import org.wso2.testgrid.common.exception.TestGridException;
 import org.wso2.testgrid.common.plugins.AWSArtifactReader;
 import org.wso2.testgrid.common.plugins.ArtifactReadable;
 import org.wso2.testgrid.common.plugins.ArtifactReaderException;
@@ -22,9 +23,9 @@ import static org.wso2.testgrid.common.TestGridConstants.TEST_RESULTS_DIR;
 import static org.wso2.testgrid.common.TestGridConstants.TEST_RESULTS_DIR_OLD;
 
 import java.io.IOException;
-import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.List;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * This Util class holds the utility methods used to manage TestGrid S3 storage.
@@ -37,6 +38,11 @@ public final class S3StorageUtil {
 
     private static final String TESTGRID_BUILDS_DIR = "builds";
     private static final String TESTPLAN_DEPLOYMENT_OUTPUTS_DIR = "deployment-outputs";
+    private static final int MAX_KEYS_PER_DELETE = 1000;
+    private static final String TESTPLAN_DIR_CACHE_KEY = "/dir";
+    private static final String TEST_RESULTS_CACHE_KEY = "/test-results";
+    private static final S3LayoutCache layoutCache = new S3LayoutCache();
+
     /**
      * Returns the path of the test-run log file in S3 bucket.
      * <p>
@@ -72,58 +78,99 @@ public final class S3StorageUtil {
     /**
      * This method delete the log files for a given test plan in S3
      * @param testPlan Test plan which the data need to be deleted
+     * @see #purgeTestPlan(TestPlan)
      */
     public static boolean deleteTestPlan(TestPlan testPlan) {
+        try {
+            purgeTestPlan(testPlan);
+            return true;
+        } catch (TestGridException e) {
+            logger.error(e.getMessage(), e);
+            return false;
+        }
+    }
 
-        Path configFilePath = Paths.get(TestGridUtil.getTestGridHomePath(),
-                TestGridConstants.TESTGRID_CONFIG_FILE);
+    /**
+     * Deletes all the artifacts of a given test plan in S3.
+     * <p>
+     * The artifacts are listed page by page, and each page is deleted with a single multi-object delete
+     * request (S3 accepts up to {@value #MAX_KEYS_PER_DELETE} keys per request). Objects that S3 fails to
+     * delete do not stop the purge, but are reported with an exception once all the pages are processed.
+     *
+     * @param testPlan test plan which the data need to be deleted
+     * @return number of objects and bytes deleted
+     * @throws TestGridException thrown when error on deleting the artifacts of the test plan
+     */
+    public static PurgeResult purgeTestPlan(TestPlan testPlan) throws TestGridException {
         String testPlanId = testPlan.getId();
         String s3KeyName = "";
 
         try {
-            ArtifactReadable artifactDownloadable = new AWSArtifactReader(ConfigurationContext.
-                    getProperty(ConfigurationContext.ConfigurationProperties.AWS_REGION_NAME),
-                    ConfigurationContext.getProperty(ConfigurationContext.ConfigurationProperties.AWS_S3_BUCKET_NAME));
-
-            s3KeyName = deriveS3TestPlanDirPath(testPlan, artifactDownloadable);
-            logger.info("Started to clean artifacts of test-plan: " + testPlan.getId() + ", s3 bucket: " + s3KeyName);
             String clientRegion = ConfigurationContext.getProperty
                     (ConfigurationContext.ConfigurationProperties.AWS_REGION_NAME);
             String bucketName = ConfigurationContext.getProperty
                     (ConfigurationContext.ConfigurationProperties.AWS_S3_BUCKET_NAME);
+            ArtifactReadable artifactDownloadable = new AWSArtifactReader(clientRegion, bucketName);
 
-            AmazonS3 s3Client = AmazonS3ClientBuilder.standard()
-                    .withCredentials(new PropertiesFileCredentialsProvider(configFilePath.toString()))
-                    .withRegion(clientRegion)
-                    .build();
+            s3KeyName = deriveS3TestPlanDirPath(testPlan, artifactDownloadable);
+            logger.info("Started to clean artifacts of test-plan: " + testPlanId + ", s3 bucket: " + s3KeyName);
+            AmazonS3 s3Client = S3ClientProvider.getS3Client(clientRegion);
 
-            ObjectListing objectListing = s3Client.listObjects(bucketName, s3KeyName);
-            List<S3ObjectSummary> objectSummaries = objectListing.getObjectSummaries();
+            // list the contents of the directory only, and not the directories sharing its name as a prefix
+            ListObjectsV2Request listObjectsRequest = new ListObjectsV2Request()
+                    .withBucketName(bucketName)
+                    .withPrefix(s3KeyName + "/")
+                    .withMaxKeys(MAX_KEYS_PER_DELETE);
+            long objectCount = 0;
+            long byteCount = 0;
+            int failedCount = 0;
+            ListObjectsV2Result objectListing;
+            do {
+                objectListing = s3Client.listObjectsV2(listObjectsRequest);
+                Map<String, Long> objectSizes = new HashMap<>();
+                for (S3ObjectSummary os : objectListing.getObjectSummaries()) {
+                    objectSizes.put(os.getKey(), os.getSize());
+                }
+                if (!objectSizes.isEmpty()) {
+                    DeleteObjectsRequest deleteObjectsRequest = new DeleteObjectsRequest(bucketName)
+                            .withKeys(objectSizes.keySet().toArray(new String[0]))
+                            .withQuiet(true);
+                    try {
+                        s3Client.deleteObjects(deleteObjectsRequest);
+                    } catch (MultiObjectDeleteException e) {
+                        for (MultiObjectDeleteException.DeleteError error : e.getErrors()) {
+                            logger.debug(StringUtil.concatStrings("Failed to delete file ", error.getKey(),
+                                    " of test plan ", testPlanId, ": ", error.getMessage()));
+                            objectSizes.remove(error.getKey());
+                        }
+                        failedCount += e.getErrors().size();
+                    }
+                    objectCount += objectSizes.size();
+                    byteCount += objectSizes.values().stream().mapToLong(Long::longValue).sum();
+                }
+                listObjectsRequest.setContinuationToken(objectListing.getNextContinuationToken());
+            } while (objectListing.isTruncated());
 
-            for (S3ObjectSummary os : objectSummaries) {
-                logger.debug(StringUtil.concatStrings("deleting file", os.getKey(), "of test plan ",
-                        testPlan.getId()));
-                s3Client.deleteObject(new DeleteObjectRequest(bucketName, os.getKey()));
+            if (failedCount > 0) {
+                throw new TestGridException(StringUtil.concatStrings("Failed to delete ", failedCount,
+                        " files of test plan: ", testPlanId, " in ", s3KeyName, " (", objectCount,
+                        " files deleted)"));
             }
-
-            s3Client.deleteObject(new DeleteObjectRequest(bucketName, s3KeyName));
-            return true;
+            s3Client.deleteObject(bucketName, s3KeyName);
+            invalidateCachedPaths(testPlan);
+            return new PurgeResult(objectCount, byteCount);
         } catch (AmazonServiceException e) {
-            logger.error(StringUtil.concatStrings("Error while deleting file: ", s3KeyName,
-                    "of test plan: ", testPlanId, "\nAmazon S3 couldn't process request ", e));
-            return false;
+            throw new TestGridException(StringUtil.concatStrings("Error while deleting file: ", s3KeyName,
+                    " of test plan: ", testPlanId, ". Amazon S3 couldn't process request."), e);
         } catch (SdkClientException e) {
-            logger.error(StringUtil.concatStrings("Error while deleting file: ", s3KeyName,
-                    "of test plan: ", testPlanId, "\nAmazon S3 couldn't be contacted for a response ", e));
-            return false;
+            throw new TestGridException(StringUtil.concatStrings("Error while deleting file: ", s3KeyName,
+                    " of test plan: ", testPlanId, ". Amazon S3 couldn't be contacted for a response."), e);
         } catch (ArtifactReaderException e) {
-            logger.error(StringUtil.concatStrings("Error while deleting file: ", s3KeyName,
-                    "of test plan: ", testPlanId, "\nError occurred when reading the artifact ", e));
-            return false;
+            throw new TestGridException(StringUtil.concatStrings("Error while deleting file: ", s3KeyName,
+                    " of test plan: ", testPlanId, ". Error occurred when reading the artifact."), e);
         } catch (IOException e) {
-            logger.error(StringUtil.concatStrings("Error while deleting file: ", s3KeyName,
-                    "of test plan: ", testPlanId, "\n", e.getMessage(), e));
-            return false;
+            throw new TestGridException(StringUtil.concatStrings("Error while deleting file: ", s3KeyName,
+                    " of test plan: ", testPlanId, ". ", e.getMessage()), e);
         }
     }
 
@@ -139,7 +186,10 @@ public final class S3StorageUtil {
                 getProperty(ConfigurationContext.ConfigurationProperties.AWS_S3_ARTIFACTS_DIR);
         String testPlanDirPath =  Paths.get(artifactsDir, TestGridConstants.TESTGRID_JOB_DIR, productName,
                 TESTGRID_BUILDS_DIR, testPlan.getId()).toString();
-        if (!awsArtifactReader.isArtifactExist(testPlanDirPath)) {
+        return layoutCache.resolve(testPlan.getId() + TESTPLAN_DIR_CACHE_KEY, () -> {
+            if (awsArtifactReader.isArtifactExist(testPlanDirPath)) {
+                return testPlanDirPath;
+            }
             String testPlanDirNameOldStructure = TestGridUtil.deriveTestPlanDirName(testPlan);
             String testPlanDirPathOldStructure = Paths.get(artifactsDir, TestGridConstants.TESTGRID_JOB_DIR,
                     productName, TESTGRID_BUILDS_DIR, testPlanDirNameOldStructure).toString();
@@ -147,8 +197,17 @@ public final class S3StorageUtil {
             if (awsArtifactReader.isArtifactExist(testPlanDirPathOldStructure)) {
                 return testPlanDirPathOldStructure;
             }
-        }
-        return testPlanDirPath;
+            return null;
+        }, testPlanDirPath);
+    }
+
+    /**
+     * Removes the cached S3 paths of the given test-plan, so that they are resolved again on the next access.
+     *
+     * @param testPlan test-plan
+     */
+    public static void invalidateCachedPaths(TestPlan testPlan) {
+        layoutCache.invalidate(testPlan.getId() + "/");
     }
 
     /**
@@ -206,16 +265,47 @@ public final class S3StorageUtil {
      */
     public static String deriveS3TestsResultsArchivePath(
             TestPlan testPlan, ArtifactReadable awsArtifactReader) {
-        String oldPath = Paths.get(deriveS3DatabucketDir(testPlan, awsArtifactReader),
-                TEST_RESULTS_DIR_OLD + TESTGRID_COMPRESSED_FILE_EXT).toString();
-        String path = Paths.get(deriveS3DatabucketDir(testPlan, awsArtifactReader),
-                TEST_RESULTS_DIR + TESTGRID_COMPRESSED_FILE_EXT).toString();
-        if (awsArtifactReader.isArtifactExist(path)) {
-            return path;
-        } else if (awsArtifactReader.isArtifactExist(oldPath)) {
-            return oldPath;
-        } else {
-            return path;
+        String databucketDir = deriveS3DatabucketDir(testPlan, awsArtifactReader);
+        String oldPath = Paths.get(databucketDir, TEST_RESULTS_DIR_OLD + TESTGRID_COMPRESSED_FILE_EXT).toString();
+        String path = Paths.get(databucketDir, TEST_RESULTS_DIR + TESTGRID_COMPRESSED_FILE_EXT).toString();
+        return layoutCache.resolve(testPlan.getId() + TEST_RESULTS_CACHE_KEY, () -> {
+            if (awsArtifactReader.isArtifactExist(path)) {
+                return path;
+            } else if (awsArtifactReader.isArtifactExist(oldPath)) {
+                return oldPath;
+            }
+            return null;
+        }, path);
+    }
+
+    /**
+     * Number of objects and bytes deleted when purging the artifacts of a test plan.
+     */
+    public static final class PurgeResult {
+        private final long objectCount;
+        private final long byteCount;
+
+        PurgeResult(long objectCount, long byteCount) {
+            this.objectCount = objectCount;
+            this.byteCount = byteCount;
+        }
+
+        /**
+         * Returns the number of objects deleted.
+         *
+         * @return number of objects deleted
+         */
+        public long getObjectCount() {
+            return objectCount;
+        }
+
+        /**
+         * Returns the total size of the objects deleted.
+         *
+         * @return number of bytes reclaimed
+         */
+        public long getByteCount() {
+            return byteCount;
         }
     }
 }
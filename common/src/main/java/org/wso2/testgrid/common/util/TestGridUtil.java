@@ -43,6 +43,7 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -555,6 +556,40 @@ public final class TestGridUtil {
         return stringBuilder.toString();
     }
 
+    /**
+     * Returns the SHA-256 hash value of a given string.
+     *
+     * @param value string to hash
+     * @return hex encoded SHA-256 hash of the UTF-8 bytes of the string, or null if the string is null
+     */
+    public static String getSha256Hash(String value) {
+        if (value == null) {
+            return null;
+        }
+        return getSha256Hash(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the SHA-256 hash value of the given bytes.
+     *
+     * @param content bytes to hash
+     * @return hex encoded SHA-256 hash of the bytes
+     */
+    public static String getSha256Hash(byte[] content) {
+        byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256").digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException("SHA-256 algorithm is not available.", e);
+        }
+        StringBuilder stringBuilder = new StringBuilder(digest.length * 2);
+        for (byte aByte : digest) {
+            stringBuilder.append(Integer.toString((aByte & 0xff) + 0x100, 16).substring(1));
+        }
+        return stringBuilder.toString();
+    }
+
     /**
      * Returns the number in fibonacci series for a given position.
      *
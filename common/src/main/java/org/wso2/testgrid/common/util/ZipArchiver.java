@@ -0,0 +1,581 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.testgrid.common.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.testgrid.common.config.ConfigurationContext;
+import org.wso2.testgrid.common.config.ConfigurationContext.ConfigurationProperties;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes zip archives of files, deflating the files in parallel.
+ * <p>
+ * The files are read straight from their source paths in blocks, which are deflated by a pool of threads and
+ * written to the archive in order. As in pigz, each block is deflated with the end of the previous block as its
+ * dictionary and ends with a sync flush, so that the deflated blocks of a file form a single deflate stream
+ * which any zip reader can inflate. Files which are already compressed, such as zip and gzip files, are stored
+ * without being deflated again. The ZIP64 extensions are used when the archive or one of its files is too large
+ * for the zip format.
+ *
+ * @since 1.0.0
+ */
+public class ZipArchiver {
+
+    private static final Logger logger = LoggerFactory.getLogger(ZipArchiver.class);
+
+    static final int BLOCK_SIZE = 1024 * 1024;
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+    private static final int BLOCKS_PER_THREAD = 4;
+    private static final Set<String> COMPRESSED_EXTENSIONS = new HashSet<>(Arrays.asList(
+            "zip", "gz", "tgz", "bz2", "xz", "zst", "7z", "jar", "war", "ear", "car", "png", "jpg", "jpeg", "gif"));
+
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int ZIP64_END_SIGNATURE = 0x06064b50;
+    private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+    private static final int END_SIGNATURE = 0x06054b50;
+    private static final int LOCAL_HEADER_SIZE = 30;
+    private static final int CENTRAL_HEADER_SIZE = 46;
+    private static final short ZIP64_EXTRA_ID = 0x0001;
+    private static final short VERSION = 20;
+    private static final short ZIP64_VERSION = 45;
+    private static final short UTF8_FLAG = 0x0800;
+    private static final short STORED = 0;
+    private static final short DEFLATED = 8;
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+    private static final int ZIP64_MAGIC_COUNT = 0xFFFF;
+    // files of this size get a ZIP64 extra field up front, since their deflated size may not fit in 32 bits
+    private static final long ZIP64_ENTRY_THRESHOLD = 0xF0000000L;
+
+    private final int level;
+    private final int threads;
+    private final long zip64EntryThreshold;
+
+    /**
+     * Creates an archiver with the compression level and the number of threads configured in the TestGrid
+     * configuration.
+     */
+    public ZipArchiver() {
+        this(ConfigurationContext.getIntProperty(ConfigurationProperties.ARCHIVE_COMPRESSION_LEVEL,
+                Deflater.DEFAULT_COMPRESSION),
+                ConfigurationContext.getIntProperty(ConfigurationProperties.ARCHIVE_COMPRESSION_THREADS,
+                        Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * Creates an archiver with the given compression level and number of threads.
+     *
+     * @param level   deflate level from 0 (files are stored) to 9, or -1 for the default level
+     * @param threads maximum number of threads deflating the files of an archive
+     */
+    public ZipArchiver(int level, int threads) {
+        this(level, threads, ZIP64_ENTRY_THRESHOLD);
+    }
+
+    /**
+     * Creates an archiver with the given compression level, number of threads and size from which the files
+     * are written with the ZIP64 extensions.
+     *
+     * @param level               deflate level from 0 (files are stored) to 9, or -1 for the default level
+     * @param threads             maximum number of threads deflating the files of an archive
+     * @param zip64EntryThreshold size of the files written with the ZIP64 extensions
+     */
+    ZipArchiver(int level, int threads, long zip64EntryThreshold) {
+        if (level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("Invalid compression level: " + level);
+        }
+        this.level = level;
+        this.threads = Math.max(1, threads);
+        this.zip64EntryThreshold = zip64EntryThreshold;
+    }
+
+    /**
+     * Archives the files of the given directory and its sub directories into the given zip file, with their
+     * paths relative to the directory. Files which cannot be read are left out of the archive.
+     *
+     * @param sourceDir   directory to archive
+     * @param destination zip file location; it is skipped if it is inside the directory
+     * @throws IOException thrown when error on walking the directory or writing the archive
+     */
+    public void archiveDirectory(Path sourceDir, Path destination) throws IOException {
+        try (Stream<Path> paths = Files.walk(sourceDir)) {
+            Iterator<Path> files = paths.filter(path -> !Files.isDirectory(path)).iterator();
+            archive(files, path -> sourceDir.relativize(path).toString(), destination, true);
+        }
+    }
+
+    /**
+     * Archives the given files into the given zip file, with their file names.
+     *
+     * @param files       files to archive
+     * @param destination zip file location
+     * @throws IOException thrown when error on reading a file or writing the archive
+     */
+    public void archiveFiles(List<Path> files, Path destination) throws IOException {
+        archive(files.iterator(), path -> path.getFileName().toString(), destination, false);
+    }
+
+    private void archive(Iterator<Path> files, Function<Path, String> entryNames, Path destination,
+            boolean skipUnreadable) throws IOException {
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executorService = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "zip-archiver-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (FileChannel channel = FileChannel.open(destination, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ZipWriter writer = new ZipWriter(channel, skipUnreadable);
+            Set<String> names = new HashSet<>();
+            Deque<Block> blocks = new ArrayDeque<>();
+            int maxBlocks = threads * BLOCKS_PER_THREAD;
+            while (files.hasNext()) {
+                Entry entry = createEntry(files.next(), entryNames, destination, skipUnreadable);
+                if (entry == null) {
+                    continue;
+                }
+                if (!names.add(entry.name)) {
+                    logger.warn(StringUtil.concatStrings("Skipping ", entry.path, " since an entry named ",
+                            entry.name, " is already in the archive ", destination));
+                    continue;
+                }
+                long offset = 0;
+                do {
+                    Block block = new Block(entry, offset, (int) Math.min(BLOCK_SIZE, entry.size - offset));
+                    block.future = executorService.submit(() -> {
+                        process(block);
+                        return null;
+                    });
+                    blocks.add(block);
+                    while (blocks.size() > maxBlocks) {
+                        writer.write(blocks.poll());
+                    }
+                    offset += block.length;
+                } while (offset < entry.size);
+            }
+            while (!blocks.isEmpty()) {
+                writer.write(blocks.poll());
+            }
+            writer.finish();
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private Entry createEntry(Path file, Function<Path, String> entryNames, Path destination,
+            boolean skipUnreadable) throws IOException {
+        try {
+            if (Files.isSameFile(file, destination)) {
+                return null;
+            }
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            String name = entryNames.apply(file).replace(File.separatorChar, '/');
+            boolean deflated = level != 0 && !COMPRESSED_EXTENSIONS.contains(getExtension(name));
+            return new Entry(file, name, attributes.size(), attributes.lastModifiedTime().toMillis(), deflated,
+                    attributes.size() >= zip64EntryThreshold);
+        } catch (IOException e) {
+            if (!skipUnreadable) {
+                throw new IOException("Error occurred while reading the attributes of " + file, e);
+            }
+            logger.debug(e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Reads the given block from its file, and deflates it unless the file is stored.
+     */
+    private void process(Block block) throws IOException {
+        Entry entry = block.entry;
+        int dictionaryLength = entry.deflated ? (int) Math.min(DICTIONARY_SIZE, block.offset) : 0;
+        byte[] input = new byte[dictionaryLength + block.length];
+        ByteBuffer buffer = ByteBuffer.wrap(input);
+        long position = block.offset - dictionaryLength;
+        try (FileChannel channel = FileChannel.open(entry.path, StandardOpenOption.READ)) {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    throw new IOException(StringUtil.concatStrings("File ", entry.path,
+                            " was truncated while it was archived"));
+                }
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(input, dictionaryLength, block.length);
+        block.crc = crc.getValue();
+        if (!entry.deflated) {
+            block.data = input;
+            block.dataLength = block.length;
+            return;
+        }
+
+        boolean last = block.offset + block.length == entry.size;
+        Deflater deflater = new Deflater(level, true);
+        try {
+            if (dictionaryLength > 0) {
+                deflater.setDictionary(input, 0, dictionaryLength);
+            }
+            deflater.setInput(input, dictionaryLength, block.length);
+            if (last) {
+                deflater.finish();
+            }
+            byte[] output = new byte[block.length + (block.length >> 4) + 64];
+            int outputLength = 0;
+            while (true) {
+                outputLength += deflater.deflate(output, outputLength, output.length - outputLength,
+                        last ? Deflater.NO_FLUSH : Deflater.SYNC_FLUSH);
+                // a sync flush is complete when it leaves space in the output
+                if (last ? deflater.finished() : outputLength < output.length) {
+                    break;
+                }
+                if (outputLength == output.length) {
+                    output = Arrays.copyOf(output, output.length * 2);
+                }
+            }
+            block.data = output;
+            block.dataLength = outputLength;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static String getExtension(String name) {
+        int index = name.lastIndexOf('.');
+        return index < 0 ? "" : name.substring(index + 1).toLowerCase(Locale.ENGLISH);
+    }
+
+
+    /**
+     * Returns the CRC-32 of two concatenated byte sequences from their CRC-32s, as zlib's crc32_combine.
+     *
+     * @param crc1   CRC-32 of the first sequence
+     * @param crc2   CRC-32 of the second sequence
+     * @param length length of the second sequence
+     * @return CRC-32 of the concatenated sequences
+     */
+    static long combineCrc(long crc1, long crc2, long length) {
+        if (length <= 0) {
+            return crc1;
+        }
+        long[] even = new long[32];
+        long[] odd = new long[32];
+        // operator for a single zero bit
+        odd[0] = 0xEDB88320L;
+        long row = 1;
+        for (int n = 1; n < 32; n++) {
+            odd[n] = row;
+            row <<= 1;
+        }
+        // operators for two and four zero bits
+        squareGf2Matrix(even, odd);
+        squareGf2Matrix(odd, even);
+        // apply length zero bytes to crc1
+        long crc = crc1;
+        long remaining = length;
+        do {
+            squareGf2Matrix(even, odd);
+            if ((remaining & 1) != 0) {
+                crc = multiplyGf2Matrix(even, crc);
+            }
+            remaining >>= 1;
+            if (remaining == 0) {
+                break;
+            }
+            squareGf2Matrix(odd, even);
+            if ((remaining & 1) != 0) {
+                crc = multiplyGf2Matrix(odd, crc);
+            }
+            remaining >>= 1;
+        } while (remaining != 0);
+        return crc ^ crc2;
+    }
+
+    private static long multiplyGf2Matrix(long[] matrix, long vector) {
+        long sum = 0;
+        for (int i = 0; vector != 0; i++, vector >>>= 1) {
+            if ((vector & 1) != 0) {
+                sum ^= matrix[i];
+            }
+        }
+        return sum;
+    }
+
+    private static void squareGf2Matrix(long[] square, long[] matrix) {
+        for (int n = 0; n < 32; n++) {
+            square[n] = multiplyGf2Matrix(matrix, matrix[n]);
+        }
+    }
+
+    private static long toDosTime(long millis) {
+        LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+        if (time.getYear() < 1980) {
+            return (1 << 21) | (1 << 16);
+        }
+        return (long) (time.getYear() - 1980) << 25 | time.getMonthValue() << 21 | time.getDayOfMonth() << 16
+                | time.getHour() << 11 | time.getMinute() << 5 | time.getSecond() >> 1;
+    }
+
+    /**
+     * Writes the blocks of the entries to the archive in order, followed by the central directory.
+     */
+    private static class ZipWriter {
+
+        private final FileChannel channel;
+        private final boolean skipUnreadable;
+        private final List<Entry> entries = new ArrayList<>();
+        private long position;
+
+        ZipWriter(FileChannel channel, boolean skipUnreadable) {
+            this.channel = channel;
+            this.skipUnreadable = skipUnreadable;
+        }
+
+        void write(Block block) throws IOException {
+            Entry entry = block.entry;
+            if (entry.skipped) {
+                return;
+            }
+            try {
+                block.future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while archiving " + entry.path);
+            } catch (ExecutionException e) {
+                // an unreadable file is left out unless part of it is already written
+                if (skipUnreadable && block.offset == 0) {
+                    entry.skipped = true;
+                    logger.debug(e.getCause().getMessage(), e.getCause());
+                    return;
+                }
+                throw new IOException("Error occurred while archiving " + entry.path, e.getCause());
+            }
+            if (block.offset == 0) {
+                entry.headerOffset = position;
+                writeFully(localHeader(entry));
+                entry.crc = block.crc;
+            } else {
+                entry.crc = combineCrc(entry.crc, block.crc, block.length);
+            }
+            writeFully(ByteBuffer.wrap(block.data, 0, block.dataLength));
+            entry.compressedSize += block.dataLength;
+            block.data = null;
+            if (block.offset + block.length == entry.size) {
+                if (!entry.zip64 && entry.compressedSize >= ZIP64_MAGIC) {
+                    throw new IOException(StringUtil.concatStrings("Deflated size of ", entry.path,
+                            " exceeds the zip file limit"));
+                }
+                updateLocalHeader(entry);
+                entries.add(entry);
+            }
+        }
+
+        void finish() throws IOException {
+            ByteArrayOutputStream centralDirectory = new ByteArrayOutputStream();
+            for (Entry entry : entries) {
+                ByteBuffer header = centralHeader(entry);
+                centralDirectory.write(header.array(), 0, header.limit());
+            }
+            long centralDirectoryOffset = position;
+            writeFully(ByteBuffer.wrap(centralDirectory.toByteArray()));
+            long centralDirectorySize = centralDirectory.size();
+
+            if (entries.size() >= ZIP64_MAGIC_COUNT || centralDirectoryOffset >= ZIP64_MAGIC
+                    || centralDirectorySize >= ZIP64_MAGIC) {
+                long zip64EndOffset = position;
+                ByteBuffer zip64End = allocate(56 + 20);
+                zip64End.putInt(ZIP64_END_SIGNATURE).putLong(44).putShort(ZIP64_VERSION).putShort(ZIP64_VERSION)
+                        .putInt(0).putInt(0).putLong(entries.size()).putLong(entries.size())
+                        .putLong(centralDirectorySize).putLong(centralDirectoryOffset);
+                zip64End.putInt(ZIP64_LOCATOR_SIGNATURE).putInt(0).putLong(zip64EndOffset).putInt(1);
+                zip64End.flip();
+                writeFully(zip64End);
+            }
+            ByteBuffer end = allocate(22);
+            end.putInt(END_SIGNATURE).putShort((short) 0).putShort((short) 0)
+                    .putShort((short) Math.min(entries.size(), ZIP64_MAGIC_COUNT))
+                    .putShort((short) Math.min(entries.size(), ZIP64_MAGIC_COUNT))
+                    .putInt((int) Math.min(centralDirectorySize, ZIP64_MAGIC))
+                    .putInt((int) Math.min(centralDirectoryOffset, ZIP64_MAGIC))
+                    .putShort((short) 0);
+            end.flip();
+            writeFully(end);
+        }
+
+        private ByteBuffer localHeader(Entry entry) {
+            int extraLength = entry.zip64 ? 20 : 0;
+            ByteBuffer header = allocate(LOCAL_HEADER_SIZE + entry.nameBytes.length + extraLength);
+            header.putInt(LOCAL_HEADER_SIGNATURE).putShort(entry.zip64 ? ZIP64_VERSION : VERSION)
+                    .putShort(UTF8_FLAG).putShort(entry.deflated ? DEFLATED : STORED)
+                    .putInt((int) toDosTime(entry.lastModified))
+                    // the checksum and the sizes are updated once the entry is written
+                    .putInt(0).putInt(0).putInt(0)
+                    .putShort((short) entry.nameBytes.length).putShort((short) extraLength)
+                    .put(entry.nameBytes);
+            if (entry.zip64) {
+                header.putShort(ZIP64_EXTRA_ID).putShort((short) 16).putLong(0).putLong(0);
+            }
+            header.flip();
+            return header;
+        }
+
+        private void updateLocalHeader(Entry entry) throws IOException {
+            ByteBuffer fields = allocate(12);
+            fields.putInt((int) entry.crc);
+            if (entry.zip64) {
+                fields.putInt((int) ZIP64_MAGIC).putInt((int) ZIP64_MAGIC);
+            } else {
+                fields.putInt((int) entry.compressedSize).putInt((int) entry.size);
+            }
+            fields.flip();
+            writeFully(fields, entry.headerOffset + 14);
+            if (entry.zip64) {
+                ByteBuffer sizes = allocate(16);
+                sizes.putLong(entry.size).putLong(entry.compressedSize).flip();
+                writeFully(sizes, entry.headerOffset + LOCAL_HEADER_SIZE + entry.nameBytes.length + 4);
+            }
+        }
+
+        private ByteBuffer centralHeader(Entry entry) {
+            boolean zip64Offset = entry.headerOffset >= ZIP64_MAGIC;
+            int extraLength = (entry.zip64 ? 16 : 0) + (zip64Offset ? 8 : 0);
+            if (extraLength > 0) {
+                extraLength += 4;
+            }
+            ByteBuffer header = allocate(CENTRAL_HEADER_SIZE + entry.nameBytes.length + extraLength);
+            short version = extraLength > 0 ? ZIP64_VERSION : VERSION;
+            header.putInt(CENTRAL_HEADER_SIGNATURE).putShort(version).putShort(version).putShort(UTF8_FLAG)
+                    .putShort(entry.deflated ? DEFLATED : STORED).putInt((int) toDosTime(entry.lastModified))
+                    .putInt((int) entry.crc)
+                    .putInt((int) (entry.zip64 ? ZIP64_MAGIC : entry.compressedSize))
+                    .putInt((int) (entry.zip64 ? ZIP64_MAGIC : entry.size))
+                    .putShort((short) entry.nameBytes.length).putShort((short) extraLength)
+                    .putShort((short) 0).putShort((short) 0).putShort((short) 0).putInt(0)
+                    .putInt((int) (zip64Offset ? ZIP64_MAGIC : entry.headerOffset))
+                    .put(entry.nameBytes);
+            if (extraLength > 0) {
+                header.putShort(ZIP64_EXTRA_ID).putShort((short) (extraLength - 4));
+                if (entry.zip64) {
+                    header.putLong(entry.size).putLong(entry.compressedSize);
+                }
+                if (zip64Offset) {
+                    header.putLong(entry.headerOffset);
+                }
+            }
+            header.flip();
+            return header;
+        }
+
+        private void writeFully(ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer);
+            }
+        }
+
+        private void writeFully(ByteBuffer buffer, long offset) throws IOException {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, offset + buffer.position());
+            }
+        }
+
+        private static ByteBuffer allocate(int capacity) {
+            return ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    /**
+     * A file written to the archive.
+     */
+    private static class Entry {
+
+        private final Path path;
+        private final String name;
+        private final byte[] nameBytes;
+        private final long size;
+        private final long lastModified;
+        private final boolean deflated;
+        private final boolean zip64;
+        private long crc;
+        private long compressedSize;
+        private long headerOffset;
+        private boolean skipped;
+
+        Entry(Path path, String name, long size, long lastModified, boolean deflated, boolean zip64) {
+            this.path = path;
+            this.name = name;
+            this.nameBytes = name.getBytes(StandardCharsets.UTF_8);
+            this.size = size;
+            this.lastModified = lastModified;
+            this.deflated = deflated;
+            this.zip64 = zip64;
+        }
+    }
+
+    /**
+     * A block of a file, and its checksum and data once it is read and deflated.
+     */
+    private static class Block {
+
+        private final Entry entry;
+        private final long offset;
+        private final int length;
+        private Future<?> future;
+        private long crc;
+        private byte[] data;
+        private int dataLength;
+
+        Block(Entry entry, long offset, int length) {
+            this.entry = entry;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
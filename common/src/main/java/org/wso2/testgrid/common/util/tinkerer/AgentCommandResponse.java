@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.testgrid.common.util.tinkerer;
+
+/**
+ * Maintain details of the execution result of a broadcast command on an agent.
+ */
+public class AgentCommandResponse extends SyncCommandResponse {
+    private String agentId;
+    private long executionTime;
+
+    /**
+     * Create the result of the execution on the given agent.
+     *
+     * @param agentId       The agent id
+     */
+    public AgentCommandResponse(String agentId) {
+        this.agentId = agentId;
+    }
+
+    /**
+     * Get the id of the agent executed the command.
+     *
+     * @return      The agent id
+     */
+    public String getAgentId() {
+        return agentId;
+    }
+
+    /**
+     * Get the time taken to execute the command and to receive its result.
+     *
+     * @return      The execution time in milliseconds
+     */
+    public long getExecutionTime() {
+        return executionTime;
+    }
+
+    /**
+     * Set the time taken to execute the command and to receive its result.
+     *
+     * @param executionTime     The execution time in milliseconds
+     */
+    public void setExecutionTime(long executionTime) {
+        this.executionTime = executionTime;
+    }
+}
@@ -27,6 +27,7 @@ import org.wso2.testgrid.common.util.tinkerer.exception.TinkererOperationExcepti
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Maintain details of the execution result of async command request.
@@ -76,18 +77,16 @@ public class AsyncCommandResponse extends CommandResponse {
                 Integer.toString(this.contentCount + 1), ".txt");
         String fileToRead = Paths.get(this.filePath, fileName).toString();
         String result = "";
-        while (true) {
+        // Wait only if the next section is not streamed yet
+        while (!FileUtil.isFileExist(fileToRead)) {
+            if (!hasMoreContent()) {
+                return "";
+            }
             try {
                 Thread.sleep(100);
             } catch (InterruptedException e) {
                 logger.error("Error while waiting to read logs", e);
             }
-            if (FileUtil.isFileExist(fileToRead)) {
-                break;
-            }
-            if (!hasMoreContent()) {
-                return "";
-            }
         }
         try {
             result = FileUtil.readFile(filePath, fileName);
@@ -108,6 +107,16 @@ public class AsyncCommandResponse extends CommandResponse {
         return scriptExecutorThread.isCompleted();
     }
 
+    /**
+     * Get the completion of the operation, to wait for it without polling.
+     *
+     * @return  Future completed with the exit value once the operation is completed, or completed
+     *          exceptionally if streaming the output of the operation fails
+     */
+    public CompletableFuture<Integer> getCompletion() {
+        return scriptExecutorThread.getCompletion();
+    }
+
     /**
      * Get exit value of the operation
      *
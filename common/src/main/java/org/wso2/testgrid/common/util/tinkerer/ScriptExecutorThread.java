@@ -30,6 +30,7 @@ import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Calendar;
+import java.util.concurrent.CompletableFuture;
 import javax.ws.rs.core.GenericType;
 import javax.ws.rs.core.Response;
 
@@ -41,6 +42,7 @@ public class ScriptExecutorThread implements Runnable {
     private static final Logger logger = LoggerFactory.getLogger(ScriptExecutorThread.class);
 
     public static final int MAX_BUFFER_IDLE_TIME_MS = 900000;  // Maximum waiting time to update message queue
+    private static final Gson gson = new Gson();
 
     private Response response;
     private Path testgridShellStreamPath;
@@ -48,6 +50,7 @@ public class ScriptExecutorThread implements Runnable {
     private volatile boolean isCompleted;
     private volatile int exitValue;
     private int segmentCount;
+    private final CompletableFuture<Integer> completion = new CompletableFuture<>();
 
     /**
      * Initialize streaming thread with operation details.
@@ -67,32 +70,57 @@ public class ScriptExecutorThread implements Runnable {
 
     /**
      * Start running thread to read result which sent from the tinkerer.
+     * <p>
+     * The operation is completed with the exit value of the last segment once the stream ends. It is completed
+     * with exit value -1 if the operation times out, and exceptionally if the stream fails.
      */
     @Override
     public void run() {
-        Gson gson = new Gson();
-        ChunkedInput<String> input = this.response.readEntity(new ChunkObject());
-        String chunk;
+        ChunkedInput<String> input = null;
         OperationSegment operationSegment = new OperationSegment();
-        long initTime = Calendar.getInstance().getTimeInMillis();
-        long currentTime;
-        while ((chunk = input.read()) != null) {
+        boolean timedOut = false;
+        RuntimeException failure = null;
+        try {
+            input = this.response.readEntity(new ChunkObject());
+            String chunk;
+            long initTime = Calendar.getInstance().getTimeInMillis();
+            long currentTime;
+            while ((chunk = input.read()) != null) {
+                synchronized (this) {
+                    currentTime = Calendar.getInstance().getTimeInMillis();
+                    if (initTime + MAX_BUFFER_IDLE_TIME_MS < currentTime) {
+                        logger.warn("Execution time out for operation " + this.operationId);
+                        timedOut = true;
+                        break;
+                    }
+                    operationSegment = gson.fromJson(chunk, OperationSegment.class);
+                    writeDataToFile(operationSegment, this.segmentCount + 1);
+                    this.segmentCount++;
+                }
+            }
+        } catch (RuntimeException e) {
+            failure = e;
+            logger.error("Streaming failed for operation " + this.operationId, e);
+        } finally {
+            // Complete even if the stream breaks, so that no one waits for the operation forever
             synchronized (this) {
-                currentTime = Calendar.getInstance().getTimeInMillis();
-                if (initTime + MAX_BUFFER_IDLE_TIME_MS < currentTime) {
-                    logger.warn("Execution time out for operation " + this.operationId);
-                    break;
+                this.isCompleted = true;
+                if (failure == null && !timedOut) {
+                    this.exitValue = operationSegment.getExitValue();
+                    logger.info("Streaming success with exit value " + this.exitValue +
+                            " for operation " + this.operationId);
+                } else {
+                    this.exitValue = -1;
                 }
-                operationSegment = gson.fromJson(chunk, OperationSegment.class);
-                writeDataToFile(operationSegment, this.segmentCount + 1);
-                this.segmentCount++;
             }
-        }
-        synchronized (this) {
-            this.isCompleted = true;
-            this.exitValue = operationSegment.getExitValue();
-            logger.info("Streaming success with exit value " + operationSegment.getExitValue() + " for operation " +
-                    this.operationId);
+            if (input != null) {
+                input.close();
+            }
+            if (failure != null) {
+                this.completion.completeExceptionally(failure);
+            } else {
+                this.completion.complete(this.exitValue);
+            }
         }
     }
 
@@ -130,6 +158,16 @@ public class ScriptExecutorThread implements Runnable {
         return isCompleted;
     }
 
+    /**
+     * Get the completion of the operation.
+     *
+     * @return      Future completed with the exit value once the streaming is completed, or completed
+     *              exceptionally if the streaming fails
+     */
+    public CompletableFuture<Integer> getCompletion() {
+        return completion;
+    }
+
     /**
      * Inner class to generate jersey client with GenericType.
      */
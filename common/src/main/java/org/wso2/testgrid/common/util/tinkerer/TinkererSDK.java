@@ -22,12 +22,15 @@ import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.apache.http.HttpHeaders;
+import org.glassfish.jersey.client.ClientProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wso2.testgrid.common.Agent;
 import org.wso2.testgrid.common.agentoperation.OperationRequest;
 import org.wso2.testgrid.common.agentoperation.OperationSegment;
 import org.wso2.testgrid.common.config.ConfigurationContext;
+import org.wso2.testgrid.common.util.StringUtil;
+import org.wso2.testgrid.common.util.tinkerer.exception.TinkererOperationException;
 
 import java.lang.reflect.Type;
 import java.nio.charset.StandardCharsets;
@@ -37,6 +40,14 @@ import java.util.ArrayList;
 import java.util.Base64;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.ClientBuilder;
 import javax.ws.rs.client.Entity;
@@ -49,10 +60,26 @@ import javax.ws.rs.core.Response;
 public class TinkererSDK {
 
     private static final Logger logger = LoggerFactory.getLogger(TinkererSDK.class);
+    private static final Gson gson = new Gson();
+    private static final long BROADCAST_TIMEOUT_MILLIS = 600000;  //Time-out for waiting: 10 minutes.
+    private static final int BROADCAST_THREADS = 16;
+    private static final AtomicInteger threadCount = new AtomicInteger();
+    // Streams the results of async commands, a thread for each running command
+    private static final ExecutorService streamExecutor = Executors.newCachedThreadPool(
+            runnable -> newDaemonThread(runnable, "tinkerer-stream-"));
+    // Sends broadcast commands and collects their results
+    private static final ExecutorService broadcastExecutor = Executors.newFixedThreadPool(BROADCAST_THREADS,
+            runnable -> newDaemonThread(runnable, "tinkerer-broadcast-"));
 
     private String tinkererHost;
     private String authenticationToken;
 
+    private static Thread newDaemonThread(Runnable runnable, String namePrefix) {
+        Thread thread = new Thread(runnable, namePrefix + threadCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    }
+
     /**
      * Initialize details of the tinkerer host and authentication details.
      */
@@ -78,12 +105,11 @@ public class TinkererSDK {
      * @return      Response handler as Async response
      */
     public AsyncCommandResponse executeCommandAsync(String agentId, String command) {
-        Client client = ClientBuilder.newClient();
+        Client client = ClientHolder.client;
         String operationId = UUID.randomUUID().toString();
         OperationRequest operationRequest = new OperationRequest(command,
                 OperationRequest.OperationCode.SHELL, agentId);
         operationRequest.setOperationId(operationId);
-        Gson gson = new Gson();
         String jsonRequest = gson.toJson(operationRequest);
         logger.info("Sending async commands to " + this.tinkererHost  + " agent " + agentId);
         Response response = client.target(this.tinkererHost)
@@ -96,9 +122,7 @@ public class TinkererSDK {
         Path filePath = Paths.get(System.getProperty("java.io.tmpdir"));
         ScriptExecutorThread scriptExecutorThread = new ScriptExecutorThread(operationRequest.getOperationId()
                 , response, filePath);
-
-        Thread scriptExecutor = new Thread(scriptExecutorThread);
-        scriptExecutor.start();
+        streamExecutor.execute(scriptExecutorThread);
         AsyncCommandResponse asyncCommandResponse = new AsyncCommandResponse(operationId,
                 filePath, scriptExecutorThread);
         asyncCommandResponse.setOperationId(operationRequest.getOperationId());
@@ -116,22 +140,39 @@ public class TinkererSDK {
      */
     public SyncCommandResponse executeCommandSync(String agentId, String testPlanId, String instantName,
                                                   String command) {
-        Client client = ClientBuilder.newClient();
+        return executeCommandSync(agentId, testPlanId, instantName, command, 0);
+    }
+
+    /**
+     * Send shell command as http request to the Tinkerer and get back the result as synced response, waiting
+     * up to the given time for the result.
+     *
+     * @param agentId   id of the agent to send command
+     * @param testPlanId    The test plan id
+     * @param instantName   The instant name
+     * @param command   command to execute
+     * @param readTimeoutMillis time (in milliseconds) to wait for the result, or 0 to wait indefinitely
+     * @return  Response handler as Sync response
+     * @throws javax.ws.rs.ProcessingException thrown when the result is not received in time
+     */
+    public SyncCommandResponse executeCommandSync(String agentId, String testPlanId, String instantName,
+                                                  String command, int readTimeoutMillis) {
+        Client client = ClientHolder.client;
         String operationId = UUID.randomUUID().toString();
         OperationRequest operationRequest = new OperationRequest(command,
                 OperationRequest.OperationCode.SHELL, agentId);
         operationRequest.setOperationId(operationId);
-        Gson gson = new Gson();
         String jsonRequest = gson.toJson(operationRequest);
         logger.info("Sending sync commands to " + this.tinkererHost + " agent " + agentId);
         Response response = client.target(this.tinkererHost + "test-plan/" + testPlanId
                 + "/agent/" + instantName)
                 .path("operation")
+                .property(ClientProperties.READ_TIMEOUT, readTimeoutMillis)
                 .request()
                 .header(HttpHeaders.AUTHORIZATION, this.authenticationToken)
                 .post(Entity.entity(jsonRequest,
                         MediaType.APPLICATION_JSON));
-        OperationSegment operationSegment = new Gson().
+        OperationSegment operationSegment = gson.
                 fromJson(response.readEntity(String.class), OperationSegment.class);
         SyncCommandResponse syncCommandResponse = new SyncCommandResponse();
         syncCommandResponse.setResponse(operationSegment.getResponse());
@@ -147,10 +188,9 @@ public class TinkererSDK {
      * @return                  The result status
      */
     public int abortExecution(String operationId, String agentId) {
-        Client client = ClientBuilder.newClient();
+        Client client = ClientHolder.client;
         OperationRequest operationRequest = new OperationRequest("", OperationRequest.OperationCode.ABORT, agentId);
         operationRequest.setOperationId(operationId);
-        Gson gson = new Gson();
         String jsonRequest = gson.toJson(operationRequest);
         Response response = client.target(this.tinkererHost)
                 .path("abort")
@@ -158,7 +198,10 @@ public class TinkererSDK {
                 .header(HttpHeaders.AUTHORIZATION, this.authenticationToken)
                 .post(Entity.entity(jsonRequest,
                         MediaType.APPLICATION_JSON));
-        return response.getStatus();
+        int status = response.getStatus();
+        // release the connection to be reused
+        response.close();
+        return status;
     }
 
     /**
@@ -169,14 +212,14 @@ public class TinkererSDK {
      */
     @SuppressFBWarnings("SIC_INNER_SHOULD_BE_STATIC_ANON")
     public List<Agent> getAgentListByTestPlanId(String testPlanId) {
-        Client client = ClientBuilder.newClient();
+        Client client = ClientHolder.client;
         Response response = client.target(this.tinkererHost + "test-plan/" + testPlanId)
                 .path("agents")
                 .request()
                 .header(HttpHeaders.AUTHORIZATION, this.authenticationToken)
                 .get();
         Type listType =  new TypeToken<List<Agent>>() { }.getType();
-        return new Gson().fromJson(response.readEntity(String.class), listType);
+        return gson.fromJson(response.readEntity(String.class), listType);
     }
 
     /**
@@ -185,25 +228,25 @@ public class TinkererSDK {
      * @return      List of all Tinkerer agents
      */
     public List<Agent> getAllAgentList() {
-        Client client = ClientBuilder.newClient();
+        Client client = ClientHolder.client;
         Response response = client.target(this.tinkererHost)
                 .path("agents")
                 .request()
                 .header(HttpHeaders.AUTHORIZATION, this.authenticationToken)
                 .get();
         Type listType =  new TypeToken<List<Agent>>() { }.getType();
-        return new Gson().fromJson(response.readEntity(String.class), listType);
+        return gson.fromJson(response.readEntity(String.class), listType);
     }
 
     public List<String> getAllTestPlanIds() {
-        Client client = ClientBuilder.newClient();
+        Client client = ClientHolder.client;
         Response response = client.target(this.tinkererHost)
                 .path("test-plans")
                 .request()
                 .header(HttpHeaders.AUTHORIZATION, this.authenticationToken)
                 .get();
         Type listType =  new TypeToken<List<String>>() { }.getType();
-        return new Gson().fromJson(response.readEntity(String.class), listType);
+        return gson.fromJson(response.readEntity(String.class), listType);
     }
 
     /**
@@ -233,39 +276,163 @@ public class TinkererSDK {
     }
 
     /**
-     * Send a command to all the tinkerer agents belongs to a given test-plan.
+     * Send a command to all the tinkerer agents belongs to a given test-plan, and wait for the agents to execute
+     * it, up to {@link #BROADCAST_TIMEOUT_MILLIS}.
      *
      * @param testPlanId test-plan-id
      * @param shellCommand shell command wants to be executed
      */
     public void broadcastShellCommand(String testPlanId, String shellCommand) {
-        long broadcastShellCommandTimeoutInMills = 600000;  //Time-out for waiting: 10 minutes.
+        logger.info("Waiting till shell commands sent via tinkerer are executed in the nodes.");
+        try {
+            logAgentResponses(broadcastShellCommandAsync(testPlanId, shellCommand)
+                    .get(BROADCAST_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        } catch (TimeoutException e) {
+            logger.error("Time-out hit! Continuing without waiting further for tinkerer commands to complete.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("Interrupted while waiting for tinkerer commands to complete.", e);
+        } catch (ExecutionException e) {
+            logger.error("Error while broadcasting tinkerer command to test-plan " + testPlanId, e.getCause());
+        }
+    }
+
+    /**
+     * Send a command to the given tinkerer agents, and wait for the agents to execute it, up to
+     * {@link #BROADCAST_TIMEOUT_MILLIS}. An agent which does not complete the command in time is reported with
+     * exit value -1.
+     *
+     * @param agents agents to execute the command
+     * @param shellCommand shell command wants to be executed
+     * @return results of the agents, in the order of the given agents
+     */
+    public List<AgentCommandResponse> broadcastShellCommand(List<Agent> agents, String shellCommand) {
+        List<CompletableFuture<AgentCommandResponse>> agentFutures = new ArrayList<>(agents.size());
+        for (Agent agent : agents) {
+            agentFutures.add(executeCommandOnAgent(agent.getAgentId(), shellCommand));
+        }
+        long deadline = System.currentTimeMillis() + BROADCAST_TIMEOUT_MILLIS;
+        List<AgentCommandResponse> agentResponses = new ArrayList<>(agents.size());
+        for (int i = 0; i < agents.size(); i++) {
+            String agentId = agents.get(i).getAgentId();
+            try {
+                agentResponses.add(agentFutures.get(i).get(
+                        Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS));
+            } catch (TimeoutException e) {
+                agentResponses.add(failedResponse(agentId, "Time-out hit while waiting for the tinkerer command"));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                agentResponses.add(failedResponse(agentId, "Interrupted while waiting for the tinkerer command"));
+            } catch (ExecutionException e) {
+                agentResponses.add(failedResponse(agentId, e.getCause().getMessage()));
+            }
+        }
+        logAgentResponses(agentResponses);
+        return agentResponses;
+    }
+
+    /**
+     * Send a command to all the tinkerer agents belongs to a given test-plan in parallel.
+     * <p>
+     * The result of an agent is collected once the agent completes the command, without polling. A failure on an
+     * agent does not fail the broadcast, but is reported as the result of the agent with exit value -1.
+     *
+     * @param testPlanId test-plan-id
+     * @param shellCommand shell command wants to be executed
+     * @return future completed with the results of the agents once all of them complete the command
+     */
+    public CompletableFuture<List<AgentCommandResponse>> broadcastShellCommandAsync(String testPlanId,
+                                                                                  String shellCommand) {
         List<String> activeTestPlans = this.getAllTestPlanIds();
-        if (activeTestPlans != null && activeTestPlans.contains(testPlanId)) {
-            List<Agent> agentList = this.getAgentListByTestPlanId(testPlanId);
-            List<AsyncCommandResponse> asyncCommandResponses = new ArrayList<>();
-            agentList.forEach(agent -> asyncCommandResponses
-                    .add(this.executeCommandAsync(agent.getAgentId(), shellCommand)));
-            logger.info("Waiting till shell commands sent via tinkerer are executed in the nodes.");
-            boolean finishShellCommands = false;
-            long endTime = System.currentTimeMillis() + broadcastShellCommandTimeoutInMills;
-            while (!finishShellCommands) {
-                finishShellCommands = true;
-                for (AsyncCommandResponse asyncCommandResponse : asyncCommandResponses) {
-                    if (!asyncCommandResponse.isCompleted()) {
-                        finishShellCommands = false;
-                        break;
-                    }
-                }
-                if (System.currentTimeMillis() > endTime) {
-                    logger.error("Time-out hit! Continuing without waiting further for tinkerer commands to complete.");
-                    finishShellCommands = true;
-                }
+        if (activeTestPlans == null || !activeTestPlans.contains(testPlanId)) {
+            logger.error("No registered tinkerer agents found for test-plan: " + testPlanId + ". Hence tinkerer " +
+                    "command is not executed.");
+            return CompletableFuture.completedFuture(new ArrayList<>());
+        }
+        return broadcastShellCommandAsync(this.getAgentListByTestPlanId(testPlanId), shellCommand);
+    }
+
+    /**
+     * Send a command to the given tinkerer agents in parallel.
+     * <p>
+     * The result of an agent is collected once the agent completes the command, without polling. A failure on an
+     * agent does not fail the broadcast, but is reported as the result of the agent with exit value -1.
+     *
+     * @param agents agents to execute the command
+     * @param shellCommand shell command wants to be executed
+     * @return future completed with the results of the agents, in the order of the given agents, once all of
+     * them complete the command
+     */
+    public CompletableFuture<List<AgentCommandResponse>> broadcastShellCommandAsync(List<Agent> agents,
+                                                                                  String shellCommand) {
+        List<CompletableFuture<AgentCommandResponse>> agentResponses = new ArrayList<>(agents.size());
+        for (Agent agent : agents) {
+            agentResponses.add(executeCommandOnAgent(agent.getAgentId(), shellCommand));
+        }
+        return CompletableFuture.allOf(agentResponses.toArray(new CompletableFuture[0]))
+                .thenApply(ignored -> agentResponses.stream()
+                        .map(CompletableFuture::join)
+                        .collect(Collectors.toList()));
+    }
+
+    private CompletableFuture<AgentCommandResponse> executeCommandOnAgent(String agentId, String shellCommand) {
+        long startTime = System.currentTimeMillis();
+        return CompletableFuture.supplyAsync(() -> executeCommandAsync(agentId, shellCommand), broadcastExecutor)
+                .thenCompose(asyncResponse -> asyncResponse.getCompletion().thenApplyAsync(
+                        exitValue -> readAgentResponse(agentId, asyncResponse, exitValue), broadcastExecutor))
+                .exceptionally(e -> {
+                    logger.error("Error while executing tinkerer command on agent " + agentId, e);
+                    return failedResponse(agentId, e.getMessage());
+                })
+                .thenApply(agentResponse -> {
+                    agentResponse.setExecutionTime(System.currentTimeMillis() - startTime);
+                    return agentResponse;
+                });
+    }
+
+    private static AgentCommandResponse failedResponse(String agentId, String message) {
+        AgentCommandResponse agentResponse = new AgentCommandResponse(agentId);
+        agentResponse.setExitValue(-1);
+        agentResponse.setResponse(message);
+        return agentResponse;
+    }
+
+    private static void logAgentResponses(List<AgentCommandResponse> agentResponses) {
+        for (AgentCommandResponse agentResponse : agentResponses) {
+            String message = StringUtil.concatStrings("Tinkerer command completed on agent ",
+                    agentResponse.getAgentId(), " with exit value ", agentResponse.getExitValue(), " in ",
+                    agentResponse.getExecutionTime(), " ms");
+            if (agentResponse.getExitValue() == 0) {
+                logger.info(message);
+            } else {
+                logger.error(message);
             }
-        } else {
-        logger.error("No registered tinkerer agents found for test-plan: " + testPlanId + ". Hence tinkerer" +
-                "command is not executed.");
         }
     }
-}
 
+    private AgentCommandResponse readAgentResponse(String agentId, AsyncCommandResponse asyncResponse,
+                                                   int exitValue) {
+        StringBuilder output = new StringBuilder();
+        while (asyncResponse.hasMoreContent()) {
+            output.append(asyncResponse.readLines());
+        }
+        try {
+            asyncResponse.endReadStream();
+        } catch (TinkererOperationException e) {
+            logger.warn("Error while removing persisted result of operation " + asyncResponse.getOperationId(), e);
+        }
+        AgentCommandResponse agentResponse = new AgentCommandResponse(agentId);
+        agentResponse.setOperationId(asyncResponse.getOperationId());
+        agentResponse.setExitValue(exitValue);
+        agentResponse.setResponse(output.toString());
+        return agentResponse;
+    }
+
+    /**
+     * Holds the client shared by the requests to the tinkerer. Jersey clients are thread-safe and costly to
+     * create, and connections of a client are kept alive to be reused.
+     */
+    private static class ClientHolder {
+        private static final Client client = ClientBuilder.newClient();
+    }
+}
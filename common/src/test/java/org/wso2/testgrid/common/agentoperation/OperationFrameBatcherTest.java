@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.testgrid.common.agentoperation;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests that the {@link OperationFrameBatcher} sends a frame once the batch is full, once the batch delay has
+ * elapsed, and right away on a completed segment.
+ */
+public class OperationFrameBatcherTest {
+
+    private static final int BATCH_LENGTH = 10;
+    private static final long BATCH_DELAY = 200;
+    private static final long WAIT_MILLIS = 5000;
+
+    private final BlockingQueue<ByteBuffer> frames = new LinkedBlockingQueue<>();
+    private ScheduledExecutorService scheduler;
+
+    @BeforeMethod
+    public void setUp() {
+        frames.clear();
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void testFlushOnBatchLength() throws IOException {
+        OperationFrameBatcher batcher = new OperationFrameBatcher(false, BATCH_LENGTH, WAIT_MILLIS, scheduler,
+                frames::add);
+        OperationSegment first = createSegment("12345", false);
+        OperationSegment second = createSegment("67890", false);
+        batcher.add(first);
+        Assert.assertTrue(frames.isEmpty(), "Frame is sent before the batch is full");
+
+        batcher.add(second);
+        Assert.assertEquals(frames.size(), 1);
+        OperationFrameCodecTest.assertSegments(decode(frames.remove()), Arrays.asList(first, second));
+    }
+
+    @Test
+    public void testFlushOnBatchDelay() throws IOException, InterruptedException {
+        OperationFrameBatcher batcher = new OperationFrameBatcher(true, BATCH_LENGTH, BATCH_DELAY, scheduler,
+                frames::add);
+        OperationSegment segment = createSegment("1", false);
+        long startTime = System.nanoTime();
+        batcher.add(segment);
+        Assert.assertTrue(frames.isEmpty(), "Frame is sent before the batch delay");
+
+        ByteBuffer frame = frames.poll(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        Assert.assertNotNull(frame, "Frame is not sent after the batch delay");
+        Assert.assertTrue(System.nanoTime() - startTime >= TimeUnit.MILLISECONDS.toNanos(BATCH_DELAY));
+        Assert.assertEquals(frame.get(frame.position() + 1), OperationFrameCodec.FLAG_DEFLATE);
+        OperationFrameCodecTest.assertSegments(decode(frame), Arrays.asList(segment));
+    }
+
+    @Test
+    public void testFlushOnCompletedSegment() throws IOException, InterruptedException {
+        OperationFrameBatcher batcher = new OperationFrameBatcher(false, BATCH_LENGTH, BATCH_DELAY, scheduler,
+                frames::add);
+        OperationSegment output = createSegment("1", false);
+        OperationSegment completed = createSegment("", true);
+        batcher.add(output);
+        batcher.add(completed);
+        Assert.assertEquals(frames.size(), 1);
+        OperationFrameCodecTest.assertSegments(decode(frames.remove()), Arrays.asList(output, completed));
+
+        // the scheduled flush of the sent batch does not send another frame
+        Assert.assertNull(frames.poll(2 * BATCH_DELAY, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testFlush() throws IOException {
+        OperationFrameBatcher batcher = new OperationFrameBatcher(false, BATCH_LENGTH, WAIT_MILLIS, scheduler,
+                frames::add);
+        batcher.flush();
+        Assert.assertTrue(frames.isEmpty(), "Frame is sent without segments");
+
+        OperationSegment segment = createSegment(null, false);
+        batcher.add(segment);
+        batcher.flush();
+        Assert.assertEquals(frames.size(), 1);
+        OperationFrameCodecTest.assertSegments(decode(frames.remove()), Arrays.asList(segment));
+    }
+
+    private static List<OperationSegment> decode(ByteBuffer frame) throws IOException {
+        byte[] bytes = new byte[frame.remaining()];
+        frame.get(bytes);
+        return OperationFrameCodec.decode(bytes);
+    }
+
+    private static OperationSegment createSegment(String response, boolean completed) {
+        OperationSegment segment = new OperationSegment();
+        segment.setOperationId("operation-1");
+        segment.setCode(Operation.OperationCode.SHELL);
+        segment.setCompleted(completed);
+        segment.setResponse(response);
+        return segment;
+    }
+}
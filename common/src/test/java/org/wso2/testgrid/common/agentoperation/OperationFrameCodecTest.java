@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.testgrid.common.agentoperation;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests encoding operation segments into {@link OperationFrameCodec} frames and decoding them back.
+ */
+public class OperationFrameCodecTest {
+
+    @Test
+    public void testSubprotocols() {
+        Assert.assertTrue(OperationFrameCodec.isFramed(OperationFrameCodec.FRAMED_SUBPROTOCOL));
+        Assert.assertTrue(OperationFrameCodec.isFramed(OperationFrameCodec.DEFLATE_FRAMED_SUBPROTOCOL));
+        Assert.assertFalse(OperationFrameCodec.isFramed(""));
+        Assert.assertFalse(OperationFrameCodec.isFramed(null));
+        Assert.assertTrue(OperationFrameCodec.isDeflated(OperationFrameCodec.DEFLATE_FRAMED_SUBPROTOCOL));
+        Assert.assertFalse(OperationFrameCodec.isDeflated(OperationFrameCodec.FRAMED_SUBPROTOCOL));
+    }
+
+    @Test
+    public void testFramedSegments() throws IOException {
+        List<OperationSegment> segments = createSegments();
+        byte[] frame = OperationFrameCodec.encode(segments, false);
+
+        Assert.assertEquals(frame[0], OperationFrameCodec.VERSION);
+        Assert.assertEquals(frame[1], 0);
+        assertSegments(OperationFrameCodec.decode(frame), segments);
+    }
+
+    @Test
+    public void testDeflatedSegments() throws IOException {
+        List<OperationSegment> segments = createSegments();
+        byte[] frame = OperationFrameCodec.encode(segments, true);
+
+        Assert.assertEquals(frame[0], OperationFrameCodec.VERSION);
+        Assert.assertEquals(frame[1], OperationFrameCodec.FLAG_DEFLATE);
+        Assert.assertTrue(frame.length < OperationFrameCodec.encode(segments, false).length,
+                "Deflated frame is not smaller than the plain frame");
+        assertSegments(OperationFrameCodec.decode(frame), segments);
+    }
+
+    @Test
+    public void testFrameWithoutSegments() throws IOException {
+        for (boolean deflate : new boolean[] { false, true }) {
+            byte[] frame = OperationFrameCodec.encode(Collections.emptyList(), deflate);
+            Assert.assertTrue(OperationFrameCodec.decode(frame).isEmpty());
+        }
+    }
+
+    @Test
+    public void testTruncatedFrames() {
+        for (boolean deflate : new boolean[] { false, true }) {
+            byte[] frame = OperationFrameCodec.encode(createSegments(), deflate);
+            for (int length : new int[] { 0, 1, 2, 5, frame.length / 2, frame.length - 1 }) {
+                assertMalformed(Arrays.copyOf(frame, length));
+            }
+        }
+    }
+
+    @Test
+    public void testCorruptFrames() {
+        byte[] frame = OperationFrameCodec.encode(createSegments(), false);
+
+        byte[] unknownVersion = frame.clone();
+        unknownVersion[0] = OperationFrameCodec.VERSION + 1;
+        assertMalformed(unknownVersion);
+
+        byte[] negativeCount = frame.clone();
+        Arrays.fill(negativeCount, 2, 6, (byte) 0xFF);
+        assertMalformed(negativeCount);
+
+        // the code of the first segment follows its operation id
+        byte[] unknownCode = OperationFrameCodec.encode(Collections.singletonList(
+                createSegment(null, Operation.OperationCode.PING, true, 0, "ACK")), false);
+        unknownCode[7] = (byte) Operation.OperationCode.values().length;
+        assertMalformed(unknownCode);
+
+        assertMalformed(Arrays.copyOf(frame, frame.length + 1));
+
+        byte[] corruptDeflate = OperationFrameCodec.encode(createSegments(), true);
+        Arrays.fill(corruptDeflate, 2, corruptDeflate.length, (byte) 0x5A);
+        assertMalformed(corruptDeflate);
+    }
+
+    private static void assertMalformed(byte[] frame) {
+        try {
+            OperationFrameCodec.decode(frame);
+            Assert.fail("Malformed frame of " + frame.length + " bytes is decoded");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    private static List<OperationSegment> createSegments() {
+        StringBuilder output = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            output.append("INFO line ").append(i).append(" of the command output\n");
+        }
+        List<OperationSegment> segments = new ArrayList<>();
+        segments.add(createSegment("operation-1", Operation.OperationCode.SHELL, false, 0, output.toString()));
+        segments.add(createSegment("operation-1", Operation.OperationCode.SHELL, false, 0,
+                "non-ASCII \u00e9\u4e2d"));
+        segments.add(createSegment("operation-2", null, false, 0, null));
+        segments.add(createSegment(null, Operation.OperationCode.ABORT, false, 0, ""));
+        segments.add(createSegment("operation-1", Operation.OperationCode.SHELL, true, 127, "exit"));
+        return segments;
+    }
+
+    private static OperationSegment createSegment(String operationId, Operation.OperationCode code,
+                                                  boolean completed, int exitValue, String response) {
+        OperationSegment segment = new OperationSegment();
+        segment.setOperationId(operationId);
+        segment.setCode(code);
+        segment.setCompleted(completed);
+        segment.setExitValue(exitValue);
+        segment.setResponse(response);
+        return segment;
+    }
+
+    static void assertSegments(List<OperationSegment> actual, List<OperationSegment> expected) {
+        Assert.assertEquals(actual.size(), expected.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertEquals(actual.get(i).getOperationId(), expected.get(i).getOperationId());
+            Assert.assertEquals(actual.get(i).getCode(), expected.get(i).getCode());
+            Assert.assertEquals(actual.get(i).getCompleted(), expected.get(i).getCompleted());
+            Assert.assertEquals(actual.get(i).getExitValue(), expected.get(i).getExitValue());
+            Assert.assertEquals(actual.get(i).getResponse(), expected.get(i).getResponse());
+        }
+    }
+}
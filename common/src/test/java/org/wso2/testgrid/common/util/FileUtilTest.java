@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.testgrid.common.util;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Tests the archives made by {@link FileUtil}.
+ */
+public class FileUtilTest {
+
+    private Path directory;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("file-util");
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(directory.toFile());
+    }
+
+    @Test
+    public void testCompressFilesAddsToExistingArchive() throws Exception {
+        Path first = write("first.jtl", "first");
+        Path second = write("second.jtl", "second");
+        String archive = directory.resolve("results.zip").toString();
+        FileUtil.compressFiles(Arrays.asList(first.toString(), second.toString()), archive);
+
+        write("first.jtl", "first, run again");
+        Path third = write("third.jtl", "third");
+        FileUtil.compressFiles(Arrays.asList(first.toString(), third.toString()), archive);
+
+        Map<String, String> entries = new HashMap<>();
+        try (ZipFile zipFile = new ZipFile(archive)) {
+            for (ZipEntry entry : Collections.list(zipFile.entries())) {
+                try (InputStream inputStream = zipFile.getInputStream(entry)) {
+                    entries.put(entry.getName(), IOUtils.toString(inputStream, StandardCharsets.UTF_8));
+                }
+            }
+        }
+        Map<String, String> expected = new HashMap<>();
+        expected.put("first.jtl", "first, run again");
+        expected.put("second.jtl", "second");
+        expected.put("third.jtl", "third");
+        Assert.assertEquals(entries, expected);
+    }
+
+    private Path write(String name, String content) throws IOException {
+        return Files.write(directory.resolve(name), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.testgrid.common.util;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Tests the expiry, eviction and invalidation of the {@link S3LayoutCache}.
+ */
+public class S3LayoutCacheTest {
+
+    private static final long TTL = 1000;
+    private static final long NEGATIVE_TTL = 100;
+    private static final String FALLBACK = "fallback";
+
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicInteger resolutions = new AtomicInteger();
+    private S3LayoutCache cache;
+
+    @BeforeMethod
+    public void setUp() {
+        clock.set(1000000);
+        resolutions.set(0);
+        cache = new S3LayoutCache(2, TTL, NEGATIVE_TTL, clock::get);
+    }
+
+    @Test
+    public void testFoundPathExpiresAfterTtl() {
+        Assert.assertEquals(cache.resolve("tp1/logs", resolver("path-1"), FALLBACK), "path-1");
+        clock.addAndGet(TTL - 1);
+        Assert.assertEquals(cache.resolve("tp1/logs", resolver("path-2"), FALLBACK), "path-1");
+        Assert.assertEquals(resolutions.get(), 1);
+
+        clock.addAndGet(1);
+        Assert.assertEquals(cache.resolve("tp1/logs", resolver("path-2"), FALLBACK), "path-2");
+        Assert.assertEquals(resolutions.get(), 2);
+    }
+
+    @Test
+    public void testMissingPathExpiresAfterNegativeTtl() {
+        Assert.assertEquals(cache.resolve("tp1/logs", resolver(null), FALLBACK), FALLBACK);
+        clock.addAndGet(NEGATIVE_TTL - 1);
+        Assert.assertEquals(cache.resolve("tp1/logs", resolver("path-1"), FALLBACK), FALLBACK);
+        Assert.assertEquals(resolutions.get(), 1);
+
+        clock.addAndGet(1);
+        Assert.assertEquals(cache.resolve("tp1/logs", resolver("path-1"), FALLBACK), "path-1");
+        Assert.assertEquals(resolutions.get(), 2);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedPathIsEvicted() {
+        cache.resolve("tp1/logs", resolver("path-1"), FALLBACK);
+        cache.resolve("tp2/logs", resolver("path-2"), FALLBACK);
+        // tp1 is used after tp2, hence tp2 is evicted by tp3
+        cache.resolve("tp1/logs", resolver("unused"), FALLBACK);
+        cache.resolve("tp3/logs", resolver("path-3"), FALLBACK);
+        Assert.assertEquals(resolutions.get(), 3);
+
+        Assert.assertEquals(cache.resolve("tp1/logs", resolver("unused"), FALLBACK), "path-1");
+        Assert.assertEquals(cache.resolve("tp2/logs", resolver("path-2-again"), FALLBACK), "path-2-again");
+        Assert.assertEquals(resolutions.get(), 4);
+    }
+
+    @Test
+    public void testInvalidateRemovesPathsOfPrefix() {
+        cache.resolve("tp1/logs", resolver("path-1"), FALLBACK);
+        cache.resolve("tp10/logs", resolver("path-10"), FALLBACK);
+        cache.invalidate("tp1/");
+
+        Assert.assertEquals(cache.resolve("tp1/logs", resolver("path-1-again"), FALLBACK), "path-1-again");
+        Assert.assertEquals(cache.resolve("tp10/logs", resolver("unused"), FALLBACK), "path-10");
+        Assert.assertEquals(resolutions.get(), 3);
+    }
+
+    @Test
+    public void testDisabledCacheResolvesEveryTime() {
+        S3LayoutCache disabledCache = new S3LayoutCache(0, TTL, NEGATIVE_TTL, clock::get);
+        disabledCache.resolve("tp1/logs", resolver("path-1"), FALLBACK);
+        Assert.assertEquals(disabledCache.resolve("tp1/logs", resolver(null), FALLBACK), FALLBACK);
+        Assert.assertEquals(resolutions.get(), 2);
+    }
+
+    private Supplier<String> resolver(String path) {
+        return () -> {
+            resolutions.incrementAndGet();
+            return path;
+        };
+    }
+}
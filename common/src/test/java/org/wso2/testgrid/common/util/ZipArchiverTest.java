@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.testgrid.common.util;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Tests that the archives written by {@link ZipArchiver} are read back by {@link ZipInputStream} and
+ * {@link ZipFile} with the content of the archived files.
+ */
+public class ZipArchiverTest {
+
+    private static final int LEVEL = 6;
+    private static final int THREADS = 4;
+
+    private Path directory;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("zip-archiver");
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(directory.toFile());
+    }
+
+    @Test
+    public void testFileLargerThanOneBlock() throws IOException {
+        byte[] content = text(2 * ZipArchiver.BLOCK_SIZE + 12345, 1);
+        Path file = write("results/scenario.jtl", content);
+        Path archive = directory.resolve("archive.zip");
+
+        new ZipArchiver(LEVEL, THREADS).archiveFiles(Collections.singletonList(file), archive);
+
+        Map<String, byte[]> entries = read(archive);
+        Assert.assertEquals(entries.keySet(), Collections.singleton("scenario.jtl"));
+        Assert.assertEquals(entries.get("scenario.jtl"), content);
+        try (ZipFile zipFile = new ZipFile(archive.toFile())) {
+            ZipEntry entry = zipFile.getEntry("scenario.jtl");
+            Assert.assertEquals(entry.getMethod(), ZipEntry.DEFLATED);
+            Assert.assertEquals(entry.getSize(), content.length);
+            Assert.assertTrue(entry.getCompressedSize() < content.length, "File is not deflated");
+            Assert.assertEquals(entry.getCrc(), crc(content, 0, content.length));
+        }
+    }
+
+    @Test
+    public void testDirectoryWithEmptyFiles() throws IOException {
+        byte[] content = text(ZipArchiver.BLOCK_SIZE, 2);
+        write("logs/empty.log", new byte[0]);
+        write("dumps/empty.gz", new byte[0]);
+        write("logs/wso2carbon.log", content);
+        Path archive = directory.resolve("archive.zip");
+
+        new ZipArchiver(LEVEL, THREADS).archiveDirectory(directory, archive);
+
+        Map<String, byte[]> entries = read(archive);
+        Assert.assertEquals(entries.size(), 3);
+        Assert.assertEquals(entries.get("logs/empty.log"), new byte[0]);
+        Assert.assertEquals(entries.get("dumps/empty.gz"), new byte[0]);
+        Assert.assertEquals(entries.get("logs/wso2carbon.log"), content);
+    }
+
+    @Test
+    public void testCompressedFilesAreStored() throws IOException {
+        byte[] dump = new byte[ZipArchiver.BLOCK_SIZE + ZipArchiver.BLOCK_SIZE / 2];
+        new Random(3).nextBytes(dump);
+        byte[] log = text(1000, 4);
+        Path archive = directory.resolve("archive.zip");
+
+        new ZipArchiver(LEVEL, THREADS).archiveFiles(Arrays.asList(write("heap.GZ", dump), write("a.log", log)),
+                archive);
+
+        Assert.assertEquals(read(archive).get("heap.GZ"), dump);
+        Assert.assertEquals(read(archive).get("a.log"), log);
+        try (ZipFile zipFile = new ZipFile(archive.toFile())) {
+            Assert.assertEquals(zipFile.getEntry("heap.GZ").getMethod(), ZipEntry.STORED);
+            Assert.assertEquals(zipFile.getEntry("a.log").getMethod(), ZipEntry.DEFLATED);
+        }
+    }
+
+    @Test
+    public void testFilesAreStoredAtLevelZero() throws IOException {
+        byte[] content = text(ZipArchiver.BLOCK_SIZE + 1, 5);
+        Path archive = directory.resolve("archive.zip");
+
+        new ZipArchiver(0, THREADS).archiveFiles(Collections.singletonList(write("a.log", content)), archive);
+
+        Assert.assertEquals(read(archive).get("a.log"), content);
+        try (ZipFile zipFile = new ZipFile(archive.toFile())) {
+            Assert.assertEquals(zipFile.getEntry("a.log").getMethod(), ZipEntry.STORED);
+        }
+    }
+
+    @Test
+    public void testDuplicateNamesAreSkipped() throws IOException {
+        Path first = write("first/result.xml", "first".getBytes(StandardCharsets.UTF_8));
+        Path second = write("second/result.xml", "second".getBytes(StandardCharsets.UTF_8));
+        Path archive = directory.resolve("archive.zip");
+
+        new ZipArchiver(LEVEL, THREADS).archiveFiles(Arrays.asList(first, second), archive);
+
+        Map<String, byte[]> entries = read(archive);
+        Assert.assertEquals(entries.size(), 1);
+        Assert.assertEquals(new String(entries.get("result.xml"), StandardCharsets.UTF_8), "first");
+    }
+
+    @Test
+    public void testCombinedCrcMatchesCrcOfConcatenation() {
+        byte[] content = new byte[3 * 65536 + 7];
+        new Random(6).nextBytes(content);
+        for (int split : new int[] { 0, 1, 4096, 65536, content.length - 1, content.length }) {
+            long combined = ZipArchiver.combineCrc(crc(content, 0, split), crc(content, split, content.length - split),
+                    content.length - split);
+            Assert.assertEquals(combined, crc(content, 0, content.length), "Combined CRC of split " + split);
+        }
+    }
+
+    @Test
+    public void testZip64Threshold() throws IOException {
+        int threshold = 1000;
+        byte[] small = text(threshold - 1, 7);
+        byte[] large = text(threshold, 8);
+        Path smallArchive = directory.resolve("small.zip");
+        Path largeArchive = directory.resolve("large.zip");
+        ZipArchiver archiver = new ZipArchiver(LEVEL, THREADS, threshold);
+
+        archiver.archiveFiles(Collections.singletonList(write("small.log", small)), smallArchive);
+        archiver.archiveFiles(Collections.singletonList(write("large.log", large)), largeArchive);
+
+        // version needed to extract, in the local header of the first entry
+        Assert.assertEquals(Files.readAllBytes(smallArchive)[4], 20);
+        Assert.assertEquals(Files.readAllBytes(largeArchive)[4], 45);
+        Assert.assertEquals(read(smallArchive).get("small.log"), small);
+        Assert.assertEquals(read(largeArchive).get("large.log"), large);
+        try (ZipFile zipFile = new ZipFile(largeArchive.toFile())) {
+            ZipEntry entry = zipFile.getEntry("large.log");
+            Assert.assertEquals(entry.getSize(), large.length);
+            Assert.assertEquals(entry.getCrc(), crc(large, 0, large.length));
+            try (InputStream inputStream = zipFile.getInputStream(entry)) {
+                Assert.assertEquals(readFully(inputStream), large);
+            }
+        }
+    }
+
+    private Path write(String name, byte[] content) throws IOException {
+        Path file = directory.resolve(name);
+        Files.createDirectories(file.getParent());
+        return Files.write(file, content);
+    }
+
+    /**
+     * Reads the entries of the given archive with a {@link ZipInputStream}, which verifies their sizes and CRCs.
+     */
+    private static Map<String, byte[]> read(Path archive) throws IOException {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        try (ZipInputStream zipInputStream = new ZipInputStream(Files.newInputStream(archive))) {
+            ZipEntry entry;
+            while ((entry = zipInputStream.getNextEntry()) != null) {
+                entries.put(entry.getName(), readFully(zipInputStream));
+            }
+        }
+        return entries;
+    }
+
+    private static byte[] readFully(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int length;
+        while ((length = inputStream.read(buffer)) != -1) {
+            content.write(buffer, 0, length);
+        }
+        return content.toByteArray();
+    }
+
+    /**
+     * Returns log like text of the given length, which is compressible but differs from block to block.
+     */
+    private static byte[] text(int length, long seed) {
+        Random random = new Random(seed);
+        StringBuilder text = new StringBuilder(length + 100);
+        while (text.length() < length) {
+            text.append("INFO {org.wso2.carbon.Sample} - request ").append(random.nextInt(100000))
+                    .append(" completed in ").append(random.nextInt(1000)).append(" ms\n");
+        }
+        return text.substring(0, length).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static long crc(byte[] content, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(content, offset, length);
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.testgrid.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.testgrid.common.Status;
+import org.wso2.testgrid.common.config.ScenarioConfig;
+import org.wso2.testgrid.common.util.StringUtil;
+import org.wso2.testgrid.core.exception.TestPlanExecutorException;
+import org.wso2.testgrid.dao.EntityManagerHelper;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Schedules the {@link ScenarioConfig}s of a test plan with a bounded level of concurrency.
+ * <p>
+ * Scenario configs are independent by default and run in parallel up to the configured limit.
+ * The ordering between them can be constrained with the {@code dependsOn} hint in the testgrid.yaml.
+ * Scenario configs that share the same output directory are always run one after the other
+ * (in the order they are defined) since they write into the same data bucket location.
+ *
+ * @since 1.0.0
+ */
+public class ScenarioConfigScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScenarioConfigScheduler.class);
+    private final int concurrency;
+
+    /**
+     * Creates a scheduler which runs at most the given number of scenario configs at once.
+     *
+     * @param concurrency maximum number of scenario configs to run concurrently
+     */
+    public ScenarioConfigScheduler(int concurrency) {
+        this.concurrency = Math.max(1, concurrency);
+    }
+
+    /**
+     * Runs the given task for each of the scenario configs, honoring the dependencies between them.
+     * This method blocks until all the scheduled tasks are completed.
+     * <p>
+     * If a task fails, the scenario configs that depend on it are not run and are marked as
+     * {@link Status#DID_NOT_RUN}. The first failure (in the order of the scenario configs) is re-thrown
+     * once all the other tasks are completed.
+     *
+     * @param scenarioConfigs scenario configs to run
+     * @param task            the task to run for each scenario config
+     * @throws TestPlanExecutorException if the dependencies are invalid, or if a task fails
+     */
+    public void schedule(List<ScenarioConfig> scenarioConfigs, ScenarioConfigTask task)
+            throws TestPlanExecutorException {
+        if (scenarioConfigs.isEmpty()) {
+            return;
+        }
+        Map<ScenarioConfig, Set<ScenarioConfig>> dependencies = resolveDependencies(scenarioConfigs);
+        List<ScenarioConfig> executionOrder = sortTopologically(scenarioConfigs, dependencies);
+
+        int poolSize = Math.min(concurrency, scenarioConfigs.size());
+        logger.info(StringUtil.concatStrings("Running ", scenarioConfigs.size(), " scenario config(s) with a "
+                + "concurrency of ", poolSize));
+        ExecutorService executorService = Executors.newFixedThreadPool(poolSize, new ScenarioThreadFactory());
+        Map<ScenarioConfig, CompletableFuture<Void>> futures = new HashMap<>();
+        try {
+            for (ScenarioConfig scenarioConfig : executionOrder) {
+                CompletableFuture<?>[] upstream = dependencies.get(scenarioConfig).stream()
+                        .map(futures::get)
+                        .toArray(CompletableFuture[]::new);
+                CompletableFuture<Void> future = CompletableFuture.allOf(upstream)
+                        .handle((result, throwable) -> throwable)
+                        .thenAcceptAsync(upstreamFailure -> {
+                            if (upstreamFailure != null) {
+                                scenarioConfig.setStatus(Status.DID_NOT_RUN);
+                                throw new CompletionException(new TestPlanExecutorException(
+                                        StringUtil.concatStrings("Scenario config ", scenarioConfig.getName(),
+                                                " did not run since one of its dependencies failed.")));
+                            }
+                            run(scenarioConfig, task);
+                        }, executorService);
+                futures.put(scenarioConfig, future);
+            }
+
+            TestPlanExecutorException failure = null;
+            for (ScenarioConfig scenarioConfig : scenarioConfigs) {
+                try {
+                    futures.get(scenarioConfig).join();
+                } catch (CompletionException e) {
+                    logger.error("Error while running scenario config " + scenarioConfig.getName(), e.getCause());
+                    if (failure == null) {
+                        failure = e.getCause() instanceof TestPlanExecutorException ?
+                                (TestPlanExecutorException) e.getCause() :
+                                new TestPlanExecutorException("Error while running scenario config "
+                                        + scenarioConfig.getName(), e.getCause());
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * Runs the task of a single scenario config.
+     *
+     * @param scenarioConfig scenario config to run
+     * @param task           the task to run
+     */
+    private void run(ScenarioConfig scenarioConfig, ScenarioConfigTask task) {
+        long startTime = System.currentTimeMillis();
+        logger.info("Started running scenario config " + scenarioConfig.getName());
+        try {
+            task.run(scenarioConfig);
+        } catch (TestPlanExecutorException e) {
+            throw new CompletionException(e);
+        } finally {
+            // the pool is discarded after the scenario configs, hence the entity manager of the thread is closed here
+            EntityManagerHelper.releaseEntityManager();
+            logger.info(StringUtil.concatStrings("Finished running scenario config ", scenarioConfig.getName(),
+                    " in ", StringUtil.getHumanReadableTimeDiff(System.currentTimeMillis() - startTime)));
+        }
+    }
+
+    /**
+     * Resolves the set of scenario configs each scenario config depends on. This includes the explicit
+     * dependencies declared via {@link ScenarioConfig#getDependsOn()}, and the implicit dependency to the
+     * previous scenario config that writes into the same output directory.
+     *
+     * @param scenarioConfigs scenario configs of the test plan
+     * @return dependencies of each scenario config
+     * @throws TestPlanExecutorException if a dependency cannot be resolved
+     */
+    private Map<ScenarioConfig, Set<ScenarioConfig>> resolveDependencies(List<ScenarioConfig> scenarioConfigs)
+            throws TestPlanExecutorException {
+        Map<String, List<ScenarioConfig>> configsByName = new HashMap<>();
+        for (ScenarioConfig scenarioConfig : scenarioConfigs) {
+            configsByName.computeIfAbsent(scenarioConfig.getName(), name -> new ArrayList<>()).add(scenarioConfig);
+        }
+
+        Map<ScenarioConfig, Set<ScenarioConfig>> dependencies = new HashMap<>();
+        Map<String, ScenarioConfig> lastConfigByOutputDir = new HashMap<>();
+        for (ScenarioConfig scenarioConfig : scenarioConfigs) {
+            Set<ScenarioConfig> dependsOn = new LinkedHashSet<>();
+            for (String dependencyName : scenarioConfig.getDependsOn()) {
+                List<ScenarioConfig> matches = configsByName.get(dependencyName);
+                if (matches == null) {
+                    throw new TestPlanExecutorException(StringUtil.concatStrings("Scenario config ",
+                            scenarioConfig.getName(), " depends on an unknown scenario config: ", dependencyName));
+                } else if (matches.size() > 1) {
+                    throw new TestPlanExecutorException(StringUtil.concatStrings("Scenario config ",
+                            scenarioConfig.getName(), " depends on ", dependencyName,
+                            " which is defined more than once."));
+                }
+                dependsOn.add(matches.get(0));
+            }
+            ScenarioConfig previous = lastConfigByOutputDir.put(scenarioConfig.getOutputDir(), scenarioConfig);
+            if (previous != null) {
+                dependsOn.add(previous);
+            }
+            dependsOn.remove(scenarioConfig);
+            dependencies.put(scenarioConfig, dependsOn);
+        }
+        return dependencies;
+    }
+
+    /**
+     * Sorts the scenario configs so that each appears after all of its dependencies. The order in the
+     * testgrid.yaml is preserved among scenario configs that do not depend on each other.
+     *
+     * @param scenarioConfigs scenario configs of the test plan
+     * @param dependencies    dependencies of each scenario config
+     * @return scenario configs in an order that can be scheduled
+     * @throws TestPlanExecutorException if there is a cyclic dependency
+     */
+    private List<ScenarioConfig> sortTopologically(List<ScenarioConfig> scenarioConfigs,
+            Map<ScenarioConfig, Set<ScenarioConfig>> dependencies) throws TestPlanExecutorException {
+        List<ScenarioConfig> sorted = new ArrayList<>();
+        List<ScenarioConfig> remaining = new ArrayList<>(scenarioConfigs);
+        while (!remaining.isEmpty()) {
+            ScenarioConfig next = null;
+            for (ScenarioConfig scenarioConfig : remaining) {
+                if (sorted.containsAll(dependencies.get(scenarioConfig))) {
+                    next = scenarioConfig;
+                    break;
+                }
+            }
+            if (next == null) {
+                throw new TestPlanExecutorException(StringUtil.concatStrings(
+                        "Cyclic dependency found among the scenario configs: ", remaining.stream()
+                                .map(ScenarioConfig::getName).reduce((a, b) -> a + ", " + b).orElse("")));
+            }
+            sorted.add(next);
+            remaining.remove(next);
+        }
+        return sorted;
+    }
+
+    /**
+     * A task to be run for a scenario config.
+     */
+    @FunctionalInterface
+    public interface ScenarioConfigTask {
+
+        /**
+         * Runs the task for the given scenario config.
+         *
+         * @param scenarioConfig scenario config
+         * @throws TestPlanExecutorException if the task fails
+         */
+        void run(ScenarioConfig scenarioConfig) throws TestPlanExecutorException;
+    }
+
+    /**
+     * Creates named daemon threads for running scenario configs.
+     */
+    private static class ScenarioThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadCount = new AtomicInteger(0);
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "scenario-runner-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
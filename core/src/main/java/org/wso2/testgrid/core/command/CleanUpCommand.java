@@ -18,6 +18,8 @@
 
 package org.wso2.testgrid.core.command;
 
+import com.google.common.util.concurrent.RateLimiter;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.http.entity.ContentType;
 import org.json.JSONArray;
@@ -29,8 +31,11 @@ import org.wso2.testgrid.common.HostValidator;
 import org.wso2.testgrid.common.TestPlan;
 import org.wso2.testgrid.common.config.ConfigurationContext;
 import org.wso2.testgrid.common.exception.CommandExecutionException;
+import org.wso2.testgrid.common.exception.TestGridException;
+import org.wso2.testgrid.common.util.S3ClientProvider;
 import org.wso2.testgrid.common.util.S3StorageUtil;
 import org.wso2.testgrid.common.util.StringUtil;
+import org.wso2.testgrid.dao.EntityManagerHelper;
 import org.wso2.testgrid.dao.TestGridDAOException;
 import org.wso2.testgrid.dao.uow.TestPlanUOW;
 
@@ -44,8 +49,17 @@ import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.SSLContext;
@@ -60,18 +74,27 @@ import static org.apache.http.protocol.HTTP.USER_AGENT;
  * This class is for data purging. This class will be used to purge testplans, grafana data sources and keep only a
  * specified number of testplans and grafana data sources for each infra combination in each job
  * It will not delete builds that are tagged as "keep forever"
+ * <p>
+ * The test plans are purged in batches. The S3 artifacts and the Grafana data sources of a batch are deleted
+ * concurrently (with a rate limit for each service), and the test plans of the batch which were purged are then
+ * deleted from the DB. The S3 artifacts of a test plan are deleted page by page with multi-object delete requests.
+ * Since the test plans to purge are recomputed on each run, an interrupted cleanup resumes from the first batch that
+ * was not deleted from the DB, and a test plan which could not be purged is kept in the DB and retried on the next
+ * run.
  */
 
 public class CleanUpCommand implements Command {
 
     private static final Logger logger = LoggerFactory.getLogger(CleanUpCommand.class);
-    private int status;
+    private volatile int status;
     private List<String> datasource;
     private String grafanaUrl = ConfigurationContext.getProperty
             (ConfigurationContext.ConfigurationProperties.GRAFANA_DATASOURCE);
     private String grafanaApikey =
             ConfigurationContext.getProperty(ConfigurationContext.ConfigurationProperties.GRAFANA_APIKEY);
     private List<String> toDelete = new ArrayList<String>();
+    private final AtomicLong s3ObjectCount = new AtomicLong();
+    private final AtomicLong s3ByteCount = new AtomicLong();
 
     @Option(name = "--keep",
             usage = "Builds to keep Count",
@@ -79,6 +102,22 @@ public class CleanUpCommand implements Command {
             required = true)
     private int remainingBuildCount = 100;
 
+    @Option(name = "--batch-size",
+            usage = "Number of test plans to purge at a time")
+    private int batchSize = 100;
+
+    @Option(name = "--purge-threads",
+            usage = "Number of concurrent S3 and Grafana purge requests")
+    private int purgeThreads = 4;
+
+    @Option(name = "--s3-rate",
+            usage = "Maximum number of test plans to purge from S3 per second")
+    private double s3PurgeRate = 5;
+
+    @Option(name = "--grafana-rate",
+            usage = "Maximum number of Grafana data sources to delete per second")
+    private double grafanaPurgeRate = 5;
+
 
 
     private TestPlanUOW testPlanUOW;
@@ -121,47 +160,112 @@ public class CleanUpCommand implements Command {
 
     @Override
     public void execute() throws CommandExecutionException {
+        if (batchSize <= 0) {
+            throw new CommandExecutionException("Batch size must be a positive number: " + batchSize);
+        }
 
         try {
             List<String> allTestPlans = testPlanUOW.getTestPlansToCleanup(remainingBuildCount);
             logger.info("number of testplans to delete: " + allTestPlans.size());
 
-
-            logger.info(StringUtil.concatStrings("Clearing S3 files except for the last ",
-                    remainingBuildCount, " builds"));
-            for (String deletingTestPlan : allTestPlans) {
-                deleteS3(deletingTestPlan);
-            }
-
-            logger.info(StringUtil.concatStrings("Deleting test plans from DB except for the last ",
-                    remainingBuildCount, " builds"));
-            testPlanUOW.deleteTestPlans(allTestPlans);
-
-            logger.info(StringUtil.concatStrings("Deleting Grafana Data Sources of test plans except " +
-                    "of the last ", remainingBuildCount, " builds"));
+            Set<String> grafanaDataSources = datasource == null ? new HashSet<>() : new HashSet<>(datasource);
             for (String deletingTestPlan : allTestPlans) {
-                if (datasource.contains(deletingTestPlan)) {
+                if (grafanaDataSources.contains(deletingTestPlan)) {
                     toDelete.add(deletingTestPlan);
                     logger.info(deletingTestPlan + " added to delete");
                 }
             }
-            if (grafanaUrl != null) {
-                for (String dataSource : toDelete) {
-                    logger.info("deleting data source: " + dataSource);
-                    this.clearDataSources(dataSource);
+            Set<String> dataSourcesToDelete = grafanaUrl == null ? new HashSet<>() : new HashSet<>(toDelete);
+
+            logger.info(StringUtil.concatStrings("Purging S3 files, Grafana data sources and DB entries of test "
+                    + "plans except for the last ", remainingBuildCount, " builds"));
+            RateLimiter s3RateLimiter = RateLimiter.create(s3PurgeRate);
+            RateLimiter grafanaRateLimiter = RateLimiter.create(grafanaPurgeRate);
+            ExecutorService purgeExecutor = Executors.newFixedThreadPool(Math.max(1, purgeThreads));
+            try {
+                int purged = 0;
+                int retained = 0;
+                for (int from = 0; from < allTestPlans.size(); from += batchSize) {
+                    List<String> batch = allTestPlans.subList(from, Math.min(from + batchSize,
+                            allTestPlans.size()));
+                    Map<String, List<Future<Boolean>>> purges = new LinkedHashMap<>();
+                    for (String deletingTestPlan : batch) {
+                        List<Future<Boolean>> testPlanPurges = new ArrayList<>();
+                        testPlanPurges.add(purgeExecutor.submit(() -> {
+                            s3RateLimiter.acquire();
+                            return deleteS3(deletingTestPlan);
+                        }));
+                        if (dataSourcesToDelete.contains(deletingTestPlan)) {
+                            testPlanPurges.add(purgeExecutor.submit(() -> {
+                                grafanaRateLimiter.acquire();
+                                logger.info("deleting data source: " + deletingTestPlan);
+                                return clearDataSources(deletingTestPlan);
+                            }));
+                        }
+                        purges.put(deletingTestPlan, testPlanPurges);
+                    }
+                    List<String> purgedTestPlans = awaitPurges(purges);
+                    retained += batch.size() - purgedTestPlans.size();
+
+                    if (!purgedTestPlans.isEmpty()) {
+                        purged += testPlanUOW.deleteTestPlans(purgedTestPlans);
+                    }
+                    logger.info(StringUtil.concatStrings("Purged ", from + batch.size(), " of ",
+                            allTestPlans.size(), " test plans (", purged, " deleted from DB)"));
+                }
+                logger.info(StringUtil.concatStrings("Deleted ", s3ObjectCount.get(), " files from S3, reclaiming ",
+                        FileUtils.byteCountToDisplaySize(s3ByteCount.get())));
+                if (retained > 0) {
+                    logger.warn(StringUtil.concatStrings(retained, " test plans were not deleted from DB since "
+                            + "their S3 files or Grafana data sources could not be purged. They are retried on the "
+                            + "next cleanup."));
                 }
+            } finally {
+                purgeExecutor.shutdownNow();
+                S3ClientProvider.shutdown();
             }
-
         } catch (TestGridDAOException e) {
             throw new CommandExecutionException("error while retrieving the data that needs to be deleted", e);
         }
     }
 
+    /**
+     * Waits for the given S3 and Grafana purges to complete. A failed purge is logged and does not stop
+     * the cleanup, but the test plan is left in the DB so that the purge is retried on the next cleanup.
+     *
+     * @param purges purges to wait for, by test plan id
+     * @return ids of the test plans all the purges of which succeeded
+     * @throws CommandExecutionException if interrupted while waiting
+     */
+    private List<String> awaitPurges(Map<String, List<Future<Boolean>>> purges) throws CommandExecutionException {
+        List<String> purgedTestPlans = new ArrayList<>(purges.size());
+        for (Map.Entry<String, List<Future<Boolean>>> testPlanPurges : purges.entrySet()) {
+            boolean purged = true;
+            for (Future<Boolean> purge : testPlanPurges.getValue()) {
+                try {
+                    purged &= purge.get();
+                } catch (ExecutionException e) {
+                    logger.error("Error while purging the data of test plan " + testPlanPurges.getKey(),
+                            e.getCause());
+                    purged = false;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new CommandExecutionException("Interrupted while purging test plan data", e);
+                }
+            }
+            if (purged) {
+                purgedTestPlans.add(testPlanPurges.getKey());
+            }
+        }
+        return purgedTestPlans;
+    }
+
     /**
      * This method will delete a given data source from grafana
      * @param datasource name of the datasource that need to be deleted
+     * @return true if the data source is deleted or does not exist, false otherwise
      */
-    private void clearDataSources(String datasource) {
+    private boolean clearDataSources(String datasource) {
         try {
             String url = "https://" + grafanaUrl + "/api/datasources/name/" + datasource;
 
@@ -181,6 +285,10 @@ public class CleanUpCommand implements Command {
             status = responseCode;
             if (responseCode == HttpURLConnection.HTTP_OK) {
                 logger.info("grafana Data Source deleted for testplan " + datasource);
+                return true;
+            } else if (responseCode == HttpURLConnection.HTTP_NOT_FOUND) {
+                logger.info("grafana Data Source already deleted for testplan " + datasource);
+                return true;
             } else {
                 logger.error(StringUtil.concatStrings("failed to delete grafana Data source ",
                         " Response Code ", responseCode));
@@ -194,7 +302,7 @@ public class CleanUpCommand implements Command {
         } catch (KeyManagementException e) {
             logger.error("Error while connecting to grafana server  ", e);
         }
-
+        return false;
     }
 
     /**
@@ -257,22 +365,32 @@ public class CleanUpCommand implements Command {
     /**
      * This method delete the files in s3 for a given test plan
      * @param testPlanId tes plan id of which the files need to be deleted
+     * @return true if the files are deleted or the test plan no longer exists, false otherwise
      * @throws TestGridDAOException
      */
-    public void deleteS3(String testPlanId) throws TestGridDAOException {
-
-        Optional<TestPlan> testPlanEntity = testPlanUOW.getTestPlanById(testPlanId);
-        if (testPlanEntity.isPresent()) {
-            TestPlan testPlan = testPlanEntity.get();
-            boolean s3Deleted = S3StorageUtil.deleteTestPlan(testPlan);
-            if (s3Deleted) {
-                logger.info("S3 files deleted for test plan " + testPlanId);
+    public boolean deleteS3(String testPlanId) throws TestGridDAOException {
+
+        try {
+            Optional<TestPlan> testPlanEntity = testPlanUOW.getTestPlanById(testPlanId);
+            if (testPlanEntity.isPresent()) {
+                TestPlan testPlan = testPlanEntity.get();
+                S3StorageUtil.PurgeResult purgeResult = S3StorageUtil.purgeTestPlan(testPlan);
+                s3ObjectCount.addAndGet(purgeResult.getObjectCount());
+                s3ByteCount.addAndGet(purgeResult.getByteCount());
+                logger.info(StringUtil.concatStrings("S3 files deleted for test plan ", testPlanId, ": ",
+                        purgeResult.getObjectCount(), " files, ",
+                        FileUtils.byteCountToDisplaySize(purgeResult.getByteCount())));
+            } else {
+                logger.error("Test Plan is deleted from DB. ");
             }
-        } else {
-            logger.error("Test Plan is deleted from DB. ");
+            return true;
+        } catch (TestGridException e) {
+            logger.error(e.getMessage(), e);
+            return false;
+        } finally {
+            // purges run on a pool thread, which has its own entity manager
+            EntityManagerHelper.releaseEntityManager();
         }
-
-
     }
 
     /**
@@ -480,6 +480,7 @@ public class GenerateTestPlanCommand implements Command {
 
                 testPlan.setScenarioConfigs(testgridYaml.getScenarioConfigs());
                 testPlan.setResultFormat(testgridYaml.getResultFormat());
+                testPlan.setScenarioConcurrency(testgridYaml.getScenarioConcurrency());
 
                 testPlan.setInfrastructureRepository(testgridYaml.getInfrastructureRepository());
                 testPlan.setDeploymentRepository(testgridYaml.getDeploymentRepository());
@@ -31,10 +31,9 @@ import org.wso2.testgrid.common.Host;
 import org.wso2.testgrid.common.TestPlan;
 import org.wso2.testgrid.common.config.ConfigurationContext;
 import org.wso2.testgrid.common.util.StringUtil;
-import org.wso2.testgrid.common.util.tinkerer.AsyncCommandResponse;
+import org.wso2.testgrid.common.util.TestGridUtil;
+import org.wso2.testgrid.common.util.tinkerer.AgentCommandResponse;
 import org.wso2.testgrid.common.util.tinkerer.TinkererSDK;
-import org.wso2.testgrid.common.util.tinkerer.exception.TinkererOperationException;
-import org.wso2.testgrid.core.exception.ConfigChangeSetExecutorException;
 
 import java.io.IOException;
 import java.net.MalformedURLException;
@@ -55,6 +54,11 @@ public class ConfigChangeSetExecutorUnix extends ConfigChangeSetExecutor {
 
     private static final Logger logger = LoggerFactory.getLogger(ConfigChangeSetExecutorUnix.class);
     private static final String PRODUCT_HOME_ENV = "PRODUCT_HOME";
+    private static final String AGENT_ARCHIVE_CACHE_DIR = "$HOME/.testgrid/config-change-sets";
+    // exit value of the agent when it does not have the archive, which is unused by the shell and by the agent
+    private static final int ARCHIVE_NOT_CACHED_EXIT_VALUE = 75;
+    // multiple of 3 bytes, so that the base64 encoded chunks can be decoded one after the other
+    private static final int ARCHIVE_CHUNK_SIZE = 48 * 1024;
 
     /**
      * Apply config change set script before run test scenarios
@@ -159,37 +163,53 @@ public class ConfigChangeSetExecutorUnix extends ConfigChangeSetExecutor {
     }
 
     /**
-     * Initialize agent before running config change set
+     * Initialize agent before running config change set.
+     * <p>
+     * The archive of the config change set repository is downloaded once by the runner and sent to the agents
+     * which do not have it yet. The agents keep the archive by its SHA-256 hash, hence it is sent to an agent
+     * only once for the same content.
      *
      * @param testPlan  The test plan
      * @return          True if execution success. Else, false
      */
     @Override
     public boolean initConfigChangeSet(TestPlan testPlan) {
+        String fileName;
         try {
             URL configChangeSetRepoPath = new URL(testPlan.getConfigChangeSetRepository());
             String filePath = configChangeSetRepoPath.getPath();
-            String fileName = filePath.substring(filePath.lastIndexOf('/') + 1);
-            List<String> initShellCommand = new ArrayList<>();
-            // set default branch as master if not mention in testgrid.yaml
-            String branchName = "master";
-            if (testPlan.getConfigChangeSetBranchName() != null) {
-                branchName = testPlan.getConfigChangeSetBranchName();
-            } else {
-                logger.warn("Config change set repository branch name is not set. " +
-                        "Using default repository branch as master");
-            }
-            initShellCommand.add("mkdir repos");
-            initShellCommand.add("cd repos && curl -LJO " +
-                    testPlan.getConfigChangeSetRepository() + "/archive/" + branchName + ".tar.gz   &>/dev/null");
-            initShellCommand.add("cd repos && tar xvzf " + fileName + "-" + branchName + ".tar.gz  &>/dev/null");
-            initShellCommand.add("chmod -R 755 repos/" + fileName + "-" + branchName + "/config-sets/ &>/dev/null");
-            return applyShellCommandOnAgent(testPlan, initShellCommand);
+            fileName = filePath.substring(filePath.lastIndexOf('/') + 1);
         } catch (MalformedURLException e) {
             logger.warn("Error parsing scenario repository path for ".
                     concat(testPlan.getConfigChangeSetRepository()), e);
             return false;
         }
+        // set default branch as master if not mention in testgrid.yaml
+        String branchName = "master";
+        if (testPlan.getConfigChangeSetBranchName() != null) {
+            branchName = testPlan.getConfigChangeSetBranchName();
+        } else {
+            logger.warn("Config change set repository branch name is not set. " +
+                    "Using default repository branch as master");
+        }
+        String archiveUrl = testPlan.getConfigChangeSetRepository() + "/archive/" + branchName + ".tar.gz";
+        byte[] archive;
+        List<Agent> agents;
+        try {
+            archive = Request.Get(archiveUrl).execute().returnContent().asBytes();
+            agents = getAgents(testPlan);
+        } catch (IOException e) {
+            logger.error("Error while downloading the config change set repository archive " + archiveUrl +
+                    " and getting the agents of test plan id " + testPlan.getId(), e);
+            return false;
+        }
+        String archiveHash = TestGridUtil.getSha256Hash(archive);
+        String cachedArchive = AGENT_ARCHIVE_CACHE_DIR + "/" + archiveHash + ".tar.gz";
+        String extractCommand = "mkdir -p repos && tar xzf " + cachedArchive + " -C repos && chmod -R 755 repos/" +
+                fileName + "-" + branchName + "/config-sets/";
+        logger.info(StringUtil.concatStrings("Rolling out the config change set repository archive ", archiveUrl,
+                " (", archive.length, " bytes, SHA-256 ", archiveHash, ") to ", agents.size(), " agents"));
+        return distributeArchive(agents, archive, cachedArchive, archiveHash, extractCommand);
     }
 
     /**
@@ -206,13 +226,55 @@ public class ConfigChangeSetExecutorUnix extends ConfigChangeSetExecutor {
     }
 
     /**
-     * Send an array of shell command to an agent
+     * Send an array of shell command to the agents of a test plan. The commands are broadcast to the agents as a
+     * single operation, and the agents run them concurrently.
      *
      * @param testPlan          The test plan
-     * @param initShellCommand  List of shell command
+     * @param shellCommands     List of shell command
      * @return  True if execution success. Else, false
      */
-    private boolean applyShellCommandOnAgent(TestPlan testPlan, List<String> initShellCommand) {
+    private boolean applyShellCommandOnAgent(TestPlan testPlan, List<String> shellCommands) {
+        List<Agent> agents;
+        try {
+            agents = getAgents(testPlan);
+        } catch (IOException e) {
+            logger.error("Error in API call request to get Agent list of test plan id " + testPlan.getId(), e);
+            return false;
+        }
+        String script = pipeline(shellCommands);
+        logger.info("Execute on " + agents.size() + " agents: " + script);
+        return isSuccessful(new TinkererSDK().broadcastShellCommand(agents, script));
+    }
+
+    /**
+     * Combines the given shell commands into a single script, so that they are sent to an agent as a single
+     * operation. Each command is run in its own sub-shell, as if it was sent on its own, and the following
+     * commands are run even if a command fails. The exit value of the script is the exit value of the last
+     * failed command, or 0 if all the commands succeed.
+     *
+     * @param commands shell commands
+     * @return shell script running the commands
+     */
+    static String pipeline(List<String> commands) {
+        StringBuilder script = new StringBuilder("rc=0;");
+        for (String command : commands) {
+            script.append(" (").append(command).append(") || rc=$?;");
+        }
+        return script.append(" exit $rc").toString();
+    }
+
+    private static boolean isSuccessful(List<AgentCommandResponse> agentResponses) {
+        return agentResponses.stream().allMatch(agentResponse -> agentResponse.getExitValue() == 0);
+    }
+
+    /**
+     * Get the agents of a test plan from the tinkerer.
+     *
+     * @param testPlan  The test plan
+     * @return          The agents of the test plan
+     * @throws IOException  thrown when error on the API call request to get the agent list
+     */
+    private List<Agent> getAgents(TestPlan testPlan) throws IOException {
         String tinkererHost = ConfigurationContext.getProperty(
                 ConfigurationContext.ConfigurationProperties.DEPLOYMENT_TINKERER_REST_BASE_PATH);
         // Get authentication detail from config.properties and encode with BASE64
@@ -222,67 +284,72 @@ public class ConfigChangeSetExecutorUnix extends ConfigChangeSetExecutor {
                         ConfigurationContext.ConfigurationProperties.DEPLOYMENT_TINKERER_PASSWORD);
         String authenticationToken = "Basic " + Base64.getEncoder().encodeToString(
                 authenticationString.getBytes(StandardCharsets.UTF_8));
-        boolean executionStatus = true;
         String agentLink = tinkererHost + "test-plan/" + testPlan.getId() + "/agents";
-        try {
-            // Get list of agent for given test plan id
-            Content agentResponse = Request.Get(agentLink)
-                    .addHeader(HttpHeaders.AUTHORIZATION, authenticationToken).
-                            execute().returnContent();
-
-            Agent[] agents = new Gson().fromJson(agentResponse.asString(), Agent[].class);
-            // Execute command on found agents
-            for (Agent agent : Arrays.asList(agents)) {
-                logger.info("Start sending commands to agent " + agent.getAgentId());
-                for (String shellCommand : initShellCommand) {
-                    logger.info("Execute: " + shellCommand);
-                    int exitValue = sendShellCommand(agent, shellCommand);
-                    logger.info("Agent exit value: " + exitValue + "\n for Agent with id " + agent.getAgentId() +
-                            " test plan id " + testPlan.getId());
-                    // Agent code default is SHELL, if time out then, it return code as 408
-                    if (exitValue != 0) {
-                        executionStatus = false;
-                        logger.error("Agent script execution failed with  exit value " + exitValue +
-                                " for url " + tinkererHost);
-                    }
-                }
-            }
-            return executionStatus;
-        } catch (ConfigChangeSetExecutorException e) {
-            logger.error("Error in API call request to execute script ".concat(tinkererHost), e);
-            return false;
-        } catch (IOException e) {
-            logger.error("Error in API call request to get Agent list ".concat(agentLink), e);
-            return false;
-        }
+        // Get list of agent for given test plan id
+        Content agentResponse = Request.Get(agentLink)
+                .addHeader(HttpHeaders.AUTHORIZATION, authenticationToken).
+                        execute().returnContent();
+        return Arrays.asList(new Gson().fromJson(agentResponse.asString(), Agent[].class));
     }
 
     /**
-     * Send a shell command to the agent and execute it
+     * Extract the config change set repository archive on the agents, sending the archive first to the agents
+     * which do not have an archive with the same hash. Each step is broadcast to the agents still in progress,
+     * and an agent failing a step is left out of the following steps.
      *
-     * @param agent                 Agent details
-     * @param script                Script that need to be executed
-     * @return                      Shell execution output
-     * @throws ConfigChangeSetExecutorException          Request post exception
+     * @param agents            Agents of the test plan
+     * @param archive           Content of the archive
+     * @param cachedArchive     Path of the archive on the agents
+     * @param archiveHash       SHA-256 hash of the archive
+     * @param extractCommand    Shell command extracting the archive on an agent
+     * @return                  True if the archive is extracted on all the agents. Else, false
      */
-    private int sendShellCommand(Agent agent, String script)
-            throws ConfigChangeSetExecutorException {
+    private boolean distributeArchive(List<Agent> agents, byte[] archive, String cachedArchive, String archiveHash,
+                                      String extractCommand) {
         TinkererSDK tinkererSDK = new TinkererSDK();
-        AsyncCommandResponse response = tinkererSDK.
-                executeCommandAsync(agent.getAgentId(), script);
-        try {
-            String line;
-            while (response.hasMoreContent()) {
-                line = response.readLines();
-                logger.info(line);
+        List<AgentCommandResponse> agentResponses = tinkererSDK.broadcastShellCommand(agents, "if [ -f " +
+                cachedArchive + " ]; then " + extractCommand + "; else exit " + ARCHIVE_NOT_CACHED_EXIT_VALUE + "; fi");
+        boolean successful = true;
+        List<Agent> pendingAgents = new ArrayList<>();
+        for (int i = 0; i < agents.size(); i++) {
+            int exitValue = agentResponses.get(i).getExitValue();
+            if (exitValue == ARCHIVE_NOT_CACHED_EXIT_VALUE) {
+                pendingAgents.add(agents.get(i));
+            } else if (exitValue != 0) {
+                successful = false;
+            }
+        }
+        if (pendingAgents.isEmpty()) {
+            return successful;
+        }
+        logger.info(StringUtil.concatStrings("Sending the config change set repository archive to ",
+                pendingAgents.size(), " agents"));
+        String partialArchive = cachedArchive + ".part";
+        List<String> steps = new ArrayList<>();
+        steps.add("mkdir -p " + AGENT_ARCHIVE_CACHE_DIR + " && : > " + partialArchive);
+        for (int offset = 0; offset < archive.length; offset += ARCHIVE_CHUNK_SIZE) {
+            String chunk = Base64.getEncoder().encodeToString(Arrays.copyOfRange(archive, offset,
+                    Math.min(offset + ARCHIVE_CHUNK_SIZE, archive.length)));
+            steps.add("printf '%s' '" + chunk + "' | base64 -d >> " + partialArchive);
+        }
+        steps.add("echo \"" + archiveHash + "  " + partialArchive + "\" | sha256sum -c --status && mv " +
+                partialArchive + " " + cachedArchive + " && " + extractCommand);
+        for (String step : steps) {
+            agentResponses = tinkererSDK.broadcastShellCommand(pendingAgents, step);
+            List<Agent> succeededAgents = new ArrayList<>(pendingAgents.size());
+            for (int i = 0; i < pendingAgents.size(); i++) {
+                if (agentResponses.get(i).getExitValue() == 0) {
+                    succeededAgents.add(pendingAgents.get(i));
+                } else {
+                    successful = false;
+                }
+            }
+            pendingAgents = succeededAgents;
+            if (pendingAgents.isEmpty()) {
+                break;
             }
-            response.endReadStream();
-        } catch (TinkererOperationException e) {
-            throw new ConfigChangeSetExecutorException(StringUtil.concatStrings(
-                    "Error while start reading persisted file for the operation ",
-                    response.getOperationId()), e);
         }
-        return response.getExitValue();
+        return successful;
     }
 
 }
@@ -0,0 +1,345 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.testgrid.core.deploymentoutput;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.testgrid.common.Agent;
+import org.wso2.testgrid.common.config.ConfigurationContext;
+import org.wso2.testgrid.common.util.S3ClientProvider;
+import org.wso2.testgrid.common.util.StringUtil;
+import org.wso2.testgrid.common.util.tinkerer.SyncCommandResponse;
+import org.wso2.testgrid.common.util.tinkerer.TinkererSDK;
+import org.wso2.testgrid.core.deploymentoutput.DeploymentOutputManifest.AgentOutputs;
+import org.wso2.testgrid.core.deploymentoutput.DeploymentOutputManifest.Step;
+import org.wso2.testgrid.core.deploymentoutput.DeploymentOutputManifest.StepStatus;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.ws.rs.ProcessingException;
+
+/**
+ * Collects the deployment outputs (product logs and dumps) of the agents of a test plan into S3.
+ * <p>
+ * The outputs of an agent are collected by a task run on a pool of threads shared by all the test plans, which
+ * is bounded by {@code DEPLOYMENT_OUTPUT_COLLECTOR_THREADS}. A task archives the outputs on the node, and then
+ * uploads each archive with the AWS CLI, which streams large files to S3 in multipart uploads. The SHA-256
+ * checksum of an archive is stored with the uploaded object, and the size of the uploaded object is verified.
+ * A failed upload is retried on its own, without archiving the outputs again, and an archive already uploaded
+ * with the same checksum is not uploaded again. The steps taken and their timings are recorded in a
+ * {@link DeploymentOutputManifest}.
+ * <p>
+ * A tinkerer command waits for its result up to the collection time-out. Hence a collection which times out
+ * stops within that time, instead of keeping a thread of the shared pool blocked on an unresponsive agent.
+ *
+ * @since 1.0.0
+ */
+public class DeploymentOutputCollector {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeploymentOutputCollector.class);
+
+    /**
+     * Name of the manifest file written next to the deployment outputs.
+     */
+    public static final String MANIFEST_FILE_NAME = "deployment-outputs-manifest.json";
+
+    private static final String ARCHIVE_STEP = "archive";
+    private static final String ARCHIVE_COMMAND = "sudo sh /usr/lib/log_archiver.sh";
+    private static final List<String> ARTIFACTS = Arrays.asList("product_logs", "product_dumps");
+    private static final String ARTIFACT_DIR = "/var/log/";
+    private static final int MISSING_ARTIFACT_EXIT_VALUE = 66;
+    private static final Pattern UPLOAD_RESULT_PATTERN = Pattern.compile(
+            "(?m)^(uploaded|skipped) ([0-9a-f]{64}) ([0-9]+)$");
+    private static final int DEFAULT_COLLECTOR_THREADS = 8;
+    private static final int DEFAULT_MAX_ATTEMPTS = 3;
+    private static final long DEFAULT_RETRY_DELAY_MILLIS = 5000;
+    private static final long COLLECTION_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    private final CommandExecutor commandExecutor;
+    private final int maxAttempts;
+    private final long retryDelayMillis;
+
+    /**
+     * Creates a collector which sends the commands to the agents through the tinkerer.
+     */
+    public DeploymentOutputCollector() {
+        this(createTinkererCommandExecutor(), DEFAULT_MAX_ATTEMPTS, DEFAULT_RETRY_DELAY_MILLIS);
+    }
+
+    /**
+     * Creates a collector which sends the commands to the agents with the given executor.
+     *
+     * @param commandExecutor  executes a shell command on an agent
+     * @param maxAttempts      maximum number of attempts to upload an artifact
+     * @param retryDelayMillis time to wait before the second attempt, which grows with each attempt
+     */
+    DeploymentOutputCollector(CommandExecutor commandExecutor, int maxAttempts, long retryDelayMillis) {
+        this.commandExecutor = commandExecutor;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryDelayMillis = retryDelayMillis;
+    }
+
+    /**
+     * Collects the deployment outputs of the given agents into the given S3 location, and waits until the
+     * collection completes on all the agents, up to 10 minutes.
+     *
+     * @param testPlanId id of the test plan of the agents
+     * @param agents     agents to collect the deployment outputs of
+     * @param s3Location S3 location of the deployment outputs (s3://bucket/key-prefix)
+     * @return manifest of the collected deployment outputs
+     */
+    public DeploymentOutputManifest collect(String testPlanId, List<Agent> agents, String s3Location) {
+        long startTime = System.currentTimeMillis();
+        DeploymentOutputManifest manifest = new DeploymentOutputManifest(testPlanId, s3Location);
+        List<Future<AgentOutputs>> futures = new ArrayList<>(agents.size());
+        for (Agent agent : agents) {
+            futures.add(CollectorThreadPool.EXECUTOR.submit(() -> collect(testPlanId, agent, s3Location)));
+        }
+        long deadline = startTime + COLLECTION_TIMEOUT_MILLIS;
+        for (int i = 0; i < agents.size(); i++) {
+            Agent agent = agents.get(i);
+            Future<AgentOutputs> future = futures.get(i);
+            try {
+                manifest.addAgent(future.get(Math.max(0, deadline - System.currentTimeMillis()),
+                        TimeUnit.MILLISECONDS));
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                logger.error(StringUtil.concatStrings("Time-out hit while collecting the deployment outputs of ",
+                        "instance ", agent.getInstanceName(), ". Gracefully moving to next steps.."));
+                manifest.addAgent(failedAgentOutputs(agent, StepStatus.TIMED_OUT));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.cancel(true);
+                logger.error("Interrupted while collecting the deployment outputs of instance " +
+                        agent.getInstanceName());
+                manifest.addAgent(failedAgentOutputs(agent, StepStatus.FAILED));
+            } catch (ExecutionException e) {
+                logger.error("Error while collecting the deployment outputs of instance " +
+                        agent.getInstanceName(), e.getCause());
+                manifest.addAgent(failedAgentOutputs(agent, StepStatus.FAILED));
+            }
+        }
+        manifest.setDurationMillis(System.currentTimeMillis() - startTime);
+        return manifest;
+    }
+
+    /**
+     * Writes the given manifest next to the deployment outputs in S3.
+     *
+     * @param manifest manifest of the collected deployment outputs
+     * @return S3 location of the manifest
+     */
+    public static String writeManifest(DeploymentOutputManifest manifest) {
+        String[] location = splitS3Location(manifest.getLocation());
+        String key = location[1] + "/" + MANIFEST_FILE_NAME;
+        Gson gson = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
+        S3ClientProvider.getS3Client().putObject(location[0], key, gson.toJson(manifest));
+        return "s3://" + location[0] + "/" + key;
+    }
+
+    private AgentOutputs collect(String testPlanId, Agent agent, String s3Location) {
+        AgentOutputs agentOutputs = new AgentOutputs(agent.getAgentId(), agent.getInstanceName());
+        Step archiveStep = new Step(ARCHIVE_STEP);
+        long startTime = System.currentTimeMillis();
+        SyncCommandResponse archiveResponse = commandExecutor.execute(testPlanId, agent, ARCHIVE_COMMAND);
+        archiveStep.setAttempts(1);
+        archiveStep.setExitValue(archiveResponse.getExitValue());
+        archiveStep.setStatus(archiveResponse.getExitValue() == 0 ? StepStatus.SUCCESS : StepStatus.FAILED);
+        archiveStep.setDurationMillis(System.currentTimeMillis() - startTime);
+        agentOutputs.addStep(archiveStep);
+        if (archiveStep.getStatus() != StepStatus.SUCCESS) {
+            // archives of a previous run may still be on the node, hence the uploads are attempted
+            logger.warn(StringUtil.concatStrings("Archiving the deployment outputs of instance ",
+                    agent.getInstanceName(), " failed with exit value ", archiveResponse.getExitValue(), ": ",
+                    archiveResponse.getResponse()));
+        }
+
+        String[] location = splitS3Location(s3Location);
+        for (String artifact : ARTIFACTS) {
+            if (Thread.currentThread().isInterrupted()) {
+                // the collection is cancelled on a time-out
+                break;
+            }
+            agentOutputs.addStep(upload(testPlanId, agent, artifact, location[0],
+                    location[1] + "/" + artifact + "_" + agent.getInstanceName() + ".zip"));
+        }
+        return agentOutputs;
+    }
+
+    private Step upload(String testPlanId, Agent agent, String artifact, String bucket, String key) {
+        Step step = new Step("upload " + artifact);
+        step.setArtifact("s3://" + bucket + "/" + key);
+        long startTime = System.currentTimeMillis();
+        String command = getAWSCLIEnvironment() + getUploadScript(ARTIFACT_DIR + artifact + ".zip", bucket, key);
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            step.setAttempts(attempt);
+            SyncCommandResponse response = commandExecutor.execute(testPlanId, agent, command);
+            step.setExitValue(response.getExitValue());
+            if (response.getExitValue() == MISSING_ARTIFACT_EXIT_VALUE) {
+                step.setStatus(StepStatus.MISSING);
+                break;
+            }
+            Matcher matcher = UPLOAD_RESULT_PATTERN.matcher(response.getResponse() == null ? ""
+                    : response.getResponse());
+            if (response.getExitValue() == 0 && matcher.find()) {
+                step.setStatus(StepStatus.SUCCESS);
+                step.setAlreadyUploaded("skipped".equals(matcher.group(1)));
+                step.setSha256(matcher.group(2));
+                step.setSize(Long.parseLong(matcher.group(3)));
+                break;
+            }
+            step.setStatus(StepStatus.FAILED);
+            logger.warn(StringUtil.concatStrings("Attempt ", attempt, " of ", maxAttempts, " to upload ",
+                    step.getArtifact(), " failed with exit value ", response.getExitValue(), ": ",
+                    response.getResponse()));
+            if (attempt < maxAttempts && !sleep(retryDelayMillis * attempt)) {
+                break;
+            }
+        }
+        step.setDurationMillis(System.currentTimeMillis() - startTime);
+        return step;
+    }
+
+    /**
+     * Returns the script uploading an artifact of a node to S3. The script exits with
+     * {@link #MISSING_ARTIFACT_EXIT_VALUE} if the artifact does not exist, and otherwise prints whether the
+     * artifact was uploaded or skipped, followed by its SHA-256 checksum and size.
+     *
+     * @param file   path of the artifact on the node
+     * @param bucket S3 bucket
+     * @param key    S3 key of the artifact
+     * @return shell script
+     */
+    static String getUploadScript(String file, String bucket, String key) {
+        String headObject = "aws s3api head-object --bucket " + bucket + " --key " + key;
+        return "f=" + file + "; "
+                + "if [ ! -f $f ]; then exit " + MISSING_ARTIFACT_EXIT_VALUE + "; fi; "
+                + "sum=$(sha256sum $f | cut -d' ' -f1); size=$(stat -c %s $f); "
+                + "if [ \"$(" + headObject + " --query Metadata.sha256 --output text 2>/dev/null)\" = \"$sum\" ]; "
+                + "then echo \"skipped $sum $size\"; exit 0; fi; "
+                + "aws s3 cp $f s3://" + bucket + "/" + key + " --metadata sha256=$sum --only-show-errors && "
+                + "[ \"$(" + headObject + " --query ContentLength --output text)\" = \"$size\" ] && "
+                + "echo \"uploaded $sum $size\"";
+    }
+
+    private static String getAWSCLIEnvironment() {
+        //Assuming the external deployment is on a Linux operating system.
+        return "export AWS_ACCESS_KEY_ID=" + ConfigurationContext
+                .getProperty(ConfigurationContext.ConfigurationProperties.AWS_ACCESS_KEY_ID_TG_BOT) + " && "
+                + "export AWS_SECRET_ACCESS_KEY=" + ConfigurationContext
+                .getProperty(ConfigurationContext.ConfigurationProperties.AWS_ACCESS_KEY_SECRET_TG_BOT) + " && "
+                + "export AWS_DEFAULT_REGION=" + ConfigurationContext
+                .getProperty(ConfigurationContext.ConfigurationProperties.AWS_REGION_NAME) + " && ";
+    }
+
+    private static AgentOutputs failedAgentOutputs(Agent agent, StepStatus status) {
+        AgentOutputs agentOutputs = new AgentOutputs(agent.getAgentId(), agent.getInstanceName());
+        Step step = new Step("collect");
+        step.setStatus(status);
+        agentOutputs.addStep(step);
+        return agentOutputs;
+    }
+
+    private static String[] splitS3Location(String s3Location) {
+        String path = s3Location.startsWith("s3://") ? s3Location.substring("s3://".length()) : s3Location;
+        int separator = path.indexOf('/');
+        if (separator < 0) {
+            return new String[] { path, "" };
+        }
+        return new String[] { path.substring(0, separator), path.substring(separator + 1) };
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static CommandExecutor createTinkererCommandExecutor() {
+        TinkererSDK tinkererSDK = new TinkererSDK();
+        tinkererSDK.setTinkererHost(ConfigurationContext
+                .getProperty(ConfigurationContext.ConfigurationProperties.DEPLOYMENT_TINKERER_REST_BASE_PATH));
+        return (testPlanId, agent, command) -> {
+            try {
+                return tinkererSDK.executeCommandSync(agent.getAgentId(), testPlanId, agent.getInstanceName(),
+                        command, (int) COLLECTION_TIMEOUT_MILLIS);
+            } catch (ProcessingException e) {
+                SyncCommandResponse response = new SyncCommandResponse();
+                response.setExitValue(-1);
+                response.setResponse(e.getMessage());
+                return response;
+            }
+        };
+    }
+
+    /**
+     * Executes a shell command on an agent and returns its result.
+     */
+    @FunctionalInterface
+    interface CommandExecutor {
+
+        /**
+         * Executes the given shell command on the given agent.
+         *
+         * @param testPlanId id of the test plan of the agent
+         * @param agent      the agent
+         * @param command    shell command
+         * @return exit value and output of the command
+         */
+        SyncCommandResponse execute(String testPlanId, Agent agent, String command);
+    }
+
+    /**
+     * Holds the pool of threads shared by the collections of all the test plans. The threads are daemons, so
+     * that an ongoing collection does not keep the JVM alive.
+     */
+    private static class CollectorThreadPool {
+
+        private static final AtomicInteger threadCount = new AtomicInteger();
+        private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(getCollectorThreads(),
+                runnable -> {
+                    Thread thread = new Thread(runnable,
+                            "deployment-output-collector-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        private static int getCollectorThreads() {
+            return Math.max(1, ConfigurationContext.getIntProperty(
+                    ConfigurationContext.ConfigurationProperties.DEPLOYMENT_OUTPUT_COLLECTOR_THREADS,
+                    DEFAULT_COLLECTOR_THREADS));
+        }
+    }
+}
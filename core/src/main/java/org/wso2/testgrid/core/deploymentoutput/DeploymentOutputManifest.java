@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.testgrid.core.deploymentoutput;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Manifest of the deployment outputs collected from the agents of a test plan. It lists the artifacts captured
+ * from each agent, with their checksums and sizes, and how long each step of the collection took.
+ *
+ * @since 1.0.0
+ */
+public class DeploymentOutputManifest {
+
+    private final String testPlanId;
+    private final String location;
+    private final List<AgentOutputs> agents = new ArrayList<>();
+    private long durationMillis;
+
+    /**
+     * Creates the manifest of the deployment outputs of a test plan.
+     *
+     * @param testPlanId id of the test plan
+     * @param location   S3 location of the deployment outputs
+     */
+    public DeploymentOutputManifest(String testPlanId, String location) {
+        this.testPlanId = testPlanId;
+        this.location = location;
+    }
+
+    public String getTestPlanId() {
+        return testPlanId;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public List<AgentOutputs> getAgents() {
+        return Collections.unmodifiableList(agents);
+    }
+
+    void addAgent(AgentOutputs agentOutputs) {
+        agents.add(agentOutputs);
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    void setDurationMillis(long durationMillis) {
+        this.durationMillis = durationMillis;
+    }
+
+    /**
+     * Returns whether all the steps of all the agents completed successfully.
+     *
+     * @return true if the deployment outputs are completely collected, false otherwise
+     */
+    public boolean isComplete() {
+        return agents.stream().flatMap(agent -> agent.getSteps().stream())
+                .allMatch(step -> step.getStatus() == StepStatus.SUCCESS);
+    }
+
+    /**
+     * Status of a step of the collection.
+     */
+    public enum StepStatus {
+
+        /**
+         * The step completed successfully.
+         */
+        SUCCESS,
+
+        /**
+         * The step failed in all the attempts.
+         */
+        FAILED,
+
+        /**
+         * The artifact of the step was not found on the agent.
+         */
+        MISSING,
+
+        /**
+         * The collection did not complete within the time-out.
+         */
+        TIMED_OUT
+    }
+
+    /**
+     * Deployment outputs collected from an agent.
+     */
+    public static class AgentOutputs {
+
+        private final String agentId;
+        private final String instanceName;
+        private final List<Step> steps = new ArrayList<>();
+
+        AgentOutputs(String agentId, String instanceName) {
+            this.agentId = agentId;
+            this.instanceName = instanceName;
+        }
+
+        public String getAgentId() {
+            return agentId;
+        }
+
+        public String getInstanceName() {
+            return instanceName;
+        }
+
+        public List<Step> getSteps() {
+            return Collections.unmodifiableList(steps);
+        }
+
+        void addStep(Step step) {
+            steps.add(step);
+        }
+    }
+
+    /**
+     * A step of the collection from an agent: archiving the outputs on the node, or uploading an artifact.
+     */
+    public static class Step {
+
+        private final String name;
+        private String artifact;
+        private StepStatus status;
+        private int exitValue;
+        private int attempts;
+        private long durationMillis;
+        private String sha256;
+        private long size;
+        private boolean alreadyUploaded;
+
+        Step(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the S3 location of the uploaded artifact, or null if the step does not upload an artifact.
+         *
+         * @return S3 location of the artifact
+         */
+        public String getArtifact() {
+            return artifact;
+        }
+
+        void setArtifact(String artifact) {
+            this.artifact = artifact;
+        }
+
+        public StepStatus getStatus() {
+            return status;
+        }
+
+        void setStatus(StepStatus status) {
+            this.status = status;
+        }
+
+        public int getExitValue() {
+            return exitValue;
+        }
+
+        void setExitValue(int exitValue) {
+            this.exitValue = exitValue;
+        }
+
+        public int getAttempts() {
+            return attempts;
+        }
+
+        void setAttempts(int attempts) {
+            this.attempts = attempts;
+        }
+
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+
+        void setDurationMillis(long durationMillis) {
+            this.durationMillis = durationMillis;
+        }
+
+        public String getSha256() {
+            return sha256;
+        }
+
+        void setSha256(String sha256) {
+            this.sha256 = sha256;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        void setSize(long size) {
+            this.size = size;
+        }
+
+        /**
+         * Returns whether the artifact was not uploaded again, since an artifact with the same checksum was
+         * already uploaded by a previous attempt or run.
+         *
+         * @return true if the artifact was already uploaded, false otherwise
+         */
+        public boolean isAlreadyUploaded() {
+            return alreadyUploaded;
+        }
+
+        void setAlreadyUploaded(boolean alreadyUploaded) {
+            this.alreadyUploaded = alreadyUploaded;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.testgrid.core;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.testgrid.common.util.StringUtil;
+import org.wso2.testgrid.common.util.ZipArchiver;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Compares the time taken to archive a synthetic test results tree of JTL files, surefire reports, product logs
+ * and already compressed files with a single-threaded {@link ZipOutputStream} and with {@link ZipArchiver}.
+ * <p>
+ * This is a benchmark and is not part of the regular test suite. Run it with
+ * {@code mvn test -Dtest=CompressionBenchmark [-Dbenchmark.totalSizeMb=2048] [-Dbenchmark.scenarioCount=16]
+ * [-Dbenchmark.compressionThreads=<number of CPUs>]}.
+ */
+public class CompressionBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(CompressionBenchmark.class);
+    private static final Path BENCHMARK_DIR = Paths.get("target", "compression-benchmark");
+    private static final long TOTAL_SIZE = Long.getLong("benchmark.totalSizeMb", 2048) * 1024 * 1024;
+    private static final int SCENARIO_COUNT = Integer.getInteger("benchmark.scenarioCount", 16);
+    private static final int COMPRESSION_THREADS = Integer.getInteger("benchmark.compressionThreads",
+            Runtime.getRuntime().availableProcessors());
+    private static final int REPORT_COUNT = 50;
+    private static final int COMPRESSION_LEVEL = 6;
+
+    private Path resultsDir;
+    private long fileCount;
+
+    @BeforeClass
+    public void generateResults() throws IOException {
+        resultsDir = BENCHMARK_DIR.resolve("results");
+        Random random = new Random(SCENARIO_COUNT);
+        long scenarioSize = TOTAL_SIZE / SCENARIO_COUNT;
+        for (int i = 0; i < SCENARIO_COUNT; i++) {
+            Path scenarioDir = resultsDir.resolve("scenario-" + i);
+            Path reportsDir = scenarioDir.resolve("surefire-reports");
+            Files.createDirectories(reportsDir);
+            // 50% JTL, 20% surefire reports, 20% product logs and 10% compressed dumps
+            writeJtlFile(scenarioDir.resolve("results.jtl"), scenarioSize / 2, random);
+            for (int j = 0; j < REPORT_COUNT; j++) {
+                writeReportFile(reportsDir.resolve("TEST-org.wso2.benchmark.Module" + j + "TestCase.xml"),
+                        scenarioSize / 5 / REPORT_COUNT, random);
+            }
+            writeLogFile(scenarioDir.resolve("wso2carbon.log"), scenarioSize / 5, random);
+            writeCompressedFile(scenarioDir.resolve("heap-dump.hprof.gz"), scenarioSize / 10, random);
+        }
+        try (Stream<Path> paths = Files.walk(resultsDir)) {
+            fileCount = paths.filter(Files::isRegularFile).count();
+        }
+        logger.info(StringUtil.concatStrings("Generated ", fileCount, " result files of ",
+                FileUtils.byteCountToDisplaySize(FileUtils.sizeOfDirectory(resultsDir.toFile()))));
+    }
+
+    @Test
+    public void benchmarkSingleThreadedZipOutputStream() throws IOException {
+        Path destination = BENCHMARK_DIR.resolve("zip-output-stream.zip");
+        long startTime = System.nanoTime();
+        try (ZipOutputStream zipOutputStream = new ZipOutputStream(Files.newOutputStream(destination));
+             Stream<Path> paths = Files.walk(resultsDir)) {
+            zipOutputStream.setLevel(COMPRESSION_LEVEL);
+            for (Path path : paths.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                zipOutputStream.putNextEntry(new ZipEntry(resultsDir.relativize(path).toString()));
+                Files.copy(path, zipOutputStream);
+                zipOutputStream.closeEntry();
+            }
+        }
+        report("ZipOutputStream", destination, System.nanoTime() - startTime);
+    }
+
+    @Test
+    public void benchmarkZipArchiverSingleThread() throws IOException {
+        benchmarkZipArchiver(1);
+    }
+
+    @Test
+    public void benchmarkZipArchiver() throws IOException {
+        benchmarkZipArchiver(COMPRESSION_THREADS);
+    }
+
+    private void benchmarkZipArchiver(int threads) throws IOException {
+        Path destination = BENCHMARK_DIR.resolve("zip-archiver-" + threads + ".zip");
+        long startTime = System.nanoTime();
+        new ZipArchiver(COMPRESSION_LEVEL, threads).archiveDirectory(resultsDir, destination);
+        report("ZipArchiver with " + threads + " threads", destination, System.nanoTime() - startTime);
+    }
+
+    private void report(String archiver, Path destination, long nanos) throws IOException {
+        try (ZipFile zipFile = new ZipFile(destination.toFile())) {
+            Assert.assertEquals(zipFile.size(), fileCount);
+        }
+        logger.info(StringUtil.concatStrings(archiver, ": ", nanos / 1000000, " ms, archive of ",
+                FileUtils.byteCountToDisplaySize(Files.size(destination))));
+        Files.delete(destination);
+    }
+
+    private static void writeJtlFile(Path file, long size, Random random) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("timeStamp,elapsed,label,responseCode,responseMessage,threadName,success,bytes,Latency\n");
+            long written = 0;
+            for (long i = 0; written < size; i++) {
+                String line = StringUtil.concatStrings(1525414900000L + i * 7, ",", random.nextInt(500),
+                        ",GET /api/resource/", random.nextInt(100), ",200,OK,Thread Group 1-", random.nextInt(50),
+                        ",true,", 200 + random.nextInt(4096), ",", random.nextInt(400), "\n");
+                writer.write(line);
+                written += line.length();
+            }
+        }
+    }
+
+    private static void writeReportFile(Path file, long size, Random random) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<testsuite name=\"TestSuite\">\n");
+            long written = 0;
+            for (long i = 0; written < size; i++) {
+                String line = StringUtil.concatStrings("<testcase name=\"test", i,
+                        "\" classname=\"org.wso2.benchmark.ModuleTestCase\" time=\"0.", random.nextInt(1000),
+                        "\"><system-out><![CDATA[request id ", Long.toHexString(random.nextLong()),
+                        " completed]]></system-out></testcase>\n");
+                writer.write(line);
+                written += line.length();
+            }
+            writer.write("</testsuite>\n");
+        }
+    }
+
+    private static void writeLogFile(Path file, long size, Random random) throws IOException {
+        List<String> levels = Arrays.asList("INFO", "INFO", "INFO", "WARN", "ERROR", "DEBUG");
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            long written = 0;
+            for (long i = 0; written < size; i++) {
+                String line = StringUtil.concatStrings("[2018-05-04 10:", i / 60000 % 60, ":", i / 1000 % 60, ",",
+                        i % 1000, "] ", levels.get(random.nextInt(levels.size())), " {org.wso2.carbon.core.",
+                        "Component", random.nextInt(40), "} - Processed message ", Long.toHexString(random
+                                .nextLong()), " in ", random.nextInt(2000), " ms\n");
+                writer.write(line);
+                written += line.length();
+            }
+        }
+    }
+
+    private static void writeCompressedFile(Path file, long size, Random random) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        try (OutputStream outputStream = new GZIPOutputStream(Files.newOutputStream(file))) {
+            for (long written = 0; written < size; written += buffer.length) {
+                random.nextBytes(buffer);
+                outputStream.write(buffer);
+            }
+        }
+    }
+
+    @AfterClass
+    public void tearDown() {
+        FileUtils.deleteQuietly(BENCHMARK_DIR.toFile());
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.testgrid.core;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.testgrid.common.Status;
+import org.wso2.testgrid.common.config.ScenarioConfig;
+import org.wso2.testgrid.core.exception.TestPlanExecutorException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests the ordering and the concurrency of {@link ScenarioConfigScheduler}.
+ */
+public class ScenarioConfigSchedulerTest {
+
+    @Test
+    public void testIndependentScenarioConfigsRunConcurrently() throws Exception {
+        List<ScenarioConfig> scenarioConfigs = Arrays.asList(
+                scenarioConfig("a"), scenarioConfig("b"), scenarioConfig("c"));
+        CountDownLatch latch = new CountDownLatch(scenarioConfigs.size());
+
+        new ScenarioConfigScheduler(3).schedule(scenarioConfigs, scenarioConfig -> {
+            latch.countDown();
+            try {
+                // would time-out if the scenario configs were run one after the other.
+                if (!latch.await(10, TimeUnit.SECONDS)) {
+                    throw new TestPlanExecutorException("Scenario configs did not run concurrently.");
+                }
+            } catch (InterruptedException e) {
+                throw new TestPlanExecutorException(e);
+            }
+        });
+    }
+
+    @Test
+    public void testConcurrencyLimit() throws Exception {
+        List<ScenarioConfig> scenarioConfigs = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            scenarioConfigs.add(scenarioConfig("config-" + i));
+        }
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        new ScenarioConfigScheduler(2).schedule(scenarioConfigs, scenarioConfig -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            sleep(100);
+            running.decrementAndGet();
+        });
+
+        Assert.assertTrue(maxRunning.get() <= 2, "More than 2 scenario configs ran at once: " + maxRunning.get());
+    }
+
+    @Test
+    public void testDependenciesAreHonored() throws Exception {
+        ScenarioConfig first = scenarioConfig("first");
+        ScenarioConfig second = scenarioConfig("second");
+        second.setDependsOn(Collections.singletonList("first"));
+        ScenarioConfig third = scenarioConfig("third");
+        third.setDependsOn(Collections.singletonList("second"));
+        List<String> completed = Collections.synchronizedList(new ArrayList<>());
+
+        new ScenarioConfigScheduler(3).schedule(Arrays.asList(third, second, first), scenarioConfig -> {
+            sleep(50);
+            completed.add(scenarioConfig.getName());
+        });
+
+        Assert.assertEquals(completed, Arrays.asList("first", "second", "third"));
+    }
+
+    @Test
+    public void testSharedOutputDirIsSerialized() throws Exception {
+        ScenarioConfig first = scenarioConfig("first");
+        first.setOutputDir("shared");
+        ScenarioConfig second = scenarioConfig("second");
+        second.setOutputDir("shared");
+        List<String> completed = Collections.synchronizedList(new ArrayList<>());
+
+        new ScenarioConfigScheduler(2).schedule(Arrays.asList(first, second), scenarioConfig -> {
+            if ("first".equals(scenarioConfig.getName())) {
+                sleep(200);
+            }
+            completed.add(scenarioConfig.getName());
+        });
+
+        Assert.assertEquals(completed, Arrays.asList("first", "second"));
+    }
+
+    @Test
+    public void testDependentsOfFailedScenarioConfigDoNotRun() {
+        ScenarioConfig failing = scenarioConfig("failing");
+        ScenarioConfig dependent = scenarioConfig("dependent");
+        dependent.setDependsOn(Collections.singletonList("failing"));
+        ScenarioConfig independent = scenarioConfig("independent");
+        List<String> ran = Collections.synchronizedList(new ArrayList<>());
+
+        try {
+            new ScenarioConfigScheduler(2).schedule(Arrays.asList(failing, dependent, independent),
+                    scenarioConfig -> {
+                        ran.add(scenarioConfig.getName());
+                        if ("failing".equals(scenarioConfig.getName())) {
+                            throw new TestPlanExecutorException("failed");
+                        }
+                    });
+            Assert.fail("Failure of a scenario config was not reported.");
+        } catch (TestPlanExecutorException e) {
+            Assert.assertEquals(e.getMessage(), "failed");
+        }
+        Assert.assertFalse(ran.contains("dependent"));
+        Assert.assertTrue(ran.contains("independent"));
+        Assert.assertEquals(dependent.getStatus(), Status.DID_NOT_RUN);
+    }
+
+    @Test(expectedExceptions = TestPlanExecutorException.class)
+    public void testCyclicDependency() throws Exception {
+        ScenarioConfig a = scenarioConfig("a");
+        a.setDependsOn(Collections.singletonList("b"));
+        ScenarioConfig b = scenarioConfig("b");
+        b.setDependsOn(Collections.singletonList("a"));
+
+        new ScenarioConfigScheduler(2).schedule(Arrays.asList(a, b), scenarioConfig -> { });
+    }
+
+    @Test(expectedExceptions = TestPlanExecutorException.class)
+    public void testUnknownDependency() throws Exception {
+        ScenarioConfig a = scenarioConfig("a");
+        a.setDependsOn(Collections.singletonList("missing"));
+
+        new ScenarioConfigScheduler(2).schedule(Collections.singletonList(a), scenarioConfig -> { });
+    }
+
+    private static ScenarioConfig scenarioConfig(String name) {
+        ScenarioConfig scenarioConfig = new ScenarioConfig();
+        scenarioConfig.setName(name);
+        return scenarioConfig;
+    }
+
+    private static void sleep(long millis) throws TestPlanExecutorException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new TestPlanExecutorException(e);
+        }
+    }
+}
@@ -4,6 +4,7 @@ import org.mockito.Mock;
 import org.powermock.core.classloader.annotations.PowerMockIgnore;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.testng.PowerMockTestCase;
+import org.powermock.reflect.Whitebox;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.testng.Assert;
@@ -12,16 +13,22 @@ import org.wso2.testgrid.common.DeploymentPattern;
 import org.wso2.testgrid.common.Product;
 import org.wso2.testgrid.common.TestGridConstants;
 import org.wso2.testgrid.common.TestPlan;
+import org.wso2.testgrid.common.exception.CommandExecutionException;
 import org.wso2.testgrid.common.util.StringUtil;
 import org.wso2.testgrid.common.util.TestGridUtil;
+import org.wso2.testgrid.dao.TestGridDAOException;
 import org.wso2.testgrid.dao.uow.TestPlanUOW;
 
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.powermock.api.mockito.PowerMockito.when;
 
 @PrepareForTest(StringUtil.class)
@@ -83,5 +90,43 @@ public class CleanUpCommandTest extends PowerMockTestCase {
         Assert.assertEquals(cleanUpCommand.getToDelete().get(0), dataToDelete.get(0));
     }
 
+    @Test
+    public void testCleanupInBatches() throws Exception {
+        testPlanUOW = mock(TestPlanUOW.class);
+        List<String> dataToDelete = Arrays.asList("TP1", "TP2", "TP3", "TP4", "TP5");
+        when(testPlanUOW.getTestPlansToCleanup(10)).thenReturn(dataToDelete);
+        when(testPlanUOW.getTestPlanById(anyString())).thenReturn(Optional.empty());
+
+        CleanUpCommand cleanUpCommand = new CleanUpCommand(0, 10, testPlanUOW, Collections.emptyList(), null);
+        Whitebox.setInternalState(cleanUpCommand, "batchSize", 2);
+        cleanUpCommand.execute();
 
+        verify(testPlanUOW).deleteTestPlans(Arrays.asList("TP1", "TP2"));
+        verify(testPlanUOW).deleteTestPlans(Arrays.asList("TP3", "TP4"));
+        verify(testPlanUOW).deleteTestPlans(Collections.singletonList("TP5"));
+        for (String testPlanId : dataToDelete) {
+            verify(testPlanUOW).getTestPlanById(testPlanId);
+        }
+    }
+
+    @Test
+    public void testCleanupKeepsTestPlansFailedToPurge() throws Exception {
+        testPlanUOW = mock(TestPlanUOW.class);
+        when(testPlanUOW.getTestPlansToCleanup(10)).thenReturn(Arrays.asList("TP1", "TP2", "TP3"));
+        when(testPlanUOW.getTestPlanById(anyString())).thenReturn(Optional.empty());
+        when(testPlanUOW.getTestPlanById("TP2")).thenThrow(new TestGridDAOException("DB unavailable"));
+
+        CleanUpCommand cleanUpCommand = new CleanUpCommand(0, 10, testPlanUOW, Collections.emptyList(), null);
+        cleanUpCommand.execute();
+
+        verify(testPlanUOW).deleteTestPlans(Arrays.asList("TP1", "TP3"));
+    }
+
+    @Test(expectedExceptions = CommandExecutionException.class)
+    public void testCleanupRejectsInvalidBatchSize() throws Exception {
+        testPlanUOW = mock(TestPlanUOW.class);
+        CleanUpCommand cleanUpCommand = new CleanUpCommand(0, 10, testPlanUOW, Collections.emptyList(), null);
+        Whitebox.setInternalState(cleanUpCommand, "batchSize", 0);
+        cleanUpCommand.execute();
+    }
 }
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.testgrid.core.configchangeset;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests the scripts built by {@link ConfigChangeSetExecutorUnix} to run config change set commands on an agent.
+ */
+public class ConfigChangeSetExecutorUnixTest {
+
+    @Test
+    public void testPipelinedCommandsRunAsIfSentOneByOne() throws Exception {
+        Path directory = Files.createTempDirectory("pipeline");
+        try {
+            Files.createDirectory(directory.resolve("repos"));
+            String script = ConfigChangeSetExecutorUnix.pipeline(Arrays.asList(
+                    "cd repos && touch first",
+                    "exit 3",
+                    "touch second"));
+
+            Process process = new ProcessBuilder("/bin/bash", "-c", script).directory(directory.toFile()).start();
+            Assert.assertTrue(process.waitFor(10, TimeUnit.SECONDS));
+            Assert.assertEquals(process.exitValue(), 3);
+            Assert.assertTrue(Files.exists(directory.resolve("repos").resolve("first")));
+            // the directory change of a command does not affect the following commands
+            Assert.assertTrue(Files.exists(directory.resolve("second")));
+        } finally {
+            for (String file : new String[] { "repos/first", "repos", "second" }) {
+                Files.deleteIfExists(directory.resolve(file));
+            }
+            Files.deleteIfExists(directory);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.testgrid.core.deploymentoutput;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.testgrid.common.Agent;
+import org.wso2.testgrid.common.util.tinkerer.SyncCommandResponse;
+import org.wso2.testgrid.core.deploymentoutput.DeploymentOutputManifest.AgentOutputs;
+import org.wso2.testgrid.core.deploymentoutput.DeploymentOutputManifest.Step;
+import org.wso2.testgrid.core.deploymentoutput.DeploymentOutputManifest.StepStatus;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests the steps, retries and manifest of {@link DeploymentOutputCollector}.
+ */
+public class DeploymentOutputCollectorTest {
+
+    private static final String SHA256 = String.join("", Collections.nCopies(8, "0123abcd"));
+    private static final String S3_LOCATION = "s3://testgrid-bucket/product/plan/data-bucket/deployment-outputs";
+
+    @Test
+    public void testCollect() {
+        Map<String, AtomicInteger> uploadAttempts = new ConcurrentHashMap<>();
+        DeploymentOutputCollector collector = new DeploymentOutputCollector((testPlanId, agent, command) -> {
+            Assert.assertEquals(testPlanId, "test-plan");
+            if (command.contains("log_archiver.sh")) {
+                return response(0, "");
+            }
+            boolean logs = command.contains("product_logs.zip");
+            if ("node-2".equals(agent.getInstanceName())) {
+                return logs ? response(0, "skipped " + SHA256 + " 1024") : response(66, "");
+            }
+            int attempt = uploadAttempts.computeIfAbsent(agent.getInstanceName() + logs, key -> new AtomicInteger())
+                    .incrementAndGet();
+            if ("node-1".equals(agent.getInstanceName()) && logs && attempt == 1) {
+                return response(1, "upload failed: connection reset");
+            }
+            return response(0, "Completed\nuploaded " + SHA256 + " 1024\n");
+        }, 3, 1);
+
+        DeploymentOutputManifest manifest = collector.collect("test-plan",
+                Arrays.asList(agent("node-1"), agent("node-2")), S3_LOCATION);
+
+        Assert.assertEquals(manifest.getAgents().size(), 2);
+        List<Step> steps = manifest.getAgents().get(0).getSteps();
+        Assert.assertEquals(steps.size(), 3);
+        Assert.assertEquals(steps.get(0).getName(), "archive");
+        Assert.assertEquals(steps.get(0).getStatus(), StepStatus.SUCCESS);
+        // only the failed upload is retried
+        Assert.assertEquals(steps.get(1).getStatus(), StepStatus.SUCCESS);
+        Assert.assertEquals(steps.get(1).getAttempts(), 2);
+        Assert.assertEquals(steps.get(1).getArtifact(), S3_LOCATION + "/product_logs_node-1.zip");
+        Assert.assertEquals(steps.get(1).getSha256(), SHA256);
+        Assert.assertEquals(steps.get(1).getSize(), 1024);
+        Assert.assertEquals(steps.get(2).getAttempts(), 1);
+        Assert.assertFalse(steps.get(2).isAlreadyUploaded());
+
+        AgentOutputs secondAgent = manifest.getAgents().get(1);
+        Assert.assertEquals(secondAgent.getInstanceName(), "node-2");
+        Assert.assertTrue(secondAgent.getSteps().get(1).isAlreadyUploaded());
+        Assert.assertEquals(secondAgent.getSteps().get(2).getStatus(), StepStatus.MISSING);
+        Assert.assertEquals(secondAgent.getSteps().get(2).getAttempts(), 1);
+        Assert.assertFalse(manifest.isComplete());
+    }
+
+    @Test
+    public void testUploadGivesUpAfterMaxAttempts() {
+        AtomicInteger attempts = new AtomicInteger();
+        DeploymentOutputCollector collector = new DeploymentOutputCollector((testPlanId, agent, command) -> {
+            if (command.contains("log_archiver.sh")) {
+                return response(0, "");
+            }
+            attempts.incrementAndGet();
+            // exit value 0 without the verified checksum is not a successful upload
+            return response(0, "");
+        }, 3, 1);
+
+        DeploymentOutputManifest manifest = collector.collect("test-plan",
+                Collections.singletonList(agent("node-1")), S3_LOCATION);
+
+        Step step = manifest.getAgents().get(0).getSteps().get(1);
+        Assert.assertEquals(step.getStatus(), StepStatus.FAILED);
+        Assert.assertEquals(step.getAttempts(), 3);
+        Assert.assertEquals(attempts.get(), 6);
+    }
+
+    @Test
+    public void testUploadScript() {
+        String script = DeploymentOutputCollector.getUploadScript("/var/log/product_logs.zip", "bucket",
+                "plan/product_logs_node-1.zip");
+        Assert.assertTrue(script.contains("aws s3 cp $f s3://bucket/plan/product_logs_node-1.zip --metadata " +
+                "sha256=$sum"));
+        Assert.assertTrue(script.contains("--query ContentLength"));
+        Assert.assertTrue(script.endsWith("echo \"uploaded $sum $size\""));
+    }
+
+    private static Agent agent(String instanceName) {
+        Agent agent = new Agent("agent-" + instanceName);
+        agent.setInstanceName(instanceName);
+        return agent;
+    }
+
+    private static SyncCommandResponse response(int exitValue, String output) {
+        SyncCommandResponse response = new SyncCommandResponse();
+        response.setExitValue(exitValue);
+        response.setResponse(output);
+        return response;
+    }
+}
@@ -17,30 +17,50 @@
  */
 package org.wso2.testgrid.dao;
 
+import org.eclipse.persistence.config.BatchWriting;
+import org.eclipse.persistence.config.PersistenceUnitProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wso2.testgrid.common.TestGridConstants;
 import org.wso2.testgrid.common.config.ConfigurationContext;
 import org.wso2.testgrid.common.config.ConfigurationContext.ConfigurationProperties;
 import org.wso2.testgrid.common.util.StringUtil;
+import org.wso2.testgrid.dao.migration.SchemaMigrator;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.SQLException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.FlushModeType;
 import javax.persistence.Persistence;
+import javax.persistence.SharedCacheMode;
 
 /**
  * This class is responsible of handling operations related to entity manager.
+ * <p>
+ * An {@link EntityManager} is not thread safe. Hence, each thread is given its own entity manager which is
+ * created from the shared {@link EntityManagerFactory} on first use. The entity manager returned by
+ * {@link #getEntityManager()} is a thread-bound handle which routes each call to the entity manager of the
+ * calling thread, so that it can be safely held by the repositories of a UOW shared between threads.
+ * <p>
+ * Threads serving short-lived requests (i.e. the web app) must call {@link #releaseEntityManager()} once
+ * the request is served so that the persistence context is not carried over to the next request served
+ * by the same thread.
  *
  * @since 1.0.0
  */
 public class EntityManagerHelper {
     private static final Logger logger = LoggerFactory.getLogger(EntityManagerHelper.class);
-    private static final Map<String, EntityManager> entityManagerMap = new HashMap<>();
-    private static final Map<String, EntityManagerFactory> entityManagerFactoryMap = new HashMap<>();
+    private static final Map<String, EntityManager> threadBoundEntityManagerMap = new ConcurrentHashMap<>();
+    private static final Map<String, EntityManagerFactory> entityManagerFactoryMap = new ConcurrentHashMap<>();
+    private static final ThreadLocal<Map<String, EntityManager>> threadEntityManagers =
+            ThreadLocal.withInitial(HashMap::new);
     private static final String TESTGRID_PU_MYSQL = "testgrid_mysql";
 
     /**
@@ -58,16 +78,73 @@ public class EntityManagerHelper {
      * @return thread safe {@link EntityManager}
      */
     private static EntityManager getEntityManager(String persistenceUnitName) {
-        EntityManager entityManager = entityManagerMap.get(persistenceUnitName);
+        return threadBoundEntityManagerMap.computeIfAbsent(persistenceUnitName, unitName ->
+                (EntityManager) Proxy.newProxyInstance(EntityManagerHelper.class.getClassLoader(),
+                        new Class<?>[]{EntityManager.class},
+                        (proxy, method, args) -> invoke(unitName, method, args)));
+    }
+
+    /**
+     * Routes a method call on the thread-bound entity manager handle to the entity manager of the current
+     * thread.
+     *
+     * @param persistenceUnitName persistence unit name of the entity manager
+     * @param method              invoked method
+     * @param args                arguments of the invoked method
+     * @return the result of the method invocation
+     * @throws Throwable the exception thrown by the entity manager
+     */
+    private static Object invoke(String persistenceUnitName, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(getCurrentEntityManager(persistenceUnitName), args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Returns the entity manager of the current thread for the given persistence unit. A new entity manager
+     * is created if the thread does not have one yet, or if the existing one has been closed.
+     *
+     * @param persistenceUnitName persistence unit name of the entity manager
+     * @return entity manager of the current thread
+     */
+    private static EntityManager getCurrentEntityManager(String persistenceUnitName) {
+        Map<String, EntityManager> entityManagers = threadEntityManagers.get();
+        EntityManager entityManager = entityManagers.get(persistenceUnitName);
         if (entityManager == null || !entityManager.isOpen()) {
             EntityManagerFactory entityManagerFactory = getEntityManagerFactory(persistenceUnitName);
             entityManager = entityManagerFactory.createEntityManager();
             entityManager.setFlushMode(FlushModeType.COMMIT); // Flushing will happen on committing the transaction.
-            entityManagerMap.put(persistenceUnitName, entityManager);
+            entityManagers.put(persistenceUnitName, entityManager);
         }
         return entityManager;
     }
 
+    /**
+     * Releases the entity managers acquired by the current thread. Any transaction left active is rolled back
+     * and the JDBC connections held are returned to the connection pool.
+     * <p>
+     * The entity managers are re-created on the next use within the thread.
+     */
+    public static void releaseEntityManager() {
+        Map<String, EntityManager> entityManagers = threadEntityManagers.get();
+        for (EntityManager entityManager : entityManagers.values()) {
+            try {
+                if (entityManager.isOpen()) {
+                    if (entityManager.getTransaction().isActive()) {
+                        entityManager.getTransaction().rollback();
+                    }
+                    entityManager.close();
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Error occurred while releasing the entity manager of thread "
+                        + Thread.currentThread().getName(), e);
+            }
+        }
+        threadEntityManagers.remove();
+    }
+
     /**
      * Closes the entity manager.
      * <p>
@@ -77,16 +154,15 @@ public class EntityManagerHelper {
      */
     public static void closeEntityManager(String persistenceUnitName) {
         // Remove entity manager from thread local
-        EntityManager entityManager = entityManagerMap.get(persistenceUnitName);
-        if (entityManager != null) {
-            entityManagerMap.remove(persistenceUnitName);
+        EntityManager entityManager = threadEntityManagers.get().remove(persistenceUnitName);
+        if (entityManager != null && entityManager.isOpen()) {
+            entityManager.close();
         }
 
-        // Close and remove entity manager factory. This closes the entity manager automatically
-        EntityManagerFactory entityManagerFactory = entityManagerFactoryMap.get(persistenceUnitName);
+        // Close and remove entity manager factory. This closes the entity managers of other threads as well.
+        EntityManagerFactory entityManagerFactory = entityManagerFactoryMap.remove(persistenceUnitName);
         if (entityManagerFactory != null) {
             entityManagerFactory.close();
-            entityManagerFactoryMap.remove(persistenceUnitName);
         }
     }
 
@@ -97,43 +173,121 @@ public class EntityManagerHelper {
      * @return entity manager factory with the given persistence unit name
      */
     private static EntityManagerFactory getEntityManagerFactory(String persistenceUnitName) {
+        return entityManagerFactoryMap.computeIfAbsent(persistenceUnitName,
+                EntityManagerHelper::createEntityManagerFactory);
+    }
 
+    /**
+     * Creates the entity manager factory for the given persistence unit name.
+     *
+     * @param persistenceUnitName persistence unit name of the entity manager factory
+     * @return entity manager factory with the given persistence unit name
+     */
+    private static EntityManagerFactory createEntityManagerFactory(String persistenceUnitName) {
         Map<String, String> persistenceMap = new HashMap<String, String>();
-        EntityManagerFactory entityManagerFactory = entityManagerFactoryMap.get(persistenceUnitName);
-        if (entityManagerFactory == null) {
-
-            String dbUrl = ConfigurationContext.getProperty(ConfigurationProperties.DB_URL);
-            String dbUser = ConfigurationContext.getProperty(ConfigurationProperties.DB_USER);
-            String dbUserPass = ConfigurationContext.getProperty(ConfigurationProperties.DB_USER_PASS);
-
-            if (dbUrl != null && dbUser != null && dbUserPass != null) {
-                //Override properties taken from persistence.xml
-                persistenceMap.put("javax.persistence.jdbc.url", dbUrl);
-                persistenceMap.put("javax.persistence.jdbc.user", dbUser);
-                persistenceMap.put("javax.persistence.jdbc.password", dbUserPass);
-                entityManagerFactory = Persistence.createEntityManagerFactory(persistenceUnitName, persistenceMap);
-            } else {
-                logger.warn(StringUtil.concatStrings(
-                        "One or more database properties {",
-                        ConfigurationProperties.DB_URL.toString(), ", ",
-                        ConfigurationProperties.DB_USER.toString(), ", ",
-                        ConfigurationProperties.DB_USER_PASS.toString(),
-                        "} are not set in ", TestGridConstants.TESTGRID_CONFIG_FILE,
-                        ". Using default properties in persistence.xml"));
-                entityManagerFactory = Persistence.createEntityManagerFactory(persistenceUnitName);
-            }
-            entityManagerFactoryMap.put(persistenceUnitName, entityManagerFactory);
+        addConnectionPoolProperties(persistenceMap);
+        addSharedCacheProperties(persistenceMap);
+        addBatchWritingProperties(persistenceMap);
+
+        String dbUrl = ConfigurationContext.getProperty(ConfigurationProperties.DB_URL);
+        String dbUser = ConfigurationContext.getProperty(ConfigurationProperties.DB_USER);
+        String dbUserPass = ConfigurationContext.getProperty(ConfigurationProperties.DB_USER_PASS);
+
+        if (dbUrl != null && dbUser != null && dbUserPass != null) {
+            //Override properties taken from persistence.xml
+            persistenceMap.put("javax.persistence.jdbc.url", dbUrl);
+            persistenceMap.put("javax.persistence.jdbc.user", dbUser);
+            persistenceMap.put("javax.persistence.jdbc.password", dbUserPass);
+        } else {
+            logger.warn(StringUtil.concatStrings(
+                    "One or more database properties {",
+                    ConfigurationProperties.DB_URL.toString(), ", ",
+                    ConfigurationProperties.DB_USER.toString(), ", ",
+                    ConfigurationProperties.DB_USER_PASS.toString(),
+                    "} are not set in ", TestGridConstants.TESTGRID_CONFIG_FILE,
+                    ". Using default properties in persistence.xml"));
+        }
+        EntityManagerFactory entityManagerFactory =
+                Persistence.createEntityManagerFactory(persistenceUnitName, persistenceMap);
+        try {
+            new SchemaMigrator().migrate(entityManagerFactory);
+        } catch (SQLException | RuntimeException e) {
+            logger.error(StringUtil.concatStrings("Error while migrating the database schema of ",
+                    persistenceUnitName, ". The database queries may fail or be slow until the schema is migrated."),
+                    e);
         }
         return entityManagerFactory;
     }
 
+    /**
+     * Adds the JDBC connection pool settings configured in the testgrid configuration file.
+     * The settings which are not configured fall back to the defaults of the persistence provider.
+     *
+     * @param persistenceMap properties to override the properties in persistence.xml
+     */
+    private static void addConnectionPoolProperties(Map<String, String> persistenceMap) {
+        putIfConfigured(persistenceMap, "eclipselink.connection-pool.default.initial",
+                ConfigurationProperties.DB_POOL_INITIAL_SIZE);
+        putIfConfigured(persistenceMap, "eclipselink.connection-pool.default.min",
+                ConfigurationProperties.DB_POOL_MIN_SIZE);
+        putIfConfigured(persistenceMap, "eclipselink.connection-pool.default.max",
+                ConfigurationProperties.DB_POOL_MAX_SIZE);
+        putIfConfigured(persistenceMap, "eclipselink.connection-pool.default.wait",
+                ConfigurationProperties.DB_POOL_WAIT_TIMEOUT);
+    }
+
+    /**
+     * Enables the shared cache for the entities annotated with {@link javax.persistence.Cacheable} if
+     * {@code DB_SHARED_CACHE} is set to true. Otherwise, the shared cache stays disabled as set in
+     * persistence.xml.
+     *
+     * @param persistenceMap properties to override the properties in persistence.xml
+     */
+    private static void addSharedCacheProperties(Map<String, String> persistenceMap) {
+        if (Boolean.parseBoolean(ConfigurationContext.getProperty(ConfigurationProperties.DB_SHARED_CACHE))) {
+            persistenceMap.put("javax.persistence.sharedCache.mode", SharedCacheMode.ENABLE_SELECTIVE.name());
+            persistenceMap.put("eclipselink.session.customizer", SharedCacheCustomizer.class.getName());
+        }
+    }
+
+    /**
+     * Overrides the JDBC batch size set in persistence.xml with {@code DB_BATCH_WRITING_SIZE}, if configured.
+     * Batch writing is disabled if it is set to 0.
+     *
+     * @param persistenceMap properties to override the properties in persistence.xml
+     */
+    private static void addBatchWritingProperties(Map<String, String> persistenceMap) {
+        // the settings of persistence.xml are kept if the batch size is not set, or is invalid
+        int batchSize = ConfigurationContext.getIntProperty(ConfigurationProperties.DB_BATCH_WRITING_SIZE,
+                Integer.MIN_VALUE);
+        if (batchSize == Integer.MIN_VALUE) {
+            return;
+        }
+        if (batchSize <= 0) {
+            persistenceMap.put(PersistenceUnitProperties.BATCH_WRITING, BatchWriting.None);
+        } else {
+            persistenceMap.put(PersistenceUnitProperties.BATCH_WRITING_SIZE, String.valueOf(batchSize));
+        }
+    }
+
+    private static void putIfConfigured(Map<String, String> persistenceMap, String persistenceProperty,
+            ConfigurationProperties configurationProperty) {
+        String value = ConfigurationContext.getProperty(configurationProperty);
+        if (!StringUtil.isStringNullOrEmpty(value)) {
+            persistenceMap.put(persistenceProperty, value.trim());
+        }
+    }
+
     /**
      * Returns the refreshed result list.
      *
      * @param entityManager Entity Manager object
      * @param resultList    Result List of query execution
      * @return List of refreshed results
+     * @deprecated this issues a separate SELECT for each entity of the result list. Set the refresh or read-only
+     * query hints on the query instead.
      */
+    @Deprecated
     public static <T> List<T> refreshResultList(EntityManager entityManager, List<T> resultList) {
         if (!resultList.isEmpty()) {
             for (T entity : resultList) {
@@ -149,7 +303,10 @@ public class EntityManagerHelper {
      * @param entityManager Entity Manager object
      * @param result        Result of query execution
      * @return Refreshed result
+     * @deprecated this issues a separate SELECT for the entity. Set the refresh or read-only query hints on the
+     * query instead.
      */
+    @Deprecated
     public static <T> T refreshResult(EntityManager entityManager, T result) {
         entityManager.refresh(result);
         return result;
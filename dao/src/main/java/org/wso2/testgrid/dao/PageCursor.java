@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.testgrid.dao;
+
+import org.wso2.testgrid.common.AbstractUUIDEntity;
+import org.wso2.testgrid.common.util.StringUtil;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Base64;
+
+/**
+ * Position of a page of entities ordered by their modified timestamp and id.
+ * <p>
+ * A page starts right after the entity the cursor was created from, hence the pages stay consistent when
+ * entities are added while paging, unlike offset based pages. The cursor is handed to the clients as an opaque
+ * string (see {@link #encode()}).
+ *
+ * @since 1.0.0
+ */
+public final class PageCursor {
+
+    private static final String SEPARATOR = ":";
+
+    private final Timestamp modifiedTimestamp;
+    private final String id;
+
+    private PageCursor(Timestamp modifiedTimestamp, String id) {
+        this.modifiedTimestamp = modifiedTimestamp;
+        this.id = id;
+    }
+
+    /**
+     * Creates the cursor of the page following the given entity.
+     *
+     * @param entity last entity of a page
+     * @return cursor of the next page
+     */
+    public static PageCursor after(AbstractUUIDEntity entity) {
+        return new PageCursor(entity.getModifiedTimestamp(), entity.getId());
+    }
+
+    /**
+     * Decodes a cursor encoded with {@link #encode()}.
+     *
+     * @param cursor encoded cursor
+     * @return decoded cursor
+     * @throws IllegalArgumentException if the given string is not a valid cursor
+     */
+    public static PageCursor decode(String cursor) {
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(SEPARATOR, 3);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid page cursor: " + cursor, e);
+        }
+        if (parts.length != 3 || parts[2].isEmpty()) {
+            throw new IllegalArgumentException("Invalid page cursor: " + cursor);
+        }
+        try {
+            Timestamp modifiedTimestamp = new Timestamp(Long.parseLong(parts[0]));
+            modifiedTimestamp.setNanos(Integer.parseInt(parts[1]));
+            return new PageCursor(modifiedTimestamp, parts[2]);
+        } catch (IllegalArgumentException e) {
+            // thrown for invalid numbers, and for nanos out of range
+            throw new IllegalArgumentException("Invalid page cursor: " + cursor, e);
+        }
+    }
+
+    /**
+     * Encodes the cursor as an opaque URL safe string.
+     *
+     * @return encoded cursor
+     */
+    public String encode() {
+        String value = StringUtil.concatStrings(modifiedTimestamp.getTime(), SEPARATOR, modifiedTimestamp.getNanos(),
+                SEPARATOR, id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the modified timestamp of the last entity of the previous page.
+     *
+     * @return modified timestamp
+     */
+    public Timestamp getModifiedTimestamp() {
+        Timestamp copy = new Timestamp(modifiedTimestamp.getTime());
+        copy.setNanos(modifiedTimestamp.getNanos());
+        return copy;
+    }
+
+    /**
+     * Returns the id of the last entity of the previous page.
+     *
+     * @return entity id
+     */
+    public String getId() {
+        return id;
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.testgrid.dao;
+
+import org.eclipse.persistence.config.SessionCustomizer;
+import org.eclipse.persistence.descriptors.ClassDescriptor;
+import org.eclipse.persistence.descriptors.invalidation.TimeToLiveCacheInvalidationPolicy;
+import org.eclipse.persistence.sessions.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.testgrid.common.config.ConfigurationContext;
+import org.wso2.testgrid.common.config.ConfigurationContext.ConfigurationProperties;
+import org.wso2.testgrid.common.util.StringUtil;
+
+import java.util.concurrent.TimeUnit;
+import javax.persistence.Cacheable;
+
+/**
+ * Configures the shared cache of a persistence unit.
+ * <p>
+ * The entities annotated with {@link Cacheable} are expired from the shared cache after
+ * {@code DB_SHARED_CACHE_EXPIRY} seconds, so that the changes made from other JVMs are read within that time.
+ * The changes made from this JVM are evicted right away by the units of work. The cache hits and misses are
+ * counted with {@link SharedCacheStatistics}.
+ *
+ * @since 1.0.0
+ */
+public class SharedCacheCustomizer implements SessionCustomizer {
+
+    private static final Logger logger = LoggerFactory.getLogger(SharedCacheCustomizer.class);
+    private static final long DEFAULT_EXPIRY = 300;
+
+    @Override
+    public void customize(Session session) {
+        long expiry = getExpiry();
+        for (ClassDescriptor descriptor : session.getDescriptors().values()) {
+            if (descriptor.getJavaClass().isAnnotationPresent(Cacheable.class)) {
+                descriptor.setCacheInvalidationPolicy(
+                        new TimeToLiveCacheInvalidationPolicy(TimeUnit.SECONDS.toMillis(expiry)));
+                logger.info(StringUtil.concatStrings("Shared cache enabled for ", descriptor.getAlias(),
+                        " with an expiry of ", expiry, " seconds."));
+            }
+        }
+        SharedCacheStatistics statistics = new SharedCacheStatistics();
+        session.setProfiler(statistics);
+        statistics.register(session.getName());
+    }
+
+    private static long getExpiry() {
+        return ConfigurationContext.getLongProperty(ConfigurationProperties.DB_SHARED_CACHE_EXPIRY, DEFAULT_EXPIRY);
+    }
+}
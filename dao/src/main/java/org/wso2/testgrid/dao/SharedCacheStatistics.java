@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.testgrid.dao;
+
+import org.eclipse.persistence.internal.sessions.AbstractSession;
+import org.eclipse.persistence.queries.DatabaseQuery;
+import org.eclipse.persistence.sessions.SessionProfiler;
+import org.eclipse.persistence.sessions.SessionProfilerAdapter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.testgrid.common.util.StringUtil;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counts the cache hits and misses of a persistence unit.
+ * <p>
+ * This is installed as the session profiler of the persistence unit when the shared cache is enabled. The
+ * counters are exposed through JMX as {@code org.wso2.testgrid:type=SharedCacheStatistics}, and are logged
+ * every {@link #LOG_INTERVAL} lookups.
+ *
+ * @since 1.0.0
+ */
+public class SharedCacheStatistics extends SessionProfilerAdapter implements SharedCacheStatisticsMBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(SharedCacheStatistics.class);
+    private static final long LOG_INTERVAL = 10000;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @Override
+    public void occurred(String operationName, AbstractSession session) {
+        count(operationName);
+    }
+
+    @Override
+    public void occurred(String operationName, DatabaseQuery query, AbstractSession session) {
+        count(operationName);
+    }
+
+    @Override
+    public int getProfileWeight() {
+        return SessionProfiler.NORMAL;
+    }
+
+    @Override
+    public long getHits() {
+        return hits.get();
+    }
+
+    @Override
+    public long getMisses() {
+        return misses.get();
+    }
+
+    @Override
+    public double getHitPercentage() {
+        long hitCount = hits.get();
+        long lookups = hitCount + misses.get();
+        return lookups == 0 ? 0 : hitCount * 100.0 / lookups;
+    }
+
+    @Override
+    public void reset() {
+        hits.set(0);
+        misses.set(0);
+    }
+
+    /**
+     * Registers the statistics in the platform MBean server, replacing the statistics registered earlier for
+     * the same persistence unit.
+     *
+     * @param unitName name of the persistence unit
+     */
+    void register(String unitName) {
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(StringUtil.concatStrings(
+                    "org.wso2.testgrid:type=SharedCacheStatistics,name=", ObjectName.quote(unitName)));
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+            mBeanServer.registerMBean(this, objectName);
+        } catch (JMException e) {
+            logger.warn("Error occurred while registering the shared cache statistics of " + unitName, e);
+        }
+    }
+
+    private void count(String operationName) {
+        long lookups;
+        if (SessionProfiler.CacheHits.equals(operationName)) {
+            lookups = hits.incrementAndGet() + misses.get();
+        } else if (SessionProfiler.CacheMisses.equals(operationName)) {
+            lookups = hits.get() + misses.incrementAndGet();
+        } else {
+            return;
+        }
+        if (lookups % LOG_INTERVAL == 0) {
+            logger.info(toString());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return StringUtil.concatStrings("Shared cache hits: ", getHits(), ", misses: ", getMisses(),
+                ", hit percentage: ", String.format("%.1f", getHitPercentage()), "%");
+    }
+}
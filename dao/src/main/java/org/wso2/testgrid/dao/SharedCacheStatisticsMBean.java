@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.testgrid.dao;
+
+/**
+ * JMX management interface of {@link SharedCacheStatistics}.
+ *
+ * @since 1.0.0
+ */
+public interface SharedCacheStatisticsMBean {
+
+    /**
+     * Returns the number of entity lookups served from the shared cache.
+     *
+     * @return number of cache hits
+     */
+    long getHits();
+
+    /**
+     * Returns the number of entity lookups which had to read the database.
+     *
+     * @return number of cache misses
+     */
+    long getMisses();
+
+    /**
+     * Returns the percentage of entity lookups served from the shared cache.
+     *
+     * @return percentage of lookups that hit the cache, between 0 and 100, or 0 if there has been no lookup
+     */
+    double getHitPercentage();
+
+    /**
+     * Resets the hit and miss counters.
+     */
+    void reset();
+}
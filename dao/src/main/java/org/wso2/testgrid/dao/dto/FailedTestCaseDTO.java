@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.testgrid.dao.dto;
+
+/**
+ * Defines a projection of a failed test case, which holds only the beginning of the failure message. The
+ * complete failure message is read on demand.
+ *
+ * @since 1.0.0
+ */
+public class FailedTestCaseDTO {
+
+    private String id;
+    private String name;
+    private String failureMessagePreview;
+    private int failureMessageLength;
+
+    public FailedTestCaseDTO(String id, String name, String failureMessagePreview, int failureMessageLength) {
+        this.id = id;
+        this.name = name;
+        this.failureMessagePreview = failureMessagePreview;
+        this.failureMessageLength = failureMessageLength;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getFailureMessagePreview() {
+        return failureMessagePreview;
+    }
+
+    public void setFailureMessagePreview(String failureMessagePreview) {
+        this.failureMessagePreview = failureMessagePreview;
+    }
+
+    public int getFailureMessageLength() {
+        return failureMessageLength;
+    }
+
+    public void setFailureMessageLength(int failureMessageLength) {
+        this.failureMessageLength = failureMessageLength;
+    }
+
+    /**
+     * Returns whether the preview holds only the beginning of the failure message.
+     *
+     * @return true if the failure message is longer than its preview
+     */
+    public boolean isFailureMessageTruncated() {
+        return failureMessagePreview != null && failureMessageLength > failureMessagePreview.length();
+    }
+}
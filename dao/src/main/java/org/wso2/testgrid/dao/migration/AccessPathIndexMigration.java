@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.testgrid.dao.migration;
+
+import org.wso2.testgrid.common.DeploymentPattern;
+import org.wso2.testgrid.common.InfraCombinationBuildStatus;
+import org.wso2.testgrid.common.TestCase;
+import org.wso2.testgrid.common.TestPlan;
+import org.wso2.testgrid.common.TestScenario;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Creates the indexes matching the access paths of the repositories.
+ * <ul>
+ * <li>the builds of an infra combination, by test run number or by modified time</li>
+ * <li>the test plans of a deployment pattern created before a given time</li>
+ * <li>the test plans created before or after a given time, to clean up and to report the history</li>
+ * <li>the test scenarios of a test plan and the test cases of a test scenario by status</li>
+ * <li>the deployment patterns and the infra combination statuses of a product</li>
+ * </ul>
+ *
+ * @since 1.0.0
+ */
+class AccessPathIndexMigration extends SchemaMigration {
+
+    static final String TEST_PLAN_INFRA_RUN_INDEX = "idx_test_plan_dp_infra_run";
+    static final String TEST_PLAN_INFRA_MODIFIED_INDEX = "idx_test_plan_dp_infra_modified";
+    static final String TEST_PLAN_CREATED_INDEX = "idx_test_plan_dp_created";
+    static final String TEST_PLAN_CREATED_TIME_INDEX = "idx_test_plan_created";
+    static final String TEST_SCENARIO_TEST_PLAN_INDEX = "idx_test_scenario_test_plan";
+    static final String TEST_CASE_STATUS_INDEX = "idx_test_case_scenario_status";
+    static final String DEPLOYMENT_PATTERN_PRODUCT_INDEX = "idx_deployment_pattern_product";
+    static final String INFRA_COMBINATION_STATUS_PRODUCT_INDEX = "idx_infra_combination_status_product";
+
+    AccessPathIndexMigration() {
+        super(2, "Add the indexes of the test plan, test scenario and test case access paths");
+    }
+
+    @Override
+    public void migrate(Connection connection) throws SQLException {
+        createIndexIfMissing(connection, TestPlan.TEST_PLAN_TABLE, TEST_PLAN_INFRA_RUN_INDEX,
+                "DEPLOYMENTPATTERN_id", "infra_parameters_hash", "test_run_number");
+        createIndexIfMissing(connection, TestPlan.TEST_PLAN_TABLE, TEST_PLAN_INFRA_MODIFIED_INDEX,
+                "DEPLOYMENTPATTERN_id", "infra_parameters_hash", "modified_timestamp");
+        createIndexIfMissing(connection, TestPlan.TEST_PLAN_TABLE, TEST_PLAN_CREATED_INDEX,
+                "DEPLOYMENTPATTERN_id", "created_timestamp");
+        createIndexIfMissing(connection, TestPlan.TEST_PLAN_TABLE, TEST_PLAN_CREATED_TIME_INDEX,
+                "created_timestamp");
+        createIndexIfMissing(connection, TestScenario.TEST_SCENARIO_TABLE, TEST_SCENARIO_TEST_PLAN_INDEX,
+                "TESTPLAN_id");
+        createIndexIfMissing(connection, TestCase.TEST_CASE_TABLE, TEST_CASE_STATUS_INDEX,
+                "TESTSCENARIO_id", "status");
+        createIndexIfMissing(connection, DeploymentPattern.DEPLOYMENT_PATTERN_TABLE,
+                DEPLOYMENT_PATTERN_PRODUCT_INDEX, "PRODUCT_id");
+        createIndexIfMissing(connection, InfraCombinationBuildStatus.INFRA_COMBINATION_STATUS_TABLE,
+                INFRA_COMBINATION_STATUS_PRODUCT_INDEX, "product_id");
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.testgrid.dao.migration;
+
+import org.wso2.testgrid.common.InfraCombinationBuildStatus;
+import org.wso2.testgrid.common.util.StringUtil;
+import org.wso2.testgrid.common.util.TestGridUtil;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keys the infra combination statuses on the deployment pattern and the hash of the infra parameters, the same
+ * way the test plans of an infra combination are looked up, instead of on the infra parameters.
+ * <p>
+ * The hash is filled for the existing infra combination statuses before the unique index is created. The infra
+ * combination statuses were unique on the infra parameters, hence they are unique on the hash as well.
+ *
+ * @since 1.0.0
+ */
+class InfraCombinationStatusKeyMigration extends SchemaMigration {
+
+    static final String INFRA_COMBINATION_STATUS_KEY = "uk_infra_combination_status_dp_infra";
+
+    InfraCombinationStatusKeyMigration() {
+        super(4, "Key the infra combination statuses on the hash of the infra parameters");
+    }
+
+    @Override
+    public void migrate(Connection connection) throws SQLException {
+        String table = InfraCombinationBuildStatus.INFRA_COMBINATION_STATUS_TABLE;
+        addColumnIfMissing(connection, table, InfraCombinationBuildStatus.INFRA_PARAMETERS_HASH_COLUMN,
+                "VARCHAR(64)");
+
+        List<String> infraParameters = new ArrayList<>();
+        try (PreparedStatement select = connection.prepareStatement(StringUtil.concatStrings(
+                "SELECT DISTINCT infra_parameters FROM ", table,
+                " WHERE infra_parameters_hash IS NULL AND infra_parameters IS NOT NULL"));
+             ResultSet resultSet = select.executeQuery()) {
+            while (resultSet.next()) {
+                infraParameters.add(resultSet.getString(1));
+            }
+        }
+        try (PreparedStatement update = connection.prepareStatement(StringUtil.concatStrings(
+                "UPDATE ", table, " SET infra_parameters_hash = ? ",
+                "WHERE infra_parameters = ? AND infra_parameters_hash IS NULL"))) {
+            for (String value : infraParameters) {
+                update.setString(1, TestGridUtil.getSha256Hash(value));
+                update.setString(2, value);
+                update.executeUpdate();
+            }
+        }
+
+        dropUniqueIndexIfExists(connection, table, InfraCombinationBuildStatus.DEPLOYMENT_PATTERN_ID_COLUMN,
+                InfraCombinationBuildStatus.INFRA_PARAMETERS_COLUMN);
+        createUniqueIndexIfMissing(connection, table, INFRA_COMBINATION_STATUS_KEY,
+                InfraCombinationBuildStatus.DEPLOYMENT_PATTERN_ID_COLUMN,
+                InfraCombinationBuildStatus.INFRA_PARAMETERS_HASH_COLUMN);
+    }
+}
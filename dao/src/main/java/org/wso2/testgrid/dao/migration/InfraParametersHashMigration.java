@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.testgrid.dao.migration;
+
+import org.wso2.testgrid.common.TestPlan;
+import org.wso2.testgrid.common.util.StringUtil;
+import org.wso2.testgrid.common.util.TestGridUtil;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Adds the {@code infra_parameters_hash} column to the test_plan table, and fills it for the existing test plans.
+ * <p>
+ * A test plan has only a few distinct infra parameters, hence the hash is computed once for each distinct
+ * value.
+ *
+ * @since 1.0.0
+ */
+class InfraParametersHashMigration extends SchemaMigration {
+
+    InfraParametersHashMigration() {
+        super(1, "Add the hash of the infra parameters to the test plans");
+    }
+
+    @Override
+    public void migrate(Connection connection) throws SQLException {
+        addColumnIfMissing(connection, TestPlan.TEST_PLAN_TABLE, "infra_parameters_hash", "VARCHAR(64)");
+
+        List<String> infraParameters = new ArrayList<>();
+        try (PreparedStatement select = connection.prepareStatement(StringUtil.concatStrings(
+                "SELECT DISTINCT infra_parameters FROM ", TestPlan.TEST_PLAN_TABLE,
+                " WHERE infra_parameters_hash IS NULL AND infra_parameters IS NOT NULL"));
+             ResultSet resultSet = select.executeQuery()) {
+            while (resultSet.next()) {
+                infraParameters.add(resultSet.getString(1));
+            }
+        }
+        try (PreparedStatement update = connection.prepareStatement(StringUtil.concatStrings(
+                "UPDATE ", TestPlan.TEST_PLAN_TABLE, " SET infra_parameters_hash = ? ",
+                "WHERE infra_parameters = ? AND infra_parameters_hash IS NULL"))) {
+            for (String value : infraParameters) {
+                update.setString(1, TestGridUtil.getSha256Hash(value));
+                update.setString(2, value);
+                update.executeUpdate();
+            }
+        }
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.testgrid.dao.migration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.testgrid.common.util.StringUtil;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A versioned change to the database schema, applied once by the {@link SchemaMigrator}.
+ * <p>
+ * The tables are created by the persistence provider, which neither alters existing tables nor creates
+ * indexes. The migrations fill that gap. A migration may run on a schema which already has some of its changes
+ * (ex: a column created by the persistence provider on a new database, or a migration interrupted halfway),
+ * hence the changes are made with the idempotent helpers of this class. The helpers also tolerate another
+ * instance making the same change at the same time: when a change fails, the schema is checked again, and the
+ * failure is ignored if the change is found made.
+ *
+ * @since 1.0.0
+ */
+public abstract class SchemaMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(SchemaMigration.class);
+
+    private final int version;
+    private final String description;
+
+    /**
+     * Constructs a migration.
+     *
+     * @param version     version of the schema after the migration. Migrations are applied in the order of versions
+     * @param description description of the change
+     */
+    protected SchemaMigration(int version, String description) {
+        this.version = version;
+        this.description = description;
+    }
+
+    /**
+     * Returns the version of the schema after the migration.
+     *
+     * @return schema version
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the description of the change.
+     *
+     * @return description of the change
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Applies the change to the database.
+     *
+     * @param connection connection to the database
+     * @throws SQLException thrown when error on applying the change
+     */
+    public abstract void migrate(Connection connection) throws SQLException;
+
+    /**
+     * Adds a column to a table, unless the table already has it.
+     *
+     * @param connection connection to the database
+     * @param table      name of the table
+     * @param column     name of the column
+     * @param definition SQL type and constraints of the column
+     * @return true if the column is added, false if the table already has it
+     * @throws SQLException thrown when error on adding the column
+     */
+    protected boolean addColumnIfMissing(Connection connection, String table, String column, String definition)
+            throws SQLException {
+        if (hasColumn(connection, table, column)) {
+            return false;
+        }
+        try {
+            execute(connection, StringUtil.concatStrings("ALTER TABLE ", table, " ADD COLUMN ", column, " ",
+                    definition));
+        } catch (SQLException e) {
+            if (!hasColumn(connection, table, column)) {
+                throw e;
+            }
+            logger.info(StringUtil.concatStrings("Column ", column, " of ", table, " is added concurrently."));
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Creates an index on a table, unless the table already has an index with the given name or an index
+     * which starts with the given columns.
+     *
+     * @param connection connection to the database
+     * @param table      name of the table
+     * @param index      name of the index
+     * @param columns    indexed columns, in order
+     * @return true if the index is created, false if the table already has a matching index
+     * @throws SQLException thrown when error on creating the index
+     */
+    protected boolean createIndexIfMissing(Connection connection, String table, String index, String... columns)
+            throws SQLException {
+        if (hasIndex(connection, table, false, index, columns)) {
+            return false;
+        }
+        try {
+            execute(connection, StringUtil.concatStrings("CREATE INDEX ", index, " ON ", table, " (",
+                    String.join(", ", columns), ")"));
+        } catch (SQLException e) {
+            if (!hasIndex(connection, table, false, index, columns)) {
+                throw e;
+            }
+            logger.info(StringUtil.concatStrings("Index ", index, " of ", table, " is created concurrently."));
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Creates a unique index on a table, unless the table already has an index with the given name or a unique
+     * index on exactly the given columns.
+     *
+     * @param connection connection to the database
+     * @param table      name of the table
+     * @param index      name of the index
+     * @param columns    indexed columns, in order
+     * @return true if the index is created, false if the table already has a matching index
+     * @throws SQLException thrown when error on creating the index
+     */
+    protected boolean createUniqueIndexIfMissing(Connection connection, String table, String index,
+            String... columns) throws SQLException {
+        if (hasIndex(connection, table, true, index, columns)) {
+            return false;
+        }
+        try {
+            execute(connection, StringUtil.concatStrings("CREATE UNIQUE INDEX ", index, " ON ", table, " (",
+                    String.join(", ", columns), ")"));
+        } catch (SQLException e) {
+            if (!hasIndex(connection, table, true, index, columns)) {
+                throw e;
+            }
+            logger.info(StringUtil.concatStrings("Unique index ", index, " of ", table,
+                    " is created concurrently."));
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Drops the unique indexes (ex: unique constraints) of a table on exactly the given columns, if any.
+     *
+     * @param connection connection to the database
+     * @param table      name of the table
+     * @param columns    indexed columns, in order
+     * @return true if an index is dropped, false if the table has no matching index
+     * @throws SQLException thrown when error on dropping an index
+     */
+    protected boolean dropUniqueIndexIfExists(Connection connection, String table, String... columns)
+            throws SQLException {
+        boolean dropped = false;
+        for (Map.Entry<String, List<String>> existingIndex : getIndexes(connection, table, true).entrySet()) {
+            if (existingIndex.getValue().size() == columns.length && startsWith(existingIndex.getValue(), columns)) {
+                try {
+                    execute(connection, StringUtil.concatStrings("ALTER TABLE ", table, " DROP INDEX ",
+                            existingIndex.getKey()));
+                    dropped = true;
+                } catch (SQLException e) {
+                    if (getIndexes(connection, table, true).containsKey(existingIndex.getKey())) {
+                        throw e;
+                    }
+                    logger.info(StringUtil.concatStrings("Unique index ", existingIndex.getKey(), " of ", table,
+                            " is dropped concurrently."));
+                }
+            }
+        }
+        return dropped;
+    }
+
+    /**
+     * Executes an SQL statement.
+     *
+     * @param connection connection to the database
+     * @param sql        statement to execute
+     * @throws SQLException thrown when error on executing the statement
+     */
+    protected void execute(Connection connection, String sql) throws SQLException {
+        logger.info(StringUtil.concatStrings("Executing schema migration statement: ", sql));
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private static boolean hasColumn(Connection connection, String table, String column) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (ResultSet columns = metaData.getColumns(connection.getCatalog(), null,
+                toStoredCase(metaData, table), toStoredCase(metaData, column))) {
+            return columns.next();
+        }
+    }
+
+    /**
+     * Returns whether the table has an index with the given name, or an index covering the given columns. A
+     * unique index covers exactly the given columns, while a non-unique index starts with them.
+     */
+    private static boolean hasIndex(Connection connection, String table, boolean unique, String index,
+            String... columns) throws SQLException {
+        for (Map.Entry<String, List<String>> existingIndex : getIndexes(connection, table, unique).entrySet()) {
+            if (existingIndex.getKey().equalsIgnoreCase(index) || (startsWith(existingIndex.getValue(), columns)
+                    && (!unique || existingIndex.getValue().size() == columns.length))) {
+                logger.debug(StringUtil.concatStrings(unique ? "Unique index " : "Index ", existingIndex.getKey(),
+                        " of ", table, " already covers ", Arrays.toString(columns)));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Map<String, List<String>> getIndexes(Connection connection, String table, boolean unique)
+            throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        Map<String, List<String>> indexes = new LinkedHashMap<>();
+        try (ResultSet indexInfo = metaData.getIndexInfo(connection.getCatalog(), null,
+                toStoredCase(metaData, table), unique, false)) {
+            while (indexInfo.next()) {
+                String indexName = indexInfo.getString("INDEX_NAME");
+                String columnName = indexInfo.getString("COLUMN_NAME");
+                if (indexName == null || columnName == null) {
+                    continue;
+                }
+                List<String> indexColumns = indexes.computeIfAbsent(indexName, name -> new ArrayList<>());
+                int position = indexInfo.getInt("ORDINAL_POSITION");
+                while (indexColumns.size() < position) {
+                    indexColumns.add(null);
+                }
+                indexColumns.set(position - 1, columnName);
+            }
+        }
+        return indexes;
+    }
+
+    private static boolean startsWith(List<String> indexColumns, String[] columns) {
+        if (indexColumns.size() < columns.length) {
+            return false;
+        }
+        for (int i = 0; i < columns.length; i++) {
+            if (!columns[i].equalsIgnoreCase(indexColumns.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String toStoredCase(DatabaseMetaData metaData, String identifier) throws SQLException {
+        if (metaData.storesUpperCaseIdentifiers()) {
+            return identifier.toUpperCase(Locale.ENGLISH);
+        } else if (metaData.storesLowerCaseIdentifiers()) {
+            return identifier.toLowerCase(Locale.ENGLISH);
+        }
+        return identifier;
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.testgrid.dao.migration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.testgrid.common.util.StringUtil;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Applies the pending {@link SchemaMigration}s to the database of a persistence unit.
+ * <p>
+ * The applied versions are recorded in the {@value #SCHEMA_VERSION_TABLE} table, so that each migration is
+ * applied once. When several instances start together, a migration may be applied by more than one of them at
+ * the same time. The migrations are idempotent, and their schema changes tolerate a concurrent instance making
+ * the same change (see {@link SchemaMigration}), so the instances which lose such a race carry on instead of
+ * failing to start.
+ *
+ * @since 1.0.0
+ */
+public class SchemaMigrator {
+
+    private static final Logger logger = LoggerFactory.getLogger(SchemaMigrator.class);
+
+    /**
+     * Table recording the applied schema versions.
+     */
+    public static final String SCHEMA_VERSION_TABLE = "schema_version";
+
+    private final List<SchemaMigration> migrations;
+
+    /**
+     * Constructs a migrator with the migrations of the TestGrid schema.
+     */
+    public SchemaMigrator() {
+        this(Arrays.asList(new InfraParametersHashMigration(), new AccessPathIndexMigration(),
+                new TestResultCountsMigration(), new InfraCombinationStatusKeyMigration()));
+    }
+
+    /**
+     * Constructs a migrator with the given migrations.
+     *
+     * @param migrations migrations to apply
+     */
+    SchemaMigrator(List<SchemaMigration> migrations) {
+        this.migrations = new ArrayList<>(migrations);
+        this.migrations.sort(Comparator.comparingInt(SchemaMigration::getVersion));
+    }
+
+    /**
+     * Applies the pending migrations to the database of the given persistence unit. The tables of the
+     * persistence unit are created first, if they do not exist.
+     *
+     * @param entityManagerFactory entity manager factory of the persistence unit
+     * @throws SQLException thrown when error on applying a migration. The migrations applied before the failed
+     *                      migration remain applied.
+     */
+    public void migrate(EntityManagerFactory entityManagerFactory) throws SQLException {
+        // The persistence provider creates the tables when the first entity manager is created.
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+            migrate(entityManager.unwrap(Connection.class));
+            entityManager.getTransaction().commit();
+        } finally {
+            if (entityManager.getTransaction().isActive()) {
+                entityManager.getTransaction().rollback();
+            }
+            entityManager.close();
+        }
+    }
+
+    /**
+     * Applies the pending migrations with the given connection.
+     *
+     * @param connection connection to the database
+     * @throws SQLException thrown when error on applying a migration. The migrations applied before the failed
+     *                      migration remain applied.
+     */
+    public void migrate(Connection connection) throws SQLException {
+        execute(connection, StringUtil.concatStrings("CREATE TABLE IF NOT EXISTS ", SCHEMA_VERSION_TABLE,
+                " (version INT NOT NULL, description VARCHAR(255) NOT NULL, ",
+                "applied_timestamp TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, PRIMARY KEY (version))"));
+        Set<Integer> appliedVersions = getAppliedVersions(connection);
+        for (SchemaMigration migration : migrations) {
+            if (appliedVersions.contains(migration.getVersion())) {
+                continue;
+            }
+            logger.info(StringUtil.concatStrings("Migrating the database schema to version ",
+                    migration.getVersion(), ": ", migration.getDescription()));
+            long startTime = System.currentTimeMillis();
+            migration.migrate(connection);
+            recordVersion(connection, migration);
+            logger.info(StringUtil.concatStrings("Migrated the database schema to version ",
+                    migration.getVersion(), " in ", System.currentTimeMillis() - startTime, " ms."));
+        }
+    }
+
+    private void recordVersion(Connection connection, SchemaMigration migration) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(StringUtil.concatStrings(
+                "INSERT INTO ", SCHEMA_VERSION_TABLE, " (version, description) VALUES (?, ?)"))) {
+            insert.setInt(1, migration.getVersion());
+            insert.setString(2, migration.getDescription());
+            insert.executeUpdate();
+            commit(connection);
+        } catch (SQLException e) {
+            rollback(connection);
+            if (!getAppliedVersions(connection).contains(migration.getVersion())) {
+                throw e;
+            }
+            // Recorded by another instance which applied the migration at the same time.
+        }
+    }
+
+    private Set<Integer> getAppliedVersions(Connection connection) throws SQLException {
+        Set<Integer> versions = new HashSet<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT version FROM " + SCHEMA_VERSION_TABLE)) {
+            while (resultSet.next()) {
+                versions.add(resultSet.getInt(1));
+            }
+        }
+        return versions;
+    }
+
+    private void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+        commit(connection);
+    }
+
+    private static void commit(Connection connection) throws SQLException {
+        if (!connection.getAutoCommit()) {
+            connection.commit();
+        }
+    }
+
+    private static void rollback(Connection connection) throws SQLException {
+        if (!connection.getAutoCommit()) {
+            connection.rollback();
+        }
+    }
+}
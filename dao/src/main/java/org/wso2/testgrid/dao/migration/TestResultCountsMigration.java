@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.testgrid.dao.migration;
+
+import org.wso2.testgrid.common.TestCase;
+import org.wso2.testgrid.common.TestPlan;
+import org.wso2.testgrid.common.TestScenario;
+import org.wso2.testgrid.common.util.StringUtil;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Adds the counts of successful, failed and skipped test cases to the test_scenario and test_plan tables, and
+ * computes them for the existing test scenarios and test plans.
+ * <p>
+ * The counts of the new test scenarios and test plans are computed while the test results are persisted.
+ *
+ * @since 1.0.0
+ */
+class TestResultCountsMigration extends SchemaMigration {
+
+    private static final String[][] COUNT_COLUMNS = {
+            {"success_count", "SUCCESS"},
+            {"fail_count", "FAIL"},
+            {"skip_count", "SKIP"}
+    };
+
+    TestResultCountsMigration() {
+        super(3, "Add the counts of successful, failed and skipped test cases to the test scenarios and test plans");
+    }
+
+    @Override
+    public void migrate(Connection connection) throws SQLException {
+        for (String[] countColumn : COUNT_COLUMNS) {
+            String column = countColumn[0];
+            if (addColumnIfMissing(connection, TestScenario.TEST_SCENARIO_TABLE, column, "INT NOT NULL DEFAULT 0")) {
+                execute(connection, StringUtil.concatStrings("UPDATE ", TestScenario.TEST_SCENARIO_TABLE, " s SET ",
+                        column, " = (SELECT COUNT(*) FROM ", TestCase.TEST_CASE_TABLE, " c ",
+                        "WHERE c.TESTSCENARIO_id = s.id AND c.status = '", countColumn[1], "')"));
+            }
+            if (addColumnIfMissing(connection, TestPlan.TEST_PLAN_TABLE, column, "INT NOT NULL DEFAULT 0")) {
+                execute(connection, StringUtil.concatStrings("UPDATE ", TestPlan.TEST_PLAN_TABLE, " p SET ",
+                        column, " = (SELECT COALESCE(SUM(s.", column, "), 0) FROM ",
+                        TestScenario.TEST_SCENARIO_TABLE, " s WHERE s.TESTPLAN_id = p.id)"));
+            }
+        }
+    }
+}
@@ -19,7 +19,6 @@ package org.wso2.testgrid.dao.repository;
 
 import com.google.common.collect.LinkedListMultimap;
 import org.wso2.testgrid.common.infrastructure.AWSResourceRequirement;
-import org.wso2.testgrid.dao.EntityManagerHelper;
 import org.wso2.testgrid.dao.SortOrder;
 import org.wso2.testgrid.dao.TestGridDAOException;
 
@@ -69,11 +68,11 @@ public class AWSResourceRequirementRepository extends
         try {
             EntityTransaction transaction = entityManager.getTransaction();
             transaction.begin();
-            resultList = entityManager.createNativeQuery(selectQuery, AWSResourceRequirement.class)
+            resultList = refreshing(entityManager.createNativeQuery(selectQuery, AWSResourceRequirement.class))
                     .setParameter(1, resourceRequirementList.get(0).getCfnMD5Hash())
                     .getResultList();
             if (!resultList.isEmpty()) {
-                resourceRequirementList = EntityManagerHelper.refreshResultList(entityManager, resultList);
+                resourceRequirementList = resultList;
             }
             for (AWSResourceRequirement resourceRequirement : resourceRequirementList) {
                 entityManager.persist(resourceRequirement);
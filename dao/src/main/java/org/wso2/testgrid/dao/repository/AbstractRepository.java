@@ -18,11 +18,18 @@
 package org.wso2.testgrid.dao.repository;
 
 import com.google.common.collect.LinkedListMultimap;
+import org.eclipse.persistence.config.HintValues;
+import org.eclipse.persistence.config.QueryHints;
+import org.eclipse.persistence.descriptors.ClassDescriptor;
+import org.eclipse.persistence.jpa.JpaEntityManager;
+import org.wso2.testgrid.common.AbstractUUIDEntity;
 import org.wso2.testgrid.common.util.StringUtil;
-import org.wso2.testgrid.dao.EntityManagerHelper;
+import org.wso2.testgrid.dao.PageCursor;
+import org.wso2.testgrid.dao.ResultPage;
 import org.wso2.testgrid.dao.SortOrder;
 import org.wso2.testgrid.dao.TestGridDAOException;
 
+import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -33,6 +40,7 @@ import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Order;
 import javax.persistence.criteria.ParameterExpression;
+import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 
@@ -43,6 +51,9 @@ import javax.persistence.criteria.Root;
  */
 abstract class AbstractRepository<T> {
 
+    private static final String MODIFIED_TIMESTAMP_METAMODEL_NAME = "modifiedTimestamp";
+    private static final String ID_METAMODEL_NAME = "id";
+
     final EntityManager entityManager;
 
     /**
@@ -72,6 +83,7 @@ abstract class AbstractRepository<T> {
             entityManager.getTransaction().commit();
             return merge;
         } catch (Exception e) {
+            rollbackActiveTransaction();
             throw new TestGridDAOException("Error occurred when persisting entity in database.", e);
         }
     }
@@ -92,10 +104,21 @@ abstract class AbstractRepository<T> {
             // Commit transaction
             entityManager.getTransaction().commit();
         } catch (Exception e) {
+            rollbackActiveTransaction();
             throw new TestGridDAOException("Error occurred when deleting entry from database.", e);
         }
     }
 
+    /**
+     * Rolls back the transaction of the entity manager if it is left active due to a failure, so that the
+     * entity manager can be used for the subsequent operations of the thread.
+     */
+    void rollbackActiveTransaction() {
+        if (entityManager.getTransaction().isActive()) {
+            entityManager.getTransaction().rollback();
+        }
+    }
+
     /**
      * Find a specific entity from database of the given class type for the given primary key.
      *
@@ -134,7 +157,7 @@ abstract class AbstractRepository<T> {
             //Where criteria
             criteriaQuery.where(criteriaBuilder.and(predicates.toArray(new Predicate[predicates.size()])));
             TypedQuery<T> query = entityManager.createQuery(criteriaQuery);
-            return EntityManagerHelper.refreshResultList(entityManager, query.getResultList());
+            return refreshingUncached(query, entityClass).getResultList();
         } catch (Exception e) {
             throw new TestGridDAOException(StringUtil
                     .concatStrings("Error when searching for entities with the params: ", params), e);
@@ -160,7 +183,7 @@ abstract class AbstractRepository<T> {
             Root<T> rootEntry = criteriaQuery.from(entityType);
             CriteriaQuery<T> criteriaQueryAll = criteriaQuery.select(rootEntry);
             TypedQuery<T> allQuery = entityManager.createQuery(criteriaQueryAll);
-            return EntityManagerHelper.refreshResultList(entityManager, allQuery.getResultList());
+            return refreshingUncached(allQuery, entityType).getResultList();
         } catch (Exception e) {
             throw new TestGridDAOException("Error occurred when searching for entity.", e);
         }
@@ -204,7 +227,90 @@ abstract class AbstractRepository<T> {
             query = entityManager.createQuery(criteriaQuery);
             query.setParameter(parameterExpression, entry.getValue());
         }
-        return EntityManagerHelper.refreshResultList(entityManager, query.getResultList());
+        return refreshing(query).getResultList();
+    }
+
+    /**
+     * Returns a page of the entities matching the given criteria, ordered by their modified timestamp and id.
+     * <p>
+     * The page is read with a keyset condition on the modified timestamp and id of the last entity of the
+     * previous page, instead of an offset, so that the cost of reading a page does not grow with the number
+     * of pages read before. The returned entities are read-only.
+     *
+     * @param entityType type of the entities
+     * @param params     parameters (map of field name and values) the entities must match. Fields of related
+     *                   entities can be referred with a dotted path (ex: testPlan.id)
+     * @param after      cursor of the page, or null for the first page
+     * @param limit      maximum number of entities of the page
+     * @param sortOrder  sort order of the modified timestamps
+     * @param <E>        type of the entities
+     * @return page of entities
+     * @throws TestGridDAOException thrown when error on searching for entities
+     */
+    <E extends AbstractUUIDEntity> ResultPage<E> findPage(Class<E> entityType, Map<String, Object> params,
+            PageCursor after, int limit, SortOrder sortOrder) throws TestGridDAOException {
+        try {
+            CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+            CriteriaQuery<E> criteriaQuery = criteriaBuilder.createQuery(entityType);
+            Root<E> root = criteriaQuery.from(entityType);
+            criteriaQuery.select(root);
+
+            List<Predicate> predicates = new ArrayList<>();
+            params.forEach((key, value) -> predicates.add(criteriaBuilder.equal(getPath(root, key), value)));
+            Path<Timestamp> modifiedTimestamp = root.get(MODIFIED_TIMESTAMP_METAMODEL_NAME);
+            Path<String> id = root.get(ID_METAMODEL_NAME);
+            boolean ascending = SortOrder.ASCENDING.equals(sortOrder);
+            if (after != null) {
+                predicates.add(ascending
+                        ? criteriaBuilder.or(
+                                criteriaBuilder.greaterThan(modifiedTimestamp, after.getModifiedTimestamp()),
+                                criteriaBuilder.and(
+                                        criteriaBuilder.equal(modifiedTimestamp, after.getModifiedTimestamp()),
+                                        criteriaBuilder.greaterThan(id, after.getId())))
+                        : criteriaBuilder.or(
+                                criteriaBuilder.lessThan(modifiedTimestamp, after.getModifiedTimestamp()),
+                                criteriaBuilder.and(
+                                        criteriaBuilder.equal(modifiedTimestamp, after.getModifiedTimestamp()),
+                                        criteriaBuilder.lessThan(id, after.getId()))));
+            }
+            criteriaQuery.where(predicates.toArray(new Predicate[0]));
+            if (ascending) {
+                criteriaQuery.orderBy(criteriaBuilder.asc(modifiedTimestamp), criteriaBuilder.asc(id));
+            } else {
+                criteriaQuery.orderBy(criteriaBuilder.desc(modifiedTimestamp), criteriaBuilder.desc(id));
+            }
+
+            // one more than the limit is read to find out whether there is a next page
+            TypedQuery<E> query = readOnly(entityManager.createQuery(criteriaQuery)).setMaxResults(limit + 1);
+            return toPage(query.getResultList(), limit);
+        } catch (Exception e) {
+            throw new TestGridDAOException(StringUtil.concatStrings("Error when reading a page of ",
+                    entityType.getSimpleName(), " entities with the params: ", params), e);
+        }
+    }
+
+    /**
+     * Builds a page from the result of a query which reads one more entity than the limit.
+     *
+     * @param results entities read, ordered by their modified timestamp and id
+     * @param limit   maximum number of entities of the page
+     * @param <E>     type of the entities
+     * @return page of entities
+     */
+    static <E extends AbstractUUIDEntity> ResultPage<E> toPage(List<E> results, int limit) {
+        if (results.size() <= limit) {
+            return new ResultPage<>(results, null);
+        }
+        List<E> items = results.subList(0, limit);
+        return new ResultPage<>(items, PageCursor.after(items.get(limit - 1)));
+    }
+
+    private static Path<?> getPath(Root<?> root, String attribute) {
+        Path<?> path = root;
+        for (String name : attribute.split("\\.")) {
+            path = path.get(name);
+        }
+        return path;
     }
 
     /**
@@ -217,10 +323,75 @@ abstract class AbstractRepository<T> {
     List<Object> executeTypedQuery(String nativeQuery) throws TestGridDAOException {
         try {
             Query query = entityManager.createNativeQuery(nativeQuery);
-            return EntityManagerHelper.refreshResultList(entityManager, query.getResultList());
+            return query.getResultList();
         } catch (Exception e) {
             throw new TestGridDAOException(StringUtil.concatStrings("Error on executing the native SQL query [",
                     nativeQuery, "]"), e);
         }
     }
+
+    /**
+     * Marks the given query to refresh the state of the returned entities from the rows it selects.
+     * <p>
+     * Use this where stale data matters (ex: entities that are modified and persisted afterwards). The entities
+     * are refreshed from the result set of the query itself, instead of issuing a separate SELECT for each
+     * returned entity.
+     *
+     * @param query query returning entities
+     * @param <Q>   type of the query
+     * @return the given query
+     */
+    <Q extends Query> Q refreshing(Q query) {
+        query.setHint(QueryHints.REFRESH, HintValues.TRUE);
+        return query;
+    }
+
+    /**
+     * Marks the given query to refresh the returned entities, unless the entities are kept in the shared cache.
+     * <p>
+     * The entities in the shared cache are read again from the database once they expire, or once they are
+     * evicted by a unit of work that modified them.
+     *
+     * @param query      query returning entities
+     * @param entityType type of the returned entities
+     * @param <Q>        type of the query
+     * @return the given query
+     */
+    <Q extends Query> Q refreshingUncached(Q query, Class<?> entityType) {
+        ClassDescriptor descriptor = entityManager.unwrap(JpaEntityManager.class).getServerSession()
+                .getClassDescriptor(entityType);
+        if (descriptor == null || descriptor.isIsolated()) {
+            refreshing(query);
+        }
+        return query;
+    }
+
+    /**
+     * Evicts an entity from the shared cache, so that it is read again from the database on the next use.
+     * <p>
+     * The units of work call this after modifying entities which may be kept in the shared cache, in
+     * particular with native queries which bypass the cache.
+     *
+     * @param entityType type of the entity
+     * @param id         primary key of the entity
+     */
+    void evictFromSharedCache(Class<T> entityType, Object id) {
+        entityManager.getEntityManagerFactory().getCache().evict(entityType, id);
+    }
+
+    /**
+     * Marks the given query as read-only so that the returned entities are not registered in the
+     * persistence context. The entities are always built from the rows the query selects.
+     * <p>
+     * Use this for dashboard and reporting reads. The returned entities must not be modified or persisted.
+     *
+     * @param query query returning entities
+     * @param <Q>   type of the query
+     * @return the given query
+     */
+    <Q extends Query> Q readOnly(Q query) {
+        query.setHint(QueryHints.READ_ONLY, HintValues.TRUE);
+        query.setHint(QueryHints.REFRESH, HintValues.TRUE);
+        return query;
+    }
 }
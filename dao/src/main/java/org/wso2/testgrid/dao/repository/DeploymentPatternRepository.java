@@ -22,7 +22,8 @@ import org.wso2.testgrid.common.DeploymentPattern;
 import org.wso2.testgrid.common.DeploymentPatternTestFailureStat;
 import org.wso2.testgrid.common.Status;
 import org.wso2.testgrid.common.util.StringUtil;
-import org.wso2.testgrid.dao.EntityManagerHelper;
+import org.wso2.testgrid.dao.PageCursor;
+import org.wso2.testgrid.dao.ResultPage;
 import org.wso2.testgrid.dao.SortOrder;
 import org.wso2.testgrid.dao.TestGridDAOException;
 
@@ -93,6 +94,22 @@ public class DeploymentPatternRepository extends AbstractRepository<DeploymentPa
         return super.findByFields(DeploymentPattern.class, params);
     }
 
+    /**
+     * Returns a page of {@link DeploymentPattern} instances matching the given criteria, ordered by their
+     * modified timestamp.
+     *
+     * @param params    parameters (map of field name and values) the entities must match
+     * @param after     cursor of the page, or null for the first page
+     * @param limit     maximum number of entities of the page
+     * @param sortOrder sort order of the modified timestamps
+     * @return a page of the matched entities
+     * @throws TestGridDAOException thrown when error on searching for entities
+     */
+    public ResultPage<DeploymentPattern> findPage(Map<String, Object> params, PageCursor after, int limit,
+            SortOrder sortOrder) throws TestGridDAOException {
+        return super.findPage(DeploymentPattern.class, params, after, limit, sortOrder);
+    }
+
     /**
      * Returns all the entries from the TestPlan table.
      *
@@ -103,6 +120,22 @@ public class DeploymentPatternRepository extends AbstractRepository<DeploymentPa
         return super.findAll(DeploymentPattern.class);
     }
 
+    /**
+     * Evicts the {@link DeploymentPattern} with the given id from the shared cache.
+     *
+     * @param id primary key of the entity
+     */
+    public void evictFromSharedCache(String id) {
+        evictFromSharedCache(DeploymentPattern.class, id);
+    }
+
+    /**
+     * Evicts all the {@link DeploymentPattern} instances from the shared cache.
+     */
+    public void evictAllFromSharedCache() {
+        entityManager.getEntityManagerFactory().getCache().evict(DeploymentPattern.class);
+    }
+
     /**
      * Returns a list of {@link DeploymentPattern} instances ordered accordingly by the given fields.
      *
@@ -130,10 +163,10 @@ public class DeploymentPatternRepository extends AbstractRepository<DeploymentPa
                 "AS tp ON dp.id = tp.DEPLOYMENTPATTERN_id where tp.created_timestamp <= '" + date + "' AND " +
                 "dp.PRODUCT_id = '" + productId + "' GROUP BY dp.id;";
         try {
-            Query query = entityManager.createNativeQuery(queryStr, DeploymentPattern.class);
+            Query query = readOnly(entityManager.createNativeQuery(queryStr, DeploymentPattern.class));
             @SuppressWarnings("unchecked")
             List<DeploymentPattern> resultList = (List<DeploymentPattern>) query.getResultList();
-            return EntityManagerHelper.refreshResultList(entityManager, resultList);
+            return resultList;
         } catch (Exception e) {
             throw new TestGridDAOException(StringUtil.concatStrings("Error on executing the native SQL" +
                     " query [", queryStr, "]"), e);
@@ -157,7 +190,7 @@ public class DeploymentPatternRepository extends AbstractRepository<DeploymentPa
         try {
             Query query = entityManager.createNativeQuery(queryStr);
             @SuppressWarnings("unchecked")
-            List resultList = EntityManagerHelper.refreshResultList(entityManager, query.getResultList());
+            List resultList = query.getResultList();
             return this.getDeploymentPatternTestFailureStats(resultList);
         } catch (Exception e) {
             throw new TestGridDAOException(StringUtil.concatStrings("Error on executing the native SQL " +
@@ -119,4 +119,13 @@ public class InfrastructureParameterRepository extends AbstractRepository<Infras
         return super.findAll(InfrastructureParameter.class);
     }
 
+    /**
+     * Evicts the {@link InfrastructureParameter} with the given id from the shared cache.
+     *
+     * @param id primary key of the entity
+     */
+    public void evictFromSharedCache(String id) {
+        evictFromSharedCache(InfrastructureParameter.class, id);
+    }
+
 }
@@ -22,7 +22,6 @@ import org.wso2.testgrid.common.Product;
 import org.wso2.testgrid.common.ProductTestStatus;
 import org.wso2.testgrid.common.Status;
 import org.wso2.testgrid.common.util.StringUtil;
-import org.wso2.testgrid.dao.EntityManagerHelper;
 import org.wso2.testgrid.dao.SortOrder;
 import org.wso2.testgrid.dao.TestGridDAOException;
 
@@ -104,6 +103,15 @@ public class ProductRepository extends AbstractRepository<Product> {
         return super.findAll(Product.class);
     }
 
+    /**
+     * Evicts the {@link Product} with the given id from the shared cache.
+     *
+     * @param id primary key of the entity
+     */
+    public void evictFromSharedCache(String id) {
+        evictFromSharedCache(Product.class, id);
+    }
+
     /**
      * Returns a list of {@link Product} instances ordered accordingly by the given fields.
      *
@@ -132,7 +140,7 @@ public class ProductRepository extends AbstractRepository<Product> {
         try {
             Query query = entityManager.createNativeQuery(queryStr);
             @SuppressWarnings("unchecked")
-            List resultList = EntityManagerHelper.refreshResultList(entityManager, query.getResultList());
+            List resultList = query.getResultList();
             return this.getProductTestStatuses(resultList);
         } catch (Exception e) {
             throw new TestGridDAOException(StringUtil.concatStrings("Error on executing the native SQL" +
@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.testgrid.dao.repository;
+
+import org.wso2.testgrid.common.InfraCombinationBuildStatus;
+import org.wso2.testgrid.common.ProductBuildStatus;
+import org.wso2.testgrid.common.Status;
+import org.wso2.testgrid.common.TestPlan;
+import org.wso2.testgrid.common.util.StringUtil;
+import org.wso2.testgrid.common.util.TestGridUtil;
+import org.wso2.testgrid.dao.TestGridDAOException;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.persistence.EntityManager;
+
+/**
+ * Repository class for the materialized {@link ProductBuildStatus} and {@link InfraCombinationBuildStatus}
+ * tables.
+ * <p>
+ * The latest build of each infrastructure combination is upserted when a test plan is persisted, keeping the
+ * test plan with the highest test run number. The status of the product is then derived from the latest builds
+ * of its infrastructure combinations: RUNNING if any of them is running, SUCCESS if all of them succeeded,
+ * else FAIL.
+ *
+ * @since 1.0.0
+ */
+public class ProductStatusRepository extends AbstractRepository<ProductBuildStatus> {
+
+    /**
+     * Upserts the latest build of an infrastructure combination, which is keyed by the deployment pattern and the
+     * hash of the infrastructure parameters. The assignments are evaluated in order, hence the test run number is
+     * updated last.
+     */
+    private static final String UPSERT_LATEST_BUILD_QUERY = "INSERT INTO "
+            + InfraCombinationBuildStatus.INFRA_COMBINATION_STATUS_TABLE + " (id, product_id, DEPLOYMENTPATTERN_id, "
+            + "infra_parameters, infra_parameters_hash, test_plan_id, test_run_number, status) "
+            + "VALUES (UUID(), ?, ?, ?, ?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE "
+            + "test_plan_id = CASE WHEN VALUES(test_run_number) >= test_run_number THEN VALUES(test_plan_id) "
+            + "ELSE test_plan_id END, "
+            + "status = CASE WHEN VALUES(test_run_number) >= test_run_number THEN VALUES(status) ELSE status END, "
+            + "test_run_number = GREATEST(test_run_number, VALUES(test_run_number))";
+
+    private static final String PRODUCT_STATUS_EXPRESSION = "CASE "
+            + "WHEN COALESCE(SUM(CASE WHEN status = 'RUNNING' THEN 1 ELSE 0 END), 0) > 0 THEN 'RUNNING' "
+            + "WHEN COALESCE(SUM(CASE WHEN status <> 'SUCCESS' THEN 1 ELSE 0 END), 0) = 0 THEN 'SUCCESS' "
+            + "ELSE 'FAIL' END";
+
+    private static final String PRODUCT_STATUS_QUERY = "SELECT " + PRODUCT_STATUS_EXPRESSION + " FROM "
+            + InfraCombinationBuildStatus.INFRA_COMBINATION_STATUS_TABLE + " WHERE product_id = ?";
+
+    private static final String UPDATE_PRODUCT_STATUS_QUERY = "UPDATE "
+            + ProductBuildStatus.PRODUCT_STATUS_TABLE + " SET status = (" + PRODUCT_STATUS_QUERY + ") WHERE id = ?";
+
+    private static final String UPSERT_PRODUCT_STATUS_QUERY = "INSERT INTO "
+            + ProductBuildStatus.PRODUCT_STATUS_TABLE + " (id, status) VALUES (?, ?) "
+            + "ON DUPLICATE KEY UPDATE status = VALUES(status)";
+
+    /**
+     * Constructs an instance of the repository class.
+     *
+     * @param entityManager {@link EntityManager} instance
+     */
+    public ProductStatusRepository(EntityManager entityManager) {
+        super(entityManager);
+    }
+
+    /**
+     * Records the given test plan as the latest build of its infrastructure combination, unless a later build
+     * is already recorded, and updates the status of the product if it is materialized.
+     *
+     * @param testPlan persisted test plan
+     * @throws TestGridDAOException thrown when error on updating the statuses
+     */
+    public void updateLatestBuild(TestPlan testPlan) throws TestGridDAOException {
+        String productId = testPlan.getDeploymentPattern().getProduct().getId();
+        try {
+            entityManager.getTransaction().begin();
+            upsertLatestBuild(productId, testPlan);
+            entityManager.createNativeQuery(UPDATE_PRODUCT_STATUS_QUERY)
+                    .setParameter(1, productId)
+                    .setParameter(2, productId)
+                    .executeUpdate();
+            entityManager.getTransaction().commit();
+        } catch (Exception e) {
+            rollbackActiveTransaction();
+            throw new TestGridDAOException(StringUtil.concatStrings("Error while updating the status of the "
+                    + "product ", productId, " for the test plan ", testPlan.getId()), e);
+        }
+    }
+
+    /**
+     * Materializes the status of a product from the given latest builds of its infrastructure combinations.
+     *
+     * @param productId    id of the product
+     * @param latestBuilds latest test plans of the infrastructure combinations of the product
+     * @throws TestGridDAOException thrown when error on updating the statuses
+     */
+    public void materialize(String productId, List<TestPlan> latestBuilds) throws TestGridDAOException {
+        try {
+            entityManager.getTransaction().begin();
+            for (TestPlan testPlan : latestBuilds) {
+                upsertLatestBuild(productId, testPlan);
+            }
+            Object status = entityManager.createNativeQuery(PRODUCT_STATUS_QUERY)
+                    .setParameter(1, productId)
+                    .getSingleResult();
+            entityManager.createNativeQuery(UPSERT_PRODUCT_STATUS_QUERY)
+                    .setParameter(1, productId)
+                    .setParameter(2, status)
+                    .executeUpdate();
+            entityManager.getTransaction().commit();
+        } catch (Exception e) {
+            rollbackActiveTransaction();
+            throw new TestGridDAOException(StringUtil.concatStrings("Error while materializing the status of the "
+                    + "product ", productId), e);
+        }
+    }
+
+    /**
+     * Removes the materialized status of a product, so that it is materialized again on the next read.
+     *
+     * @param productId id of the product
+     * @throws TestGridDAOException thrown when error on removing the status
+     */
+    public void invalidate(String productId) throws TestGridDAOException {
+        try {
+            entityManager.getTransaction().begin();
+            entityManager.createNativeQuery("DELETE FROM " + ProductBuildStatus.PRODUCT_STATUS_TABLE
+                    + " WHERE id = ?")
+                    .setParameter(1, productId)
+                    .executeUpdate();
+            entityManager.getTransaction().commit();
+        } catch (Exception e) {
+            rollbackActiveTransaction();
+            throw new TestGridDAOException(StringUtil.concatStrings("Error while removing the status of the "
+                    + "product ", productId), e);
+        }
+    }
+
+    /**
+     * Returns the materialized statuses of all the products.
+     *
+     * @return map of product id and status. Products whose status is not materialized are not included
+     * @throws TestGridDAOException thrown when error on reading the statuses
+     */
+    public Map<String, Status> findAllStatuses() throws TestGridDAOException {
+        String sql = "SELECT id, status FROM " + ProductBuildStatus.PRODUCT_STATUS_TABLE;
+        try {
+            @SuppressWarnings("unchecked")
+            List<Object[]> rows = entityManager.createNativeQuery(sql).getResultList();
+            Map<String, Status> statuses = new HashMap<>();
+            for (Object[] row : rows) {
+                statuses.put((String) row[0], Status.valueOf((String) row[1]));
+            }
+            return statuses;
+        } catch (Exception e) {
+            throw new TestGridDAOException(StringUtil.concatStrings("Error on executing the native SQL query [",
+                    sql, "]"), e);
+        }
+    }
+
+    private void upsertLatestBuild(String productId, TestPlan testPlan) {
+        entityManager.createNativeQuery(UPSERT_LATEST_BUILD_QUERY)
+                .setParameter(1, productId)
+                .setParameter(2, testPlan.getDeploymentPattern().getId())
+                .setParameter(3, testPlan.getInfraParameters())
+                .setParameter(4, TestGridUtil.getSha256Hash(testPlan.getInfraParameters()))
+                .setParameter(5, testPlan.getId())
+                .setParameter(6, testPlan.getTestRunNumber())
+                .setParameter(7, testPlan.getStatus().toString())
+                .executeUpdate();
+    }
+}
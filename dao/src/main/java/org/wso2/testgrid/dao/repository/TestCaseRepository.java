@@ -19,12 +19,19 @@ package org.wso2.testgrid.dao.repository;
 
 import com.google.common.collect.LinkedListMultimap;
 import org.wso2.testgrid.common.TestCase;
+import org.wso2.testgrid.common.TestScenario;
+import org.wso2.testgrid.common.util.StringUtil;
+import org.wso2.testgrid.dao.PageCursor;
+import org.wso2.testgrid.dao.ResultPage;
 import org.wso2.testgrid.dao.SortOrder;
 import org.wso2.testgrid.dao.TestGridDAOException;
+import org.wso2.testgrid.dao.dto.FailedTestCaseDTO;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import javax.persistence.EntityManager;
+import javax.persistence.FlushModeType;
 
 /**
  * Repository class for {@link org.wso2.testgrid.common.TestCase} table.
@@ -33,6 +40,13 @@ import javax.persistence.EntityManager;
  */
 public class TestCaseRepository extends AbstractRepository<TestCase> {
 
+    /**
+     * Selects a page of the failed test cases of a test scenario, with the beginning of their failure messages.
+     */
+    static final String FAILED_TEST_CASES_QUERY = "SELECT id, test_name, SUBSTRING(failure_message, 1, ?), "
+            + "CHAR_LENGTH(failure_message) FROM test_case WHERE TESTSCENARIO_id = ? AND status = 'FAIL' "
+            + "ORDER BY test_name, id LIMIT ? OFFSET ?";
+
     /**
      * Constructs an instance of the repository class.
      *
@@ -53,6 +67,108 @@ public class TestCaseRepository extends AbstractRepository<TestCase> {
         return super.persist(entity);
     }
 
+    /**
+     * Inserts the given new {@link TestCase} instances of a test scenario, committing every
+     * {@code commitSize} test cases.
+     * <p>
+     * Unlike {@link #persist(TestCase)}, the test cases are not merged and the test scenario is not loaded.
+     * The inserts of a transaction are sent to the database in JDBC batches when batch writing is enabled
+     * for the persistence unit. The test cases are inserted with a dedicated entity manager whose persistence
+     * context is cleared after each transaction, so that the inserted test cases are not held in memory, and
+     * the entities managed by the entity manager of the repository (i.e. the test plan and the test scenario)
+     * are not detached.
+     *
+     * @param testScenarioId id of the persisted test scenario the test cases belong to
+     * @param testCases      test cases to insert
+     * @param commitSize     maximum number of test cases to insert in a single transaction
+     * @throws TestGridDAOException thrown when error on inserting the test cases. The test cases committed
+     *                              before the failed transaction remain inserted.
+     */
+    public void insertAll(String testScenarioId, List<TestCase> testCases, int commitSize)
+            throws TestGridDAOException {
+        int from = 0;
+        EntityManager insertEntityManager = null;
+        try {
+            insertEntityManager = entityManager.getEntityManagerFactory().createEntityManager();
+            insertEntityManager.setFlushMode(FlushModeType.COMMIT);
+            for (; from < testCases.size(); from += commitSize) {
+                insertEntityManager.getTransaction().begin();
+                TestScenario testScenario = insertEntityManager.getReference(TestScenario.class, testScenarioId);
+                for (TestCase testCase : testCases.subList(from, Math.min(from + commitSize, testCases.size()))) {
+                    testCase.setTestScenario(testScenario);
+                    insertEntityManager.persist(testCase);
+                }
+                insertEntityManager.getTransaction().commit();
+                insertEntityManager.clear();
+            }
+        } catch (Exception e) {
+            if (insertEntityManager != null && insertEntityManager.getTransaction().isActive()) {
+                insertEntityManager.getTransaction().rollback();
+            }
+            throw new TestGridDAOException(StringUtil.concatStrings("Error occurred when inserting test cases ",
+                    from, " to ", Math.min(from + commitSize, testCases.size()), " of ", testCases.size(),
+                    " of test scenario ", testScenarioId), e);
+        } finally {
+            if (insertEntityManager != null) {
+                insertEntityManager.close();
+            }
+        }
+    }
+
+    /**
+     * Returns a page of the failed test cases of the given test scenario, ordered by name. Only the beginning
+     * of the failure messages is read; use {@link #getFailureMessage(String)} to read a complete message.
+     *
+     * @param testScenarioId id of the test scenario
+     * @param offset         number of failed test cases to skip
+     * @param limit          maximum number of failed test cases to return
+     * @param previewLength  maximum number of characters of the failure message to return
+     * @return failed test cases of the page
+     * @throws TestGridDAOException thrown when error on reading the failed test cases
+     */
+    @SuppressWarnings("unchecked")
+    public List<FailedTestCaseDTO> getFailedTestCases(String testScenarioId, int offset, int limit,
+            int previewLength) throws TestGridDAOException {
+        try {
+            List<Object[]> rows = entityManager.createNativeQuery(FAILED_TEST_CASES_QUERY)
+                    .setParameter(1, previewLength)
+                    .setParameter(2, testScenarioId)
+                    .setParameter(3, limit)
+                    .setParameter(4, offset)
+                    .getResultList();
+            List<FailedTestCaseDTO> failedTestCases = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                failedTestCases.add(new FailedTestCaseDTO((String) row[0], (String) row[1], (String) row[2],
+                        row[3] == null ? 0 : ((Number) row[3]).intValue()));
+            }
+            return failedTestCases;
+        } catch (Exception e) {
+            throw new TestGridDAOException(StringUtil.concatStrings("Error occurred when reading the failed ",
+                    "test cases of test scenario ", testScenarioId), e);
+        }
+    }
+
+    /**
+     * Returns the complete failure message of the given test case.
+     *
+     * @param testCaseId id of the test case
+     * @return failure message, or null if the test case does not exist or has no failure message
+     * @throws TestGridDAOException thrown when error on reading the failure message
+     */
+    @SuppressWarnings("unchecked")
+    public String getFailureMessage(String testCaseId) throws TestGridDAOException {
+        try {
+            List<Object> result = entityManager.createNativeQuery(
+                    "SELECT failure_message FROM test_case WHERE id = ?")
+                    .setParameter(1, testCaseId)
+                    .getResultList();
+            return result.isEmpty() ? null : (String) result.get(0);
+        } catch (Exception e) {
+            throw new TestGridDAOException("Error occurred when reading the failure message of test case "
+                    + testCaseId, e);
+        }
+    }
+
     /**
      * Removes an {@link TestCase} instance from database.
      *
@@ -85,6 +201,22 @@ public class TestCaseRepository extends AbstractRepository<TestCase> {
         return super.findByFields(TestCase.class, params);
     }
 
+    /**
+     * Returns a page of {@link TestCase} instances matching the given criteria, ordered by their
+     * modified timestamp.
+     *
+     * @param params    parameters (map of field name and values) the entities must match
+     * @param after     cursor of the page, or null for the first page
+     * @param limit     maximum number of entities of the page
+     * @param sortOrder sort order of the modified timestamps
+     * @return a page of the matched entities
+     * @throws TestGridDAOException thrown when error on searching for entities
+     */
+    public ResultPage<TestCase> findPage(Map<String, Object> params, PageCursor after, int limit,
+            SortOrder sortOrder) throws TestGridDAOException {
+        return super.findPage(TestCase.class, params, after, limit, sortOrder);
+    }
+
     /**
      * Returns all the entries from the TestCase table.
      *
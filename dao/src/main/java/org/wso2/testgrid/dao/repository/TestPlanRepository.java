@@ -21,9 +21,12 @@ import com.google.common.collect.LinkedListMultimap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wso2.testgrid.common.Product;
+import org.wso2.testgrid.common.Status;
 import org.wso2.testgrid.common.TestPlan;
 import org.wso2.testgrid.common.util.StringUtil;
-import org.wso2.testgrid.dao.EntityManagerHelper;
+import org.wso2.testgrid.common.util.TestGridUtil;
+import org.wso2.testgrid.dao.PageCursor;
+import org.wso2.testgrid.dao.ResultPage;
 import org.wso2.testgrid.dao.SortOrder;
 import org.wso2.testgrid.dao.TestGridDAOException;
 import org.wso2.testgrid.dao.dto.TestCaseFailureResultDTO;
@@ -37,7 +40,6 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import javax.persistence.EntityManager;
-import javax.persistence.EntityTransaction;
 import javax.persistence.Query;
 
 /**
@@ -48,6 +50,22 @@ import javax.persistence.Query;
 public class TestPlanRepository extends AbstractRepository<TestPlan> {
     private static final Logger logger = LoggerFactory.getLogger(TestPlanRepository.class);
 
+    /**
+     * Query of the last failed build of an infra combination. The infra combination is looked up by the hash of
+     * the infra parameters, and the infra parameters are compared as well to rule out hash collisions.
+     */
+    static final String LAST_FAILURE_OF_INFRA_COMBINATION_QUERY = "SELECT * FROM test_plan "
+            + "WHERE infra_parameters_hash = ? AND infra_parameters = ? AND DEPLOYMENTPATTERN_id = ? "
+            + "AND status = 'FAIL' ORDER BY modified_timestamp DESC LIMIT 1";
+
+    /**
+     * Query of the builds of an infra combination, latest first.
+     */
+    static final String TEST_PLAN_HISTORY_QUERY = "SELECT t.* FROM test_plan t INNER JOIN deployment_pattern dp "
+            + "ON dp.id = t.DEPLOYMENTPATTERN_id INNER JOIN product p ON p.id = dp.PRODUCT_id "
+            + "WHERE t.infra_parameters_hash = ? AND t.infra_parameters = ? AND dp.id = ? AND p.id = ? "
+            + "ORDER BY t.modified_timestamp DESC";
+
     /**
      * Constructs an instance of the repository class.
      *
@@ -138,10 +156,10 @@ public class TestPlanRepository extends AbstractRepository<TestPlan> {
                 "infra_parameters) AS r INNER JOIN test_plan AS tp on tp.infra_parameters = r.infra_parameters AND " +
                 "tp.created_timestamp = r.maxtime AND tp.DEPLOYMENTPATTERN_id = r.DEPLOYMENTPATTERN_id;";
         try {
-            Query query = entityManager.createNativeQuery(queryStr, TestPlan.class);
+            Query query = readOnly(entityManager.createNativeQuery(queryStr, TestPlan.class));
             @SuppressWarnings("unchecked")
             List<TestPlan> resultList = (List<TestPlan>) query.getResultList();
-            return EntityManagerHelper.refreshResultList(entityManager, resultList);
+            return resultList;
         } catch (Exception e) {
             throw new TestGridDAOException(StringUtil.concatStrings("Error on executing the native SQL" +
                     " query [", queryStr, "]"), e);
@@ -162,11 +180,11 @@ public class TestPlanRepository extends AbstractRepository<TestPlan> {
                 "PRODUCT_id = ?) GROUP BY tp.infra_parameters,dp.name) as x ON " +
                 "t.infra_parameters=x.infra_parameters AND t.modified_timestamp=x.time ORDER BY time DESC LIMIT 1";
 
-        List resultList = entityManager.createNativeQuery(sql, TestPlan.class)
+        List resultList = readOnly(entityManager.createNativeQuery(sql, TestPlan.class))
                 .setParameter(1, product.getId())
                 .getResultList();
         if (!resultList.isEmpty()) {
-            return (TestPlan) EntityManagerHelper.refreshResult(entityManager, resultList.get(0));
+            return (TestPlan) resultList.get(0);
         } else {
             return null;
         }
@@ -186,11 +204,11 @@ public class TestPlanRepository extends AbstractRepository<TestPlan> {
                 "group by tp.infra_parameters,dp.name) AS x on t.infra_parameters=x.infra_parameters " +
                 "AND t.modified_timestamp=x.time order by time desc limit 1";
 
-        List resultList = entityManager.createNativeQuery(sql, TestPlan.class)
+        List resultList = readOnly(entityManager.createNativeQuery(sql, TestPlan.class))
                 .setParameter(1, product.getId())
                 .getResultList();
         if (!resultList.isEmpty()) {
-            return (TestPlan) EntityManagerHelper.refreshResult(entityManager, resultList.get(0));
+            return (TestPlan) resultList.get(0);
         } else {
             return null;
         }
@@ -209,36 +227,61 @@ public class TestPlanRepository extends AbstractRepository<TestPlan> {
         List<String> deploymentIds = (List<String>) entityManager
                 .createNativeQuery(deploymentIdsRetrievingQuery).setParameter(1, product.getId()).getResultList();
 
-        StringBuilder sql = new StringBuilder(
-                "select tp.* from test_plan tp inner join (Select distinct infra_parameters, max(test_run_number) "
-                        + "as test_run_number from test_plan where  DEPLOYMENTPATTERN_id in (");
         if (deploymentIds.isEmpty()) {
             return Collections.emptyList();
         } else {
-            int deploymentIdLen = deploymentIds.size();
-            for (int i = 0; i < deploymentIdLen - 1; i++) {
-                sql.append("?, ");
-            }
-            sql.append("?) group by infra_parameters, DEPLOYMENTPATTERN_id) as latest_test_run_nums on "
-                    + "tp.infra_parameters=latest_test_run_nums.infra_parameters and "
-                    + "tp.test_run_number=latest_test_run_nums.test_run_number and tp.DEPLOYMENTPATTERN_id in (");
-            for (int i = 0; i < deploymentIdLen - 1; i++) {
-                sql.append("?, ");
-            }
-            sql.append("?);");
-            Query query = entityManager.createNativeQuery(sql.toString(), TestPlan.class);
+            Query query = readOnly(entityManager.createNativeQuery(getLatestTestPlansQuery(deploymentIds.size()),
+                    TestPlan.class));
             int index = 1;
-            for (int i = 0; i < 2; i++) {
-                for (String s : deploymentIds) {
-                    query.setParameter(index++, s);
-                }
+            for (String s : deploymentIds) {
+                query.setParameter(index++, s);
             }
             @SuppressWarnings("unchecked")
             List<TestPlan> resultList = (List<TestPlan>) query.getResultList();
-            return EntityManagerHelper.refreshResultList(entityManager, resultList);
+            return resultList;
         }
     }
 
+    /**
+     * Returns a page of the TestPlans of the given product that represent the latest builds for distinct infra
+     * combinations, ordered by their modified timestamp.
+     *
+     * @param product   the product being queried
+     * @param status    status the TestPlans must have, or null for any status
+     * @param after     cursor of the page, or null for the first page
+     * @param limit     maximum number of TestPlans of the page
+     * @param sortOrder sort order of the modified timestamps
+     * @return a page of {@link TestPlan}
+     */
+    public ResultPage<TestPlan> getLatestTestPlans(Product product, Status status, PageCursor after, int limit,
+                                                   SortOrder sortOrder) {
+        @SuppressWarnings("unchecked")
+        List<String> deploymentIds = (List<String>) entityManager
+                .createNativeQuery("select id from deployment_pattern where PRODUCT_id= ?;")
+                .setParameter(1, product.getId()).getResultList();
+        if (deploymentIds.isEmpty()) {
+            return new ResultPage<>(Collections.emptyList(), null);
+        }
+        Query query = readOnly(entityManager.createNativeQuery(getLatestTestPlansPageQuery(deploymentIds.size(),
+                after != null, status != null, SortOrder.ASCENDING.equals(sortOrder)), TestPlan.class));
+        int index = 1;
+        for (String s : deploymentIds) {
+            query.setParameter(index++, s);
+        }
+        if (after != null) {
+            query.setParameter(index++, after.getModifiedTimestamp());
+            query.setParameter(index++, after.getModifiedTimestamp());
+            query.setParameter(index++, after.getId());
+        }
+        if (status != null) {
+            query.setParameter(index++, status.toString());
+        }
+        query.setParameter(index, limit + 1);
+        @SuppressWarnings("unchecked")
+        List<TestPlan> resultList = (List<TestPlan>) query.getResultList();
+        return toPage(resultList, limit);
+    }
+
     /**
      * This method finds the last failed build for a given infrastructure combination of a TestPlan.
      *
@@ -246,16 +289,15 @@ public class TestPlanRepository extends AbstractRepository<TestPlan> {
      * @return a {@link TestPlan} representing the last failed build
      */
     public TestPlan getLastFailure(TestPlan testPlan) {
-        String sql = "select * from test_plan where infra_parameters= ?  AND DEPLOYMENTPATTERN_id=? " +
-                " AND status='FAIL' order by modified_timestamp desc limit 1";
-
-        List resultList = entityManager.createNativeQuery(sql, TestPlan.class)
-                .setParameter(1, testPlan.getInfraParameters())
-                .setParameter(2, testPlan.getDeploymentPattern().getId())
+        List resultList = readOnly(entityManager.createNativeQuery(LAST_FAILURE_OF_INFRA_COMBINATION_QUERY,
+                TestPlan.class))
+                .setParameter(1, TestGridUtil.getSha256Hash(testPlan.getInfraParameters()))
+                .setParameter(2, testPlan.getInfraParameters())
+                .setParameter(3, testPlan.getDeploymentPattern().getId())
                 .getResultList();
 
         if (!resultList.isEmpty()) {
-            return (TestPlan) EntityManagerHelper.refreshResult(entityManager, resultList.get(0));
+            return (TestPlan) resultList.get(0);
         } else {
             return null;
         }
@@ -269,17 +311,15 @@ public class TestPlanRepository extends AbstractRepository<TestPlan> {
      * @return a List of {@link TestPlan} representing the history of that test plan
      */
     public List<TestPlan> getTestPlanHistory(TestPlan testPlan) {
-        String sql = " select t.* from test_plan t inner join deployment_pattern dp inner " +
-                "join product p on p.id=dp.PRODUCT_id and dp.id=t.DEPLOYMENTPATTERN_id " +
-                "where t.infra_parameters=? AND dp.id=? AND p.id=? ORDER BY modified_timestamp DESC";
-
         @SuppressWarnings("unchecked")
-        List<TestPlan> resultList = (List<TestPlan>) entityManager.createNativeQuery(sql, TestPlan.class)
-                .setParameter(1, testPlan.getInfraParameters())
-                .setParameter(2, testPlan.getDeploymentPattern().getId())
-                .setParameter(3, testPlan.getDeploymentPattern().getProduct().getId())
+        List<TestPlan> resultList = (List<TestPlan>) readOnly(entityManager.createNativeQuery(
+                TEST_PLAN_HISTORY_QUERY, TestPlan.class))
+                .setParameter(1, TestGridUtil.getSha256Hash(testPlan.getInfraParameters()))
+                .setParameter(2, testPlan.getInfraParameters())
+                .setParameter(3, testPlan.getDeploymentPattern().getId())
+                .setParameter(4, testPlan.getDeploymentPattern().getProduct().getId())
                 .getResultList();
-        return EntityManagerHelper.refreshResultList(entityManager, resultList);
+        return resultList;
     }
 
     /**
@@ -294,9 +334,9 @@ public class TestPlanRepository extends AbstractRepository<TestPlan> {
                 "select t.* from test_plan t where t.created_timestamp < (NOW() - INTERVAL ",
                 duration , " ", timeUnit, ") and (t.status = 'PENDING' or t.status = 'RUNNING') ");
         @SuppressWarnings("unchecked")
-        List<TestPlan> resultList = (List<TestPlan>) entityManager.createNativeQuery(sql, TestPlan.class)
+        List<TestPlan> resultList = (List<TestPlan>) refreshing(entityManager.createNativeQuery(sql, TestPlan.class))
                 .getResultList();
-        return EntityManagerHelper.refreshResultList(entityManager, resultList);
+        return resultList;
     }
 
     /**
@@ -307,15 +347,7 @@ public class TestPlanRepository extends AbstractRepository<TestPlan> {
      */
     public List<TestCaseFailureResultDTO> getTestFailureSummaryByTPId(List<String> testPlanIds)
             throws TestGridDAOException {
-        StringBuilder sql = new StringBuilder("select failed_tc.test_name as name, failed_tc.failure_message as "
-                + "failureMessage, tp.infra_parameters as infraParametrs from test_plan tp join (select tc"
-                + ".test_name, tc.failure_message, ts.TESTPLAN_id  from test_case tc inner join test_scenario ts on "
-                + "ts.id=tc.TESTSCENARIO_id and tc.status = 'FAIL' and ts.TESTPLAN_id in (");
-        for (int i = 0; i < testPlanIds.size() - 1; i++) {
-            sql.append("?, ");
-        }
-        sql.append("?)) failed_tc on tp.id = failed_tc.TESTPLAN_id;");
-        Query query = entityManager.createNativeQuery(sql.toString());
+        Query query = entityManager.createNativeQuery(getTestFailureSummaryQuery(testPlanIds.size()));
         int index = 1;
         for (String s : testPlanIds) {
             query.setParameter(index++, s);
@@ -327,93 +359,66 @@ public class TestPlanRepository extends AbstractRepository<TestPlan> {
     }
 
     /**
-     * This method returns the testplans need to be deleted
+     * This method returns the testplans need to be deleted.
+     * <p>
+     * The test plans of each product and infra combination are ranked by their modified time in a single
+     * query, and all but the latest {@code count} test plans are returned.
      *
      * @param count number of builds that need be saved for each infra combination in each job
      * @return a List of {@link String} testpan ids
      */
     public List<String> getTestPlansToCleanup(int count) {
-
-
-        List<String> toDelete = new ArrayList<String>();
-
-        String sql = "select distinct infra_parameters from test_plan";
-        Query query = entityManager.createNativeQuery(sql);
+        String sql = "SELECT ranked.id FROM (SELECT tp.id, ROW_NUMBER() OVER (PARTITION BY p.name, "
+                + "tp.infra_parameters ORDER BY tp.modified_timestamp DESC) AS build_rank FROM test_plan tp "
+                + "INNER JOIN deployment_pattern dp ON tp.DEPLOYMENTPATTERN_id = dp.id "
+                + "INNER JOIN product p ON dp.PRODUCT_id = p.id) AS ranked WHERE ranked.build_rank > ?";
         @SuppressWarnings("unchecked")
-        List<String> infraCombinations = (List<String>) query.getResultList();
-
-        sql = "select distinct name from product";
-        query = entityManager.createNativeQuery(sql);
-        @SuppressWarnings("unchecked")
-        List<String> products = (List<String>) query.getResultList();
-
-        String [] createTemp = {"drop table if exists temp ;", "drop table if exists temp2 ;",
-                "create temporary table temp (id VARCHAR(255), modified_timestamp TIMESTAMP, name VARCHAR(50), " +
-                "infra_parameters  VARCHAR(255)); ",
-                "INSERT INTO  temp (id,name,modified_timestamp,infra_parameters ) " +
-                        "select test_plan.id, product.name, test_plan.modified_timestamp, test_plan.infra_parameters " +
-                        "from test_plan,product,deployment_pattern " +
-                        "where test_plan.DEPLOYMENTPATTERN_id = deployment_pattern.id and " +
-                        "deployment_pattern.PRODUCT_id = product.id;",
-                "create temporary table temp2 (id VARCHAR(255), modified_timestamp TIMESTAMP, name  VARCHAR(50), " +
-                        "infra_parameters  VARCHAR(255));",
-                "insert  temp2 SELECT * FROM temp;"};
-
-        EntityTransaction txn = entityManager.getTransaction();
-        txn.begin();
-        for (String sqlQ : createTemp) {
-            entityManager.createNativeQuery(sqlQ).executeUpdate();
-        }
-        txn.commit();
-
-        @SuppressWarnings("unchecked")
-        List<String> quaryResultOfInfra;
-        for (String product : products) {
-            for (String infra : infraCombinations) {
-                logger.info(StringUtil.concatStrings("identifying testplans that need to be deleted in" +
-                        " product ", product, "infra combination : ", infra));
-                sql = "select id from temp2 as tp left join (select id from temp where name = ? and " +
-                        "infra_parameters = ? order by (modified_timestamp) DESC limit ?)p2 USING(id) " +
-                        "WHERE p2.id IS NULL and infra_parameters = ?  and name = ? order by (modified_timestamp) DESC";
-
-                query = entityManager.createNativeQuery(sql);
-                query.setParameter(1, product);
-                query.setParameter(2, infra);
-                query.setParameter(3, count);
-                query.setParameter(4, infra);
-                query.setParameter(5, product);
-                quaryResultOfInfra = (List<String>) query.getResultList();
-                for (String data : quaryResultOfInfra) {
-                    logger.info(data);
-                    toDelete.add(data);
-                }
-            }
-        }
+        List<String> toDelete = (List<String>) entityManager.createNativeQuery(sql)
+                .setParameter(1, count)
+                .getResultList();
         return toDelete;
     }
 
     /**
-     * Delete a list of test_plans from db
+     * Delete a list of test_plans from db.
+     * <p>
+     * The test plans are deleted in batches of the given size, each in its own transaction, so that the
+     * locks on the test_plan table are held only for the duration of a batch. The progress is logged after
+     * each committed batch.
+     *
      * @param testPlans list of test plan ids that need to be deleted
+     * @param batchSize maximum number of test plans to delete in a single transaction
+     * @return number of deleted test plans
+     * @throws TestGridDAOException thrown when error on deleting a batch. The batches committed before the
+     *                              failed batch remain deleted.
      */
-    public void deleteTestPlans(List<String> testPlans) {
-        String sql;
-        EntityTransaction txn = null;
-        try {
-            txn = entityManager.getTransaction();
-            txn.begin();
-
-            for (String testplan : testPlans) {
-                sql = "delete from test_plan where id = '" + testplan + "'";
-                entityManager.createNativeQuery(sql).executeUpdate();
+    public int deleteTestPlans(List<String> testPlans, int batchSize) throws TestGridDAOException {
+        int deleted = 0;
+        for (int from = 0; from < testPlans.size(); from += batchSize) {
+            List<String> batch = testPlans.subList(from, Math.min(from + batchSize, testPlans.size()));
+            StringBuilder sql = new StringBuilder("DELETE FROM test_plan WHERE id IN (");
+            for (int i = 0; i < batch.size() - 1; i++) {
+                sql.append("?, ");
             }
-            txn.commit();
-        } catch (Exception e) {
-            if (txn != null) {
-                logger.error("Transaction is being rolled back due to error : \n", e);
-                txn.rollback();
+            sql.append("?)");
+            try {
+                entityManager.getTransaction().begin();
+                Query query = entityManager.createNativeQuery(sql.toString());
+                int index = 1;
+                for (String testPlanId : batch) {
+                    query.setParameter(index++, testPlanId);
+                }
+                deleted += query.executeUpdate();
+                entityManager.getTransaction().commit();
+            } catch (Exception e) {
+                rollbackActiveTransaction();
+                throw new TestGridDAOException(StringUtil.concatStrings("Error while deleting test plans. ",
+                        deleted, " of ", testPlans.size(), " test plans were deleted before the failure."), e);
             }
+            logger.info(StringUtil.concatStrings("Deleted ", from + batch.size(), " of ", testPlans.size(),
+                    " test plans."));
         }
+        return deleted;
     }
 
     /**
@@ -453,14 +458,77 @@ public class TestPlanRepository extends AbstractRepository<TestPlan> {
                 + "in (select id from deployment_pattern where PRODUCT_id=?) and modified_timestamp between ? and ?;";
 
         @SuppressWarnings("unchecked")
-        List<TestPlan> resultList = (List<TestPlan>) entityManager.createNativeQuery(sql, TestPlan.class)
+        List<TestPlan> resultList = (List<TestPlan>) readOnly(entityManager.createNativeQuery(sql, TestPlan.class))
                 .setParameter(1, productId)
                 .setParameter(2, productId)
                 .setParameter(3, from)
                 .setParameter(4, to)
                 .getResultList();
-        return EntityManagerHelper.refreshResultList(entityManager, resultList);
+        return resultList;
+    }
+
+    /**
+     * Returns the query of the latest builds of the infra combinations of the given number of deployment patterns.
+     * The latest build of an infra combination is the one with the highest test run number.
+     *
+     * @param deploymentPatternCount number of deployment pattern id parameters
+     * @return native SQL query
+     */
+    static String getLatestTestPlansQuery(int deploymentPatternCount) {
+        return "SELECT tp.* FROM test_plan tp INNER JOIN (SELECT DEPLOYMENTPATTERN_id, infra_parameters_hash, "
+                + "MAX(test_run_number) AS test_run_number FROM test_plan WHERE DEPLOYMENTPATTERN_id IN ("
+                + getParameterList(deploymentPatternCount) + ") GROUP BY DEPLOYMENTPATTERN_id, "
+                + "infra_parameters_hash) AS latest ON tp.DEPLOYMENTPATTERN_id = latest.DEPLOYMENTPATTERN_id "
+                + "AND tp.infra_parameters_hash = latest.infra_parameters_hash "
+                + "AND tp.test_run_number = latest.test_run_number";
+    }
+
+    /**
+     * Returns the query of a page of the latest builds of the infra combinations of the given number of
+     * deployment patterns, ordered by their modified timestamp and id. The page is read with a keyset condition
+     * on the modified timestamp and id of the last build of the previous page, and one more build than the limit
+     * is read to find out whether there is a next page.
+     *
+     * @param deploymentPatternCount number of deployment pattern id parameters
+     * @param hasCursor              whether the query has the modified timestamp and id parameters of a cursor
+     * @param hasStatus              whether the query has a status parameter
+     * @param ascending              whether the builds are read oldest modified first, instead of latest first
+     * @return native SQL query
+     */
+    static String getLatestTestPlansPageQuery(int deploymentPatternCount, boolean hasCursor, boolean hasStatus,
+                                              boolean ascending) {
+        String comparison = ascending ? ">" : "<";
+        String direction = ascending ? "ASC" : "DESC";
+        List<String> conditions = new ArrayList<>();
+        if (hasCursor) {
+            conditions.add("(tp.modified_timestamp " + comparison + " ? OR (tp.modified_timestamp = ? AND tp.id "
+                    + comparison + " ?))");
+        }
+        if (hasStatus) {
+            conditions.add("tp.status = ?");
         }
+        return getLatestTestPlansQuery(deploymentPatternCount)
+                + (conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions))
+                + " ORDER BY tp.modified_timestamp " + direction + ", tp.id " + direction + " LIMIT ?";
+    }
+
+    /**
+     * Returns the query of the failed test cases of the given number of test plans.
+     *
+     * @param testPlanCount number of test plan id parameters
+     * @return native SQL query
+     */
+    static String getTestFailureSummaryQuery(int testPlanCount) {
+        return "SELECT failed_tc.test_name AS name, failed_tc.failure_message AS failureMessage, "
+                + "tp.infra_parameters AS infraParametrs FROM test_plan tp JOIN (SELECT tc.test_name, "
+                + "tc.failure_message, ts.TESTPLAN_id FROM test_case tc INNER JOIN test_scenario ts ON "
+                + "ts.id = tc.TESTSCENARIO_id AND tc.status = 'FAIL' AND ts.TESTPLAN_id IN ("
+                + getParameterList(testPlanCount) + ")) failed_tc ON tp.id = failed_tc.TESTPLAN_id";
+    }
+
+    private static String getParameterList(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
 
     /**
      * This method is responsible to map list of objects to a given class.
@@ -19,6 +19,8 @@ package org.wso2.testgrid.dao.repository;
 
 import com.google.common.collect.LinkedListMultimap;
 import org.wso2.testgrid.common.TestScenario;
+import org.wso2.testgrid.dao.PageCursor;
+import org.wso2.testgrid.dao.ResultPage;
 import org.wso2.testgrid.dao.SortOrder;
 import org.wso2.testgrid.dao.TestGridDAOException;
 
@@ -86,6 +88,22 @@ public class TestScenarioRepository extends AbstractRepository<TestScenario> {
         return super.findByFields(TestScenario.class, params);
     }
 
+    /**
+     * Returns a page of {@link TestScenario} instances matching the given criteria, ordered by their
+     * modified timestamp.
+     *
+     * @param params    parameters (map of field name and values) the entities must match
+     * @param after     cursor of the page, or null for the first page
+     * @param limit     maximum number of entities of the page
+     * @param sortOrder sort order of the modified timestamps
+     * @return a page of the matched entities
+     * @throws TestGridDAOException thrown when error on searching for entities
+     */
+    public ResultPage<TestScenario> findPage(Map<String, Object> params, PageCursor after, int limit,
+            SortOrder sortOrder) throws TestGridDAOException {
+        return super.findPage(TestScenario.class, params, after, limit, sortOrder);
+    }
+
     /**
      * Returns all the entries from the TestScenario table.
      *
@@ -21,8 +21,12 @@ import org.wso2.testgrid.common.DeploymentPattern;
 import org.wso2.testgrid.common.DeploymentPatternTestFailureStat;
 import org.wso2.testgrid.common.Product;
 import org.wso2.testgrid.dao.EntityManagerHelper;
+import org.wso2.testgrid.dao.PageCursor;
+import org.wso2.testgrid.dao.ResultPage;
+import org.wso2.testgrid.dao.SortOrder;
 import org.wso2.testgrid.dao.TestGridDAOException;
 import org.wso2.testgrid.dao.repository.DeploymentPatternRepository;
+import org.wso2.testgrid.dao.repository.ProductRepository;
 
 import java.sql.Timestamp;
 import java.util.HashMap;
@@ -39,6 +43,7 @@ import javax.persistence.EntityManager;
 public class DeploymentPatternUOW {
 
     private final DeploymentPatternRepository deploymentPatternRepository;
+    private final ProductRepository productRepository;
 
     /**
      * Constructs an instance of {@link DeploymentPatternUOW} to manager use cases related to test cases.
@@ -46,6 +51,7 @@ public class DeploymentPatternUOW {
     public DeploymentPatternUOW() {
         EntityManager entityManager = EntityManagerHelper.getEntityManager();
         deploymentPatternRepository = new DeploymentPatternRepository(entityManager);
+        productRepository = new ProductRepository(entityManager);
     }
 
     /**
@@ -87,7 +93,10 @@ public class DeploymentPatternUOW {
         DeploymentPattern deploymentPattern = new DeploymentPattern();
         deploymentPattern.setName(name);
         deploymentPattern.setProduct(product);
-        return deploymentPatternRepository.persist(deploymentPattern);
+        DeploymentPattern persisted = deploymentPatternRepository.persist(deploymentPattern);
+        // The deployment patterns of the product are changed.
+        productRepository.evictFromSharedCache(product.getId());
+        return persisted;
     }
 
     /**
@@ -114,6 +123,25 @@ public class DeploymentPatternUOW {
         return deploymentPatternRepository.findAll();
     }
 
+    /**
+     * Returns a page of {@link DeploymentPattern} instances, ordered by their modified timestamp.
+     *
+     * @param productId id of the product the deployment patterns must belong to, or null for any product
+     * @param after     cursor of the page, or null for the first page
+     * @param limit     maximum number of deployment patterns of the page
+     * @param sortOrder sort order of the modified timestamps
+     * @return a page of {@link DeploymentPattern} instances
+     * @throws TestGridDAOException thrown when error on retrieving results
+     */
+    public ResultPage<DeploymentPattern> getDeploymentPatterns(String productId, PageCursor after, int limit,
+            SortOrder sortOrder) throws TestGridDAOException {
+        Map<String, Object> params = new HashMap<>();
+        if (productId != null) {
+            params.put(DeploymentPattern.PRODUCT_COLUMN + ".id", productId);
+        }
+        return deploymentPatternRepository.findPage(params, after, limit, sortOrder);
+    }
+
     /**
      * Returns a list of distinct {@link DeploymentPattern} instances for the given product id and date.
      *
@@ -141,6 +169,8 @@ public class DeploymentPatternUOW {
      * @throws TestGridDAOException thrown when error on persisting the object
      */
     public DeploymentPattern updateDeploymentPattern(DeploymentPattern deploymentPattern) throws TestGridDAOException {
-        return deploymentPatternRepository.persist(deploymentPattern);
+        DeploymentPattern persisted = deploymentPatternRepository.persist(deploymentPattern);
+        deploymentPatternRepository.evictFromSharedCache(persisted.getId());
+        return persisted;
     }
 }
@@ -37,8 +37,6 @@ import javax.persistence.EntityManager;
 import static org.wso2.testgrid.common.infrastructure.InfrastructureParameter.INFRASTRUCTURE_PARAMETER_NAME_COLUMN;
 import static org.wso2.testgrid.common.infrastructure.InfrastructureParameter
         .INFRASTRUCTURE_PARAMETER_READY_FOR_TESTGRID_METAMODEL_NAME;
-import static org.wso2.testgrid.common.infrastructure.InfrastructureParameter
-        .INFRASTRUCTURE_PARAMETER_TYPE_METAMODEL_NAME;
 
 /**
  * This class defines the Unit of work related to a {@link InfrastructureParameter}.
@@ -91,23 +89,20 @@ public class InfrastructureParameterUOW {
      * {@link InfrastructureValueSet} of a given type.
      */
     public Set<InfrastructureValueSet> getValueSet() throws TestGridDAOException {
-        List<String> types = infraParamRepository
-                .find(((root, query, cb) -> {
-                    query.select(root.get(INFRASTRUCTURE_PARAMETER_TYPE_METAMODEL_NAME)).distinct(true);
-                    return cb.isTrue(root.get(INFRASTRUCTURE_PARAMETER_READY_FOR_TESTGRID_METAMODEL_NAME));
-                }), String.class);
+        List<InfrastructureParameter> infrastructureParameters = infraParamRepository
+                .find((root, query, cb) -> cb.isTrue(
+                        root.get(INFRASTRUCTURE_PARAMETER_READY_FOR_TESTGRID_METAMODEL_NAME)),
+                        InfrastructureParameter.class);
 
         //create sets of ValueSets by infrastructure type
+        Map<String, Set<InfrastructureParameter>> parametersByType = new HashMap<>();
+        for (InfrastructureParameter infrastructureParameter : infrastructureParameters) {
+            parametersByType.computeIfAbsent(infrastructureParameter.getType(), type -> new TreeSet<>())
+                    .add(infrastructureParameter);
+        }
         Set<InfrastructureValueSet> infrastructureParameterSets = new HashSet<>();
-        for (String type : types) {
-            List<InfrastructureParameter> infrastructureParameters = infraParamRepository
-                    .find((root, query, cb) -> cb.and(
-                            cb.equal(root.get(INFRASTRUCTURE_PARAMETER_TYPE_METAMODEL_NAME), type),
-                            cb.isTrue(root.get(INFRASTRUCTURE_PARAMETER_READY_FOR_TESTGRID_METAMODEL_NAME))),
-                            InfrastructureParameter.class);
-
-            InfrastructureValueSet valueSet = new InfrastructureValueSet(type, new TreeSet<>(infrastructureParameters));
-            infrastructureParameterSets.add(valueSet);
+        for (Map.Entry<String, Set<InfrastructureParameter>> entry : parametersByType.entrySet()) {
+            infrastructureParameterSets.add(new InfrastructureValueSet(entry.getKey(), entry.getValue()));
         }
         return infrastructureParameterSets;
     }
@@ -121,7 +116,9 @@ public class InfrastructureParameterUOW {
      */
     public InfrastructureParameter persistInfrastructureParameter(InfrastructureParameter infraParam) throws
             TestGridDAOException {
-        return infraParamRepository.persist(infraParam);
+        InfrastructureParameter persisted = infraParamRepository.persist(infraParam);
+        infraParamRepository.evictFromSharedCache(persisted.getId());
+        return persisted;
     }
 
 }
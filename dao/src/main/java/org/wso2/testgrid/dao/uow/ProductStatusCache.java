@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.testgrid.dao.uow;
+
+import org.wso2.testgrid.common.Status;
+import org.wso2.testgrid.common.config.ConfigurationContext;
+import org.wso2.testgrid.common.config.ConfigurationContext.ConfigurationProperties;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory snapshot of the materialized product statuses.
+ * <p>
+ * The statuses are updated by the test plan executions, which may run in other JVMs. Hence the snapshot is
+ * kept for {@code PRODUCT_STATUS_CACHE_TTL} seconds, and is dropped right away when a test plan is persisted
+ * from this JVM. The cache is disabled when the TTL is 0.
+ *
+ * @since 1.0.0
+ */
+final class ProductStatusCache {
+
+    private static final long DEFAULT_TTL = 30;
+    private static final ProductStatusCache instance = new ProductStatusCache();
+
+    private final long ttlMillis;
+    private volatile Snapshot snapshot;
+
+    private ProductStatusCache() {
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(getTtl());
+    }
+
+    static ProductStatusCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * Returns the cached product statuses.
+     *
+     * @return map of product id and status, or {@code null} if not cached or expired
+     */
+    Map<String, Status> get() {
+        Snapshot current = snapshot;
+        if (current == null || current.expiresAt <= System.currentTimeMillis()) {
+            return null;
+        }
+        return current.statuses;
+    }
+
+    /**
+     * Caches the given product statuses.
+     *
+     * @param statuses map of product id and status
+     */
+    void put(Map<String, Status> statuses) {
+        if (ttlMillis > 0) {
+            snapshot = new Snapshot(Collections.unmodifiableMap(statuses), System.currentTimeMillis() + ttlMillis);
+        }
+    }
+
+    /**
+     * Drops the cached product statuses.
+     */
+    void invalidate() {
+        snapshot = null;
+    }
+
+    private static long getTtl() {
+        return ConfigurationContext.getLongProperty(ConfigurationProperties.PRODUCT_STATUS_CACHE_TTL, DEFAULT_TTL);
+    }
+
+    /**
+     * Product statuses and their expiry time.
+     */
+    private static final class Snapshot {
+        private final Map<String, Status> statuses;
+        private final long expiresAt;
+
+        Snapshot(Map<String, Status> statuses, long expiresAt) {
+            this.statuses = statuses;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
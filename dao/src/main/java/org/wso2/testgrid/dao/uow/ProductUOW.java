@@ -120,5 +120,7 @@ public class ProductUOW {
      */
     public void updateProductStatusTimestamp(Status status, String productId) throws TestGridDAOException {
         productRepository.updateProductStatusTimestamp(status, new Timestamp(System.currentTimeMillis()), productId);
+        // The timestamp is updated with a native query, which bypasses the shared cache.
+        productRepository.evictFromSharedCache(productId);
     }
 }
@@ -17,13 +17,25 @@
  */
 package org.wso2.testgrid.dao.uow;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.testgrid.common.Status;
 import org.wso2.testgrid.common.TestCase;
 import org.wso2.testgrid.common.TestScenario;
+import org.wso2.testgrid.common.config.ConfigurationContext;
+import org.wso2.testgrid.common.config.ConfigurationContext.ConfigurationProperties;
+import org.wso2.testgrid.common.util.StringUtil;
 import org.wso2.testgrid.dao.EntityManagerHelper;
+import org.wso2.testgrid.dao.PageCursor;
+import org.wso2.testgrid.dao.ResultPage;
+import org.wso2.testgrid.dao.SortOrder;
 import org.wso2.testgrid.dao.TestGridDAOException;
+import org.wso2.testgrid.dao.dto.FailedTestCaseDTO;
 import org.wso2.testgrid.dao.repository.TestCaseRepository;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import javax.persistence.EntityManager;
 
@@ -34,7 +46,11 @@ import javax.persistence.EntityManager;
  */
 public class TestCaseUOW {
 
+    private static final Logger logger = LoggerFactory.getLogger(TestCaseUOW.class);
+    private static final int DEFAULT_COMMIT_SIZE = 1000;
+
     private final TestCaseRepository testCaseRepository;
+    private final int commitSize = getCommitSize();
 
     /**
      * Constructs an instance of {@link TestCaseUOW} to manager use cases related to test cases.
@@ -54,6 +70,21 @@ public class TestCaseUOW {
         return testCaseRepository.persist(testCase);
     }
 
+    /**
+     * Persists the given new {@link TestCase} instances of the test scenario, committing every
+     * {@code TEST_CASE_COMMIT_SIZE} test cases. The test scenario must already be persisted.
+     *
+     * @param testScenario persisted test scenario the test cases belong to
+     * @param testCases    test cases to persist
+     * @throws TestGridDAOException thrown when error on persisting
+     */
+    public void persistTestCases(TestScenario testScenario, List<TestCase> testCases) throws TestGridDAOException {
+        if (testCases.isEmpty()) {
+            return;
+        }
+        testCaseRepository.insertAll(testScenario.getId(), testCases, commitSize);
+    }
+
     /**
      * Returns the {@link TestCase} instance for the given id.
      *
@@ -69,6 +100,55 @@ public class TestCaseUOW {
         return Optional.of(testCase);
     }
 
+    /**
+     * Returns a page of the test cases of the given test scenario, ordered by their modified timestamp.
+     *
+     * @param testScenarioId id of the test scenario
+     * @param status         status the test cases must have, or null for any status
+     * @param after          cursor of the page, or null for the first page
+     * @param limit          maximum number of test cases of the page
+     * @param sortOrder      sort order of the modified timestamps
+     * @return a page of {@link TestCase} instances
+     * @throws TestGridDAOException thrown when error on retrieving results
+     */
+    public ResultPage<TestCase> getTestCases(String testScenarioId, Status status, PageCursor after, int limit,
+            SortOrder sortOrder) throws TestGridDAOException {
+        Map<String, Object> params = new HashMap<>();
+        params.put(TestCase.TEST_SCENARIO_COLUMN + ".id", testScenarioId);
+        if (status != null) {
+            params.put(TestCase.IS_SUCCESS_COLUMN, status);
+        }
+        return testCaseRepository.findPage(params, after, limit, sortOrder);
+    }
+
+    /**
+     * Returns a page of the failed test cases of the given test scenario, with the beginning of their failure
+     * messages.
+     *
+     * @param testScenarioId id of the test scenario
+     * @param offset         number of failed test cases to skip
+     * @param limit          maximum number of failed test cases to return
+     * @param previewLength  maximum number of characters of the failure message to return
+     * @return failed test cases of the page
+     * @throws TestGridDAOException thrown when error on retrieving results
+     */
+    public List<FailedTestCaseDTO> getFailedTestCases(String testScenarioId, int offset, int limit,
+            int previewLength) throws TestGridDAOException {
+        return testCaseRepository.getFailedTestCases(testScenarioId, offset, limit, previewLength);
+    }
+
+    /**
+     * Returns the complete failure message of the given test case.
+     *
+     * @param testCaseId id of the test case
+     * @return failure message, or {@link Optional#empty()} if the test case does not exist or has no failure
+     * message
+     * @throws TestGridDAOException thrown when error on retrieving results
+     */
+    public Optional<String> getFailureMessage(String testCaseId) throws TestGridDAOException {
+        return Optional.ofNullable(testCaseRepository.getFailureMessage(testCaseId));
+    }
+
     /**
      * Checks if there are any failed test cases pertaining to a scenario.
      *
@@ -83,4 +163,20 @@ public class TestCaseUOW {
 
         return resultObject.isEmpty();
     }
+
+    /**
+     * Returns the maximum number of test cases to insert in a single transaction.
+     *
+     * @return configured {@code TEST_CASE_COMMIT_SIZE}, or the default if it is not configured
+     */
+    static int getCommitSize() {
+        int commitSize = ConfigurationContext.getIntProperty(ConfigurationProperties.TEST_CASE_COMMIT_SIZE,
+                DEFAULT_COMMIT_SIZE);
+        if (commitSize > 0) {
+            return commitSize;
+        }
+        logger.warn(StringUtil.concatStrings("Invalid value for ", ConfigurationProperties.TEST_CASE_COMMIT_SIZE,
+                ": ", commitSize));
+        return DEFAULT_COMMIT_SIZE;
+    }
 }
@@ -17,16 +17,27 @@
  */
 package org.wso2.testgrid.dao.uow;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.wso2.testgrid.common.Product;
 import org.wso2.testgrid.common.Status;
 import org.wso2.testgrid.common.TestPlan;
+import org.wso2.testgrid.common.util.StringUtil;
 import org.wso2.testgrid.dao.EntityManagerHelper;
+import org.wso2.testgrid.dao.PageCursor;
+import org.wso2.testgrid.dao.ResultPage;
+import org.wso2.testgrid.dao.SortOrder;
 import org.wso2.testgrid.dao.TestGridDAOException;
 import org.wso2.testgrid.dao.dto.TestCaseFailureResultDTO;
+import org.wso2.testgrid.dao.repository.DeploymentPatternRepository;
+import org.wso2.testgrid.dao.repository.ProductStatusRepository;
 import org.wso2.testgrid.dao.repository.TestPlanRepository;
 
 import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import javax.persistence.EntityManager;
@@ -38,18 +49,36 @@ import javax.persistence.EntityManager;
  */
 public class TestPlanUOW {
 
+    private static final Logger logger = LoggerFactory.getLogger(TestPlanUOW.class);
+
+    /**
+     * Maximum number of test plans deleted in a single transaction.
+     */
+    public static final int DELETE_BATCH_SIZE = 500;
+
     private final TestPlanRepository testPlanRepository;
+    private final ProductStatusRepository productStatusRepository;
+    private final DeploymentPatternRepository deploymentPatternRepository;
 
     /**
      * Constructs an instance of {@link TestPlanUOW} to manager use cases related to test plans.
      */
     public TestPlanUOW() {
-        EntityManager entityManager = EntityManagerHelper.getEntityManager();
+        this(EntityManagerHelper.getEntityManager());
+    }
+
+    /**
+     * Constructs an instance of {@link TestPlanUOW} to manager use cases related to test plans.
+     */
+    public TestPlanUOW(EntityManager entityManager) {
         testPlanRepository = new TestPlanRepository(entityManager);
+        productStatusRepository = new ProductStatusRepository(entityManager);
+        deploymentPatternRepository = new DeploymentPatternRepository(entityManager);
     }
 
     /**
-     * This method persists a single {@link TestPlan} object to the database.
+     * This method persists a single {@link TestPlan} object to the database, and updates the materialized
+     * status of its product.
      *
      * @param testPlan Populated TestPlan object
      * @return The persisted TestPlan object with additional details added
@@ -67,10 +96,42 @@ public class TestPlanUOW {
             persisted.setInfrastructureConfig(testPlan.getInfrastructureConfig());
             persisted.setDeploymentConfig(testPlan.getDeploymentConfig());
             persisted.setScenarioConfigs(testPlan.getScenarioConfigs());
+            if (persisted.getDeploymentPattern() != null) {
+                // The test plans of the deployment pattern are changed.
+                deploymentPatternRepository.evictFromSharedCache(persisted.getDeploymentPattern().getId());
+            }
+            updateProductStatus(persisted);
         }
         return persisted;
     }
 
+    /**
+     * Records the given test plan as the latest build of its infrastructure combination. When the update fails,
+     * the materialized status of the product is removed so that it is materialized again on the next read.
+     *
+     * @param testPlan persisted test plan
+     */
+    private void updateProductStatus(TestPlan testPlan) {
+        if (testPlan.getStatus() == null || testPlan.getDeploymentPattern() == null
+                || testPlan.getDeploymentPattern().getProduct() == null) {
+            return;
+        }
+        ProductStatusCache.getInstance().invalidate();
+        String productId = testPlan.getDeploymentPattern().getProduct().getId();
+        try {
+            productStatusRepository.updateLatestBuild(testPlan);
+        } catch (TestGridDAOException e) {
+            logger.warn(StringUtil.concatStrings("Error while updating the status of the product ", productId,
+                    ". The status will be derived from the test plan history on the next read."), e);
+            try {
+                productStatusRepository.invalidate(productId);
+            } catch (TestGridDAOException ex) {
+                logger.error(StringUtil.concatStrings("Error while removing the stale status of the product ",
+                        productId), ex);
+            }
+        }
+    }
+
     /**
      * Returns the {@link TestPlan} instance for the given id.
      *
@@ -87,11 +148,16 @@ public class TestPlanUOW {
     }
 
     /**
-     * Delete a list of test_plans from db
+     * Delete a list of test_plans from db in batches of {@value #DELETE_BATCH_SIZE}.
      * @param testPlans list of test plan ids that need to be deleted
+     * @return number of deleted test plans
+     * @throws TestGridDAOException thrown when error on deleting test plans
      */
-    public void deleteTestPlans(List<String> testPlans) {
-        testPlanRepository.deleteTestPlans(testPlans);
+    public int deleteTestPlans(List<String> testPlans) throws TestGridDAOException {
+        int deleted = testPlanRepository.deleteTestPlans(testPlans, DELETE_BATCH_SIZE);
+        // The test plans are deleted with bulk queries, which bypass the shared cache.
+        deploymentPatternRepository.evictAllFromSharedCache();
+        return deleted;
     }
 
     /**
@@ -135,7 +201,61 @@ public class TestPlanUOW {
      * @return a {@link Status} for the product
      */
     public Status getCurrentStatus(Product product) {
+        return getCurrentStatuses(Collections.singletonList(product)).get(product.getId());
+    }
+
+    /**
+     * Returns the final Status of each of the given products after considering all distinct infrastructure
+     * combination statuses.
+     * <p>
+     * The statuses are read from the materialized product statuses in a single query, and cached for a short
+     * time. The status of a product which is not materialized yet is derived from the test plan history once,
+     * and materialized.
+     *
+     * @param products the products being queried
+     * @return map of product id and the {@link Status} of the product
+     */
+    public Map<String, Status> getCurrentStatuses(List<Product> products) {
+        Map<String, Status> cachedStatuses = ProductStatusCache.getInstance().get();
+        if (cachedStatuses != null && products.stream().allMatch(
+                product -> cachedStatuses.containsKey(product.getId()))) {
+            return cachedStatuses;
+        }
+        Map<String, Status> statuses;
+        try {
+            statuses = productStatusRepository.findAllStatuses();
+        } catch (TestGridDAOException e) {
+            logger.warn("Error while reading the product statuses. Deriving them from the test plan history.", e);
+            statuses = new HashMap<>();
+            for (Product product : products) {
+                statuses.put(product.getId(), deriveStatus(testPlanRepository.getLatestTestPlans(product)));
+            }
+            return statuses;
+        }
+        for (Product product : products) {
+            if (!statuses.containsKey(product.getId())) {
+                statuses.put(product.getId(), materializeStatus(product));
+            }
+        }
+        ProductStatusCache.getInstance().put(statuses);
+        return statuses;
+    }
+
+    /**
+     * Derives the status of the given product from the test plan history, and materializes it.
+     */
+    private Status materializeStatus(Product product) {
         List<TestPlan> testPlans = testPlanRepository.getLatestTestPlans(product);
+        try {
+            productStatusRepository.materialize(product.getId(), testPlans);
+        } catch (TestGridDAOException e) {
+            logger.warn(StringUtil.concatStrings("Error while materializing the status of the product ",
+                    product.getName()), e);
+        }
+        return deriveStatus(testPlans);
+    }
+
+    private static Status deriveStatus(List<TestPlan> testPlans) {
         List<TestPlan> succesfulPlans = testPlans.stream().filter(testPlan ->
                 testPlan.getStatus().equals(Status.SUCCESS)
         ).collect(Collectors.toList());
@@ -158,6 +278,21 @@ public class TestPlanUOW {
         return testPlanRepository.getLatestTestPlans(product);
     }
 
+    /**
+     * Returns a page of the latest TestPlans for a given product, ordered by their modified timestamp.
+     *
+     * @param product   the product being queried
+     * @param status    status the TestPlans must have, or null for any status
+     * @param after     cursor of the page, or null for the first page
+     * @param limit     maximum number of TestPlans of the page
+     * @param sortOrder sort order of the modified timestamps
+     * @return a page of {@link TestPlan}s for latest builds
+     */
+    public ResultPage<TestPlan> getLatestTestPlans(Product product, Status status, PageCursor after, int limit,
+                                                   SortOrder sortOrder) {
+        return testPlanRepository.getLatestTestPlans(product, status, after, limit, sortOrder);
+    }
+
     /**
      * Returns the latest failed TestPlan for a given infrastructure type.
      *
@@ -17,13 +17,22 @@
  */
 package org.wso2.testgrid.dao.uow;
 
+import org.wso2.testgrid.common.Status;
+import org.wso2.testgrid.common.TestCase;
 import org.wso2.testgrid.common.TestPlan;
 import org.wso2.testgrid.common.TestScenario;
 import org.wso2.testgrid.dao.EntityManagerHelper;
+import org.wso2.testgrid.dao.PageCursor;
+import org.wso2.testgrid.dao.ResultPage;
+import org.wso2.testgrid.dao.SortOrder;
 import org.wso2.testgrid.dao.TestGridDAOException;
+import org.wso2.testgrid.dao.repository.TestCaseRepository;
 import org.wso2.testgrid.dao.repository.TestScenarioRepository;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import javax.persistence.EntityManager;
 
@@ -35,24 +44,58 @@ import javax.persistence.EntityManager;
 public class TestScenarioUOW {
 
     private final TestScenarioRepository testScenarioRepository;
+    private final TestCaseRepository testCaseRepository;
 
     /**
      * Constructs an instance of {@link TestScenarioUOW} to manager use cases related to test scenarios.
      */
     public TestScenarioUOW() {
-        EntityManager entityManager = EntityManagerHelper.getEntityManager();
+        this(EntityManagerHelper.getEntityManager());
+    }
+
+    /**
+     * Constructs an instance of {@link TestScenarioUOW} to manager use cases related to test scenarios.
+     */
+    public TestScenarioUOW(EntityManager entityManager) {
         testScenarioRepository = new TestScenarioRepository(entityManager);
+        testCaseRepository = new TestCaseRepository(entityManager);
     }
 
     /**
      * Persists (adds if not exists, updates otherwise) an {@link TestScenario} instance.
+     * <p>
+     * Merging a test scenario (or its test plan) is not cascaded to its test cases. Hence, the test cases of
+     * the test scenario which are not persisted yet are inserted in bulk after the test scenario is persisted,
+     * in transactions of {@code TEST_CASE_COMMIT_SIZE} test cases. The persisted test cases are not updated.
      *
      * @param testScenario {@link TestScenario} instance tp be persisted
      * @return the persisted {@link TestScenario} instance
      * @throws TestGridDAOException thrown when error on persisting the {@link TestScenario} instance
      */
     public TestScenario persistTestScenario(TestScenario testScenario) throws TestGridDAOException {
-        return testScenarioRepository.persist(testScenario);
+        List<TestCase> newTestCases = new ArrayList<>();
+        if (testScenario.getTestCases() != null) {
+            for (TestCase testCase : testScenario.getTestCases()) {
+                if (testCase.getId() == null) {
+                    newTestCases.add(testCase);
+                }
+            }
+        }
+        if (newTestCases.isEmpty()) {
+            return testScenarioRepository.persist(testScenario);
+        }
+
+        // the id is generated upfront so that the test cases and the later merges refer to the same row
+        testScenario.generateUUID();
+        TestScenario persisted = testScenarioRepository.persist(testScenario);
+        try {
+            testCaseRepository.insertAll(testScenario.getId(), newTestCases, TestCaseUOW.getCommitSize());
+        } finally {
+            for (TestCase testCase : newTestCases) {
+                testCase.setTestScenario(testScenario);
+            }
+        }
+        return persisted;
     }
 
     /**
@@ -70,6 +113,27 @@ public class TestScenarioUOW {
         return Optional.of(testScenario);
     }
 
+    /**
+     * Returns a page of the test scenarios of the given test plan, ordered by their modified timestamp.
+     *
+     * @param testPlanId id of the test plan
+     * @param status     status the test scenarios must have, or null for any status
+     * @param after      cursor of the page, or null for the first page
+     * @param limit      maximum number of test scenarios of the page
+     * @param sortOrder  sort order of the modified timestamps
+     * @return a page of {@link TestScenario} instances
+     * @throws TestGridDAOException thrown when error on retrieving results
+     */
+    public ResultPage<TestScenario> getTestScenarios(String testPlanId, Status status, PageCursor after, int limit,
+            SortOrder sortOrder) throws TestGridDAOException {
+        Map<String, Object> params = new HashMap<>();
+        params.put(TestScenario.TEST_PLAN_COLUMN + ".id", testPlanId);
+        if (status != null) {
+            params.put(TestScenario.STATUS_COLUMN, status);
+        }
+        return testScenarioRepository.findPage(params, after, limit, sortOrder);
+    }
+
     /**
      * Checks if there are any failed scenarios pertaining to a test plan.
      *
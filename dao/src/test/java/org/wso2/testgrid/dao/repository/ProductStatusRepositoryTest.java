@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.testgrid.dao.repository;
+
+import org.eclipse.persistence.config.PersistenceUnitProperties;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.testgrid.common.DeploymentPattern;
+import org.wso2.testgrid.common.InfraCombinationBuildStatus;
+import org.wso2.testgrid.common.Product;
+import org.wso2.testgrid.common.ProductBuildStatus;
+import org.wso2.testgrid.common.Status;
+import org.wso2.testgrid.common.TestPlan;
+import org.wso2.testgrid.common.util.TestGridUtil;
+import org.wso2.testgrid.dao.migration.SchemaMigrator;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+
+/**
+ * Tests the upsert of the latest builds of the infra combinations and the derivation of the materialized
+ * product status, on H2 in MySQL mode.
+ */
+public class ProductStatusRepositoryTest {
+
+    private static final String INFRA_PARAMETERS = "{\"OS\":\"CentOS\",\"JDK\":\"ORACLE_JDK8\"}";
+    private static final String OTHER_INFRA_PARAMETERS = "{\"OS\":\"Ubuntu\",\"JDK\":\"ORACLE_JDK8\"}";
+
+    private EntityManagerFactory entityManagerFactory;
+    private EntityManager entityManager;
+    private ProductStatusRepository productStatusRepository;
+    private DeploymentPattern deploymentPattern;
+
+    @BeforeClass
+    public void seed() throws SQLException {
+        Map<String, String> properties = new HashMap<>();
+        properties.put(PersistenceUnitProperties.JDBC_URL, "jdbc:h2:mem:productstatus;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        properties.put(PersistenceUnitProperties.LOGGING_LEVEL, "WARNING");
+        entityManagerFactory = Persistence.createEntityManagerFactory("testgrid_h2", properties);
+        new SchemaMigrator().migrate(entityManagerFactory);
+
+        entityManager = entityManagerFactory.createEntityManager();
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        Product product = new Product();
+        product.setName("product");
+        product.setCreatedTimestamp(now);
+        product.setModifiedTimestamp(now);
+        deploymentPattern = new DeploymentPattern();
+        deploymentPattern.setName("pattern");
+        deploymentPattern.setProduct(product);
+        deploymentPattern.setCreatedTimestamp(now);
+        deploymentPattern.setModifiedTimestamp(now);
+        entityManager.getTransaction().begin();
+        entityManager.persist(product);
+        entityManager.persist(deploymentPattern);
+        entityManager.getTransaction().commit();
+        productStatusRepository = new ProductStatusRepository(entityManager);
+    }
+
+    @AfterClass
+    public void tearDown() {
+        if (entityManager != null) {
+            entityManager.close();
+        }
+        if (entityManagerFactory != null) {
+            entityManagerFactory.close();
+        }
+    }
+
+    @BeforeMethod
+    public void clearStatuses() {
+        entityManager.getTransaction().begin();
+        entityManager.createNativeQuery("DELETE FROM " + InfraCombinationBuildStatus.INFRA_COMBINATION_STATUS_TABLE)
+                .executeUpdate();
+        entityManager.createNativeQuery("DELETE FROM " + ProductBuildStatus.PRODUCT_STATUS_TABLE).executeUpdate();
+        entityManager.getTransaction().commit();
+    }
+
+    @Test
+    public void testUpsertKeepsLatestBuild() throws Exception {
+        TestPlan secondBuild = createTestPlan(INFRA_PARAMETERS, 2, Status.SUCCESS);
+        productStatusRepository.updateLatestBuild(secondBuild);
+        assertLatestBuilds(secondBuild);
+
+        // an earlier build persisted later does not replace the latest build
+        productStatusRepository.updateLatestBuild(createTestPlan(INFRA_PARAMETERS, 1, Status.FAIL));
+        assertLatestBuilds(secondBuild);
+
+        TestPlan thirdBuild = createTestPlan(INFRA_PARAMETERS, 3, Status.RUNNING);
+        productStatusRepository.updateLatestBuild(thirdBuild);
+        assertLatestBuilds(thirdBuild);
+
+        // the latest build persisted again with its final status
+        thirdBuild.setStatus(Status.FAIL);
+        productStatusRepository.updateLatestBuild(thirdBuild);
+        assertLatestBuilds(thirdBuild);
+    }
+
+    @Test
+    public void testInfraCombinationsAreKeyedByHash() throws Exception {
+        TestPlan testPlan = createTestPlan(INFRA_PARAMETERS, 1, Status.SUCCESS);
+        TestPlan otherTestPlan = createTestPlan(OTHER_INFRA_PARAMETERS, 1, Status.FAIL);
+        productStatusRepository.updateLatestBuild(testPlan);
+        productStatusRepository.updateLatestBuild(otherTestPlan);
+        assertLatestBuilds(testPlan, otherTestPlan);
+
+        Assert.assertEquals(entityManager.createNativeQuery("SELECT infra_parameters_hash FROM "
+                + InfraCombinationBuildStatus.INFRA_COMBINATION_STATUS_TABLE + " WHERE test_plan_id = ?")
+                .setParameter(1, testPlan.getId()).getSingleResult(), TestGridUtil.getSha256Hash(INFRA_PARAMETERS));
+    }
+
+    @Test
+    public void testProductStatusDerivation() throws Exception {
+        String productId = deploymentPattern.getProduct().getId();
+        TestPlan testPlan = createTestPlan(INFRA_PARAMETERS, 1, Status.SUCCESS);
+        TestPlan otherTestPlan = createTestPlan(OTHER_INFRA_PARAMETERS, 1, Status.SUCCESS);
+
+        // the status of a product is updated only once it is materialized
+        productStatusRepository.updateLatestBuild(testPlan);
+        Assert.assertFalse(productStatusRepository.findAllStatuses().containsKey(productId));
+
+        productStatusRepository.materialize(productId, Arrays.asList(testPlan, otherTestPlan));
+        Assert.assertEquals(productStatusRepository.findAllStatuses().get(productId), Status.SUCCESS);
+
+        TestPlan runningBuild = createTestPlan(OTHER_INFRA_PARAMETERS, 2, Status.RUNNING);
+        productStatusRepository.updateLatestBuild(runningBuild);
+        Assert.assertEquals(productStatusRepository.findAllStatuses().get(productId), Status.RUNNING);
+
+        runningBuild.setStatus(Status.FAIL);
+        productStatusRepository.updateLatestBuild(runningBuild);
+        Assert.assertEquals(productStatusRepository.findAllStatuses().get(productId), Status.FAIL);
+
+        productStatusRepository.materialize(productId, Arrays.asList(testPlan,
+                createTestPlan(OTHER_INFRA_PARAMETERS, 3, Status.SUCCESS)));
+        Assert.assertEquals(productStatusRepository.findAllStatuses().get(productId), Status.SUCCESS);
+
+        productStatusRepository.invalidate(productId);
+        Assert.assertFalse(productStatusRepository.findAllStatuses().containsKey(productId));
+    }
+
+    private TestPlan createTestPlan(String infraParameters, int testRunNumber, Status status) {
+        TestPlan testPlan = new TestPlan();
+        testPlan.setId(UUID.randomUUID().toString());
+        testPlan.setDeploymentPattern(deploymentPattern);
+        testPlan.setInfraParameters(infraParameters);
+        testPlan.setTestRunNumber(testRunNumber);
+        testPlan.setStatus(status);
+        return testPlan;
+    }
+
+    private void assertLatestBuilds(TestPlan... latestBuilds) {
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = entityManager.createNativeQuery("SELECT test_plan_id, test_run_number, status FROM "
+                + InfraCombinationBuildStatus.INFRA_COMBINATION_STATUS_TABLE + " WHERE product_id = ? "
+                + "ORDER BY infra_parameters")
+                .setParameter(1, deploymentPattern.getProduct().getId())
+                .getResultList();
+        Assert.assertEquals(rows.size(), latestBuilds.length);
+        for (int i = 0; i < latestBuilds.length; i++) {
+            Assert.assertEquals(rows.get(i)[0], latestBuilds[i].getId());
+            Assert.assertEquals(((Number) rows.get(i)[1]).intValue(), latestBuilds[i].getTestRunNumber());
+            Assert.assertEquals(rows.get(i)[2], latestBuilds[i].getStatus().toString());
+        }
+    }
+}
@@ -0,0 +1,330 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.testgrid.dao.repository;
+
+import org.eclipse.persistence.config.PersistenceUnitProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.testgrid.common.DeploymentPattern;
+import org.wso2.testgrid.common.Product;
+import org.wso2.testgrid.common.Status;
+import org.wso2.testgrid.common.TestCase;
+import org.wso2.testgrid.common.TestPlan;
+import org.wso2.testgrid.common.TestScenario;
+import org.wso2.testgrid.common.util.StringUtil;
+import org.wso2.testgrid.common.util.TestGridUtil;
+import org.wso2.testgrid.dao.dto.FailedTestCaseDTO;
+import org.wso2.testgrid.dao.migration.SchemaMigrator;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+
+/**
+ * Loads a synthetic data set into H2 in MySQL mode, migrates the schema, and verifies that the key queries of
+ * the {@link TestPlanRepository} are served with index lookups and within a latency budget.
+ * <p>
+ * The size of the data set and the latency budget can be changed with
+ * {@code -Dqueryplan.testPlanCount=20000 -Dqueryplan.latencyBudgetMillis=100}.
+ */
+public class QueryPlanTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryPlanTest.class);
+    private static final int TEST_PLAN_COUNT = Integer.getInteger("queryplan.testPlanCount", 20000);
+    private static final long LATENCY_BUDGET_MILLIS = Long.getLong("queryplan.latencyBudgetMillis", 100);
+    private static final int PRODUCT_COUNT = 10;
+    private static final int DEPLOYMENT_PATTERNS_PER_PRODUCT = 5;
+    private static final int INFRA_COMBINATION_COUNT = 10;
+    private static final int SCENARIO_INTERVAL = 10;
+    private static final int SEED_BATCH_SIZE = 1000;
+    private static final int ITERATIONS = 20;
+
+    private EntityManagerFactory entityManagerFactory;
+    private final List<String> deploymentPatternIds = new ArrayList<>();
+    private final List<String> scenarioTestPlanIds = new ArrayList<>();
+    private String failedTestScenarioId;
+
+    @BeforeClass
+    public void seed() throws SQLException {
+        Map<String, String> properties = new HashMap<>();
+        properties.put(PersistenceUnitProperties.JDBC_URL, "jdbc:h2:mem:queryplan;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        properties.put(PersistenceUnitProperties.LOGGING_LEVEL, "WARNING");
+        properties.put(PersistenceUnitProperties.BATCH_WRITING, "JDBC");
+        entityManagerFactory = Persistence.createEntityManagerFactory("testgrid_h2", properties);
+        new SchemaMigrator().migrate(entityManagerFactory);
+
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        entityManager.getTransaction().begin();
+        for (int i = 0; i < PRODUCT_COUNT; i++) {
+            Product product = new Product();
+            product.setName("product-" + i);
+            product.setCreatedTimestamp(now);
+            product.setModifiedTimestamp(now);
+            entityManager.persist(product);
+            for (int j = 0; j < DEPLOYMENT_PATTERNS_PER_PRODUCT; j++) {
+                DeploymentPattern deploymentPattern = new DeploymentPattern();
+                deploymentPattern.setName("pattern-" + j);
+                deploymentPattern.setProduct(product);
+                deploymentPattern.setCreatedTimestamp(now);
+                deploymentPattern.setModifiedTimestamp(now);
+                entityManager.persist(deploymentPattern);
+                deploymentPatternIds.add(deploymentPattern.getId());
+            }
+        }
+        entityManager.getTransaction().commit();
+        entityManager.clear();
+
+        entityManager.getTransaction().begin();
+        for (int i = 0; i < TEST_PLAN_COUNT; i++) {
+            Timestamp timestamp = new Timestamp(now.getTime() - TimeUnit.MINUTES.toMillis(TEST_PLAN_COUNT - i));
+            TestPlan testPlan = new TestPlan();
+            testPlan.setStatus(i % 7 == 0 ? Status.FAIL : Status.SUCCESS);
+            testPlan.setInfraParameters(infraParameters(i % INFRA_COMBINATION_COUNT));
+            testPlan.setTestRunNumber(i / (deploymentPatternIds.size() * INFRA_COMBINATION_COUNT));
+            testPlan.setDeploymentPattern(entityManager.getReference(DeploymentPattern.class,
+                    deploymentPatternIds.get((i / INFRA_COMBINATION_COUNT) % deploymentPatternIds.size())));
+            testPlan.setCreatedTimestamp(timestamp);
+            testPlan.setModifiedTimestamp(timestamp);
+            entityManager.persist(testPlan);
+            if (i % SCENARIO_INTERVAL == 0) {
+                TestScenario testScenario = new TestScenario();
+                testScenario.setName("scenario-" + i);
+                testScenario.setDescription("Scenario of test plan " + i);
+                testScenario.setStatus(testPlan.getStatus());
+                testScenario.setTestPlan(testPlan);
+                testScenario.setCreatedTimestamp(timestamp);
+                testScenario.setModifiedTimestamp(timestamp);
+                entityManager.persist(testScenario);
+                for (int k = 0; k < 2; k++) {
+                    TestCase testCase = new TestCase();
+                    testCase.setName("test-case-" + k);
+                    testCase.setSuccess(k == 0 ? testPlan.getStatus() : Status.SUCCESS);
+                    testCase.setFailureMessage(k == 0 && testPlan.getStatus() == Status.FAIL ? "failed" : "");
+                    testCase.setTestScenario(testScenario);
+                    testCase.setCreatedTimestamp(timestamp);
+                    testCase.setModifiedTimestamp(timestamp);
+                    entityManager.persist(testCase);
+                }
+                if (failedTestScenarioId == null && testPlan.getStatus() == Status.FAIL) {
+                    failedTestScenarioId = testScenario.getId();
+                }
+                if (scenarioTestPlanIds.size() < 10) {
+                    scenarioTestPlanIds.add(testPlan.getId());
+                }
+            }
+            if ((i + 1) % SEED_BATCH_SIZE == 0) {
+                entityManager.getTransaction().commit();
+                entityManager.clear();
+                entityManager.getTransaction().begin();
+            }
+        }
+        entityManager.getTransaction().commit();
+        entityManager.close();
+        logger.info(StringUtil.concatStrings("Seeded ", TEST_PLAN_COUNT, " test plans across ",
+                deploymentPatternIds.size(), " deployment patterns."));
+    }
+
+    @AfterClass
+    public void tearDown() {
+        if (entityManagerFactory != null) {
+            entityManagerFactory.close();
+        }
+    }
+
+    @Test
+    public void testMigrationIsIdempotent() throws SQLException {
+        new SchemaMigrator().migrate(entityManagerFactory);
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            Assert.assertEquals(((Number) entityManager.createNativeQuery("SELECT COUNT(*) FROM "
+                    + SchemaMigrator.SCHEMA_VERSION_TABLE).getSingleResult()).intValue(), 4);
+            Assert.assertEquals(((Number) entityManager.createNativeQuery("SELECT COUNT(*) FROM test_plan "
+                    + "WHERE infra_parameters_hash IS NULL").getSingleResult()).intValue(), 0);
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    @Test
+    public void testLastFailureOfInfraCombination() throws SQLException {
+        String deploymentPatternId = deploymentPatternIds.get(0);
+        String infraParameters = infraParameters(0);
+        assertIndexLookups(TestPlanRepository.LAST_FAILURE_OF_INFRA_COMBINATION_QUERY,
+                new Object[]{TestGridUtil.getSha256Hash(infraParameters), infraParameters, deploymentPatternId},
+                "TEST_PLAN");
+        assertLatency("last failure of an infra combination", entityManager -> {
+            TestPlan testPlan = new TestPlan();
+            testPlan.setInfraParameters(infraParameters);
+            testPlan.setDeploymentPattern(entityManager.find(DeploymentPattern.class, deploymentPatternId));
+            Assert.assertNotNull(new TestPlanRepository(entityManager).getLastFailure(testPlan));
+        });
+    }
+
+    @Test
+    public void testTestPlanHistory() throws SQLException {
+        String deploymentPatternId = deploymentPatternIds.get(1);
+        String infraParameters = infraParameters(1);
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        String productId;
+        try {
+            productId = entityManager.find(DeploymentPattern.class, deploymentPatternId).getProduct().getId();
+        } finally {
+            entityManager.close();
+        }
+        assertIndexLookups(TestPlanRepository.TEST_PLAN_HISTORY_QUERY, new Object[]{
+                TestGridUtil.getSha256Hash(infraParameters), infraParameters, deploymentPatternId, productId},
+                "TEST_PLAN", "DEPLOYMENT_PATTERN", "PRODUCT");
+        assertLatency("test plan history", em -> {
+            TestPlan testPlan = new TestPlan();
+            testPlan.setInfraParameters(infraParameters);
+            testPlan.setDeploymentPattern(em.find(DeploymentPattern.class, deploymentPatternId));
+            Assert.assertFalse(new TestPlanRepository(em).getTestPlanHistory(testPlan).isEmpty());
+        });
+    }
+
+    @Test
+    public void testLatestTestPlans() throws SQLException {
+        List<String> productDeploymentPatternIds = deploymentPatternIds.subList(0, DEPLOYMENT_PATTERNS_PER_PRODUCT);
+        assertIndexLookups(TestPlanRepository.getLatestTestPlansQuery(productDeploymentPatternIds.size()),
+                productDeploymentPatternIds.toArray(), "TEST_PLAN");
+        assertLatency("latest test plans of a product", entityManager -> {
+            Product product = entityManager.find(DeploymentPattern.class, productDeploymentPatternIds.get(0))
+                    .getProduct();
+            Assert.assertEquals(new TestPlanRepository(entityManager).getLatestTestPlans(product).size(),
+                    DEPLOYMENT_PATTERNS_PER_PRODUCT * INFRA_COMBINATION_COUNT);
+        });
+    }
+
+    @Test
+    public void testTestFailureSummary() throws SQLException {
+        assertIndexLookups(TestPlanRepository.getTestFailureSummaryQuery(scenarioTestPlanIds.size()),
+                scenarioTestPlanIds.toArray(), "TEST_PLAN", "TEST_SCENARIO", "TEST_CASE");
+        assertLatency("test failure summary", entityManager ->
+                new TestPlanRepository(entityManager).getTestFailureSummaryByTPId(scenarioTestPlanIds));
+    }
+
+    @Test
+    public void testFailedTestCases() throws SQLException {
+        assertIndexLookups(TestCaseRepository.FAILED_TEST_CASES_QUERY, new Object[]{5, failedTestScenarioId, 10, 0},
+                "TEST_CASE");
+        assertLatency("failed test cases of a test scenario", entityManager -> {
+            List<FailedTestCaseDTO> failedTestCases = new TestCaseRepository(entityManager)
+                    .getFailedTestCases(failedTestScenarioId, 0, 10, 5);
+            Assert.assertEquals(failedTestCases.size(), 1);
+            Assert.assertEquals(failedTestCases.get(0).getFailureMessagePreview(), "faile");
+            Assert.assertTrue(failedTestCases.get(0).isFailureMessageTruncated());
+        });
+    }
+
+    /**
+     * Asserts that the given query reads the given tables with index lookups instead of table scans.
+     *
+     * @param sql        query to explain
+     * @param parameters parameters of the query
+     * @param tables     tables which must not be scanned
+     */
+    private void assertIndexLookups(String sql, Object[] parameters, String... tables) throws SQLException {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+            Connection connection = entityManager.unwrap(Connection.class);
+            StringBuilder plan = new StringBuilder();
+            try (PreparedStatement explain = connection.prepareStatement("EXPLAIN " + sql)) {
+                for (int i = 0; i < parameters.length; i++) {
+                    explain.setObject(i + 1, parameters[i]);
+                }
+                try (ResultSet resultSet = explain.executeQuery()) {
+                    while (resultSet.next()) {
+                        plan.append(resultSet.getString(1));
+                    }
+                }
+            }
+            logger.info(StringUtil.concatStrings("Query plan: ", plan));
+            String normalizedPlan = plan.toString().toUpperCase(Locale.ENGLISH);
+            for (String table : tables) {
+                Assert.assertFalse(normalizedPlan.contains(StringUtil.concatStrings(".", table, ".TABLESCAN")),
+                        StringUtil.concatStrings(table, " is scanned by the query plan: ", plan));
+            }
+        } finally {
+            entityManager.getTransaction().rollback();
+            entityManager.close();
+        }
+    }
+
+    /**
+     * Asserts that the mean latency of the given query stays within the latency budget.
+     *
+     * @param name  name of the query
+     * @param query executes the query with the given entity manager
+     */
+    private void assertLatency(String name, QueryExecution query) throws SQLException {
+        // warm up
+        execute(query);
+        long startTime = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            execute(query);
+        }
+        long meanMillis = (System.nanoTime() - startTime) / 1000000 / ITERATIONS;
+        logger.info(StringUtil.concatStrings(name, ": ", meanMillis, " ms on average over ", TEST_PLAN_COUNT,
+                " test plans."));
+        Assert.assertTrue(meanMillis <= LATENCY_BUDGET_MILLIS, StringUtil.concatStrings(name, " took ",
+                meanMillis, " ms on average, which exceeds the budget of ", LATENCY_BUDGET_MILLIS, " ms."));
+    }
+
+    private void execute(QueryExecution query) throws SQLException {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            query.execute(entityManager);
+        } catch (SQLException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new SQLException("Error while executing the query.", e);
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    private static String infraParameters(int combination) {
+        return "{\"OS\":\"os-" + (combination % 5) + "\",\"JDK\":\"jdk-" + (combination / 5)
+                + "\",\"DBEngine\":\"db-" + combination + "\"}";
+    }
+
+    /**
+     * Executes a query with an entity manager.
+     */
+    private interface QueryExecution {
+        void execute(EntityManager entityManager) throws Exception;
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.testgrid.dao.repository;
+
+import org.eclipse.persistence.config.PersistenceUnitProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.testgrid.common.DeploymentPattern;
+import org.wso2.testgrid.common.Product;
+import org.wso2.testgrid.common.Status;
+import org.wso2.testgrid.common.TestPlan;
+import org.wso2.testgrid.common.infrastructure.InfrastructureParameter;
+import org.wso2.testgrid.common.util.StringUtil;
+import org.wso2.testgrid.dao.SharedCacheCustomizer;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+import javax.persistence.SharedCacheMode;
+
+import static org.wso2.testgrid.common.infrastructure.InfrastructureParameter
+        .INFRASTRUCTURE_PARAMETER_READY_FOR_TESTGRID_METAMODEL_NAME;
+
+/**
+ * Compares the number of SQL statements and the latency of the reads behind the dashboard endpoints with the
+ * shared cache disabled and enabled. Each request is served with a new entity manager as done by the web app,
+ * and reads the products, a product by name, a test plan with its deployment pattern and product, and the
+ * infrastructure value set.
+ * <p>
+ * This is a benchmark and is not part of the regular test suite. Run it with
+ * {@code mvn test -Dtest=SharedCacheBenchmark [-Dbenchmark.requestCount=10000]}.
+ */
+public class SharedCacheBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(SharedCacheBenchmark.class);
+    private static final int REQUEST_COUNT = Integer.getInteger("benchmark.requestCount", 10000);
+    private static final int PRODUCT_COUNT = 20;
+    private static final int DEPLOYMENT_PATTERNS_PER_PRODUCT = 5;
+    private static final int TEST_PLANS_PER_DEPLOYMENT_PATTERN = 20;
+    private static final int INFRASTRUCTURE_PARAMETER_COUNT = 50;
+
+    private EntityManagerFactory seedEntityManagerFactory;
+    private final List<String> productNames = new ArrayList<>();
+    private final List<String> testPlanIds = new ArrayList<>();
+
+    @BeforeClass
+    public void seed() {
+        Map<String, String> properties = new HashMap<>();
+        properties.put(PersistenceUnitProperties.LOGGING_LEVEL, "WARNING");
+        seedEntityManagerFactory = Persistence.createEntityManagerFactory("testgrid_h2", properties);
+
+        EntityManager entityManager = seedEntityManagerFactory.createEntityManager();
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        entityManager.getTransaction().begin();
+        for (int i = 0; i < PRODUCT_COUNT; i++) {
+            Product product = new Product();
+            product.setName("product-" + i);
+            product.setCreatedTimestamp(now);
+            product.setModifiedTimestamp(now);
+            entityManager.persist(product);
+            productNames.add(product.getName());
+            for (int j = 0; j < DEPLOYMENT_PATTERNS_PER_PRODUCT; j++) {
+                DeploymentPattern deploymentPattern = new DeploymentPattern();
+                deploymentPattern.setName("pattern-" + j);
+                deploymentPattern.setProduct(product);
+                deploymentPattern.setCreatedTimestamp(now);
+                deploymentPattern.setModifiedTimestamp(now);
+                entityManager.persist(deploymentPattern);
+                for (int k = 0; k < TEST_PLANS_PER_DEPLOYMENT_PATTERN; k++) {
+                    TestPlan testPlan = new TestPlan();
+                    testPlan.setStatus(k % 10 == 0 ? Status.FAIL : Status.SUCCESS);
+                    testPlan.setInfraParameters("{\"OS\":\"os-" + (k % 5) + "\"}");
+                    testPlan.setTestRunNumber(k);
+                    testPlan.setDeploymentPattern(deploymentPattern);
+                    testPlan.setCreatedTimestamp(now);
+                    testPlan.setModifiedTimestamp(now);
+                    entityManager.persist(testPlan);
+                    testPlanIds.add(testPlan.getId());
+                }
+            }
+        }
+        for (int i = 0; i < INFRASTRUCTURE_PARAMETER_COUNT; i++) {
+            InfrastructureParameter infrastructureParameter = new InfrastructureParameter("param-" + i,
+                    "type-" + (i % 5), "", true);
+            infrastructureParameter.setCreatedTimestamp(now);
+            infrastructureParameter.setModifiedTimestamp(now);
+            entityManager.persist(infrastructureParameter);
+        }
+        entityManager.getTransaction().commit();
+        entityManager.close();
+        logger.info(StringUtil.concatStrings("Seeded ", PRODUCT_COUNT, " products, ", testPlanIds.size(),
+                " test plans and ", INFRASTRUCTURE_PARAMETER_COUNT, " infrastructure parameters."));
+    }
+
+    @AfterClass
+    public void tearDown() {
+        if (seedEntityManagerFactory != null) {
+            seedEntityManagerFactory.close();
+        }
+    }
+
+    @Test
+    public void compareDashboardReads() throws Exception {
+        long uncached = run(SharedCacheMode.NONE);
+        long cached = run(SharedCacheMode.ENABLE_SELECTIVE);
+
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        Set<ObjectName> statistics = mBeanServer.queryNames(
+                new ObjectName("org.wso2.testgrid:type=SharedCacheStatistics,*"), null);
+        Assert.assertFalse(statistics.isEmpty(), "Shared cache statistics are not registered.");
+        for (ObjectName objectName : statistics) {
+            logger.info(StringUtil.concatStrings(objectName, ": hits ", mBeanServer.getAttribute(objectName,
+                    "Hits"), ", misses ", mBeanServer.getAttribute(objectName, "Misses"), ", hit percentage ",
+                    mBeanServer.getAttribute(objectName, "HitPercentage"), "%"));
+        }
+        Assert.assertTrue(cached < uncached, StringUtil.concatStrings("Shared cache issued ", cached,
+                " statements, while ", uncached, " statements were issued without it."));
+    }
+
+    /**
+     * Serves the dashboard requests from a new persistence unit with the given shared cache mode.
+     *
+     * @param sharedCacheMode shared cache mode of the persistence unit
+     * @return number of SQL statements issued
+     */
+    private long run(SharedCacheMode sharedCacheMode) {
+        Map<String, String> properties = new HashMap<>();
+        properties.put(PersistenceUnitProperties.SESSION_EVENT_LISTENER_CLASS,
+                TestPlanQueryBenchmark.StatementCounter.class.getName());
+        properties.put(PersistenceUnitProperties.LOGGING_LEVEL, "WARNING");
+        properties.put(PersistenceUnitProperties.DDL_GENERATION, PersistenceUnitProperties.NONE);
+        properties.put(PersistenceUnitProperties.SESSION_NAME, "benchmark-" + sharedCacheMode);
+        properties.put(PersistenceUnitProperties.SHARED_CACHE_MODE, sharedCacheMode.name());
+        if (sharedCacheMode != SharedCacheMode.NONE) {
+            properties.put(PersistenceUnitProperties.SESSION_CUSTOMIZER, SharedCacheCustomizer.class.getName());
+        }
+        EntityManagerFactory entityManagerFactory = Persistence.createEntityManagerFactory("testgrid_h2",
+                properties);
+        try {
+            TestPlanQueryBenchmark.StatementCounter.COUNT.set(0);
+            long startTime = System.nanoTime();
+            for (int i = 0; i < REQUEST_COUNT; i++) {
+                serveRequest(entityManagerFactory, i);
+            }
+            long totalMicros = (System.nanoTime() - startTime) / 1000;
+            long statements = TestPlanQueryBenchmark.StatementCounter.COUNT.get();
+            logger.info(StringUtil.concatStrings("Shared cache ", sharedCacheMode, ": served ", REQUEST_COUNT,
+                    " requests with ", statements, " SQL statements, ", totalMicros / REQUEST_COUNT,
+                    " us per request."));
+            return statements;
+        } finally {
+            entityManagerFactory.close();
+        }
+    }
+
+    private void serveRequest(EntityManagerFactory entityManagerFactory, int request) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            ProductRepository productRepository = new ProductRepository(entityManager);
+            TestPlanRepository testPlanRepository = new TestPlanRepository(entityManager);
+            InfrastructureParameterRepository infraParamRepository =
+                    new InfrastructureParameterRepository(entityManager);
+
+            Assert.assertEquals(productRepository.findAll().size(), PRODUCT_COUNT);
+            Assert.assertEquals(productRepository.findByFields(Collections.singletonMap(Product.NAME_COLUMN,
+                    productNames.get(request % PRODUCT_COUNT))).size(), 1);
+            TestPlan testPlan = testPlanRepository.findByPrimaryKey(testPlanIds.get(request % testPlanIds.size()));
+            Assert.assertNotNull(testPlan.getDeploymentPattern().getProduct().getName());
+            Assert.assertEquals(infraParamRepository.find((root, query, cb) -> cb.isTrue(
+                    root.get(INFRASTRUCTURE_PARAMETER_READY_FOR_TESTGRID_METAMODEL_NAME)),
+                    InfrastructureParameter.class).size(), INFRASTRUCTURE_PARAMETER_COUNT);
+        } catch (Exception e) {
+            throw new IllegalStateException("Error while serving dashboard request " + request, e);
+        } finally {
+            entityManager.close();
+        }
+    }
+}
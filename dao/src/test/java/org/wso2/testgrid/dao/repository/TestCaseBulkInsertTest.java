@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.testgrid.dao.repository;
+
+import org.eclipse.persistence.config.BatchWriting;
+import org.eclipse.persistence.config.PersistenceUnitProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.testgrid.common.DeploymentPattern;
+import org.wso2.testgrid.common.Product;
+import org.wso2.testgrid.common.Status;
+import org.wso2.testgrid.common.TestCase;
+import org.wso2.testgrid.common.TestPlan;
+import org.wso2.testgrid.common.TestScenario;
+import org.wso2.testgrid.common.util.StringUtil;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+
+/**
+ * Inserts a large number of synthetic test cases of a test scenario with JDBC batch writing and chunked
+ * commits, and reports the throughput.
+ * <p>
+ * The number of test cases can be changed with {@code -Dbulkinsert.testCaseCount=100000}.
+ */
+public class TestCaseBulkInsertTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(TestCaseBulkInsertTest.class);
+    private static final int TEST_CASE_COUNT = Integer.getInteger("bulkinsert.testCaseCount", 100000);
+    private static final int COMMIT_SIZE = 1000;
+    private static final String FAILURE_MESSAGE = String.join("", Collections.nCopies(200,
+            "java.lang.AssertionError: expected [200] but found [500] "));
+
+    private EntityManagerFactory entityManagerFactory;
+    private String testScenarioId;
+
+    @BeforeClass
+    public void seed() {
+        Map<String, String> properties = new HashMap<>();
+        properties.put(PersistenceUnitProperties.JDBC_URL, "jdbc:h2:mem:bulkinsert;DB_CLOSE_DELAY=-1");
+        properties.put(PersistenceUnitProperties.LOGGING_LEVEL, "WARNING");
+        properties.put(PersistenceUnitProperties.BATCH_WRITING, BatchWriting.JDBC);
+        properties.put(PersistenceUnitProperties.BATCH_WRITING_SIZE, "100");
+        entityManagerFactory = Persistence.createEntityManagerFactory("testgrid_h2", properties);
+
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        Product product = new Product();
+        product.setName("product");
+        product.setCreatedTimestamp(now);
+        product.setModifiedTimestamp(now);
+        DeploymentPattern deploymentPattern = new DeploymentPattern();
+        deploymentPattern.setName("pattern");
+        deploymentPattern.setProduct(product);
+        deploymentPattern.setCreatedTimestamp(now);
+        deploymentPattern.setModifiedTimestamp(now);
+        TestPlan testPlan = new TestPlan();
+        testPlan.setStatus(Status.RUNNING);
+        testPlan.setInfraParameters("{\"OS\":\"os\"}");
+        testPlan.setDeploymentPattern(deploymentPattern);
+        testPlan.setCreatedTimestamp(now);
+        testPlan.setModifiedTimestamp(now);
+        TestScenario testScenario = new TestScenario();
+        testScenario.setName("scenario");
+        testScenario.setDescription("Scenario with many test cases");
+        testScenario.setStatus(Status.RUNNING);
+        testScenario.setTestPlan(testPlan);
+        testScenario.setCreatedTimestamp(now);
+        testScenario.setModifiedTimestamp(now);
+
+        entityManager.getTransaction().begin();
+        entityManager.persist(product);
+        entityManager.persist(deploymentPattern);
+        entityManager.persist(testPlan);
+        entityManager.persist(testScenario);
+        entityManager.getTransaction().commit();
+        entityManager.close();
+        testScenarioId = testScenario.getId();
+    }
+
+    @AfterClass
+    public void tearDown() {
+        if (entityManagerFactory != null) {
+            entityManagerFactory.close();
+        }
+    }
+
+    @Test
+    public void testInsertAll() throws Exception {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        List<TestCase> testCases = new ArrayList<>(TEST_CASE_COUNT);
+        for (int i = 0; i < TEST_CASE_COUNT; i++) {
+            TestCase testCase = new TestCase();
+            testCase.setName("test-case-" + i);
+            if (i % 10 == 0) {
+                testCase.setSuccess(Status.FAIL);
+                testCase.setFailureMessage(FAILURE_MESSAGE);
+            } else {
+                testCase.setSuccess(Status.SUCCESS);
+                testCase.setFailureMessage("");
+            }
+            testCase.setCreatedTimestamp(now);
+            testCase.setModifiedTimestamp(now);
+            testCases.add(testCase);
+        }
+
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            long startTime = System.nanoTime();
+            new TestCaseRepository(entityManager).insertAll(testScenarioId, testCases, COMMIT_SIZE);
+            long elapsedMillis = Math.max(1, (System.nanoTime() - startTime) / 1000000);
+            logger.info(StringUtil.concatStrings("Inserted ", TEST_CASE_COUNT, " test cases in ", elapsedMillis,
+                    " ms (", TEST_CASE_COUNT * 1000L / elapsedMillis, " test cases per second)."));
+
+            Assert.assertEquals(((Number) entityManager.createNativeQuery(
+                    "SELECT COUNT(*) FROM test_case WHERE TESTSCENARIO_id = ?")
+                    .setParameter(1, testScenarioId).getSingleResult()).intValue(), TEST_CASE_COUNT);
+            Assert.assertEquals(((Number) entityManager.createNativeQuery(
+                    "SELECT COUNT(*) FROM test_case WHERE TESTSCENARIO_id = ? AND status = 'FAIL'")
+                    .setParameter(1, testScenarioId).getSingleResult()).intValue(), (TEST_CASE_COUNT + 9) / 10);
+            Assert.assertTrue(testCases.stream().allMatch(testCase -> testCase.getId() != null));
+        } finally {
+            entityManager.close();
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.testgrid.dao.repository;
+
+import org.eclipse.persistence.config.PersistenceUnitProperties;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.testgrid.common.DeploymentPattern;
+import org.wso2.testgrid.common.Product;
+import org.wso2.testgrid.common.Status;
+import org.wso2.testgrid.common.TestCase;
+import org.wso2.testgrid.common.TestPlan;
+import org.wso2.testgrid.common.TestScenario;
+import org.wso2.testgrid.dao.PageCursor;
+import org.wso2.testgrid.dao.ResultPage;
+import org.wso2.testgrid.dao.SortOrder;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+
+/**
+ * Reads the test cases of a test scenario page by page, with many test cases sharing a modified timestamp, and
+ * checks that every test case is read exactly once in the requested order.
+ */
+public class TestCasePageTest {
+
+    private static final int TEST_CASE_COUNT = 95;
+    private static final int PAGE_SIZE = 10;
+
+    private EntityManagerFactory entityManagerFactory;
+    private String testScenarioId;
+
+    @BeforeClass
+    public void seed() {
+        Map<String, String> properties = new HashMap<>();
+        properties.put(PersistenceUnitProperties.JDBC_URL, "jdbc:h2:mem:testcasepage;DB_CLOSE_DELAY=-1");
+        properties.put(PersistenceUnitProperties.LOGGING_LEVEL, "WARNING");
+        entityManagerFactory = Persistence.createEntityManagerFactory("testgrid_h2", properties);
+
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        Product product = new Product();
+        product.setName("product");
+        product.setCreatedTimestamp(now);
+        product.setModifiedTimestamp(now);
+        DeploymentPattern deploymentPattern = new DeploymentPattern();
+        deploymentPattern.setName("pattern");
+        deploymentPattern.setProduct(product);
+        deploymentPattern.setCreatedTimestamp(now);
+        deploymentPattern.setModifiedTimestamp(now);
+        TestPlan testPlan = new TestPlan();
+        testPlan.setStatus(Status.RUNNING);
+        testPlan.setInfraParameters("{\"OS\":\"os\"}");
+        testPlan.setDeploymentPattern(deploymentPattern);
+        testPlan.setCreatedTimestamp(now);
+        testPlan.setModifiedTimestamp(now);
+        TestScenario testScenario = new TestScenario();
+        testScenario.setName("scenario");
+        testScenario.setDescription("Scenario with paged test cases");
+        testScenario.setStatus(Status.RUNNING);
+        testScenario.setTestPlan(testPlan);
+        testScenario.setCreatedTimestamp(now);
+        testScenario.setModifiedTimestamp(now);
+
+        entityManager.getTransaction().begin();
+        entityManager.persist(product);
+        entityManager.persist(deploymentPattern);
+        entityManager.persist(testPlan);
+        entityManager.persist(testScenario);
+        for (int i = 0; i < TEST_CASE_COUNT; i++) {
+            // a few distinct timestamps, so that most of the page boundaries fall between equal timestamps
+            Timestamp modifiedTimestamp = new Timestamp(now.getTime() + (i % 4) * 1000);
+            TestCase testCase = new TestCase();
+            testCase.setName("test-case-" + i);
+            testCase.setSuccess(i % 3 == 0 ? Status.FAIL : Status.SUCCESS);
+            testCase.setFailureMessage("");
+            testCase.setTestScenario(testScenario);
+            testCase.setCreatedTimestamp(now);
+            testCase.setModifiedTimestamp(modifiedTimestamp);
+            entityManager.persist(testCase);
+        }
+        entityManager.getTransaction().commit();
+        entityManager.close();
+        testScenarioId = testScenario.getId();
+    }
+
+    @AfterClass
+    public void tearDown() {
+        if (entityManagerFactory != null) {
+            entityManagerFactory.close();
+        }
+    }
+
+    @Test
+    public void testPagesInBothOrders() throws Exception {
+        for (SortOrder sortOrder : new SortOrder[] { SortOrder.DESCENDING, SortOrder.ASCENDING }) {
+            List<TestCase> testCases = readAllPages(null, sortOrder);
+            Assert.assertEquals(testCases.size(), TEST_CASE_COUNT);
+            Set<String> ids = new HashSet<>();
+            for (int i = 0; i < testCases.size(); i++) {
+                Assert.assertTrue(ids.add(testCases.get(i).getId()), "Test case read twice with " + sortOrder);
+                if (i > 0) {
+                    int comparison = compare(testCases.get(i - 1), testCases.get(i));
+                    Assert.assertTrue(sortOrder == SortOrder.ASCENDING ? comparison < 0 : comparison > 0,
+                            "Test cases are not ordered " + sortOrder);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testPagesFilteredByStatus() throws Exception {
+        List<TestCase> testCases = readAllPages(Status.FAIL, SortOrder.DESCENDING);
+        Assert.assertEquals(testCases.size(), (TEST_CASE_COUNT + 2) / 3);
+        Assert.assertTrue(testCases.stream().allMatch(testCase -> testCase.getStatus() == Status.FAIL));
+    }
+
+    @Test
+    public void testCursorEncoding() throws Exception {
+        TestCase testCase = readAllPages(null, SortOrder.DESCENDING).get(0);
+        PageCursor cursor = PageCursor.decode(PageCursor.after(testCase).encode());
+        Assert.assertEquals(cursor.getId(), testCase.getId());
+        Assert.assertEquals(cursor.getModifiedTimestamp(), testCase.getModifiedTimestamp());
+        Assert.assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("not a cursor"));
+    }
+
+    private List<TestCase> readAllPages(Status status, SortOrder sortOrder) throws Exception {
+        Map<String, Object> params = new HashMap<>();
+        params.put(TestCase.TEST_SCENARIO_COLUMN + ".id", testScenarioId);
+        if (status != null) {
+            params.put(TestCase.IS_SUCCESS_COLUMN, status);
+        }
+        List<TestCase> testCases = new ArrayList<>();
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            TestCaseRepository testCaseRepository = new TestCaseRepository(entityManager);
+            PageCursor cursor = null;
+            do {
+                ResultPage<TestCase> page = testCaseRepository.findPage(params, cursor, PAGE_SIZE, sortOrder);
+                Assert.assertTrue(page.getItems().size() <= PAGE_SIZE);
+                testCases.addAll(page.getItems());
+                cursor = page.getNextCursor();
+            } while (cursor != null);
+        } finally {
+            entityManager.close();
+        }
+        return testCases;
+    }
+
+    private static int compare(TestCase first, TestCase second) {
+        int comparison = first.getModifiedTimestamp().compareTo(second.getModifiedTimestamp());
+        return comparison != 0 ? comparison : first.getId().compareTo(second.getId());
+    }
+}
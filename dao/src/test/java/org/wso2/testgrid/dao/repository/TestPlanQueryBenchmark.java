@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.testgrid.dao.repository;
+
+import org.eclipse.persistence.config.PersistenceUnitProperties;
+import org.eclipse.persistence.sessions.SessionEvent;
+import org.eclipse.persistence.sessions.SessionEventAdapter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.testgrid.common.DeploymentPattern;
+import org.wso2.testgrid.common.Product;
+import org.wso2.testgrid.common.Status;
+import org.wso2.testgrid.common.TestPlan;
+import org.wso2.testgrid.common.util.StringUtil;
+import org.wso2.testgrid.dao.EntityManagerHelper;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+import javax.persistence.TypedQuery;
+
+/**
+ * Compares the number of SQL statements issued when listing the test plans of each deployment pattern
+ * with the legacy refresh-every-row approach, the refresh query hint, and the read-only query hint.
+ * <p>
+ * This is a benchmark and is not part of the regular test suite. Run it with
+ * {@code mvn test -Dtest=TestPlanQueryBenchmark [-Dbenchmark.testPlanCount=100000]}.
+ */
+public class TestPlanQueryBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(TestPlanQueryBenchmark.class);
+    private static final int TEST_PLAN_COUNT = Integer.getInteger("benchmark.testPlanCount", 100000);
+    private static final int DEPLOYMENT_PATTERN_COUNT = 100;
+    private static final int SEED_BATCH_SIZE = 1000;
+
+    private EntityManagerFactory entityManagerFactory;
+    private final List<String> deploymentPatternIds = new ArrayList<>();
+
+    @BeforeClass
+    public void seed() {
+        Map<String, String> properties = new HashMap<>();
+        properties.put(PersistenceUnitProperties.SESSION_EVENT_LISTENER_CLASS, StatementCounter.class.getName());
+        properties.put(PersistenceUnitProperties.LOGGING_LEVEL, "WARNING");
+        properties.put(PersistenceUnitProperties.BATCH_WRITING, "JDBC");
+        entityManagerFactory = Persistence.createEntityManagerFactory("testgrid_h2", properties);
+
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        entityManager.getTransaction().begin();
+        Product product = new Product();
+        product.setName("benchmark-product");
+        product.setCreatedTimestamp(now);
+        product.setModifiedTimestamp(now);
+        entityManager.persist(product);
+        for (int i = 0; i < DEPLOYMENT_PATTERN_COUNT; i++) {
+            DeploymentPattern deploymentPattern = new DeploymentPattern();
+            deploymentPattern.setName("pattern-" + i);
+            deploymentPattern.setProduct(product);
+            deploymentPattern.setCreatedTimestamp(now);
+            deploymentPattern.setModifiedTimestamp(now);
+            entityManager.persist(deploymentPattern);
+            deploymentPatternIds.add(deploymentPattern.getId());
+        }
+        entityManager.getTransaction().commit();
+        entityManager.clear();
+
+        entityManager.getTransaction().begin();
+        for (int i = 0; i < TEST_PLAN_COUNT; i++) {
+            TestPlan testPlan = new TestPlan();
+            testPlan.setStatus(i % 10 == 0 ? Status.FAIL : Status.SUCCESS);
+            testPlan.setInfraParameters("{\"OS\":\"os-" + (i % 5) + "\"}");
+            testPlan.setTestRunNumber(i / DEPLOYMENT_PATTERN_COUNT);
+            testPlan.setDeploymentPattern(entityManager.getReference(DeploymentPattern.class,
+                    deploymentPatternIds.get(i % DEPLOYMENT_PATTERN_COUNT)));
+            testPlan.setCreatedTimestamp(now);
+            testPlan.setModifiedTimestamp(now);
+            entityManager.persist(testPlan);
+            if ((i + 1) % SEED_BATCH_SIZE == 0) {
+                entityManager.getTransaction().commit();
+                entityManager.clear();
+                entityManager.getTransaction().begin();
+            }
+        }
+        entityManager.getTransaction().commit();
+        entityManager.close();
+        logger.info(StringUtil.concatStrings("Seeded ", TEST_PLAN_COUNT, " test plans across ",
+                DEPLOYMENT_PATTERN_COUNT, " deployment patterns."));
+    }
+
+    @AfterClass
+    public void tearDown() {
+        if (entityManagerFactory != null) {
+            entityManagerFactory.close();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void compareStatementCounts() {
+        long legacy = run("refresh every row", (entityManager, deploymentPattern) -> EntityManagerHelper
+                .refreshResultList(entityManager, testPlansOf(entityManager, deploymentPattern).getResultList()));
+        long refreshing = run("refresh hint", (entityManager, deploymentPattern) ->
+                new TestPlanRepository(entityManager)
+                        .refreshing(testPlansOf(entityManager, deploymentPattern)).getResultList());
+        long readOnly = run("read-only hint", (entityManager, deploymentPattern) ->
+                new TestPlanRepository(entityManager)
+                        .readOnly(testPlansOf(entityManager, deploymentPattern)).getResultList());
+
+        // statements scale with the number of queries (deployment patterns), not with the number of rows.
+        Assert.assertTrue(refreshing <= 2 * DEPLOYMENT_PATTERN_COUNT, "Refresh hint issued " + refreshing);
+        Assert.assertTrue(readOnly <= 2 * DEPLOYMENT_PATTERN_COUNT, "Read-only hint issued " + readOnly);
+        Assert.assertTrue(legacy >= TEST_PLAN_COUNT + DEPLOYMENT_PATTERN_COUNT,
+                "Legacy approach is expected to issue at least one statement per row, but issued " + legacy);
+    }
+
+    /**
+     * Lists the test plans of each deployment pattern with the given query mode.
+     *
+     * @param mode  name of the query mode
+     * @param query lists the test plans of the given deployment pattern
+     * @return number of SQL statements issued
+     */
+    private long run(String mode, BiFunction<EntityManager, DeploymentPattern, List<TestPlan>> query) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            StatementCounter.COUNT.set(0);
+            long startTime = System.currentTimeMillis();
+            int rows = 0;
+            for (String deploymentPatternId : deploymentPatternIds) {
+                rows += query.apply(entityManager,
+                        entityManager.getReference(DeploymentPattern.class, deploymentPatternId)).size();
+            }
+            long statements = StatementCounter.COUNT.get();
+            logger.info(StringUtil.concatStrings(mode, ": listed ", rows, " test plans with ", statements,
+                    " SQL statements in ", System.currentTimeMillis() - startTime, " ms."));
+            Assert.assertEquals(rows, TEST_PLAN_COUNT);
+            return statements;
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    private static TypedQuery<TestPlan> testPlansOf(EntityManager entityManager,
+                                                    DeploymentPattern deploymentPattern) {
+        return entityManager.createQuery("SELECT tp FROM TestPlan tp WHERE tp.deploymentPattern = :dp",
+                TestPlan.class).setParameter("dp", deploymentPattern);
+    }
+
+    /**
+     * Counts the SQL statements executed by the persistence unit.
+     */
+    public static class StatementCounter extends SessionEventAdapter {
+        static final AtomicLong COUNT = new AtomicLong();
+
+        @Override
+        public void postExecuteCall(SessionEvent event) {
+            COUNT.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.testgrid.dao.uow;
+
+import org.eclipse.persistence.config.PersistenceUnitProperties;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.testgrid.common.DeploymentPattern;
+import org.wso2.testgrid.common.Product;
+import org.wso2.testgrid.common.Status;
+import org.wso2.testgrid.common.TestPlan;
+import org.wso2.testgrid.dao.migration.SchemaMigrator;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.FlushModeType;
+import javax.persistence.Persistence;
+
+/**
+ * Tests that the product statuses are materialized on the first read, cached, and that the cached statuses are
+ * dropped when a test plan is persisted.
+ */
+public class ProductStatusCacheTest {
+
+    private EntityManagerFactory entityManagerFactory;
+    private EntityManager entityManager;
+    private Product product;
+    private TestPlan testPlan;
+
+    @BeforeClass
+    public void seed() throws SQLException {
+        Map<String, String> properties = new HashMap<>();
+        properties.put(PersistenceUnitProperties.JDBC_URL,
+                "jdbc:h2:mem:productstatuscache;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        properties.put(PersistenceUnitProperties.LOGGING_LEVEL, "WARNING");
+        entityManagerFactory = Persistence.createEntityManagerFactory("testgrid_h2", properties);
+        new SchemaMigrator().migrate(entityManagerFactory);
+
+        entityManager = entityManagerFactory.createEntityManager();
+        entityManager.setFlushMode(FlushModeType.COMMIT);
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        product = new Product();
+        product.setName("product");
+        product.setCreatedTimestamp(now);
+        product.setModifiedTimestamp(now);
+        DeploymentPattern deploymentPattern = new DeploymentPattern();
+        deploymentPattern.setName("pattern");
+        deploymentPattern.setProduct(product);
+        deploymentPattern.setCreatedTimestamp(now);
+        deploymentPattern.setModifiedTimestamp(now);
+        testPlan = new TestPlan();
+        testPlan.setStatus(Status.SUCCESS);
+        testPlan.setInfraParameters("{\"OS\":\"os\"}");
+        testPlan.setTestRunNumber(1);
+        testPlan.setDeploymentPattern(deploymentPattern);
+        testPlan.setCreatedTimestamp(now);
+        testPlan.setModifiedTimestamp(now);
+        entityManager.getTransaction().begin();
+        entityManager.persist(product);
+        entityManager.persist(deploymentPattern);
+        entityManager.persist(testPlan);
+        entityManager.getTransaction().commit();
+        ProductStatusCache.getInstance().invalidate();
+    }
+
+    @AfterClass
+    public void tearDown() {
+        ProductStatusCache.getInstance().invalidate();
+        if (entityManager != null) {
+            entityManager.close();
+        }
+        if (entityManagerFactory != null) {
+            entityManagerFactory.close();
+        }
+    }
+
+    @Test
+    public void testCachedStatusesAreDroppedOnWrite() throws Exception {
+        TestPlanUOW testPlanUOW = new TestPlanUOW(entityManager);
+        List<Product> products = Collections.singletonList(product);
+
+        Assert.assertEquals(testPlanUOW.getCurrentStatuses(products).get(product.getId()), Status.SUCCESS);
+        Assert.assertNotNull(ProductStatusCache.getInstance().get(), "Product statuses are not cached");
+        Assert.assertEquals(((Number) entityManager.createNativeQuery(
+                "SELECT COUNT(*) FROM product_status WHERE id = ?").setParameter(1, product.getId())
+                .getSingleResult()).intValue(), 1, "Product status is not materialized");
+
+        TestPlan nextBuild = new TestPlan();
+        nextBuild.setStatus(Status.FAIL);
+        nextBuild.setInfraParameters(testPlan.getInfraParameters());
+        nextBuild.setTestRunNumber(testPlan.getTestRunNumber() + 1);
+        nextBuild.setDeploymentPattern(testPlan.getDeploymentPattern());
+        nextBuild.setCreatedTimestamp(new Timestamp(System.currentTimeMillis()));
+        nextBuild.setModifiedTimestamp(new Timestamp(System.currentTimeMillis()));
+        testPlanUOW.persistTestPlan(nextBuild);
+        Assert.assertNull(ProductStatusCache.getInstance().get(), "Product statuses are cached after a write");
+
+        Assert.assertEquals(testPlanUOW.getCurrentStatuses(products).get(product.getId()), Status.FAIL);
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.testgrid.dao.uow;
+
+import org.eclipse.persistence.config.PersistenceUnitProperties;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.testgrid.common.DeploymentPattern;
+import org.wso2.testgrid.common.Product;
+import org.wso2.testgrid.common.Status;
+import org.wso2.testgrid.common.TestCase;
+import org.wso2.testgrid.common.TestPlan;
+import org.wso2.testgrid.common.TestScenario;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.FlushModeType;
+import javax.persistence.Persistence;
+
+/**
+ * Persists a test scenario with its test cases, and then its test plan, the way a test plan run does, and
+ * checks that the test cases are inserted once and are not merged again with the test plan.
+ */
+public class TestScenarioPersistTest {
+
+    private static final int TEST_CASE_COUNT = 2500;
+
+    private EntityManagerFactory entityManagerFactory;
+    private TestPlan testPlan;
+
+    @BeforeClass
+    public void seed() {
+        Map<String, String> properties = new HashMap<>();
+        properties.put(PersistenceUnitProperties.JDBC_URL, "jdbc:h2:mem:scenariopersist;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        properties.put(PersistenceUnitProperties.LOGGING_LEVEL, "WARNING");
+        entityManagerFactory = Persistence.createEntityManagerFactory("testgrid_h2", properties);
+
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        Product product = new Product();
+        product.setName("product");
+        product.setCreatedTimestamp(now);
+        product.setModifiedTimestamp(now);
+        DeploymentPattern deploymentPattern = new DeploymentPattern();
+        deploymentPattern.setName("pattern");
+        deploymentPattern.setProduct(product);
+        deploymentPattern.setCreatedTimestamp(now);
+        deploymentPattern.setModifiedTimestamp(now);
+        testPlan = new TestPlan();
+        testPlan.setStatus(Status.RUNNING);
+        testPlan.setInfraParameters("{\"OS\":\"os\"}");
+        testPlan.setDeploymentPattern(deploymentPattern);
+        testPlan.setCreatedTimestamp(now);
+        testPlan.setModifiedTimestamp(now);
+
+        entityManager.getTransaction().begin();
+        entityManager.persist(product);
+        entityManager.persist(deploymentPattern);
+        entityManager.persist(testPlan);
+        entityManager.getTransaction().commit();
+        entityManager.close();
+    }
+
+    @AfterClass
+    public void tearDown() {
+        if (entityManagerFactory != null) {
+            entityManagerFactory.close();
+        }
+    }
+
+    @Test
+    public void testPersistTestScenarioAndTestPlan() throws Exception {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        TestScenario testScenario = new TestScenario();
+        testScenario.setName("scenario");
+        testScenario.setDescription("Scenario persisted with its test cases");
+        testScenario.setStatus(Status.RUNNING);
+        testScenario.setTestPlan(testPlan);
+        testScenario.setCreatedTimestamp(now);
+        testScenario.setModifiedTimestamp(now);
+        for (int i = 0; i < TEST_CASE_COUNT; i++) {
+            TestCase testCase = new TestCase();
+            testCase.setName("test-case-" + i);
+            testCase.setSuccess(i % 10 == 0 ? Status.FAIL : Status.SUCCESS);
+            testCase.setFailureMessage("");
+            testCase.setCreatedTimestamp(now);
+            testCase.setModifiedTimestamp(now);
+            testScenario.addTestCase(testCase);
+        }
+        List<TestScenario> testScenarios = new ArrayList<>(Collections.singletonList(testScenario));
+        testPlan.setTestScenarios(testScenarios);
+
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        entityManager.setFlushMode(FlushModeType.COMMIT);
+        try {
+            TestScenario persisted = new TestScenarioUOW(entityManager).persistTestScenario(testScenario);
+            Assert.assertEquals(persisted.getId(), testScenario.getId());
+            Assert.assertTrue(entityManager.contains(persisted),
+                    "The test scenario is detached by inserting the test cases");
+            Assert.assertEquals(testScenario.getTestCases().size(), TEST_CASE_COUNT);
+            Assert.assertTrue(testScenario.getTestCases().stream().allMatch(testCase -> testCase.getId() != null));
+            Assert.assertEquals(countTestCases(entityManager, testScenario.getId()), TEST_CASE_COUNT);
+
+            // changes to the test cases held in memory must not reach the database with the test plan
+            testScenario.getTestCases().get(0).setName("renamed");
+            testScenario.setStatus(Status.FAIL);
+            testScenario.setFailCount(TEST_CASE_COUNT / 10);
+            testScenario.setSuccessCount(TEST_CASE_COUNT - TEST_CASE_COUNT / 10);
+            testPlan.setStatus(Status.FAIL);
+            new TestPlanUOW(entityManager).persistTestPlan(testPlan);
+
+            Assert.assertEquals(countTestCases(entityManager, testScenario.getId()), TEST_CASE_COUNT);
+            Assert.assertEquals(entityManager.createNativeQuery("SELECT test_name FROM test_case WHERE id = ?")
+                    .setParameter(1, testScenario.getTestCases().get(0).getId()).getSingleResult(), "test-case-0");
+            Assert.assertEquals(entityManager.createNativeQuery("SELECT status FROM test_scenario WHERE id = ?")
+                    .setParameter(1, testScenario.getId()).getSingleResult(), Status.FAIL.name());
+            Assert.assertEquals(entityManager.createNativeQuery("SELECT status FROM test_plan WHERE id = ?")
+                    .setParameter(1, testPlan.getId()).getSingleResult(), Status.FAIL.name());
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    private static int countTestCases(EntityManager entityManager, String testScenarioId) {
+        return ((Number) entityManager.createNativeQuery("SELECT COUNT(*) FROM test_case WHERE TESTSCENARIO_id = ?")
+                .setParameter(1, testScenarioId).getSingleResult()).intValue();
+    }
+}
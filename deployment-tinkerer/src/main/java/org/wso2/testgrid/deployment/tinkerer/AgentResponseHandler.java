@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.testgrid.deployment.tinkerer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.testgrid.common.agentoperation.OperationRequest;
+import org.wso2.testgrid.common.agentoperation.OperationSegment;
+import org.wso2.testgrid.deployment.tinkerer.exception.AgentHandleException;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import javax.websocket.Session;
+
+/**
+ * Handle sending an operation to the agent and collect the whole result of it.
+ * <p>
+ * Unlike polling the message queue, no thread waits for the agent. The result is completed from
+ * {@link #onOperationUpdate()}, on the thread delivering the last response of the agent.
+ *
+ * @since 1.0.0
+ */
+public class AgentResponseHandler implements OperationSubscriber {
+
+    private static final Logger logger = LoggerFactory.getLogger(AgentResponseHandler.class);
+
+    private final OperationRequest operationRequest;
+    private final String agentId;
+    private final StringBuilder response = new StringBuilder();
+    private final CompletableFuture<OperationSegment> result = new CompletableFuture<>();
+
+    /**
+     * Create handler for the given operation.
+     *
+     * @param operationRequest  The operation to send
+     * @param agentId           The agent id to send the operation to
+     */
+    public AgentResponseHandler(OperationRequest operationRequest, String agentId) {
+        this.operationRequest = operationRequest;
+        this.agentId = agentId;
+    }
+
+    /**
+     * Send the operation to the agent. The message queue and the subscription of the operation are created
+     * before sending it, so that no response of the agent is missed.
+     *
+     * @return  The result of the operation, completed once the agent completes the operation
+     * @throws AgentHandleException thrown when the agent is not connected or error on sending the operation
+     */
+    public CompletableFuture<OperationSegment> sendOperation() throws AgentHandleException {
+        SessionManager sessionManager = SessionManager.getInstance();
+        Session webSocketSession = sessionManager.getAgentSession(this.agentId);
+        if (webSocketSession == null) {
+            throw new AgentHandleException("No session found for agent " + this.agentId);
+        }
+        String operationId = this.operationRequest.getOperationId();
+        sessionManager.addNewOperationQueue(operationId, this.operationRequest.getCode(), this.agentId);
+        sessionManager.addOperationSubscriber(operationId, this);
+        try {
+            webSocketSession.getBasicRemote().sendText(this.operationRequest.toJSON());
+        } catch (IOException e) {
+            sessionManager.removeOperationQueueMessages(operationId);
+            throw new AgentHandleException("Error while sending operation " + operationId + " to agent " +
+                    this.agentId, e);
+        }
+        return this.result;
+    }
+
+    /**
+     * Collect the new messages of the operation, and complete the result once the operation is completed.
+     */
+    @Override
+    public synchronized void onOperationUpdate() {
+        SessionManager sessionManager = SessionManager.getInstance();
+        String operationId = this.operationRequest.getOperationId();
+        while (!this.result.isDone()) {
+            OperationSegment operationSegment = sessionManager.dequeueOperationQueueMessages(operationId);
+            if (operationSegment == null) {
+                // The message queue is removed, hence no more responses are received
+                logger.warn("No operation found for operation id " + operationId + " on " + this.agentId);
+                completeResult(1);
+                return;
+            }
+            this.response.append(operationSegment.getResponse());
+            if (operationSegment.getCompleted()) {
+                sessionManager.removeOperationQueueMessages(operationId);
+                completeResult(operationSegment.getExitValue());
+                return;
+            }
+            if (operationSegment.getResponse().isEmpty()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Stop waiting for the agent, ex: on time out. The message queue of the operation is removed.
+     *
+     * @return  true if the operation was not completed yet, else false
+     */
+    public boolean cancel() {
+        SessionManager.getInstance().removeOperationQueueMessages(this.operationRequest.getOperationId());
+        return this.result.cancel(false);
+    }
+
+    private void completeResult(int exitValue) {
+        OperationSegment operationSegment = new OperationSegment();
+        operationSegment.setOperationId(this.operationRequest.getOperationId());
+        operationSegment.setCode(this.operationRequest.getCode());
+        operationSegment.setResponse(this.response.toString());
+        operationSegment.setCompleted(true);
+        operationSegment.setExitValue(exitValue);
+        this.result.complete(operationSegment);
+    }
+}
@@ -24,18 +24,20 @@ import org.slf4j.LoggerFactory;
 import org.wso2.testgrid.common.Agent;
 import org.wso2.testgrid.common.agentoperation.OperationRequest;
 import org.wso2.testgrid.common.agentoperation.OperationSegment;
+import org.wso2.testgrid.deployment.tinkerer.beans.OperationMessage;
 import org.wso2.testgrid.deployment.tinkerer.exception.AgentHandleException;
 
 
 import java.io.IOException;
-import java.util.Observable;
-import java.util.Observer;
 import javax.websocket.Session;
 
 /**
  * Handle sending shell script operation to the agent and stream result back to the test runner.
+ * <p>
+ * The handler subscribes to the updates of its operation in the {@link SessionManager}, which calls
+ * {@link #onOperationUpdate()} only for the updates of that operation.
  */
-public class AgentStreamHandler implements Observer {
+public class AgentStreamHandler implements OperationSubscriber {
     private static final Logger logger = LoggerFactory.getLogger(AgentStreamHandler.class);
     private static final String CHUNK_SECTION_SEPARATOR = "\r\n";
     
@@ -63,56 +65,57 @@ public class AgentStreamHandler implements Observer {
     }
 
     /**
-     * Send command to the Agent and wait for response from the agent.
+     * Send command to the Agent and subscribe to the responses from the agent.
+     * <p>
+     * The message queue and the subscription of the operation are created before sending the command, so that
+     * no response of the agent is missed.
      *
-     * @throws AgentHandleException
+     * @throws AgentHandleException thrown when the agent is not connected or error on sending the command
      */
     public void startSendCommand() throws AgentHandleException {
         SessionManager sessionManager = SessionManager.getInstance();
 
         Agent agent = sessionManager.getAgent(this.agentId);
-        if (agent != null && sessionManager.hasAgentSession(agent.getAgentId())) {
-            Session webSocketSession = sessionManager.getAgentSession(agent.getAgentId());
-            try {
-                webSocketSession.getBasicRemote().sendText(operationRequest.toJSON());
-                sessionManager.addNewOperationQueue(this.operationRequest.getOperationId(),
-                        this.operationRequest.getCode(), this.agentId);
-                logger.info("Generate new message queue with id: " + operationRequest.getOperationId() + " code: " +
-                        operationRequest.getCode() + " command: " + operationRequest.getRequest());
-            } catch (IOException e) {
-                throw new AgentHandleException("Error while sending command to agent " + operationRequest.getRequest() +
-                        " on agent " + agent.getAgentId(), e);
-            }
+        if (agent == null || !sessionManager.hasAgentSession(agent.getAgentId())) {
+            throw new AgentHandleException("No session found for agent " + this.agentId);
+        }
+        Session webSocketSession = sessionManager.getAgentSession(agent.getAgentId());
+        String operationId = this.operationRequest.getOperationId();
+        sessionManager.addNewOperationQueue(operationId, this.operationRequest.getCode(), this.agentId);
+        sessionManager.addOperationSubscriber(operationId, this);
+        logger.info("Generate new message queue with id: " + operationId + " code: " +
+                operationRequest.getCode() + " command: " + operationRequest.getRequest());
+        try {
+            webSocketSession.getBasicRemote().sendText(operationRequest.toJSON());
+        } catch (IOException e) {
+            sessionManager.removeOperationQueueMessages(operationId);
+            throw new AgentHandleException("Error while sending command to agent " + operationRequest.getRequest() +
+                    " on agent " + agent.getAgentId(), e);
         }
     }
 
     /**
-     * This is the observer to check if new messages are available.
-     * If new messages available for this object with given operation id then, send result data back to the test plan
-     * executor.
-     *
-     * @param o     Observable notifier object
-     * @param arg   Updated message queue operation id
+     * Called when the message queue of the operation of this handler is updated. Send the new messages, if any,
+     * back to the test plan executor.
+     * <p>
+     * Synchronized, since the updates of an operation may be notified concurrently (ex: a response of the agent
+     * and an abort) while the messages must be written to the output in order.
      */
     @Override
-    public void update(Observable o, Object arg) {
-        String foundOperationId = (String) arg;
-        if (foundOperationId.equals(this.operationRequest.getOperationId())) {
-            SessionManager sessionManager = SessionManager.getInstance();
-            OperationSegment resultOperation = new OperationSegment();
-            resultOperation.setResponse("");
-            try {
-                // Dequeue all messages with relevant operation id
+    public synchronized void onOperationUpdate() {
+        SessionManager sessionManager = SessionManager.getInstance();
+        try {
+            // Dequeue messages with relevant operation id, a bounded segment at a time
+            while (true) {
                 OperationSegment operationSegment = sessionManager.
                         dequeueOperationQueueMessages(this.operationRequest.getOperationId());
-                // Append dequeue result to the result
                 if (operationSegment == null) {
                     logger.info("No operation found for operation id " + this.operationRequest.getOperationId()
                             + " on " + this.agentId);
                     return;
                 }
-                resultOperation.setResponse(
-                        resultOperation.getResponse().concat(operationSegment.getResponse()));
+                OperationSegment resultOperation = new OperationSegment();
+                resultOperation.setResponse(operationSegment.getResponse());
                 resultOperation.setOperationId(this.operationRequest.getOperationId());
                 resultOperation.setCode(operationSegment.getCode());
                 resultOperation.setMetaData(operationSegment.getMetaData());
@@ -123,27 +126,28 @@ public class AgentStreamHandler implements Observer {
                     resultOperation.setCompleted(true);
                     resultOperation.setExitValue(operationSegment.getExitValue());
                     sessionManager.removeOperationQueueMessages(this.operationRequest.getOperationId());
-                    sessionManager.getAgentObservable().deleteObserver(this);
                     this.streamingBuffer.write(resultOperation.toJSON() + CHUNK_SECTION_SEPARATOR);
                     this.streamingBuffer.close();
                     return;
                 }
-                // Send response only if it contain response
-                if (!resultOperation.getResponse().equals("")) {
-                    logger.debug("Sending result segment to test runner " + this.agentId);
-                    this.streamingBuffer.write(resultOperation.toJSON() + CHUNK_SECTION_SEPARATOR);
-                    resultOperation.setResponse("");
-                }
-            } catch (IOException e) {
-                logger.warn("Error while writing result to the output. " + operationRequest.getRequest() +
-                        " on agent " + this.agentId, e);
-                abortOperation(this.operationRequest.getOperationId(), this.agentId);
-                try {
-                    this.streamingBuffer.close();
-                } catch (IOException errorOutput) {
-                    logger.error("Error while close output connection " + operationRequest.getRequest() +
-                            " on agent " + this.agentId, errorOutput);
+                // Stop once the message queue is drained
+                if (resultOperation.getResponse().isEmpty()) {
+                    return;
                 }
+                logger.debug("Sending result segment to test runner " + this.agentId);
+                this.streamingBuffer.write(resultOperation.toJSON() + CHUNK_SECTION_SEPARATOR);
+            }
+        } catch (IOException e) {
+            logger.warn("Error while writing result to the output. " + operationRequest.getRequest() +
+                    " on agent " + this.agentId, e);
+            // the output is broken, hence the handler is not notified of the abort
+            sessionManager.removeOperationSubscriber(this.operationRequest.getOperationId());
+            abortOperation(this.operationRequest.getOperationId(), this.agentId);
+            try {
+                this.streamingBuffer.close();
+            } catch (IOException errorOutput) {
+                logger.error("Error while close output connection " + operationRequest.getRequest() +
+                        " on agent " + this.agentId, errorOutput);
             }
         }
     }
@@ -157,7 +161,8 @@ public class AgentStreamHandler implements Observer {
      */
     public boolean abortOperation(String operationId, String agentId) {
         SessionManager sessionManager = SessionManager.getInstance();
-        if (sessionManager.getOperationRequest(operationId) != null) {
+        OperationMessage operationMessage = sessionManager.getOperationRequest(operationId);
+        if (operationMessage != null) {
             Session session = sessionManager.getAgentSession(agentId);
             if (session != null) {
                 OperationRequest abortOperationRequest = new OperationRequest();
@@ -167,16 +172,16 @@ public class AgentStreamHandler implements Observer {
                     session.getBasicRemote().sendText(abortOperationRequest.toJSON());
                 } catch (IOException e) {
                     logger.error("Error occurred while sending abort operation to agent " + agentId, e);
-                    SessionManager.getOperationQueueMap().get(operationId).setOperationAsCompleted(1);
-                    SessionManager.getAgentObservable().notifyObservable(null);
+                    operationMessage.setOperationAsCompleted(1);
+                    sessionManager.notifyOperationSubscriber(operationId);
                     return false;
                 }
                 return true;
             } else {
                 // If socket connection break remove the message queue
                 logger.info("No session found to sending abort message to agent " + agentId);
-                SessionManager.getOperationQueueMap().get(operationId).setOperationAsCompleted(1);
-                SessionManager.getAgentObservable().notifyObservable(null);
+                operationMessage.setOperationAsCompleted(1);
+                sessionManager.notifyOperationSubscriber(operationId);
                 return false;
             }
 
@@ -22,7 +22,9 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wso2.testgrid.common.agentoperation.OperationRequest;
+import org.wso2.testgrid.common.agentoperation.OperationSegment;
 import org.wso2.testgrid.deployment.tinkerer.beans.OperationMessage;
+import org.wso2.testgrid.deployment.tinkerer.exception.AgentHandleException;
 import org.wso2.testgrid.deployment.tinkerer.utils.Constants;
 
 import java.io.IOException;
@@ -30,8 +32,11 @@ import java.util.Calendar;
 import java.util.Map;
 import java.util.Timer;
 import java.util.TimerTask;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import javax.servlet.ServletContextEvent;
 import javax.servlet.ServletContextListener;
 import javax.websocket.CloseReason;
@@ -45,7 +50,7 @@ import javax.websocket.Session;
 public class AppServletContextListener implements ServletContextListener {
 
     private static final Logger logger = LoggerFactory.getLogger(AppServletContextListener.class);
-    private static final ExecutorService executorService = Executors.newFixedThreadPool(10);
+    private static final ScheduledExecutorService executorService = Executors.newScheduledThreadPool(10);
 
     private Timer heartBeatTimer;
     private Timer messageQueueTimer;
@@ -105,7 +110,8 @@ public class AppServletContextListener implements ServletContextListener {
         }
 
         /**
-         * Sends heartbeat to specified agent.
+         * Sends heartbeat to specified agent. The agent is removed if it does not respond within the timeout.
+         * No thread waits for the response meanwhile.
          *
          * @param sessionManager - Session manager which holds the agent session data.
          * @param agentId - Agent Id of the agent.
@@ -114,41 +120,38 @@ public class AppServletContextListener implements ServletContextListener {
                 justification = "No use of returned Future<?> from executor service submit().")
         private void sendHeartBeat(SessionManager sessionManager, String agentId) {
             Runnable hbTask = () -> {
-                Session wsSession = sessionManager.getAgentSession(agentId);
                 OperationRequest operationRequest = new OperationRequest();
                 operationRequest.setCode(OperationRequest.OperationCode.PING);
+                AgentResponseHandler responseHandler = new AgentResponseHandler(operationRequest, agentId);
                 try {
-                    sessionManager.addNewOperationQueue(operationRequest.getOperationId(),
-                            operationRequest.getCode(), agentId);
-                    wsSession.getBasicRemote().sendText(operationRequest.toJSON());
-                    long initTime = Calendar.getInstance().getTimeInMillis();
-                    while (!sessionManager.hasMessageQueueResponse(operationRequest.getOperationId())) {
-                        long currentTime = Calendar.getInstance().getTimeInMillis();
-                        if (initTime + (Constants.OPERATION_TIMEOUT / 2) < currentTime) {
-                            if (wsSession.isOpen()) {
-                                wsSession.close(new CloseReason(CloseReason.CloseCodes.UNEXPECTED_CONDITION,
-                                        "Agent unresponsive"));
-                            }
-                            sessionManager.removeAgentSession(agentId);
-                            logger.error("Removed unresponsive agent: " + agentId);
-                            break;
+                    CompletableFuture<OperationSegment> response = responseHandler.sendOperation();
+                    ScheduledFuture<?> timeout = executorService.schedule(() -> {
+                        if (responseHandler.cancel()) {
+                            removeUnresponsiveAgent(sessionManager, agentId);
                         }
-                        try {
-                            Thread.sleep(1000);
-                        } catch (InterruptedException ignore) {
-                            break;
-                        }
-                    }
-                    if (sessionManager.hasMessageQueueResponse(operationRequest.getOperationId())) {
-                        sessionManager.removeOperationQueueMessages(operationRequest.getOperationId());
-                    }
-                } catch (IOException e) {
+                    }, Constants.OPERATION_TIMEOUT / 2, TimeUnit.MILLISECONDS);
+                    response.thenRun(() -> timeout.cancel(false));
+                } catch (AgentHandleException e) {
                     String message = "Error occurred while sending heartbeat to agent: " + agentId;
                     logger.error(message, e);
                 }
             };
             executorService.submit(hbTask);
         }
+
+        private void removeUnresponsiveAgent(SessionManager sessionManager, String agentId) {
+            Session wsSession = sessionManager.getAgentSession(agentId);
+            try {
+                if (wsSession != null && wsSession.isOpen()) {
+                    wsSession.close(new CloseReason(CloseReason.CloseCodes.UNEXPECTED_CONDITION,
+                            "Agent unresponsive"));
+                }
+            } catch (IOException e) {
+                logger.error("Error occurred while closing session of agent: " + agentId, e);
+            }
+            sessionManager.removeAgentSession(agentId);
+            logger.error("Removed unresponsive agent: " + agentId);
+        }
     }
 
     /**
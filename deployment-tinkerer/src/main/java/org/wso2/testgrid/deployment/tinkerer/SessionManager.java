@@ -22,26 +22,33 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wso2.testgrid.common.Agent;
-import org.wso2.testgrid.common.agentoperation.AgentObservable;
 import org.wso2.testgrid.common.agentoperation.OperationRequest;
 import org.wso2.testgrid.common.agentoperation.OperationSegment;
 import org.wso2.testgrid.deployment.tinkerer.beans.OperationMessage;
 import org.wso2.testgrid.deployment.tinkerer.providers.InfraProviderFactory;
 import org.wso2.testgrid.deployment.tinkerer.providers.Provider;
+import org.wso2.testgrid.deployment.tinkerer.utils.Constants;
 
 import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.websocket.Session;
 
 /**
  * This class manage sessions of agents corresponding to agent ids.
+ * <p>
+ * Agents are indexed by the agent id, and by the test plan id and the instance name. The indexes are updated
+ * together when an agent registers or leaves, and are read without locking.
+ * <p>
+ * It also holds the message queues of the operations running on agents, and routes the updates of an operation
+ * directly to the {@link OperationSubscriber} handling its result, if any. Hence an update costs the same
+ * regardless of the number of operations running concurrently.
  *
  * @since 1.0.0
  */
@@ -50,10 +57,12 @@ public class SessionManager {
     private static final Logger logger = LoggerFactory.getLogger(SessionManager.class);
 
     private static final SessionManager sessionManager = new SessionManager();
-    private static volatile Map<String, Session> agentSessions = new HashMap<>();
-    private static volatile Map<String, Agent> agents = new HashMap<>();
-    private static volatile Map<String, OperationMessage> operationMessageMap = new HashMap<>();
-    private static volatile AgentObservable agentObservable = new AgentObservable();
+    private static final Map<String, Session> agentSessions = new ConcurrentHashMap<>();
+    private static final Map<String, Agent> agents = new ConcurrentHashMap<>();
+    // test plan id -> instance name -> agent
+    private static final Map<String, Map<String, Agent>> testPlanAgents = new ConcurrentHashMap<>();
+    private static final Map<String, OperationMessage> operationMessageMap = new ConcurrentHashMap<>();
+    private static final Map<String, OperationSubscriber> operationSubscribers = new ConcurrentHashMap<>();
 
     @SuppressFBWarnings("DMI_HARDCODED_ABSOLUTE_FILENAME")
     private SessionManager() {
@@ -82,12 +91,13 @@ public class SessionManager {
      * @param agentId      - Id of the agent.
      * @param agentSession - {@link Session} belongs to the agent.
      */
-    public synchronized void createAgentSession(String agentId, Session agentSession) {
+    public void createAgentSession(String agentId, Session agentSession) {
         Agent agent = new Agent(agentId);
         String provider = agent.getProvider();
         String region = agent.getRegion();
         String instanceId = agent.getInstanceId();
         if (provider != null && region != null && instanceId != null) {
+            // Resolve the instance details outside the lock, since they are fetched from the infrastructure
             Optional<Provider> infrastructureProvider = InfraProviderFactory
                     .getInfrastructureProvider(provider);
             infrastructureProvider
@@ -96,8 +106,23 @@ public class SessionManager {
             infrastructureProvider
                     .ifPresent(infraProvider -> infraProvider.getInstanceName(region, instanceId)
                             .ifPresent(agent::setInstanceName));
-            agentSessions.put(agentId, agentSession);
-            agents.put(agentId, agent);
+            registerAgent(agentSession, agent);
+        }
+    }
+
+    /**
+     * Add the agent to the registry and to the test plan index at once. An agent is found by the test plan id and
+     * the instance name only if both are known.
+     */
+    private synchronized void registerAgent(Session agentSession, Agent agent) {
+        agentSessions.put(agent.getAgentId(), agentSession);
+        Agent previousAgent = agents.put(agent.getAgentId(), agent);
+        if (previousAgent != null) {
+            removeFromTestPlanIndex(previousAgent);
+        }
+        if (agent.getTestPlanId() != null && agent.getInstanceName() != null) {
+            testPlanAgents.computeIfAbsent(agent.getTestPlanId(), testPlanId -> new ConcurrentHashMap<>())
+                    .put(agent.getInstanceName(), agent);
         }
     }
 
@@ -108,25 +133,33 @@ public class SessionManager {
      */
     public synchronized void removeAgentSession(String agentId) {
         agentSessions.remove(agentId);
-        agents.remove(agentId);
+        Agent agent = agents.remove(agentId);
+        if (agent != null) {
+            removeFromTestPlanIndex(agent);
+        }
+    }
+
+    private void removeFromTestPlanIndex(Agent agent) {
+        if (agent.getTestPlanId() == null || agent.getInstanceName() == null) {
+            return;
+        }
+        testPlanAgents.computeIfPresent(agent.getTestPlanId(), (testPlanId, instanceAgents) -> {
+            instanceAgents.remove(agent.getInstanceName(), agent);
+            return instanceAgents.isEmpty() ? null : instanceAgents;
+        });
     }
 
     /**
-     * Get the agent by specifying the test plan id and instance name.
+     * Get the agent by specifying the agent id.
      *
      * @param agentId   The agent id
      * @return the unique agent if exists, null otherwise.
      */
     public Agent getAgent(String agentId) {
-        Optional<Map.Entry<String, Agent>> agentOptional = agents.entrySet().stream()
-                .filter(entry -> {
-                    Agent agent = entry.getValue();
-                    if (agent != null && agentId != null) {
-                        return agentId.equals(agent.getAgentId());
-                    }
-                    return false;
-                }).findFirst();
-        return agentOptional.map(Map.Entry::getValue).orElse(null);
+        if (agentId == null) {
+            return null;
+        }
+        return agents.get(agentId);
     }
 
     /**
@@ -137,15 +170,11 @@ public class SessionManager {
      * @return the unique agent if exists, null otherwise.
      */
     public Agent getAgent(String testPlanId, String instanceName) {
-        Optional<Map.Entry<String, Agent>> agentOptional = agents.entrySet().stream()
-                .filter(entry -> {
-                    Agent agent = entry.getValue();
-                    if (agent != null && testPlanId != null && instanceName != null) {
-                        return testPlanId.equals(agent.getTestPlanId()) && instanceName.equals(agent.getInstanceName());
-                    }
-                    return false;
-                }).findFirst();
-        return agentOptional.map(Map.Entry::getValue).orElse(null);
+        if (testPlanId == null || instanceName == null) {
+            return null;
+        }
+        Map<String, Agent> instanceAgents = testPlanAgents.get(testPlanId);
+        return instanceAgents == null ? null : instanceAgents.get(instanceName);
     }
 
     /**
@@ -192,16 +221,11 @@ public class SessionManager {
      * @param operationId   operation id of relevant OperationQueue
      * @return  OparationQueue for the relevant operation id
      */
-    public synchronized OperationMessage getOperationRequest(String operationId) {
-        Optional<Map.Entry<String, OperationMessage>> operationOptional = operationMessageMap.entrySet().stream()
-                .filter(entry -> {
-                    OperationMessage operationMessage = entry.getValue();
-                    if (operationMessage != null && operationId != null) {
-                        return operationId.equals(operationMessage.getOperationId());
-                        }
-                        return false;
-                    }).findFirst();
-        return operationOptional.map(Map.Entry::getValue).orElse(null);
+    public OperationMessage getOperationRequest(String operationId) {
+        if (operationId == null) {
+            return null;
+        }
+        return operationMessageMap.get(operationId);
     }
 
     /**
@@ -209,7 +233,7 @@ public class SessionManager {
      *
      * @return      operationMessageMap
      */
-    public static synchronized Map<String, OperationMessage> getOperationQueueMap() {
+    public static Map<String, OperationMessage> getOperationQueueMap() {
         return operationMessageMap;
     }
 
@@ -220,51 +244,36 @@ public class SessionManager {
      * @param code          Type of the operation
      * @param agentId       The agent id
      */
-    public synchronized void addNewOperationQueue(String operationId, OperationRequest.OperationCode code,
+    public void addNewOperationQueue(String operationId, OperationRequest.OperationCode code,
                                                   String agentId) {
         OperationMessage operationMessage = new OperationMessage(operationId, code, agentId);
         operationMessageMap.put(operationId, operationMessage);
     }
 
     /**
-     * Get list of messages as single OperationSegment object for given operation id
-     *
-     * @param operationId       operation id of the message
-     * @return
-     */
-    public OperationSegment getOperationQueueMessages(String operationId) {
-        String returnMessage = "";
-        OperationSegment tempOperationSegment = new OperationSegment();
-        OperationMessage operationMessage = getOperationRequest(operationId);
-        if (operationMessage != null) {
-            for (String operationSegment : operationMessage.getMessageQueue()) {
-                returnMessage = returnMessage.concat(operationSegment);
-            }
-            tempOperationSegment.setCompleted(operationMessage.isCompleted());
-            tempOperationSegment.setExitValue(operationMessage.getExitValue());
-            tempOperationSegment.setCode(operationMessage.getCode());
-            tempOperationSegment.setOperationId(operationId);
-        }
-        tempOperationSegment.setResponse(returnMessage);
-        return tempOperationSegment;
-    }
-
-    /**
-     * Dequeue all new messages from operationMessageMap if any new messages are available
+     * Dequeue new messages from operationMessageMap if any new messages are available. At most
+     * {@link Constants#MAX_SEGMENT_CONTENT_LENGTH} bytes are dequeued at once, and the returned segment is marked
+     * as completed only once the operation is completed and all of its messages are dequeued.
      *
      * @param operationId   operation id to select message queue
-     * @return
+     * @return  the dequeued messages as a single {@link OperationSegment}, or null if no such operation
      */
-    public synchronized OperationSegment dequeueOperationQueueMessages(String operationId) {
-        OperationSegment operationSegment = getOperationQueueMessages(operationId);
-        OperationMessage operationMessage = operationMessageMap.get(operationId);
-        if (operationMessage != null) {
-            operationMessageMap.get(operationId).resetMessageQueue();
-            operationMessageMap.get(operationId).updateLastConsumedTime();
-            return operationSegment;
-        } else {
+    public OperationSegment dequeueOperationQueueMessages(String operationId) {
+        OperationMessage operationMessage = getOperationRequest(operationId);
+        if (operationMessage == null) {
             return null;
         }
+        OperationSegment operationSegment = new OperationSegment();
+        // lock the message queue of the operation alone, so that the completion is not missed between reading
+        // the messages and checking the state
+        synchronized (operationMessage) {
+            operationSegment.setResponse(operationMessage.readMessages(Constants.MAX_SEGMENT_CONTENT_LENGTH));
+            operationSegment.setCompleted(operationMessage.isCompleted() && !operationMessage.hasMessages());
+            operationSegment.setExitValue(operationMessage.getExitValue());
+        }
+        operationSegment.setCode(operationMessage.getCode());
+        operationSegment.setOperationId(operationId);
+        return operationSegment;
     }
 
     /**
@@ -273,17 +282,9 @@ public class SessionManager {
      * @param operationId   The operation id
      * @return      has new messages
      */
-    public synchronized boolean hasMessageQueueResponse(String operationId) {
+    public boolean hasMessageQueueResponse(String operationId) {
         OperationMessage operationMessage = operationMessageMap.get(operationId);
-        if (operationMessage != null) {
-            if (operationMessage.getMessageQueue().size() > 0) {
-                return true;
-            } else {
-                return false;
-            }
-        } else {
-            return false;
-        }
+        return operationMessage != null && operationMessage.hasMessages();
     }
 
     /**
@@ -291,21 +292,55 @@ public class SessionManager {
      *
      * @param operationId   operation id for relevant message queue
      */
-    public synchronized void removeOperationQueueMessages(String operationId) {
-        OperationMessage operationMessage = operationMessageMap.get(operationId);
+    public void removeOperationQueueMessages(String operationId) {
+        operationSubscribers.remove(operationId);
+        OperationMessage operationMessage = operationMessageMap.remove(operationId);
         if (operationMessage != null) {
-            operationMessage.removePersistedFile();
-            operationMessageMap.remove(operationId);
+            operationMessage.discardMessages();
+        }
+    }
+
+    /**
+     * Subscribe the given handler to the updates of an operation. An operation has at most one subscriber.
+     *
+     * @param operationId   operation id to subscribe to
+     * @param subscriber    subscriber handling the result of the operation
+     */
+    public void addOperationSubscriber(String operationId, OperationSubscriber subscriber) {
+        operationSubscribers.put(operationId, subscriber);
+    }
+
+    /**
+     * Remove the subscriber of an operation.
+     *
+     * @param operationId operation id of the subscriber
+     */
+    public void removeOperationSubscriber(String operationId) {
+        operationSubscribers.remove(operationId);
+    }
+
+    /**
+     * Notify the subscriber of an operation, if any, that the message queue of the operation is updated.
+     *
+     * @param operationId operation id of the updated message queue
+     */
+    public void notifyOperationSubscriber(String operationId) {
+        if (operationId == null) {
+            return;
+        }
+        OperationSubscriber subscriber = operationSubscribers.get(operationId);
+        if (subscriber != null) {
+            subscriber.onOperationUpdate();
         }
     }
 
     /**
-     * Get agent observer
+     * Get the number of operations having a subscriber.
      *
-     * @return  agent observer
+     * @return number of subscribed operations
      */
-    public static AgentObservable getAgentObservable() {
-        return agentObservable;
+    public int getOperationSubscriberCount() {
+        return operationSubscribers.size();
     }
 }
 
@@ -27,6 +27,7 @@ import org.wso2.testgrid.common.agentoperation.Operation;
 import org.wso2.testgrid.common.agentoperation.OperationRequest;
 import org.wso2.testgrid.common.agentoperation.OperationSegment;
 import org.wso2.testgrid.common.exception.CommandExecutionException;
+import org.wso2.testgrid.deployment.tinkerer.AgentResponseHandler;
 import org.wso2.testgrid.deployment.tinkerer.AgentStreamHandler;
 import org.wso2.testgrid.deployment.tinkerer.SessionManager;
 import org.wso2.testgrid.deployment.tinkerer.beans.ErrorResponse;
@@ -36,19 +37,20 @@ import org.wso2.testgrid.deployment.tinkerer.utils.Constants;
 import org.wso2.testgrid.deployment.tinkerer.utils.SSHHelper;
 
 import java.io.IOException;
-import java.util.Calendar;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
-import javax.websocket.Session;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
@@ -122,7 +124,6 @@ public class DeploymentTinkerer {
                 operationRequest.getAgentId());
         try {
             agentStreamHandler.startSendCommand();
-            SessionManager.getAgentObservable().addObserver(agentStreamHandler);
         } catch (AgentHandleException e) {
             logger.error("Error while sending command to the Agent for agent " + operationRequest.getAgentId(), e);
             try {
@@ -178,80 +179,55 @@ public class DeploymentTinkerer {
     }
     /**
      * Send operation to agent and get response.
+     * <p>
+     * The request is suspended while the agent executes the operation, and is resumed once the agent completes
+     * it, hence no request thread waits for the agent.
      *
      * @param testPlanId       - Test plan id of the target agent.
      * @param instanceName     - Instance Name of the target agent.
      * @param operationRequest - Operation request.
-     * @return The operation response.
+     * @param asyncResponse    - The operation response, resumed once the operation is completed.
      */
     @POST
     @Path("test-plan/{testPlanId}/agent/{instanceName}/operation")
     @Consumes(MediaType.APPLICATION_JSON)
-    public Response sendOperation(@PathParam("testPlanId") String testPlanId,
-                                  @PathParam("instanceName") String instanceName, OperationRequest operationRequest) {
+    public void sendOperation(@PathParam("testPlanId") String testPlanId,
+                              @PathParam("instanceName") String instanceName, OperationRequest operationRequest,
+                              @Suspended AsyncResponse asyncResponse) {
         SessionManager sessionManager = SessionManager.getInstance();
         Agent agent = sessionManager.getAgent(testPlanId, instanceName);
-        OperationSegment operationSegment =  new OperationSegment();
-        operationSegment.setResponse("");
-        if (agent != null && sessionManager.hasAgentSession(agent.getAgentId())) {
-            Session wsSession = sessionManager.getAgentSession(agent.getAgentId());
-            try {
-                // Set default operation id if not exist
-                if (operationRequest.getOperationId().equals("")) {
-                    operationRequest.setOperationId(UUID.randomUUID().toString());
-                }
-                // Create new operation queue
-                sessionManager.addNewOperationQueue(operationRequest.getOperationId(), operationRequest.getCode(),
-                        agent.getAgentId());
-                // Send command to agent through the socket
-                wsSession.getBasicRemote().sendText(operationRequest.toJSON());
-                operationSegment.setOperationId(operationRequest.getOperationId());
-                long initTime = Calendar.getInstance().getTimeInMillis();
-                while (true) {
-                    long currentTime = Calendar.getInstance().getTimeInMillis();
-                    OperationSegment tempOperationSegment = sessionManager.dequeueOperationQueueMessages(
-                            operationRequest.getOperationId());
-                    if (tempOperationSegment != null) {
-                        operationSegment.setResponse(operationSegment.getResponse().
-                                concat(tempOperationSegment.getResponse()));
-                        if (tempOperationSegment.getCompleted()) {
-                            operationSegment.setCompleted(true);
-                            operationSegment.setExitValue(tempOperationSegment.getExitValue());
-                            break;
-                        }
-                    } else {
-                        operationSegment.setCompleted(true);
-                        operationSegment.setExitValue(1);
-                        break;
-                    }
-                    if (initTime + Constants.OPERATION_TIMEOUT < currentTime) {
-                        String message = "Operation timed out for agent: " + agent.getAgentId();
-                        logger.error(message);
-                        ErrorResponse errorResponse = new ErrorResponse();
-                        errorResponse.setCode(Response.Status.REQUEST_TIMEOUT.getStatusCode());
-                        errorResponse.setMessage(message);
-                        return Response.status(Response.Status.REQUEST_TIMEOUT).entity(errorResponse).build();
-                    }
-                    try {
-                        Thread.sleep(Constants.AGENT_WAIT_TIMEOUT);
-                    } catch (InterruptedException ignore) {
-                    }
-                }
-            } catch (IOException e) {
-                String message = "Error occurred while sending operation to agent: " + agent.getAgentId();
-                logger.error(message, e);
-                ErrorResponse errorResponse = new ErrorResponse();
-                errorResponse.setCode(Response.Status.INTERNAL_SERVER_ERROR.getStatusCode());
-                errorResponse.setMessage(message);
-                return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(errorResponse).build();
-            }
-            return Response.status(Response.Status.OK)
-                    .entity(operationSegment).build();
-        } else {
+        if (agent == null || !sessionManager.hasAgentSession(agent.getAgentId())) {
             ErrorResponse errorResponse = new ErrorResponse();
             errorResponse.setCode(Response.Status.NOT_FOUND.getStatusCode());
             errorResponse.setMessage("Agent not found with given ID");
-            return Response.status(Response.Status.NOT_FOUND).entity(errorResponse).build();
+            asyncResponse.resume(Response.status(Response.Status.NOT_FOUND).entity(errorResponse).build());
+            return;
+        }
+        // Set default operation id if not exist
+        if (operationRequest.getOperationId().equals("")) {
+            operationRequest.setOperationId(UUID.randomUUID().toString());
+        }
+        AgentResponseHandler responseHandler = new AgentResponseHandler(operationRequest, agent.getAgentId());
+        asyncResponse.setTimeout(Constants.OPERATION_TIMEOUT, TimeUnit.MILLISECONDS);
+        asyncResponse.setTimeoutHandler(timedOutResponse -> {
+            responseHandler.cancel();
+            String message = "Operation timed out for agent: " + agent.getAgentId();
+            logger.error(message);
+            ErrorResponse errorResponse = new ErrorResponse();
+            errorResponse.setCode(Response.Status.REQUEST_TIMEOUT.getStatusCode());
+            errorResponse.setMessage(message);
+            timedOutResponse.resume(Response.status(Response.Status.REQUEST_TIMEOUT).entity(errorResponse).build());
+        });
+        try {
+            responseHandler.sendOperation().thenAccept(operationSegment -> asyncResponse.resume(
+                    Response.status(Response.Status.OK).entity(operationSegment).build()));
+        } catch (AgentHandleException e) {
+            String message = "Error occurred while sending operation to agent: " + agent.getAgentId();
+            logger.error(message, e);
+            ErrorResponse errorResponse = new ErrorResponse();
+            errorResponse.setCode(Response.Status.INTERNAL_SERVER_ERROR.getStatusCode());
+            errorResponse.setMessage(message);
+            asyncResponse.resume(Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(errorResponse).build());
         }
     }
 
@@ -23,20 +23,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wso2.testgrid.common.agentoperation.OperationRequest;
 import org.wso2.testgrid.common.agentoperation.OperationSegment;
-import org.wso2.testgrid.common.exception.TestGridException;
-import org.wso2.testgrid.common.util.FileUtil;
 import org.wso2.testgrid.deployment.tinkerer.utils.Constants;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Calendar;
-import java.util.LinkedList;
-import java.util.Queue;
 
 /**
  * Hold list of operation result which were executed on agent.
+ * <p>
+ * The result is buffered in pooled chunks, and is persisted into a file once it overflows
+ * {@link Constants#MAX_QUEUE_CONTENT_LENGTH}.
  */
 public class OperationMessage {
 
@@ -46,14 +42,13 @@ public class OperationMessage {
     private String operationId;
     private String agentId;
     private OperationRequest.OperationCode code;
-    private volatile Queue<String> messageQueue;
+    private final OperationOutputBuffer outputBuffer;
     private volatile boolean completed;
+    private volatile boolean discarded;
     private volatile int exitValue;
-    private volatile double contentLength;
     private volatile long createdTime;
     private volatile long lastUpdatedTime;
     private volatile long lastConsumedTime;
-    private volatile boolean persisted;
 
     /**
      * Create new operation queue and initialize with operation id and code.
@@ -62,16 +57,16 @@ public class OperationMessage {
      * @param code          Type of the operation
      * @param agentId       The id of the agent operation executing on
      */
+    @SuppressFBWarnings("DMI_HARDCODED_ABSOLUTE_FILENAME")
     public OperationMessage(String operationId, OperationRequest.OperationCode code, String agentId) {
         this.operationId = operationId;
         this.agentId = agentId;
-        this.messageQueue = new LinkedList<>();
+        this.outputBuffer = new OperationOutputBuffer(Paths.get(PERSISTED_FILE_PATH, operationId.concat(".txt")),
+                Constants.MAX_QUEUE_CONTENT_LENGTH);
         this.code = code;
-        this.createdTime = Calendar.getInstance().getTimeInMillis();
-        this.lastUpdatedTime = Calendar.getInstance().getTimeInMillis();
-        this.lastConsumedTime = Calendar.getInstance().getTimeInMillis();
-        this.contentLength = 0;
-        this.persisted = false;
+        this.createdTime = System.currentTimeMillis();
+        this.lastUpdatedTime = System.currentTimeMillis();
+        this.lastConsumedTime = System.currentTimeMillis();
         this.completed = false;
         this.exitValue = 0;
     }
@@ -85,19 +80,21 @@ public class OperationMessage {
         if (operationSegment.getCompleted()) {
             setOperationAsCompleted(operationSegment.getExitValue());
         }
-        if (this.persisted) {
-            persistMessage(operationSegment.getResponse());
-        } else {
-            this.messageQueue.add(operationSegment.getResponse());
-            this.contentLength += operationSegment.getResponse().length();
+        if (this.discarded) {
+            // late segment of a removed operation, which must not persist a file no one removes
+            return;
+        }
+        boolean persisted = this.outputBuffer.isSpilled();
+        try {
+            this.outputBuffer.append(operationSegment.getResponse());
+        } catch (IOException e) {
+            logger.error("Unable persist data into a file for operation id " + this.operationId, e);
         }
-        // Persist message queue into a file if it overflow
-        if (this.contentLength > Constants.MAX_QUEUE_CONTENT_LENGTH) {
+        if (!persisted && this.outputBuffer.isSpilled()) {
             logger.info("Message overflow for operation " + this.operationId +
                     " Start persist message queue into a file");
-            persistOperationQueue();
         }
-        this.lastUpdatedTime = Calendar.getInstance().getTimeInMillis();;
+        this.lastUpdatedTime = System.currentTimeMillis();
     }
 
     /**
@@ -119,42 +116,30 @@ public class OperationMessage {
     }
 
     /**
-     * Get message queue as queue
-     *
-     * @return  The message queue
-     */
-    public synchronized Queue<String> getMessageQueue() {
-        if (this.persisted) {
-            recoverOperationQueue();
-        }
-        return messageQueue;
-    }
-
-    /**
-     * Set message queue
+     * Read and remove messages from the start of the message queue. The messages persisted into a file are read
+     * incrementally, hence at most the given length of the messages is held in memory.
      *
-     * @param messageQueue  The message queue
+     * @param maxLength     Maximum length of the messages to read in bytes
+     * @return              The messages read, or an empty string if the message queue is empty
      */
-    public synchronized void setMessageQueue(Queue<String> messageQueue) {
-        if (this.persisted) {
-            removePersistedFile();
+    public synchronized String readMessages(int maxLength) {
+        try {
+            return this.outputBuffer.read(maxLength);
+        } catch (IOException e) {
+            logger.error("Unable read data from a file for operation id " + this.operationId, e);
+            return "";
+        } finally {
+            this.lastConsumedTime = System.currentTimeMillis();
         }
-        this.messageQueue = messageQueue;
-        this.contentLength = calculateContentLength();
-        this.lastUpdatedTime = Calendar.getInstance().getTimeInMillis();
     }
 
     /**
-     * Reset message queue with empty message queue
+     * Check if the message queue has messages which are not read yet.
      *
+     * @return  true if has messages, else false
      */
-    public synchronized void resetMessageQueue() {
-        if (this.persisted) {
-            removePersistedFile();
-        }
-        this.messageQueue = new LinkedList<>();
-        this.contentLength = 0;
-        this.lastConsumedTime = Calendar.getInstance().getTimeInMillis();
+    public synchronized boolean hasMessages() {
+        return this.outputBuffer.hasContent();
     }
 
     /**
@@ -187,7 +172,7 @@ public class OperationMessage {
      * Update the last consume time to current time
      */
     public synchronized void updateLastConsumedTime() {
-        this.lastConsumedTime = Calendar.getInstance().getTimeInMillis();
+        this.lastConsumedTime = System.currentTimeMillis();
     }
 
     /**
@@ -209,94 +194,42 @@ public class OperationMessage {
     }
 
     /**
-     * Get the length of the all messages in message queue
+     * Get the length of the messages held in memory
      *
-     * @return      Length of the message queue
+     * @return      Length of the messages in bytes
      */
-    public synchronized double getContentLength() {
-        return contentLength;
+    public synchronized long getContentLength() {
+        return this.outputBuffer.getMemoryLength();
     }
 
     /**
-     * Get the length of the shell execution result string
-     *
-     * @return      Content length
-     */
-    private synchronized double calculateContentLength() {
-        double sizeOfContent = 0;
-        for (String operationSegment : this.messageQueue) {
-            sizeOfContent += operationSegment.length();
-        }
-
-        return sizeOfContent;
-    }
-
-    /**
-     * Persist message queue into a file
+     * Persist messages held in memory into a file. Messages added afterwards are appended to the file, until
+     * the file is read to the end.
      *
      * @return      true if success, else false
      */
     public synchronized boolean persistOperationQueue() {
-        String dataToWrite = "";
-        for (String dataSegment : messageQueue) {
-            dataToWrite = dataToWrite.concat(dataSegment);
-        }
-        return persistMessage(dataToWrite);
-    }
-
-    /**
-     * Print string into a file
-     *
-     * @param message       The message to write into a file
-     * @return              true if success, else false
-     */
-    @SuppressFBWarnings("DMI_HARDCODED_ABSOLUTE_FILENAME")
-    private synchronized boolean persistMessage(String message) {
         try {
-            FileUtil.saveFile(message, PERSISTED_FILE_PATH, this.operationId.concat(".txt"), true);
-            this.messageQueue = new LinkedList<>();
-            this.lastUpdatedTime = Calendar.getInstance().getTimeInMillis();;
-            this.contentLength = 0;
-            this.persisted = true;
+            this.outputBuffer.spill();
         } catch (IOException e) {
             logger.error("Unable persist data into a file for operation id " + this.operationId, e);
             return false;
         }
+        this.lastUpdatedTime = System.currentTimeMillis();
         return true;
     }
 
     /**
-     * Read back persisted data from a file into the message queue
-     *
-     * @return      true if success, else false
-     */
-    @SuppressFBWarnings("DMI_HARDCODED_ABSOLUTE_FILENAME")
-    private synchronized boolean recoverOperationQueue() {
-        try {
-            String persistedResult = FileUtil.readFile(PERSISTED_FILE_PATH, this.operationId.concat(".txt"));
-            double contentLength = persistedResult.length();
-            this.messageQueue.add(persistedResult);
-            this.persisted = false;
-            this.contentLength = contentLength;
-        } catch (TestGridException e) {
-            logger.error("Unable read data from a file for operation id " + this.operationId, e);
-            return false;
-        }
-        return removePersistedFile();
-    }
-
-    /**
-     * Remove persisted in file.
+     * Discard the messages of the message queue, and remove persisted file if any.
      *
      * @return      true if success, else false
      */
-    @SuppressFBWarnings("DMI_HARDCODED_ABSOLUTE_FILENAME")
-    public synchronized boolean removePersistedFile() {
-        Path filePath = Paths.get(PERSISTED_FILE_PATH, this.operationId.concat(".txt"));
+    public synchronized boolean discardMessages() {
+        this.discarded = true;
         try {
-            Files.delete(filePath);
+            this.outputBuffer.discard();
         } catch (IOException e) {
-            logger.warn("Error while removing file " + filePath.toString());
+            logger.warn("Error while removing persisted file of operation " + this.operationId, e);
             return false;
         }
         return true;
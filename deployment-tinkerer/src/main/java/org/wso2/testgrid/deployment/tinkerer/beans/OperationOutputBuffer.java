@@ -0,0 +1,274 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.testgrid.deployment.tinkerer.beans;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Append-only buffer of the output of an operation.
+ * <p>
+ * The output is kept as UTF-8 bytes in fixed size chunks taken from a shared pool. Once the buffered output
+ * exceeds the memory limit, the unread chunks are moved to a spill file, and the output is appended to the
+ * file until it is read to the end. The spill file is read incrementally from the read offset, hence neither
+ * the buffer nor a read holds more than a bounded amount of the output in heap.
+ * <p>
+ * This class is not thread-safe. The {@link OperationMessage} owning the buffer guards it.
+ *
+ * @since 1.0.0
+ */
+class OperationOutputBuffer {
+
+    static final int CHUNK_SIZE = 64 * 1024;
+    private static final int MAX_POOLED_CHUNKS = 256;
+    private static final Queue<ByteBuffer> chunkPool = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger pooledChunkCount = new AtomicInteger();
+
+    private final Path spillFile;
+    private final long memoryLimit;
+    private final Deque<ByteBuffer> chunks = new ArrayDeque<>();
+    private int chunkReadIndex;
+    private long memoryLength;
+    private FileChannel spillChannel;
+    private long spillWriteOffset;
+    private long spillReadOffset;
+    // bytes of a character split by the previous read
+    private byte[] pendingBytes = new byte[0];
+
+    /**
+     * Create an empty output buffer.
+     *
+     * @param spillFile     The file to spill the output into, once it exceeds the memory limit
+     * @param memoryLimit   Maximum number of bytes kept in memory
+     */
+    OperationOutputBuffer(Path spillFile, long memoryLimit) {
+        this.spillFile = spillFile;
+        this.memoryLimit = memoryLimit;
+    }
+
+    /**
+     * Append the given output at the end of the buffer.
+     *
+     * @param output        The output to append
+     * @throws IOException  thrown when error on writing to the spill file
+     */
+    void append(String output) throws IOException {
+        byte[] bytes = output.getBytes(StandardCharsets.UTF_8);
+        if (isSpilled()) {
+            writeToSpillFile(ByteBuffer.wrap(bytes));
+            return;
+        }
+        int offset = 0;
+        while (offset < bytes.length) {
+            ByteBuffer chunk = chunks.peekLast();
+            if (chunk == null || !chunk.hasRemaining()) {
+                chunk = acquireChunk();
+                chunks.addLast(chunk);
+            }
+            int length = Math.min(chunk.remaining(), bytes.length - offset);
+            chunk.put(bytes, offset, length);
+            offset += length;
+        }
+        memoryLength += bytes.length;
+        if (memoryLength > memoryLimit) {
+            spill();
+        }
+    }
+
+    /**
+     * Move the output buffered in memory to the spill file. The output appended afterwards is written to the
+     * spill file until it is read to the end.
+     *
+     * @throws IOException  thrown when error on writing to the spill file
+     */
+    void spill() throws IOException {
+        if (spillChannel == null) {
+            spillChannel = FileChannel.open(spillFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            spillWriteOffset = 0;
+            spillReadOffset = 0;
+        }
+        ByteBuffer chunk;
+        while ((chunk = chunks.pollFirst()) != null) {
+            ByteBuffer unread = chunk.duplicate();
+            unread.flip();
+            unread.position(chunkReadIndex);
+            writeToSpillFile(unread);
+            chunkReadIndex = 0;
+            releaseChunk(chunk);
+        }
+        memoryLength = 0;
+    }
+
+    /**
+     * Read and remove the output from the start of the buffer. A character is never split between reads.
+     *
+     * @param maxLength     Maximum number of bytes to read, at least the length of a character
+     * @return              The output read, or an empty string if the buffer is empty
+     * @throws IOException  thrown when error on reading the spill file
+     */
+    String read(int maxLength) throws IOException {
+        long unreadLength = pendingBytes.length + memoryLength + spillWriteOffset - spillReadOffset;
+        ByteBuffer output = ByteBuffer.allocate((int) Math.min(maxLength, unreadLength));
+        output.put(pendingBytes);
+        if (isSpilled()) {
+            readFromSpillFile(output);
+        }
+        if (!isSpilled()) {
+            readFromMemory(output);
+        }
+        int length = output.position();
+        int end = completeCharactersEnd(output.array(), length);
+        pendingBytes = Arrays.copyOfRange(output.array(), end, length);
+        return new String(output.array(), 0, end, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Check whether the buffer has output that is not read yet.
+     *
+     * @return  true if the buffer has output to read, else false
+     */
+    boolean hasContent() {
+        return memoryLength > 0 || spillWriteOffset > spillReadOffset;
+    }
+
+    /**
+     * Get the number of bytes buffered in memory.
+     *
+     * @return  Number of bytes in memory
+     */
+    long getMemoryLength() {
+        return memoryLength;
+    }
+
+    /**
+     * Check whether the output is being spilled to the file.
+     *
+     * @return  true if spilled, else false
+     */
+    boolean isSpilled() {
+        return spillChannel != null;
+    }
+
+    /**
+     * Discard the buffered output. The chunks are returned to the pool, and the spill file is removed.
+     *
+     * @throws IOException  thrown when error on removing the spill file
+     */
+    void discard() throws IOException {
+        ByteBuffer chunk;
+        while ((chunk = chunks.pollFirst()) != null) {
+            releaseChunk(chunk);
+        }
+        chunkReadIndex = 0;
+        memoryLength = 0;
+        pendingBytes = new byte[0];
+        closeSpillFile();
+    }
+
+    private void readFromMemory(ByteBuffer output) {
+        while (output.hasRemaining() && memoryLength > 0) {
+            ByteBuffer chunk = chunks.peekFirst();
+            int length = Math.min(chunk.position() - chunkReadIndex, output.remaining());
+            output.put(chunk.array(), chunk.arrayOffset() + chunkReadIndex, length);
+            chunkReadIndex += length;
+            memoryLength -= length;
+            if (chunkReadIndex == chunk.position()) {
+                chunks.pollFirst();
+                chunkReadIndex = 0;
+                releaseChunk(chunk);
+            }
+        }
+    }
+
+    private void readFromSpillFile(ByteBuffer output) throws IOException {
+        while (output.hasRemaining() && spillReadOffset < spillWriteOffset) {
+            int read = spillChannel.read(output, spillReadOffset);
+            if (read < 0) {
+                throw new IOException("Unexpected end of the spill file " + spillFile + " at " + spillReadOffset);
+            }
+            spillReadOffset += read;
+        }
+        if (spillReadOffset == spillWriteOffset) {
+            // Read to the end, hence the output is buffered in memory again
+            closeSpillFile();
+        }
+    }
+
+    private void writeToSpillFile(ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            spillWriteOffset += spillChannel.write(bytes, spillWriteOffset);
+        }
+    }
+
+    private void closeSpillFile() throws IOException {
+        if (spillChannel != null) {
+            spillChannel.close();
+            spillChannel = null;
+            spillWriteOffset = 0;
+            spillReadOffset = 0;
+            Files.deleteIfExists(spillFile);
+        }
+    }
+
+    /**
+     * Get the end of the last complete UTF-8 character in the given bytes.
+     */
+    private static int completeCharactersEnd(byte[] bytes, int length) {
+        for (int i = length - 1; i >= 0 && i >= length - 3; i--) {
+            int leadingByte = bytes[i] & 0xFF;
+            if ((leadingByte & 0xC0) == 0x80) {
+                // continuation byte
+                continue;
+            }
+            int characterLength = leadingByte >= 0xF0 ? 4 : leadingByte >= 0xE0 ? 3 : leadingByte >= 0xC0 ? 2 : 1;
+            return i + characterLength > length ? i : length;
+        }
+        return length;
+    }
+
+    private static ByteBuffer acquireChunk() {
+        ByteBuffer chunk = chunkPool.poll();
+        if (chunk == null) {
+            return ByteBuffer.allocate(CHUNK_SIZE);
+        }
+        pooledChunkCount.decrementAndGet();
+        return chunk;
+    }
+
+    private static void releaseChunk(ByteBuffer chunk) {
+        if (pooledChunkCount.incrementAndGet() <= MAX_POOLED_CHUNKS) {
+            chunk.clear();
+            chunkPool.offer(chunk);
+        } else {
+            pooledChunkCount.decrementAndGet();
+        }
+    }
+}
@@ -21,11 +21,13 @@ package org.wso2.testgrid.deployment.tinkerer.websocket;
 import com.google.gson.Gson;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.wso2.testgrid.common.agentoperation.OperationFrameCodec;
 import org.wso2.testgrid.common.agentoperation.OperationSegment;
 import org.wso2.testgrid.deployment.tinkerer.SessionManager;
 import org.wso2.testgrid.deployment.tinkerer.beans.OperationMessage;
 import org.wso2.testgrid.deployment.tinkerer.utils.HttpSessionConfigurator;
 
+import java.io.IOException;
 import javax.websocket.CloseReason;
 import javax.websocket.OnClose;
 import javax.websocket.OnError;
@@ -37,13 +39,18 @@ import javax.websocket.server.ServerEndpoint;
 
 /**
  * This class represents web socket endpoint to connect from agent.
+ * <p>
+ * Agents which negotiate one of the {@link OperationFrameCodec} sub-protocols send operation segments in binary
+ * frames, others send each segment as a JSON text message.
  *
  * @since 1.0.0
  */
-@ServerEndpoint(value = "/agent/{agentId}", configurator = HttpSessionConfigurator.class)
+@ServerEndpoint(value = "/agent/{agentId}", configurator = HttpSessionConfigurator.class,
+        subprotocols = {OperationFrameCodec.DEFLATE_FRAMED_SUBPROTOCOL, OperationFrameCodec.FRAMED_SUBPROTOCOL})
 public class AgentSubscriptionEndpoint extends SubscriptionEndpoint {
 
     private static final Logger logger = LoggerFactory.getLogger(AgentSubscriptionEndpoint.class);
+    private static final Gson gson = new Gson();
 
     /**
      * Web socket onOpen use when agent connect to web socket url.
@@ -67,18 +74,7 @@ public class AgentSubscriptionEndpoint extends SubscriptionEndpoint {
     @OnMessage
     public void onMessage(Session session, String message, @PathParam("agentId") String agentId) {
         super.onMessage(session, message, agentId);
-        OperationSegment operationSegment = new Gson().fromJson(message, OperationSegment.class);
-        logger.info("Message receive from agent: " + agentId + " with operation id " +
-                operationSegment.getOperationId() + " code " + operationSegment.getCode() + " exitValue " +
-                operationSegment.getExitValue() + " completed " + operationSegment.getCompleted());
-        OperationMessage operationMessage = SessionManager.getOperationQueueMap().
-                get(operationSegment.getOperationId());
-        if (operationMessage != null) {
-            operationMessage.addMessage(operationSegment);
-            logger.debug("Message with size " + operationSegment.getResponse().length() +
-                    " added to the message queue with operation id " + operationSegment.getOperationId());
-        }
-        SessionManager.getAgentObservable().notifyObservable(operationSegment.getOperationId());
+        handleOperationSegment(gson.fromJson(message, OperationSegment.class), agentId);
     }
 
     /**
@@ -91,6 +87,37 @@ public class AgentSubscriptionEndpoint extends SubscriptionEndpoint {
     @OnMessage
     public void onMessage(Session session, byte[] message, @PathParam("agentId") String agentId) {
         super.onMessage(session, message, agentId);
+        try {
+            for (OperationSegment operationSegment : OperationFrameCodec.decode(message)) {
+                handleOperationSegment(operationSegment, agentId);
+            }
+        } catch (IOException e) {
+            logger.error("Error while decoding a frame of " + message.length + " bytes from agent " + agentId, e);
+        }
+    }
+
+    /**
+     * Add the segment to the message queue of its operation, and notify the subscriber of the operation.
+     *
+     * @param operationSegment  - Segment received from the agent.
+     * @param agentId           - agent Identifier.
+     */
+    private void handleOperationSegment(OperationSegment operationSegment, String agentId) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Message receive from agent: " + agentId + " with operation id " +
+                    operationSegment.getOperationId() + " code " + operationSegment.getCode() + " exitValue " +
+                    operationSegment.getExitValue() + " completed " + operationSegment.getCompleted());
+        }
+        OperationMessage operationMessage = SessionManager.getOperationQueueMap().
+                get(operationSegment.getOperationId());
+        if (operationMessage != null) {
+            operationMessage.addMessage(operationSegment);
+            if (logger.isDebugEnabled()) {
+                logger.debug("Message with size " + operationSegment.getResponse().length() +
+                        " added to the message queue with operation id " + operationSegment.getOperationId());
+            }
+        }
+        SessionManager.getInstance().notifyOperationSubscriber(operationSegment.getOperationId());
     }
 
     /**
@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.testgrid.deployment.tinkerer;
+
+import com.google.gson.Gson;
+import org.glassfish.jersey.server.ChunkedOutput;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.testgrid.common.agentoperation.OperationFrameBatcher;
+import org.wso2.testgrid.common.agentoperation.OperationRequest;
+import org.wso2.testgrid.common.agentoperation.OperationSegment;
+import org.wso2.testgrid.deployment.tinkerer.websocket.AgentSubscriptionEndpoint;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.websocket.RemoteEndpoint;
+import javax.websocket.Session;
+
+/**
+ * Drives hundreds of concurrent stream operations through local fake agents, and verifies that each operation
+ * streams exactly its own output. Some of the agents send JSON messages, and the others send binary frames, with
+ * and without deflate.
+ */
+public class OperationRoutingLoadTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(OperationRoutingLoadTest.class);
+    private static final Gson gson = new Gson();
+    private static final int AGENT_COUNT = 10;
+    private static final int OPERATION_COUNT = Integer.getInteger("loadtest.operationCount", 300);
+    private static final int SEGMENT_COUNT = 20;
+    private static final int AGENT_THREADS = 32;
+
+    private final AgentSubscriptionEndpoint agentEndpoint = new AgentSubscriptionEndpoint();
+    private final List<String> agentIds = new ArrayList<>();
+    private ExecutorService fakeAgentExecutor;
+    private ScheduledExecutorService frameScheduler;
+
+    @BeforeClass
+    public void connectAgents() throws Exception {
+        fakeAgentExecutor = Executors.newFixedThreadPool(AGENT_THREADS);
+        frameScheduler = Executors.newSingleThreadScheduledExecutor();
+        for (int i = 0; i < AGENT_COUNT; i++) {
+            String agentId = "local:local-region:load-test-plan:instance-" + i + ":127.0.0.1";
+            agentIds.add(agentId);
+            agentEndpoint.onOpen(createFakeAgentSession(agentId, i % 3), agentId);
+        }
+    }
+
+    @Test(description = "Each segment of a stream operation is delivered only to the output of the operation")
+    public void testConcurrentStreamOperations() throws Exception {
+        CountDownLatch completedLatch = new CountDownLatch(OPERATION_COUNT);
+        List<CollectingOutput> outputs = new ArrayList<>();
+        List<OperationRequest> operationRequests = new ArrayList<>();
+        long startTime = System.currentTimeMillis();
+        for (int i = 0; i < OPERATION_COUNT; i++) {
+            String agentId = agentIds.get(i % AGENT_COUNT);
+            OperationRequest operationRequest = new OperationRequest("echo " + i,
+                    OperationRequest.OperationCode.SHELL, agentId);
+            operationRequest.setOperationId("load-test-operation-" + i);
+            CollectingOutput output = new CollectingOutput(completedLatch);
+            new AgentStreamHandler(output, operationRequest, agentId).startSendCommand();
+            outputs.add(output);
+            operationRequests.add(operationRequest);
+        }
+
+        Assert.assertTrue(completedLatch.await(2, TimeUnit.MINUTES), "stream operations are not completed.");
+        logger.info("Streamed " + OPERATION_COUNT + " operations of " + SEGMENT_COUNT + " segments in " +
+                (System.currentTimeMillis() - startTime) + " ms");
+
+        SessionManager sessionManager = SessionManager.getInstance();
+        for (int i = 0; i < OPERATION_COUNT; i++) {
+            String operationId = operationRequests.get(i).getOperationId();
+            Assert.assertEquals(outputs.get(i).getContent(), expectedOutput(operationId),
+                    "unexpected output for operation " + operationId);
+            Assert.assertTrue(outputs.get(i).completed, "completed segment not streamed for " + operationId);
+            Assert.assertNull(sessionManager.getOperationRequest(operationId));
+        }
+        Assert.assertEquals(sessionManager.getOperationSubscriberCount(), 0, "subscribers are not removed.");
+    }
+
+    @Test(description = "Responses of operations are completed once their agents complete the operations")
+    public void testConcurrentOperationResponses() throws Exception {
+        List<CompletableFuture<OperationSegment>> responses = new ArrayList<>();
+        for (int i = 0; i < OPERATION_COUNT; i++) {
+            String agentId = agentIds.get(i % AGENT_COUNT);
+            OperationRequest operationRequest = new OperationRequest("echo " + i,
+                    OperationRequest.OperationCode.SHELL, agentId);
+            operationRequest.setOperationId("load-test-response-" + i);
+            responses.add(new AgentResponseHandler(operationRequest, agentId).sendOperation());
+        }
+        CompletableFuture.allOf(responses.toArray(new CompletableFuture[0])).get(2, TimeUnit.MINUTES);
+
+        for (int i = 0; i < OPERATION_COUNT; i++) {
+            OperationSegment operationSegment = responses.get(i).get();
+            Assert.assertTrue(operationSegment.getCompleted());
+            Assert.assertEquals(operationSegment.getResponse(), expectedOutput(operationSegment.getOperationId()),
+                    "unexpected output for operation " + operationSegment.getOperationId());
+            Assert.assertNull(SessionManager.getInstance().getOperationRequest(operationSegment.getOperationId()));
+        }
+        Assert.assertEquals(SessionManager.getInstance().getOperationSubscriberCount(), 0,
+                "subscribers are not removed.");
+    }
+
+    @AfterClass
+    public void disconnectAgents() {
+        fakeAgentExecutor.shutdownNow();
+        frameScheduler.shutdownNow();
+        for (String agentId : agentIds) {
+            SessionManager.getInstance().removeAgentSession(agentId);
+        }
+    }
+
+    /**
+     * Creates the session of a fake agent. The fake agent responds to an operation request with
+     * {@link #SEGMENT_COUNT} segments, from a thread of its own like a real agent.
+     *
+     * @param framing   0 to send JSON messages, 1 to send binary frames, 2 to send deflated binary frames
+     */
+    private Session createFakeAgentSession(String agentId, int framing) throws Exception {
+        Session session = Mockito.mock(Session.class);
+        OperationFrameBatcher frameBatcher = framing == 0 ? null : new OperationFrameBatcher(framing == 2, 256, 5,
+                frameScheduler, frame -> {
+                    byte[] message = new byte[frame.remaining()];
+                    frame.get(message);
+                    agentEndpoint.onMessage(session, message, agentId);
+                });
+        RemoteEndpoint.Basic basicRemote = Mockito.mock(RemoteEndpoint.Basic.class);
+        Mockito.when(session.getId()).thenReturn(agentId);
+        Mockito.when(session.getBasicRemote()).thenReturn(basicRemote);
+        Mockito.doAnswer(invocation -> {
+            OperationRequest operationRequest = gson.fromJson((String) invocation.getArguments()[0],
+                    OperationRequest.class);
+            fakeAgentExecutor.execute(() -> {
+                for (int i = 0; i < SEGMENT_COUNT; i++) {
+                    OperationSegment operationSegment = new OperationSegment();
+                    operationSegment.setOperationId(operationRequest.getOperationId());
+                    operationSegment.setCode(operationRequest.getCode());
+                    operationSegment.setResponse(segment(operationRequest.getOperationId(), i));
+                    operationSegment.setCompleted(i == SEGMENT_COUNT - 1);
+                    if (frameBatcher == null) {
+                        agentEndpoint.onMessage(session, operationSegment.toJSON(), agentId);
+                    } else {
+                        frameBatcher.add(operationSegment);
+                    }
+                }
+            });
+            return null;
+        }).when(basicRemote).sendText(Mockito.anyString());
+        return session;
+    }
+
+    private static String segment(String operationId, int index) {
+        return operationId + ":" + index + "\n";
+    }
+
+    private static String expectedOutput(String operationId) {
+        StringBuilder output = new StringBuilder();
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            output.append(segment(operationId, i));
+        }
+        return output.toString();
+    }
+
+    /**
+     * Chunked output collecting the responses written to it.
+     */
+    private static class CollectingOutput extends ChunkedOutput<String> {
+
+        private final StringBuilder content = new StringBuilder();
+        private final CountDownLatch completedLatch;
+        private volatile boolean completed;
+
+        CollectingOutput(CountDownLatch completedLatch) {
+            super(String.class);
+            this.completedLatch = completedLatch;
+        }
+
+        @Override
+        public synchronized void write(String chunk) {
+            OperationSegment operationSegment = gson.fromJson(chunk.trim(), OperationSegment.class);
+            content.append(operationSegment.getResponse());
+            if (operationSegment.getCompleted()) {
+                completed = true;
+            }
+        }
+
+        @Override
+        public void close() {
+            completedLatch.countDown();
+        }
+
+        synchronized String getContent() {
+            return content.toString();
+        }
+    }
+}
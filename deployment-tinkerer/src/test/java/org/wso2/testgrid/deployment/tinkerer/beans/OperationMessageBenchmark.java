@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.testgrid.deployment.tinkerer.beans;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.testgrid.common.agentoperation.OperationSegment;
+import org.wso2.testgrid.deployment.tinkerer.utils.Constants;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the throughput and the heap taken to enqueue and dequeue large operation outputs through
+ * {@link OperationMessage}, with a consumer which keeps up with the agent and with a consumer which does not.
+ * <p>
+ * This is a benchmark and is not part of the regular test suite. Run it with
+ * {@code mvn test -Dtest=OperationMessageBenchmark [-Dbenchmark.outputSize=1073741824]
+ * [-Dbenchmark.segmentSize=8192]}.
+ */
+public class OperationMessageBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(OperationMessageBenchmark.class);
+    private static final long OUTPUT_SIZE = Long.getLong("benchmark.outputSize", 1L << 30);
+    private static final int SEGMENT_SIZE = Integer.getInteger("benchmark.segmentSize", 8192);
+    private static final int ITERATIONS = 3;
+
+    @Test
+    public void benchmarkConcurrentConsumer() throws Exception {
+        for (int i = 0; i < ITERATIONS; i++) {
+            benchmark("concurrent consumer", true);
+        }
+    }
+
+    @Test
+    public void benchmarkSlowConsumer() throws Exception {
+        for (int i = 0; i < ITERATIONS; i++) {
+            benchmark("consumer after completion", false);
+        }
+    }
+
+    private void benchmark(String mode, boolean concurrentConsumer) throws Exception {
+        OperationMessage operationMessage = new OperationMessage("operation-message-benchmark",
+                OperationSegment.OperationCode.SHELL, "wso2:testgrid:benchmark:agent:127.0.0.1");
+        StringBuilder segmentContent = new StringBuilder(SEGMENT_SIZE);
+        while (segmentContent.length() < SEGMENT_SIZE) {
+            segmentContent.append("INFO  [benchmark] - a line of a large log file\n");
+        }
+        OperationSegment operationSegment = new OperationSegment();
+        operationSegment.setResponse(segmentContent.substring(0, SEGMENT_SIZE));
+        long segmentCount = OUTPUT_SIZE / SEGMENT_SIZE;
+
+        AtomicLong consumedLength = new AtomicLong();
+        AtomicLong peakHeap = new AtomicLong();
+        Thread consumer = new Thread(() -> {
+            while (!operationMessage.isCompleted() || operationMessage.hasMessages()) {
+                String messages = operationMessage.readMessages(Constants.MAX_SEGMENT_CONTENT_LENGTH);
+                consumedLength.addAndGet(messages.length());
+                peakHeap.accumulateAndGet(usedHeap(), Math::max);
+                if (messages.isEmpty()) {
+                    Thread.yield();
+                }
+            }
+        });
+        System.gc();
+        long startTime = System.nanoTime();
+        if (concurrentConsumer) {
+            consumer.start();
+        }
+        for (long i = 0; i < segmentCount; i++) {
+            operationMessage.addMessage(operationSegment);
+            if (i % 1024 == 0) {
+                peakHeap.accumulateAndGet(usedHeap(), Math::max);
+            }
+        }
+        long enqueueMillis = (System.nanoTime() - startTime) / 1000000;
+        operationMessage.setOperationAsCompleted(0);
+        if (!concurrentConsumer) {
+            consumer.start();
+        }
+        consumer.join();
+        long totalMillis = (System.nanoTime() - startTime) / 1000000;
+        operationMessage.discardMessages();
+
+        Assert.assertEquals(consumedLength.get(), segmentCount * SEGMENT_SIZE);
+        logger.info(mode + ": " + (segmentCount * SEGMENT_SIZE >> 20) + " MB in " + segmentCount +
+                " segments, enqueued in " + enqueueMillis + " ms, dequeued in " + totalMillis + " ms, " +
+                (segmentCount * SEGMENT_SIZE >> 20) * 1000 / Math.max(totalMillis, 1) + " MB/s, peak heap " +
+                (peakHeap.get() >> 20) + " MB");
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
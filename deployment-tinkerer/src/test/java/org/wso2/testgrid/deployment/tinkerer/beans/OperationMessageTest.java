@@ -28,6 +28,11 @@ import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 import org.wso2.testgrid.common.agentoperation.OperationSegment;
+import org.wso2.testgrid.deployment.tinkerer.utils.Constants;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 
 /**
  * Unit test for OperationMessageTest class.
@@ -55,13 +60,48 @@ public class OperationMessageTest extends PowerMockTestCase {
         operationMessage.persistOperationQueue();
         Assert.assertTrue(operationMessage.getContentLength() == 0,
                 "Message queue size should be zero after persist");
-        Assert.assertTrue(operationMessage.getMessageQueue().size() == 1,
-                "Message queue after read from file");
-        Assert.assertTrue(operationMessage.getContentLength() == response.length(),
-                "Message size same as response size");
-        operationMessage.setMessageQueue(operationMessage.getMessageQueue());
+        Assert.assertTrue(operationMessage.hasMessages(), "Message queue after persist");
+        operationMessage.addMessage(operationSegment);
+        Assert.assertEquals(operationMessage.readMessages(Constants.MAX_SEGMENT_CONTENT_LENGTH),
+                response + response, "Message read from file");
+        Assert.assertFalse(operationMessage.hasMessages(), "Message queue after read");
+        operationMessage.addMessage(operationSegment);
         Assert.assertTrue(operationMessage.getContentLength() == response.length(),
-                "Set message queue with previous and test");
+                "Message size same as response size after file is read");
+        operationMessage.discardMessages();
+    }
+
+    @Test(description = "Overflowing output is read back in order, in bounded segments")
+    public void testOverflowOrder() throws Exception {
+        String operationId = "1234-5678-91012";
+        OperationMessage operationMessage = new OperationMessage(operationId,
+                OperationSegment.OperationCode.SHELL, "wso2:testgrid:1234-5678:agent:127.0.0.1");
+        // multi-byte characters, so that segments end within characters
+        String line = "line \u00e9\u4e2d\ud83d\ude00 of the log ";
+        StringBuilder expected = new StringBuilder();
+        StringBuilder actual = new StringBuilder();
+        int lineCount = 0;
+        while (expected.length() < 3 * Constants.MAX_QUEUE_CONTENT_LENGTH) {
+            OperationSegment operationSegment = new OperationSegment();
+            operationSegment.setResponse(line + lineCount++ + "\n");
+            operationMessage.addMessage(operationSegment);
+            expected.append(operationSegment.getResponse());
+            if (lineCount % 100000 == 0) {
+                // consume part of the output while it is written
+                actual.append(operationMessage.readMessages(Constants.MAX_SEGMENT_CONTENT_LENGTH));
+            }
+        }
+        Assert.assertTrue(operationMessage.getContentLength() <= Constants.MAX_QUEUE_CONTENT_LENGTH,
+                "Overflowing output is held in memory");
+        while (operationMessage.hasMessages()) {
+            String segment = operationMessage.readMessages(Constants.MAX_SEGMENT_CONTENT_LENGTH);
+            Assert.assertTrue(
+                    segment.getBytes(StandardCharsets.UTF_8).length <= Constants.MAX_SEGMENT_CONTENT_LENGTH);
+            actual.append(segment);
+        }
+        Assert.assertEquals(actual.toString(), expected.toString());
+        Assert.assertFalse(Files.exists(Paths.get(OperationMessage.PERSISTED_FILE_PATH, operationId + ".txt")),
+                "Persisted file is removed once read");
     }
 
     @AfterMethod
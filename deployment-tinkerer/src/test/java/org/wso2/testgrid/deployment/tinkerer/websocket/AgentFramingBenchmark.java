@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.testgrid.deployment.tinkerer.websocket;
+
+import com.google.gson.Gson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.testgrid.common.agentoperation.OperationFrameBatcher;
+import org.wso2.testgrid.common.agentoperation.OperationFrameCodec;
+import org.wso2.testgrid.common.agentoperation.OperationSegment;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the throughput of streaming a large operation output from an agent to the Tinkerer over a loopback
+ * socket, with JSON text messages and with binary frames, with and without deflate. Each message is sent with a
+ * length prefix, as a web socket frame would be, and is decoded into segments on the receiving side.
+ * <p>
+ * This is a benchmark and is not part of the regular test suite. Run it with
+ * {@code mvn test -Dtest=AgentFramingBenchmark [-Dbenchmark.outputSize=1073741824]
+ * [-Dbenchmark.segmentSize=16384]}.
+ */
+public class AgentFramingBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(AgentFramingBenchmark.class);
+    private static final Gson gson = new Gson();
+    private static final long OUTPUT_SIZE = Long.getLong("benchmark.outputSize", 1L << 30);
+    private static final int SEGMENT_SIZE = Integer.getInteger("benchmark.segmentSize", 16384);
+    private static final int LOG_SIZE = 4 * 1024 * 1024;
+    private static final int ITERATIONS = 3;
+
+    private String syntheticLog;
+    private ScheduledExecutorService scheduler;
+
+    @BeforeClass
+    public void generateLog() {
+        Random random = new Random(42);
+        StringBuilder log = new StringBuilder(LOG_SIZE + 256);
+        while (log.length() < LOG_SIZE) {
+            log.append(String.format("[2018-06-14 10:%02d:%02d,%03d]  INFO {org.wso2.carbon.module%d.Component} - "
+                            + "Processed request %d of tenant %d in %d ms%n", random.nextInt(60), random.nextInt(60),
+                    random.nextInt(1000), random.nextInt(20), random.nextInt(Integer.MAX_VALUE),
+                    random.nextInt(100), random.nextInt(5000)));
+        }
+        syntheticLog = log.toString();
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @Test
+    public void benchmarkJsonMessages() throws Exception {
+        for (int i = 0; i < ITERATIONS; i++) {
+            benchmark("JSON messages", null);
+        }
+    }
+
+    @Test
+    public void benchmarkFrames() throws Exception {
+        for (int i = 0; i < ITERATIONS; i++) {
+            benchmark("binary frames", OperationFrameCodec.FRAMED_SUBPROTOCOL);
+        }
+    }
+
+    @Test
+    public void benchmarkDeflatedFrames() throws Exception {
+        for (int i = 0; i < ITERATIONS; i++) {
+            benchmark("deflated binary frames", OperationFrameCodec.DEFLATE_FRAMED_SUBPROTOCOL);
+        }
+    }
+
+    private void benchmark(String mode, String subprotocol) throws Exception {
+        boolean framed = OperationFrameCodec.isFramed(subprotocol);
+        long segmentCount = OUTPUT_SIZE / SEGMENT_SIZE;
+        AtomicLong receivedLength = new AtomicLong();
+        AtomicLong wireLength = new AtomicLong();
+        try (ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            Thread tinkerer = new Thread(() -> {
+                try (Socket socket = serverSocket.accept();
+                     DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream(),
+                             65536))) {
+                    boolean completed = false;
+                    while (!completed) {
+                        byte[] message = new byte[input.readInt()];
+                        input.readFully(message);
+                        wireLength.addAndGet(message.length + 4);
+                        if (framed) {
+                            for (OperationSegment segment : OperationFrameCodec.decode(message)) {
+                                receivedLength.addAndGet(segment.getResponse().length());
+                                completed |= segment.getCompleted();
+                            }
+                        } else {
+                            OperationSegment segment = gson.fromJson(new String(message, StandardCharsets.UTF_8),
+                                    OperationSegment.class);
+                            receivedLength.addAndGet(segment.getResponse().length());
+                            completed = segment.getCompleted();
+                        }
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            tinkerer.start();
+
+            long startTime = System.nanoTime();
+            try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), serverSocket.getLocalPort());
+                 DataOutputStream output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(),
+                         65536))) {
+                OperationFrameBatcher frameBatcher = framed ? new OperationFrameBatcher(
+                        OperationFrameCodec.isDeflated(subprotocol), scheduler, frame -> send(output, frame)) : null;
+                for (long i = 0; i < segmentCount; i++) {
+                    OperationSegment segment = new OperationSegment();
+                    segment.setOperationId("agent-framing-benchmark");
+                    segment.setCode(OperationSegment.OperationCode.SHELL);
+                    int offset = (int) ((i * SEGMENT_SIZE) % (syntheticLog.length() - SEGMENT_SIZE));
+                    segment.setResponse(syntheticLog.substring(offset, offset + SEGMENT_SIZE));
+                    segment.setCompleted(i == segmentCount - 1);
+                    if (framed) {
+                        frameBatcher.add(segment);
+                    } else {
+                        send(output, ByteBuffer.wrap(segment.toJSON().getBytes(StandardCharsets.UTF_8)));
+                    }
+                }
+                output.flush();
+                tinkerer.join();
+            }
+            long totalMillis = Math.max((System.nanoTime() - startTime) / 1000000, 1);
+
+            Assert.assertEquals(receivedLength.get(), segmentCount * SEGMENT_SIZE);
+            logger.info(mode + ": " + (receivedLength.get() >> 20) + " MB of output in " + totalMillis + " ms, " +
+                    (receivedLength.get() >> 20) * 1000 / totalMillis + " MB/s, " + (wireLength.get() >> 20) +
+                    " MB sent");
+        }
+    }
+
+    private static void send(DataOutputStream output, ByteBuffer message) {
+        try {
+            output.writeInt(message.remaining());
+            output.write(message.array(), message.arrayOffset() + message.position(), message.remaining());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @AfterClass
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+}
@@ -68,7 +68,9 @@ class AgentStreamGobbler extends Thread {
             }
             while ((line = br.readLine()) != null) {
                 StreamResponse streamResponse = new StreamResponse(line, false, this.streamType);
-                logger.info("Read line: " + line);
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Read line: " + line);
+                }
                 this.agentObservable.notifyObservable(streamResponse);
             }
             StreamResponse streamResponse = new StreamResponse("", true, this.streamType);
@@ -35,7 +35,7 @@ import java.util.Observer;
  */
 public class AgentStreamObserver implements Observer {
 
-    private static final int MAX_CONTENT_SIZE = 1024;
+    private static final int MAX_CONTENT_SIZE = 16 * 1024;
     private static final long MAX_EXECUTION_TIME_OUT = 500;
     private static final Logger logger = LoggerFactory.getLogger(AgentStreamObserver.class);
 
@@ -46,7 +46,7 @@ public class AgentStreamObserver implements Observer {
     private AgentObservable agentObservable;
     private volatile boolean oneProcessCompleted = false;
     private volatile long initTime;
-    private volatile String shellLog = "";
+    private final StringBuilder shellLog = new StringBuilder();
     private volatile boolean abortExecution = false;
 
     /**
@@ -86,7 +86,7 @@ public class AgentStreamObserver implements Observer {
                 OperationSegment finalOperationSegment = new OperationSegment();
                 finalOperationSegment.setOperationId(this.operationId);
                 finalOperationSegment.setCompleted(true);
-                finalOperationSegment.setResponse(this.shellLog.concat(streamResponse.getResponse()));
+                finalOperationSegment.setResponse(this.shellLog.append(streamResponse.getResponse()).toString());
                 finalOperationSegment.setCode(OperationSegment.OperationCode.SHELL);
                 this.agentObservable.deleteObserver(this);
                 AgentStreamReader.removeAgentStreamObserverById(this.operationId);
@@ -116,7 +116,7 @@ public class AgentStreamObserver implements Observer {
             finalOperationSegment.setOperationId(this.operationId);
             finalOperationSegment.setCompleted(true);
             finalOperationSegment.setExitValue(process.exitValue());
-            finalOperationSegment.setResponse(this.shellLog.concat(streamResponse.getResponse()));
+            finalOperationSegment.setResponse(this.shellLog.append(streamResponse.getResponse()).toString());
             finalOperationSegment.setCode(OperationSegment.OperationCode.SHELL);
             this.agentObservable.deleteObserver(this);
             AgentStreamReader.removeAgentStreamObserverById(this.operationId);
@@ -126,20 +126,24 @@ public class AgentStreamObserver implements Observer {
         if (this.resultSize >= MAX_CONTENT_SIZE ||
                 initTime + MAX_EXECUTION_TIME_OUT < Calendar.getInstance().getTimeInMillis()) {
             initTime = Calendar.getInstance().getTimeInMillis();
-            this.shellLog = this.shellLog.concat(streamResponse.getResponse());
+            appendLine(streamResponse.getResponse());
             this.resultSize = 0;
             OperationSegment operationSegment = new OperationSegment();
             operationSegment.setOperationId(this.operationId);
             operationSegment.setCompleted(false);
             operationSegment.setExitValue(0);
-            operationSegment.setResponse(this.shellLog);
+            operationSegment.setResponse(this.shellLog.toString());
             operationSegment.setCode(Operation.OperationCode.SHELL);
             operationResponseListener.sendResponse(operationSegment);
-            this.shellLog = "";
+            this.shellLog.setLength(0);
         } else {
-            if (!streamResponse.getResponse().isEmpty()) {
-                this.shellLog = this.shellLog.concat(streamResponse.getResponse().concat(System.lineSeparator()));
-            }
+            appendLine(streamResponse.getResponse());
+        }
+    }
+
+    private void appendLine(String line) {
+        if (!line.isEmpty()) {
+            this.shellLog.append(line).append(System.lineSeparator());
         }
     }
 
@@ -29,16 +29,19 @@ import org.wso2.testgrid.agent.AgentStreamObserver;
 import org.wso2.testgrid.agent.AgentStreamReader;
 import org.wso2.testgrid.agent.StreamResponse;
 import org.wso2.testgrid.agent.listeners.OperationResponseListener;
+import org.wso2.testgrid.common.agentoperation.OperationFrameBatcher;
+import org.wso2.testgrid.common.agentoperation.OperationFrameCodec;
 import org.wso2.testgrid.common.agentoperation.OperationRequest;
 import org.wso2.testgrid.common.agentoperation.OperationSegment;
 import org.wso2.testgrid.common.exception.CommandExecutionException;
 
 import java.io.IOException;
 import java.net.URI;
+import java.nio.ByteBuffer;
 import java.util.Timer;
 import java.util.TimerTask;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import javax.websocket.CloseReason;
 import javax.websocket.DeploymentException;
 import javax.websocket.OnClose;
@@ -48,16 +51,22 @@ import javax.websocket.Session;
 
 /**
  * This class holds web socket client implementation for agent.
+ * <p>
+ * The agent offers the binary framed sub-protocols of {@link OperationFrameCodec}. When the Tinkerer accepts one
+ * of them, operation responses are batched into binary frames, else they are sent as JSON text messages.
  *
  * @since 1.0.0
  */
-@javax.websocket.ClientEndpoint
+@javax.websocket.ClientEndpoint(subprotocols = {OperationFrameCodec.DEFLATE_FRAMED_SUBPROTOCOL,
+        OperationFrameCodec.FRAMED_SUBPROTOCOL})
 public class ClientEndpoint {
 
     private static final Logger logger = LoggerFactory.getLogger(ClientEndpoint.class);
+    private static final Gson gson = new Gson();
 
-    private ExecutorService executorService;
+    private ScheduledExecutorService executorService;
     private Session userSession = null;
+    private volatile OperationFrameBatcher frameBatcher;
     private Credentials credentials;
     private URI endpointURI;
     private int retryAttempt = 0;
@@ -118,9 +127,17 @@ public class ClientEndpoint {
      */
     @OnOpen
     public void onOpen(Session userSession) {
-        logger.info("Connected to web socket session: " + userSession.getId());
+        String subprotocol = userSession.getNegotiatedSubprotocol();
+        logger.info("Connected to web socket session: " + userSession.getId() + " with " +
+                (OperationFrameCodec.isFramed(subprotocol) ? subprotocol + " framing" : "JSON messages"));
         this.userSession = userSession;
-        executorService = Executors.newFixedThreadPool(10);
+        executorService = Executors.newScheduledThreadPool(10);
+        if (OperationFrameCodec.isFramed(subprotocol)) {
+            frameBatcher = new OperationFrameBatcher(OperationFrameCodec.isDeflated(subprotocol),
+                    executorService, this::sendFrame);
+        } else {
+            frameBatcher = null;
+        }
     }
 
     /**
@@ -133,13 +150,23 @@ public class ClientEndpoint {
     public void onClose(Session userSession, CloseReason reason) {
         logger.info("Closing web socket session: '" + userSession.getId() + "'. Code: " +
                 reason.getCloseCode().toString() + " Reason: " + reason.getReasonPhrase());
+        // reconnecting opens a new session with its own batcher and executor, hence the ones of the closed
+        // session are released first
+        OperationFrameBatcher closedBatcher = this.frameBatcher;
+        ScheduledExecutorService closedExecutorService = this.executorService;
+        this.frameBatcher = null;
+        if (closedBatcher != null) {
+            closedBatcher.flush();
+        }
         this.userSession = null;
+        if (closedExecutorService != null) {
+            closedExecutorService.shutdown();
+        }
         if (hasClientConnected && !isShuttingDown) {
             hasClientConnected = false;
             logger.info("Retrying to connect.");
             connectClient();
         }
-        executorService.shutdown();
     }
 
     /**
@@ -154,17 +181,11 @@ public class ClientEndpoint {
             justification = "No use of returned Future<?> from executor service submit().")
     public void onMessage(String message) {
         logger.info("Operation received: " + message);
-        OperationRequest operationRequest = new Gson().fromJson(message, OperationRequest.class);
+        OperationRequest operationRequest = gson.fromJson(message, OperationRequest.class);
         OperationSegment operationSegment = new OperationSegment();
         operationSegment.setOperationId(operationRequest.getOperationId());
         operationSegment.setCode(operationRequest.getCode());
-        OperationResponseListener listener = response -> {
-            // send message to web socket
-            if (logger.isDebugEnabled()) {
-                logger.debug("Sending message: " + response.toJSON());
-            }
-            sendMessage(response.toJSON());
-        };
+        OperationResponseListener listener = this::sendResponse;
         AgentStreamReader agentStreamReader = new AgentStreamReader(listener,
                 operationRequest.getOperationId());
         switch (operationRequest.getCode()) {
@@ -200,6 +221,44 @@ public class ClientEndpoint {
         }
     }
 
+    /**
+     * Send an operation response, batched into a binary frame if the connection is framed.
+     *
+     * @param response the response which is going to send.
+     */
+    public void sendResponse(OperationSegment response) {
+        OperationFrameBatcher batcher = this.frameBatcher;
+        if (batcher != null) {
+            batcher.add(response);
+            return;
+        }
+        String message = response.toJSON();
+        // send message to web socket
+        if (logger.isDebugEnabled()) {
+            logger.debug("Sending message: " + message);
+        }
+        sendMessage(message);
+    }
+
+    /**
+     * Send a binary frame of operation responses. Frames are sent one at a time by the batcher, hence sent
+     * with the blocking remote to keep them in order.
+     *
+     * @param frame the frame which is going to send.
+     */
+    private void sendFrame(ByteBuffer frame) {
+        Session session = this.userSession;
+        if (session == null) {
+            logger.warn("Dropping a frame of " + frame.remaining() + " bytes as the web socket session is closed.");
+            return;
+        }
+        try {
+            session.getBasicRemote().sendBinary(frame);
+        } catch (IOException e) {
+            logger.error("Error while sending a frame of " + frame.remaining() + " bytes.", e);
+        }
+    }
+
     /**
      * Send a message.
      *
@@ -18,20 +18,33 @@
 
 package org.wso2.testgrid.web.api;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.wso2.testgrid.common.DeploymentPatternTestFailureStat;
+import org.wso2.testgrid.common.Status;
 import org.wso2.testgrid.common.infrastructure.InfrastructureValueSet;
 import org.wso2.testgrid.common.util.TestGridUtil;
+import org.wso2.testgrid.dao.PageCursor;
+import org.wso2.testgrid.dao.ResultPage;
+import org.wso2.testgrid.dao.SortOrder;
+import org.wso2.testgrid.dao.dto.FailedTestCaseDTO;
 import org.wso2.testgrid.web.bean.DeploymentPattern;
+import org.wso2.testgrid.web.bean.PagedResponse;
 import org.wso2.testgrid.web.bean.Product;
 import org.wso2.testgrid.web.bean.TestCase;
+import org.wso2.testgrid.web.bean.TestCaseEntry;
 import org.wso2.testgrid.web.bean.TestPlan;
 import org.wso2.testgrid.web.bean.TestScenario;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -41,6 +54,14 @@ class APIUtil {
 
     private static final String SUCCESS_STATUS = "SUCCESS";
     private static final String FAILURE_STATUS = "FAILURE";
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final TypeReference<Map<String, Object>> FIELD_MAP_TYPE =
+            new TypeReference<Map<String, Object>>() { };
+
+    /**
+     * Maximum number of items of a page of a collection.
+     */
+    static final int MAX_PAGE_SIZE = 500;
 
     /**
      * Util method to convert {@link org.wso2.testgrid.common.Product} instance to a {@link Product} instance.
@@ -249,4 +270,112 @@ class APIUtil {
         }
         return testCasesBean;
     }
+
+    /**
+     * Util method to convert a {@link FailedTestCaseDTO} projection to a {@link TestCaseEntry} instance.
+     *
+     * @param failedTestCase failed test case projection
+     * @return {@link TestCaseEntry} instance
+     */
+    static TestCaseEntry getTestCaseEntry(FailedTestCaseDTO failedTestCase) {
+        return new TestCaseEntry(failedTestCase.getId(), failedTestCase.getName(),
+                failedTestCase.getFailureMessagePreview(), failedTestCase.isFailureMessageTruncated(), Status.FAIL);
+    }
+
+    /**
+     * Util method to validate the requested page size.
+     *
+     * @param limit requested maximum number of items of a page
+     * @return the page size
+     * @throws IllegalArgumentException if the page size is not between 1 and {@link #MAX_PAGE_SIZE}
+     */
+    static int getPageSize(int limit) {
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("The limit should be between 1 and " + MAX_PAGE_SIZE + ".");
+        }
+        return limit;
+    }
+
+    /**
+     * Util method to decode the cursor of a requested page.
+     *
+     * @param cursor cursor returned with the previous page, or null for the first page
+     * @return {@link PageCursor} instance, or null for the first page
+     * @throws IllegalArgumentException if the cursor is not valid
+     */
+    static PageCursor getPageCursor(String cursor) {
+        return cursor == null || cursor.isEmpty() ? null : PageCursor.decode(cursor);
+    }
+
+    /**
+     * Util method to convert the requested sort order (asc or desc) to a {@link SortOrder}. The default sort
+     * order is descending, so that the latest modified items are returned first.
+     *
+     * @param order requested sort order, or null for the default sort order
+     * @return {@link SortOrder} instance
+     * @throws IllegalArgumentException if the sort order is not valid
+     */
+    static SortOrder getSortOrder(String order) {
+        if (order == null || "desc".equalsIgnoreCase(order)) {
+            return SortOrder.DESCENDING;
+        } else if ("asc".equalsIgnoreCase(order)) {
+            return SortOrder.ASCENDING;
+        }
+        throw new IllegalArgumentException("The order should be either 'asc' or 'desc'.");
+    }
+
+    /**
+     * Util method to convert the requested status filter to a {@link Status}.
+     *
+     * @param status requested status, or null to not filter by status
+     * @return {@link Status} instance, or null to not filter by status
+     * @throws IllegalArgumentException if the status is not valid
+     */
+    static Status getStatus(String status) {
+        return status == null || status.isEmpty() ? null : Status.valueOf(status.toUpperCase(Locale.ENGLISH));
+    }
+
+    /**
+     * Util method to build the response of a page of entities, converting the entities to beans and keeping
+     * only the requested fields of the beans.
+     *
+     * @param page      page of entities
+     * @param converter converter of an entity to a bean
+     * @param limit     maximum number of items of a page
+     * @param fields    comma separated names of the bean fields to return, or null to return all the fields
+     * @param <E>       type of the entities
+     * @param <B>       type of the beans
+     * @return {@link PagedResponse} instance
+     */
+    static <E, B> PagedResponse<?> getPagedResponse(ResultPage<E> page, Function<E, B> converter, int limit,
+                                                    String fields) {
+        List<B> beans = page.getItems().stream().map(converter).collect(Collectors.toList());
+        PageCursor nextCursor = page.getNextCursor();
+        return new PagedResponse<>(selectFields(beans, fields), nextCursor == null ? null : nextCursor.encode(),
+                limit);
+    }
+
+    /**
+     * Util method to keep only the requested fields (sparse fieldsets) of the given beans.
+     * <p>
+     * The fields are selected from the beans built from the fully read entities, hence this reduces the size of
+     * the response, not the columns read from the database.
+     *
+     * @param beans  beans to be returned
+     * @param fields comma separated names of the bean fields to return, or null to return all the fields
+     * @return the beans, or maps of the requested field names and values of the beans
+     */
+    static List<?> selectFields(List<?> beans, String fields) {
+        if (fields == null || fields.trim().isEmpty()) {
+            return beans;
+        }
+        Set<String> fieldNames = new HashSet<>(Arrays.asList(fields.trim().split("\\s*,\\s*")));
+        List<Map<String, Object>> selected = new ArrayList<>(beans.size());
+        for (Object bean : beans) {
+            Map<String, Object> values = OBJECT_MAPPER.convertValue(bean, FIELD_MAP_TYPE);
+            values.keySet().retainAll(fieldNames);
+            selected.add(values);
+        }
+        return selected;
+    }
 }
@@ -22,6 +22,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wso2.testgrid.common.DeploymentPattern;
 import org.wso2.testgrid.common.DeploymentPatternTestFailureStat;
+import org.wso2.testgrid.dao.ResultPage;
 import org.wso2.testgrid.dao.TestGridDAOException;
 import org.wso2.testgrid.dao.uow.DeploymentPatternUOW;
 import org.wso2.testgrid.web.bean.ErrorResponse;
@@ -54,11 +55,21 @@ public class DeploymentPatternService {
 
     /**
      * This has the implementation of the REST API for fetching all the Deployment-Patterns.
+     * When a limit is given, a page of the Deployment-Patterns, optionally of the given Product, is returned with
+     * the cursor of the next page instead. The fields parameter only trims the response payload; the
+     * Deployment-Patterns are still read from the database in full.
      *
      * @return A list of available Deployment-Patterns.
      */
     @GET
-    public Response getAllDeploymentPatterns() {
+    public Response getAllDeploymentPatterns(@QueryParam("product-id") String productId,
+                                             @QueryParam("limit") Integer limit,
+                                             @QueryParam("cursor") String cursor,
+                                             @QueryParam("order") String order,
+                                             @QueryParam("fields") String fields) {
+        if (limit != null) {
+            return getDeploymentPatternPage(productId, limit, cursor, order, fields);
+        }
         try {
             DeploymentPatternUOW deploymentPatternUOW = new DeploymentPatternUOW();
             List<DeploymentPattern> deploymentPatterns = deploymentPatternUOW.getDeploymentPatterns();
@@ -72,6 +83,31 @@ public class DeploymentPatternService {
         }
     }
 
+    /**
+     * Returns a page of the Deployment-Patterns, optionally of a Product, with the requested fields of the
+     * Deployment-Patterns.
+     */
+    private Response getDeploymentPatternPage(String productId, int limit, String cursor, String order,
+                                              String fields) {
+        try {
+            int pageSize = APIUtil.getPageSize(limit);
+            DeploymentPatternUOW deploymentPatternUOW = new DeploymentPatternUOW();
+            ResultPage<DeploymentPattern> page = deploymentPatternUOW.getDeploymentPatterns(productId,
+                    APIUtil.getPageCursor(cursor), pageSize, APIUtil.getSortOrder(order));
+            return Response.status(Response.Status.OK).entity(APIUtil.getPagedResponse(page,
+                    deploymentPattern -> APIUtil.getDeploymentPatternBean(deploymentPattern, ""), pageSize,
+                    fields)).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(new ErrorResponse.ErrorResponseBuilder().
+                    setMessage(e.getMessage()).build()).build();
+        } catch (TestGridDAOException e) {
+            String msg = "Error occurred while fetching a page of Deployment-Patterns.";
+            logger.error(msg, e);
+            return Response.serverError().entity(new ErrorResponse.ErrorResponseBuilder().setMessage(msg).build()).
+                    build();
+        }
+    }
+
     /**
      * This has the implementation of the REST API for fetching a Deployment-Pattern by id.
      *
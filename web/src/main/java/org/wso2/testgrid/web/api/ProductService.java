@@ -22,6 +22,7 @@ import org.apache.velocity.exception.ResourceNotFoundException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wso2.testgrid.common.Product;
+import org.wso2.testgrid.common.Status;
 import org.wso2.testgrid.common.config.ConfigurationContext;
 import org.wso2.testgrid.common.exception.TestGridRuntimeException;
 import org.wso2.testgrid.common.plugins.AWSArtifactReader;
@@ -38,7 +39,9 @@ import org.wso2.testgrid.web.utils.Constants;
 
 import java.io.IOException;
 import java.nio.file.Paths;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 import java.util.TreeSet;
 import javax.ws.rs.DefaultValue;
@@ -121,9 +124,11 @@ public class ProductService {
         ProductUOW productUOW = new ProductUOW();
         TreeSet<ProductStatus> list = new TreeSet<>();
         try {
-            for (Product product : productUOW.getProducts()) {
+            List<Product> products = productUOW.getProducts();
+            Map<String, Status> currentStatuses = testPlanUOW.getCurrentStatuses(products);
+            for (Product product : products) {
                 ProductStatus status = new ProductStatus(product.getId(), product.getName(),
-                        testPlanUOW.getCurrentStatus(product).toString());
+                        currentStatuses.get(product.getId()).toString());
                 status.setLastSuccessTimestamp(product.getLastSuccessTimestamp());
                 status.setLastFailureTimestamp(product.getLastFailureTimestamp());
                 list.add(status);
@@ -22,12 +22,18 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wso2.testgrid.common.TestCase;
 import org.wso2.testgrid.common.TestScenario;
+import org.wso2.testgrid.dao.ResultPage;
 import org.wso2.testgrid.dao.TestGridDAOException;
+import org.wso2.testgrid.dao.dto.FailedTestCaseDTO;
 import org.wso2.testgrid.dao.uow.TestCaseUOW;
 import org.wso2.testgrid.dao.uow.TestScenarioUOW;
 import org.wso2.testgrid.web.bean.ErrorResponse;
+import org.wso2.testgrid.web.bean.TestCaseEntry;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
@@ -45,14 +51,28 @@ import javax.ws.rs.core.Response;
 public class TestCaseService {
 
     private static final Logger logger = LoggerFactory.getLogger(TestCaseService.class);
+    static final int FAILED_TEST_CASES_PAGE_SIZE = 100;
+    static final int FAILURE_MESSAGE_PREVIEW_LENGTH = 500;
+    private static final int MAX_FAILED_TEST_CASES_PAGE_SIZE = 1000;
 
     /**
      * This has the implementation of the REST API for fetching all the TestCases available in a TestScenario.
+     * When a limit is given, a page of the TestCases is returned with the cursor of the next page instead.
+     * The fields parameter only trims the response payload; the TestCases are still read from the database in
+     * full.
      *
      * @return A list of available TestCases in the given TestScenario.
      */
     @GET
-    public Response getTestCasesForTestScenario(@QueryParam("test-scenario-id") String testScenarioId) {
+    public Response getTestCasesForTestScenario(@QueryParam("test-scenario-id") String testScenarioId,
+                                                @QueryParam("limit") Integer limit,
+                                                @QueryParam("cursor") String cursor,
+                                                @QueryParam("status") String status,
+                                                @QueryParam("order") String order,
+                                                @QueryParam("fields") String fields) {
+        if (limit != null) {
+            return getTestCasePage(testScenarioId, limit, cursor, status, order, fields);
+        }
         try {
             TestScenarioUOW testScenarioUOW = new TestScenarioUOW();
             Optional<TestScenario> testScenario = testScenarioUOW.getTestScenarioById(testScenarioId);
@@ -72,6 +92,33 @@ public class TestCaseService {
         }
     }
 
+    /**
+     * Returns a page of the TestCases of a TestScenario, with the requested fields of the TestCases.
+     */
+    private Response getTestCasePage(String testScenarioId, int limit, String cursor, String status, String order,
+                                     String fields) {
+        if (testScenarioId == null) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(new ErrorResponse.ErrorResponseBuilder().
+                    setMessage("The test-scenario-id is required.").build()).build();
+        }
+        try {
+            int pageSize = APIUtil.getPageSize(limit);
+            TestCaseUOW testCaseUOW = new TestCaseUOW();
+            ResultPage<TestCase> page = testCaseUOW.getTestCases(testScenarioId, APIUtil.getStatus(status),
+                    APIUtil.getPageCursor(cursor), pageSize, APIUtil.getSortOrder(order));
+            return Response.status(Response.Status.OK).entity(APIUtil.getPagedResponse(page,
+                    APIUtil::getTestCaseBean, pageSize, fields)).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(new ErrorResponse.ErrorResponseBuilder().
+                    setMessage(e.getMessage()).build()).build();
+        } catch (TestGridDAOException e) {
+            String msg = "Error occurred while fetching the TestCases for TestScenario id : '" + testScenarioId + "'";
+            logger.error(msg, e);
+            return Response.serverError().entity(
+                    new ErrorResponse.ErrorResponseBuilder().setMessage(msg).build()).build();
+        }
+    }
+
     /**
      * This has the implementation of the REST API for fetching a specific TestCase by id.
      *
@@ -96,4 +143,62 @@ public class TestCaseService {
                     new ErrorResponse.ErrorResponseBuilder().setMessage(msg).build()).build();
         }
     }
+
+    /**
+     * This has the implementation of the REST API for fetching a page of the failed TestCases of a TestScenario.
+     * Only the beginning of the failure messages is returned.
+     *
+     * @return the failed TestCases of the requested page.
+     */
+    @GET
+    @Path("/failed")
+    public Response getFailedTestCases(@QueryParam("test-scenario-id") String testScenarioId,
+                                       @QueryParam("offset") @DefaultValue("0") int offset,
+                                       @QueryParam("limit") @DefaultValue("100") int limit) {
+        if (testScenarioId == null || offset < 0 || limit <= 0) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(new ErrorResponse.ErrorResponseBuilder().
+                    setMessage("A test-scenario-id, a non-negative offset and a positive limit are required.")
+                    .build()).build();
+        }
+        try {
+            TestCaseUOW testCaseUOW = new TestCaseUOW();
+            List<TestCaseEntry> testCaseEntries = new ArrayList<>();
+            for (FailedTestCaseDTO failedTestCase : testCaseUOW.getFailedTestCases(testScenarioId, offset,
+                    Math.min(limit, MAX_FAILED_TEST_CASES_PAGE_SIZE), FAILURE_MESSAGE_PREVIEW_LENGTH)) {
+                testCaseEntries.add(APIUtil.getTestCaseEntry(failedTestCase));
+            }
+            return Response.status(Response.Status.OK).entity(testCaseEntries).build();
+        } catch (TestGridDAOException e) {
+            String msg = "Error occurred while fetching the failed TestCases for TestScenario id : '"
+                    + testScenarioId + "'";
+            logger.error(msg, e);
+            return Response.serverError().entity(
+                    new ErrorResponse.ErrorResponseBuilder().setMessage(msg).build()).build();
+        }
+    }
+
+    /**
+     * This has the implementation of the REST API for fetching the complete failure message of a TestCase.
+     *
+     * @return the failure message of the matching TestCase.
+     */
+    @GET
+    @Path("/{id}/failure-message")
+    @Produces(MediaType.TEXT_PLAIN)
+    public Response getFailureMessage(@PathParam("id") String id) {
+        try {
+            TestCaseUOW testCaseUOW = new TestCaseUOW();
+            Optional<String> failureMessage = testCaseUOW.getFailureMessage(id);
+            if (failureMessage.isPresent()) {
+                return Response.status(Response.Status.OK).entity(failureMessage.get()).build();
+            } else {
+                return Response.status(Response.Status.NOT_FOUND).entity(
+                        "Unable to find a failure message for the TestCase id : '" + id + "'").build();
+            }
+        } catch (TestGridDAOException e) {
+            String msg = "Error occurred while fetching the failure message of the TestCase id : '" + id + "'";
+            logger.error(msg, e);
+            return Response.serverError().entity(msg).build();
+        }
+    }
 }
@@ -21,14 +21,10 @@ package org.wso2.testgrid.web.api;
 import com.amazonaws.services.s3.model.ListObjectsRequest;
 import com.amazonaws.services.s3.model.ObjectListing;
 import com.amazonaws.services.s3.model.S3ObjectSummary;
-import com.amazonaws.services.s3.transfer.TransferManager;
-import com.amazonaws.services.s3.transfer.TransferManagerBuilder;
 import org.apache.hc.core5.http.HttpStatus;
 import org.json.JSONArray;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.wso2.testgrid.common.Status;
-import org.wso2.testgrid.common.TestCase;
 import org.wso2.testgrid.common.TestPlan;
 import org.wso2.testgrid.common.TestScenario;
 import org.wso2.testgrid.common.config.ConfigurationContext;
@@ -38,11 +34,15 @@ import org.wso2.testgrid.common.infrastructure.InfrastructureValueSet;
 import org.wso2.testgrid.common.plugins.AWSArtifactReader;
 import org.wso2.testgrid.common.plugins.ArtifactReadable;
 import org.wso2.testgrid.common.plugins.ArtifactReaderException;
+import org.wso2.testgrid.common.util.S3ClientProvider;
 import org.wso2.testgrid.common.util.S3StorageUtil;
 import org.wso2.testgrid.common.util.StringUtil;
 import org.wso2.testgrid.common.util.TestGridUtil;
+import org.wso2.testgrid.dao.ResultPage;
 import org.wso2.testgrid.dao.TestGridDAOException;
+import org.wso2.testgrid.dao.dto.FailedTestCaseDTO;
 import org.wso2.testgrid.dao.uow.InfrastructureParameterUOW;
+import org.wso2.testgrid.dao.uow.TestCaseUOW;
 import org.wso2.testgrid.dao.uow.TestPlanUOW;
 import org.wso2.testgrid.web.bean.ErrorResponse;
 import org.wso2.testgrid.web.bean.ScenarioSummary;
@@ -70,7 +70,6 @@ import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.GET;
 import javax.ws.rs.HEAD;
@@ -324,28 +323,43 @@ public class TestPlanService {
      * This method returns the latest {@link TestPlan}s for a given product
      * that contains the build details for distinct infrastructure combinations.
      *
+     * When a limit is given, a page of the {@link TestPlanStatus}es, latest modified first unless the order is
+     * asc, is returned with the cursor of the next page instead. The fields parameter only trims the response
+     * payload; the test plans are still read from the database in full.
+     *
      * @param productId the productId attribute for the product being queried
      * @return list of {@link TestPlanStatus} as a JSON response.
      */
     @GET
     @Path("/product/{productId}")
-    public Response getTestplans(@PathParam("productId") String productId) {
+    public Response getTestplans(@PathParam("productId") String productId,
+                                 @QueryParam("limit") Integer limit,
+                                 @QueryParam("cursor") String cursor,
+                                 @QueryParam("status") String status,
+                                 @QueryParam("order") String order,
+                                 @QueryParam("fields") String fields) {
         TestPlanUOW testPlanUOW = new TestPlanUOW();
         org.wso2.testgrid.common.Product product = new org.wso2.testgrid.common.Product();
         product.setId(productId);
-        List<TestPlan> testPlans = testPlanUOW.getLatestTestPlans(product);
-        List<TestPlanStatus> plans = new ArrayList<>();
         try {
             final Set<InfrastructureValueSet> infraValueSet = infrastructureParameterUOW.getValueSet();
+            if (limit != null) {
+                int pageSize = APIUtil.getPageSize(limit);
+                ResultPage<TestPlan> page = testPlanUOW.getLatestTestPlans(product, APIUtil.getStatus(status),
+                        APIUtil.getPageCursor(cursor), pageSize, APIUtil.getSortOrder(order));
+                return Response.status(Response.Status.OK).entity(APIUtil.getPagedResponse(page,
+                        testPlan -> getTestPlanStatus(testPlanUOW, infraValueSet, testPlan), pageSize, fields))
+                        .build();
+            }
+            List<TestPlan> testPlans = testPlanUOW.getLatestTestPlans(product);
+            List<TestPlanStatus> plans = new ArrayList<>();
             for (TestPlan testPlan : testPlans) {
-                TestPlan lastFailure = testPlanUOW.getLastFailure(testPlan);
-                TestPlanStatus testPlanStatus = new TestPlanStatus();
-                testPlanStatus.setLastBuild(APIUtil.getTestPlanBean(infraValueSet, testPlan, false));
-                testPlanStatus.setLastFailure(APIUtil
-                        .getTestPlanBean(infraValueSet, lastFailure, false));
-                plans.add(testPlanStatus);
+                plans.add(getTestPlanStatus(testPlanUOW, infraValueSet, testPlan));
             }
             return Response.status(Response.Status.OK).entity(plans).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(new ErrorResponse.ErrorResponseBuilder().
+                    setMessage(e.getMessage()).build()).build();
         } catch (TestGridDAOException e) {
             String msg = "Error occurred while fetching infrastructure parameters from database";
             logger.error(msg, e);
@@ -354,6 +368,19 @@ public class TestPlanService {
         }
     }
 
+    /**
+     * Returns the {@link TestPlanStatus} of the given latest build of an infrastructure combination.
+     */
+    private static TestPlanStatus getTestPlanStatus(TestPlanUOW testPlanUOW,
+                                                    Set<InfrastructureValueSet> infraValueSet, TestPlan testPlan) {
+        TestPlan lastFailure = testPlanUOW.getLastFailure(testPlan);
+        TestPlanStatus testPlanStatus = new TestPlanStatus();
+        testPlanStatus.setLastBuild(APIUtil.getTestPlanBean(infraValueSet, testPlan, false));
+        testPlanStatus.setLastFailure(APIUtil
+                .getTestPlanBean(infraValueSet, lastFailure, false));
+        return testPlanStatus;
+    }
+
     /**
      * This has the implementation of the REST API for creating a new Test plan.
      *
@@ -459,38 +486,40 @@ public class TestPlanService {
 
     /**
      * Returns the test execution summary for the given test plan.
+     * <p>
+     * The counts are read from the test scenarios, and only the first page of the failed test cases of each
+     * scenario is read, with the beginning of their failure messages. The remaining pages and the complete
+     * failure messages are served by {@link TestCaseService}.
      *
      * @param testPlan test plan to get the test execution summary for
      * @return test execution summary
+     * @throws TestGridDAOException thrown when error on reading the failed test cases
      */
-    private TestExecutionSummary getTestExecutionSummary(TestPlan testPlan) {
+    private TestExecutionSummary getTestExecutionSummary(TestPlan testPlan) throws TestGridDAOException {
         List<TestScenario> testScenarios = testPlan.getTestScenarios();
+        TestCaseUOW testCaseUOW = new TestCaseUOW();
 
         // Gather scenario summaries
         List<ScenarioSummary> scenarioSummaries = new ArrayList<>();
         List<ScenarioTestCaseEntry> scenarioTestCaseEntries = new ArrayList<>();
         for (TestScenario testScenario : testScenarios) {
-            List<TestCase> testCases = new ArrayList<>(testScenario.getTestCases());
-
-            // TODO: change backend design to store these info within the db to reduce UI latency.
-            // Create scenario summary
-            long totalSuccess = testCases.stream().filter(testCase -> Status.SUCCESS.equals(testCase.getStatus()))
-                    .count();
-            long totalFailed = testCases.stream().filter(testCase -> Status.FAIL.equals(testCase.getStatus())).count();
             ScenarioSummary scenarioSummary = new ScenarioSummary(testScenario.getDescription(),
-                    testScenario.getConfigChangeSetName(), testScenario.getConfigChangeSetDescription(), totalSuccess,
-                    totalFailed, testScenario.getStatus(), testScenario.getName());
+                    testScenario.getConfigChangeSetName(), testScenario.getConfigChangeSetDescription(),
+                    testScenario.getSuccessCount(), testScenario.getFailCount(), testScenario.getStatus(),
+                    testScenario.getName());
             scenarioSummaries.add(scenarioSummary);
 
-            // Create test case entries for failed tests
-            List<TestCaseEntry> failedTestCaseEntries = testCases.stream()
-                    .filter(testCase -> Status.FAIL.equals(testCase.getStatus()))
-                    .map(testCase -> new TestCaseEntry(testCase.getName(), testCase.getFailureMessage(),
-                            testCase.getStatus())
-                    )
-                    .collect(Collectors.toList());
-            scenarioTestCaseEntries.add(new ScenarioTestCaseEntry(
-                    testScenario.getDescription(), failedTestCaseEntries));
+            // Create test case entries for the first page of failed tests
+            List<TestCaseEntry> failedTestCaseEntries = new ArrayList<>();
+            if (testScenario.getFailCount() > 0) {
+                for (FailedTestCaseDTO failedTestCase : testCaseUOW.getFailedTestCases(testScenario.getId(), 0,
+                        TestCaseService.FAILED_TEST_CASES_PAGE_SIZE,
+                        TestCaseService.FAILURE_MESSAGE_PREVIEW_LENGTH)) {
+                    failedTestCaseEntries.add(APIUtil.getTestCaseEntry(failedTestCase));
+                }
+            }
+            scenarioTestCaseEntries.add(new ScenarioTestCaseEntry(testScenario.getId(),
+                    testScenario.getDescription(), failedTestCaseEntries, testScenario.getFailCount()));
         }
         return new TestExecutionSummary(scenarioSummaries, scenarioTestCaseEntries);
     }
@@ -657,7 +686,6 @@ public class TestPlanService {
                     ConfigurationContext.getProperty(ConfigurationContext.ConfigurationProperties.AWS_S3_BUCKET_NAME));
             TestPlan testPlan = testPlanOptional.get();
             String archiveFileDir = S3StorageUtil.deriveS3DeploymentOutputsDir(testPlan, artifactDownloadable);
-            TransferManager transferManager = TransferManagerBuilder.standard().build();
             ListObjectsRequest listObjectsRequest = new ListObjectsRequest()
                     .withBucketName(ConfigurationContext
                             .getProperty(ConfigurationContext.ConfigurationProperties.AWS_S3_BUCKET_NAME))
@@ -665,7 +693,7 @@ public class TestPlanService {
             ArrayList<String> filesToDownload = new ArrayList<>();
             ObjectListing objects;
             do {
-                objects = transferManager.getAmazonS3Client().listObjects(listObjectsRequest);
+                objects = S3ClientProvider.getS3Client().listObjects(listObjectsRequest);
                 for (S3ObjectSummary objectSummary :
                         objects.getObjectSummaries()) {
                     String fileName = objectSummary.getKey().replace(objects.getPrefix(), "");
@@ -22,6 +22,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wso2.testgrid.common.TestPlan;
 import org.wso2.testgrid.common.TestScenario;
+import org.wso2.testgrid.dao.ResultPage;
 import org.wso2.testgrid.dao.TestGridDAOException;
 import org.wso2.testgrid.dao.uow.TestPlanUOW;
 import org.wso2.testgrid.dao.uow.TestScenarioUOW;
@@ -48,12 +49,23 @@ public class TestScenarioService {
 
     /**
      * This has the implementation of the REST API for fetching all the TestScenarios ran for a given infrastructure.
+     * When a limit is given, a page of the TestScenarios is returned with the cursor of the next page instead.
+     * The fields parameter only trims the response payload; the TestScenarios are still read from the database
+     * in full.
      *
      * @return A list of available TestScenarios.
      */
     @GET
     public Response getTestScenariosForTestPlan(@QueryParam("test-plan-id") String testPlanId,
-                                                @QueryParam("require-testcase-info") boolean requireTestCaseInfo) {
+                                                @QueryParam("require-testcase-info") boolean requireTestCaseInfo,
+                                                @QueryParam("limit") Integer limit,
+                                                @QueryParam("cursor") String cursor,
+                                                @QueryParam("status") String status,
+                                                @QueryParam("order") String order,
+                                                @QueryParam("fields") String fields) {
+        if (limit != null) {
+            return getTestScenarioPage(testPlanId, requireTestCaseInfo, limit, cursor, status, order, fields);
+        }
         try {
             TestPlanUOW testPlanUOW = new TestPlanUOW();
             Optional<TestPlan> testPlan = testPlanUOW.getTestPlanById(testPlanId);
@@ -75,6 +87,34 @@ public class TestScenarioService {
         }
     }
 
+    /**
+     * Returns a page of the TestScenarios of a TestPlan, with the requested fields of the TestScenarios.
+     */
+    private Response getTestScenarioPage(String testPlanId, boolean requireTestCaseInfo, int limit, String cursor,
+                                         String status, String order, String fields) {
+        if (testPlanId == null) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(new ErrorResponse.ErrorResponseBuilder().
+                    setMessage("The test-plan-id is required.").build()).build();
+        }
+        try {
+            int pageSize = APIUtil.getPageSize(limit);
+            TestScenarioUOW testScenarioUOW = new TestScenarioUOW();
+            ResultPage<TestScenario> page = testScenarioUOW.getTestScenarios(testPlanId, APIUtil.getStatus(status),
+                    APIUtil.getPageCursor(cursor), pageSize, APIUtil.getSortOrder(order));
+            return Response.status(Response.Status.OK).entity(APIUtil.getPagedResponse(page,
+                    testScenario -> APIUtil.getTestScenarioBean(testScenario, requireTestCaseInfo), pageSize,
+                    fields)).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(new ErrorResponse.ErrorResponseBuilder().
+                    setMessage(e.getMessage()).build()).build();
+        } catch (TestGridDAOException e) {
+            String msg = "Error occurred while fetching the TestScenarios for the TestPlan : '" + testPlanId + "'";
+            logger.error(msg, e);
+            return Response.serverError().entity(
+                    new ErrorResponse.ErrorResponseBuilder().setMessage(msg).build()).build();
+        }
+    }
+
     /**
      * This has the implementation of the REST API for fetching a specific TestScenario.
      *
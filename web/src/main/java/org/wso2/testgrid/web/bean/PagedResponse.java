@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.testgrid.web.bean;
+
+import java.util.List;
+
+/**
+ * Bean class of a page of a collection returned by the REST API.
+ *
+ * @param <T> type of the items of the page
+ * @since 1.0.0
+ */
+public class PagedResponse<T> {
+
+    private final List<T> items;
+    private final String nextCursor;
+    private final int limit;
+
+    /**
+     * Constructs an instance of {@link PagedResponse}.
+     *
+     * @param items      items of the page
+     * @param nextCursor cursor of the next page, or null if this is the last page
+     * @param limit      maximum number of items of a page
+     */
+    public PagedResponse(List<T> items, String nextCursor, int limit) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.limit = limit;
+    }
+
+    /**
+     * Returns the items of the page.
+     *
+     * @return items of the page
+     */
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * Returns the cursor to request the next page with, or null if this is the last page.
+     *
+     * @return cursor of the next page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * Returns the maximum number of items of a page.
+     *
+     * @return maximum number of items of a page
+     */
+    public int getLimit() {
+        return limit;
+    }
+}
@@ -26,8 +26,10 @@ import java.util.List;
  */
 public class ScenarioTestCaseEntry {
 
+    private final String scenarioId;
     private final String scenarioDescription;
     private final List<TestCaseEntry> testCaseEntries;
+    private final long totalCount;
 
     /**
      * Constructs an instance of {@link ScenarioTestCaseEntry}.
@@ -36,8 +38,32 @@ public class ScenarioTestCaseEntry {
      * @param testCaseEntries list of test case entries
      */
     public ScenarioTestCaseEntry(String scenarioDescription, List<TestCaseEntry> testCaseEntries) {
+        this(null, scenarioDescription, testCaseEntries, testCaseEntries.size());
+    }
+
+    /**
+     * Constructs an instance of {@link ScenarioTestCaseEntry} which holds a page of the test case entries.
+     *
+     * @param scenarioId          scenario id
+     * @param scenarioDescription scenario description
+     * @param testCaseEntries     first page of the test case entries
+     * @param totalCount          number of test case entries of all pages
+     */
+    public ScenarioTestCaseEntry(String scenarioId, String scenarioDescription, List<TestCaseEntry> testCaseEntries,
+                                 long totalCount) {
+        this.scenarioId = scenarioId;
         this.scenarioDescription = scenarioDescription;
         this.testCaseEntries = testCaseEntries;
+        this.totalCount = totalCount;
+    }
+
+    /**
+     * Returns the scenario id.
+     *
+     * @return scenario id
+     */
+    public String getScenarioId() {
+        return scenarioId;
     }
 
     /**
@@ -57,4 +83,14 @@ public class ScenarioTestCaseEntry {
     public List<TestCaseEntry> getTestCaseEntries() {
         return testCaseEntries;
     }
+
+    /**
+     * Returns the number of test case entries of all pages. The remaining pages are served by
+     * {@code /test-cases/failed}.
+     *
+     * @return number of test case entries
+     */
+    public long getTotalCount() {
+        return totalCount;
+    }
 }
@@ -26,8 +26,10 @@ import org.wso2.testgrid.common.Status;
  */
 public class TestCaseEntry {
 
+    private final String id;
     private final String testCase;
     private final String failureMessage;
+    private final boolean failureMessageTruncated;
     private final Status status;
 
     /**
@@ -38,11 +40,36 @@ public class TestCaseEntry {
      * @param status  whether the test case is successful or not
      */
     public TestCaseEntry(String testCase, String failureMessage, Status status) {
+        this(null, testCase, failureMessage, false, status);
+    }
+
+    /**
+     * Constructs an instance of {@link TestCaseEntry} which may hold only the beginning of the failure message.
+     *
+     * @param id                      test case id
+     * @param testCase                test case name
+     * @param failureMessage          test case failure message, or its beginning
+     * @param failureMessageTruncated whether the failure message holds only the beginning of the message
+     * @param status                  whether the test case is successful or not
+     */
+    public TestCaseEntry(String id, String testCase, String failureMessage, boolean failureMessageTruncated,
+                         Status status) {
+        this.id = id;
         this.testCase = testCase;
         this.failureMessage = failureMessage;
+        this.failureMessageTruncated = failureMessageTruncated;
         this.status = status;
     }
 
+    /**
+     * Returns the test case id.
+     *
+     * @return test case id
+     */
+    public String getId() {
+        return id;
+    }
+
     /**
      * Returns the test case name.
      *
@@ -61,6 +88,16 @@ public class TestCaseEntry {
         return failureMessage;
     }
 
+    /**
+     * Returns whether the failure message holds only the beginning of the message. The complete message is
+     * served by {@code /test-cases/{id}/failure-message}.
+     *
+     * @return true if the failure message is truncated
+     */
+    public boolean isFailureMessageTruncated() {
+        return failureMessageTruncated;
+    }
+
     /**
      * Returns status of the test case.
      *
@@ -0,0 +1,319 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.testgrid.web.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.testgrid.common.config.ConfigurationContext;
+import org.wso2.testgrid.common.config.ConfigurationContext.ConfigurationProperties;
+import org.wso2.testgrid.common.util.StringUtil;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Registry of the active {@link FileWatcher}s.
+ * <p>
+ * The watchers of a folder share a single watch service, which is polled by a task of a shared executor.
+ * The executor uses virtual threads when the runtime supports them, and a bounded thread pool otherwise.
+ * The watch service of a folder is closed, and its task completed, when the last watcher of the folder is
+ * unregistered. The metrics of the registry are exposed as the {@value #OBJECT_NAME} MXBean. The registry is
+ * shut down by {@link FileWatchRegistryShutdownListener} when the web application is undeployed.
+ *
+ * @since 1.0.0
+ */
+public class FileWatchRegistry implements FileWatchRegistryMXBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileWatchRegistry.class);
+    private static final String OBJECT_NAME = "org.wso2.testgrid:type=FileWatchRegistry";
+    private static final int DEFAULT_MAX_THREADS = 64;
+    private static final FileWatchRegistry instance = new FileWatchRegistry();
+
+    private final ExecutorService executorService = createExecutorService();
+    private final Map<Path, FolderWatch> folderWatches = new HashMap<>();
+    private final AtomicLong registeredWatcherCount = new AtomicLong();
+    private final AtomicLong dispatchedEventCount = new AtomicLong();
+
+    private FileWatchRegistry() {
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(OBJECT_NAME);
+            if (!mBeanServer.isRegistered(objectName)) {
+                mBeanServer.registerMBean(this, objectName);
+            }
+        } catch (JMException e) {
+            logger.warn("Error on registering the file watch registry metrics.", e);
+        }
+    }
+
+    /**
+     * Returns the file watch registry.
+     *
+     * @return file watch registry
+     */
+    public static FileWatchRegistry getInstance() {
+        return instance;
+    }
+
+    /**
+     * Starts watching the file of the given watcher. {@link FileWatcher#beforeFileWatch()} of the watcher is
+     * called on the calling thread once the file is being watched.
+     *
+     * @param fileWatcher watcher to register
+     * @throws FileWatcherException thrown when error on watching the folder of the file
+     */
+    void register(FileWatcher fileWatcher) throws FileWatcherException {
+        synchronized (this) {
+            Path folderPath = fileWatcher.getFolderPath();
+            FolderWatch folderWatch = folderWatches.get(folderPath);
+            if (folderWatch == null) {
+                folderWatch = new FolderWatch(folderPath);
+                try {
+                    executorService.execute(folderWatch);
+                } catch (RejectedExecutionException e) {
+                    folderWatch.close();
+                    throw new FileWatcherException(StringUtil.concatStrings("Cannot watch folder ", folderPath,
+                            executorService.isShutdown() ? ". File watch registry is shut down."
+                                    : ". Maximum number of watched folders is reached."), e);
+                }
+                folderWatches.put(folderPath, folderWatch);
+            }
+            folderWatch.fileWatchers.add(fileWatcher);
+            registeredWatcherCount.incrementAndGet();
+            logger.debug(StringUtil.concatStrings("Started watching file ", folderPath.resolve(
+                    fileWatcher.getWatchFile()), ". Active watchers: ", getActiveWatcherCount()));
+        }
+        try {
+            fileWatcher.beforeFileWatch();
+        } catch (FileWatcherException e) {
+            unregister(fileWatcher);
+            throw e;
+        }
+    }
+
+    /**
+     * Stops watching the file of the given watcher.
+     *
+     * @param fileWatcher watcher to unregister
+     */
+    synchronized void unregister(FileWatcher fileWatcher) {
+        Path folderPath = fileWatcher.getFolderPath();
+        FolderWatch folderWatch = folderWatches.get(folderPath);
+        if (folderWatch == null || !folderWatch.fileWatchers.remove(fileWatcher)) {
+            return;
+        }
+        if (folderWatch.fileWatchers.isEmpty()) {
+            folderWatches.remove(folderPath);
+            folderWatch.close();
+        }
+        logger.debug(StringUtil.concatStrings("Stopped watching file ", folderPath.resolve(
+                fileWatcher.getWatchFile()), ". Active watchers: ", getActiveWatcherCount()));
+    }
+
+    /**
+     * Stops watching all the folders, shuts down the executor running the folder watches and unregisters the
+     * {@value #OBJECT_NAME} MXBean. No files can be watched afterwards.
+     */
+    public void shutdown() {
+        synchronized (this) {
+            folderWatches.values().forEach(FolderWatch::close);
+            folderWatches.clear();
+        }
+        executorService.shutdownNow();
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(OBJECT_NAME);
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+        } catch (JMException e) {
+            logger.warn("Error on unregistering the file watch registry metrics.", e);
+        }
+    }
+
+    @Override
+    public synchronized int getActiveWatcherCount() {
+        return folderWatches.values().stream().mapToInt(folderWatch -> folderWatch.fileWatchers.size()).sum();
+    }
+
+    @Override
+    public synchronized int getWatchedFolderCount() {
+        return folderWatches.size();
+    }
+
+    @Override
+    public long getRegisteredWatcherCount() {
+        return registeredWatcherCount.get();
+    }
+
+    @Override
+    public long getDispatchedEventCount() {
+        return dispatchedEventCount.get();
+    }
+
+    @Override
+    public int getActiveLogTailerCount() {
+        return LogTailer.getActiveTailerCount();
+    }
+
+    /**
+     * Creates the executor running the folder watches. A virtual thread per task executor is used when the
+     * runtime supports it (Java 21+). Otherwise a thread pool of at most {@code FILE_WATCHER_MAX_THREADS}
+     * threads is used, in which case no more folders than that can be watched at once.
+     *
+     * @return executor service
+     */
+    private static ExecutorService createExecutorService() {
+        try {
+            Method factoryMethod = Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor");
+            ExecutorService executorService = (ExecutorService) factoryMethod.invoke(null);
+            logger.info("Using virtual threads to watch files.");
+            return executorService;
+        } catch (ReflectiveOperationException e) {
+            int maxThreads = getMaxThreads();
+            logger.info(StringUtil.concatStrings("Using a pool of at most ", maxThreads,
+                    " threads to watch files."));
+            AtomicInteger threadCount = new AtomicInteger();
+            return new ThreadPoolExecutor(0, maxThreads, 60L, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "file-watcher-" + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        }
+    }
+
+    private static int getMaxThreads() {
+        return Math.max(1, ConfigurationContext.getIntProperty(ConfigurationProperties.FILE_WATCHER_MAX_THREADS,
+                DEFAULT_MAX_THREADS));
+    }
+
+    /**
+     * Watches a folder for the changes of the files of its watchers.
+     */
+    private class FolderWatch implements Runnable {
+
+        private final Path folderPath;
+        private final WatchService watchService;
+        private final List<FileWatcher> fileWatchers = new CopyOnWriteArrayList<>();
+
+        FolderWatch(Path folderPath) throws FileWatcherException {
+            this.folderPath = folderPath;
+            try {
+                this.watchService = folderPath.getFileSystem().newWatchService();
+                folderPath.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            } catch (IOException e) {
+                close();
+                throw new FileWatcherException(StringUtil.concatStrings(
+                        "Error on registering file watch service for folder ", folderPath), e);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    // Wait for the next event
+                    WatchKey watchKey = watchService.take();
+
+                    for (WatchEvent<?> watchEvent : watchKey.pollEvents()) {
+                        WatchEvent.Kind<?> kind = watchEvent.kind();
+                        if (kind == StandardWatchEventKinds.OVERFLOW) {
+                            // events are lost, let all the watchers check their files
+                            fileWatchers.forEach(fileWatcher -> dispatch(fileWatcher, kind));
+                            continue;
+                        }
+                        @SuppressWarnings("unchecked")
+                        Path watchEventPath = ((WatchEvent<Path>) watchEvent).context();
+                        // Call the watchers of the file involved
+                        for (FileWatcher fileWatcher : fileWatchers) {
+                            if (watchEventPath.toString().equals(fileWatcher.getWatchFile())) {
+                                dispatch(fileWatcher, kind);
+                            }
+                        }
+                    }
+
+                    // Exit if no longer valid
+                    if (!watchKey.reset()) {
+                        logger.info(StringUtil.concatStrings("Folder ", folderPath, " is no longer watchable."));
+                        fileWatchers.forEach(FileWatchRegistry.this::unregister);
+                        break;
+                    }
+                }
+            } catch (ClosedWatchServiceException e) {
+                logger.debug(StringUtil.concatStrings("Stopped watching folder ", folderPath));
+            } catch (InterruptedException e) {
+                logger.error(StringUtil.concatStrings("Error on waiting for changes in folder ", folderPath), e);
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void dispatch(FileWatcher fileWatcher, WatchEvent.Kind<?> kind) {
+            dispatchedEventCount.incrementAndGet();
+            try {
+                if (kind == StandardWatchEventKinds.ENTRY_CREATE) {
+                    fileWatcher.onCreate();
+                } else if (kind == StandardWatchEventKinds.ENTRY_DELETE) {
+                    fileWatcher.onDelete();
+                } else {
+                    fileWatcher.onModified();
+                }
+            } catch (FileWatcherException | RuntimeException e) {
+                logger.error(StringUtil.concatStrings("Error on handling the change of file ",
+                        folderPath.resolve(fileWatcher.getWatchFile()), ". Stopped watching the file."), e);
+                unregister(fileWatcher);
+            }
+        }
+
+        void close() {
+            if (watchService == null) {
+                return;
+            }
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                logger.warn(StringUtil.concatStrings("Error on closing file watch service of folder ",
+                        folderPath), e);
+            }
+        }
+    }
+}
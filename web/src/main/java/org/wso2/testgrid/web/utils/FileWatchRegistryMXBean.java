@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.testgrid.web.utils;
+
+/**
+ * Management interface exposing the metrics of the {@link FileWatchRegistry}.
+ *
+ * @since 1.0.0
+ */
+public interface FileWatchRegistryMXBean {
+
+    /**
+     * Returns the number of files being watched.
+     *
+     * @return number of active file watchers
+     */
+    int getActiveWatcherCount();
+
+    /**
+     * Returns the number of folders being watched. Each folder has a single watch service.
+     *
+     * @return number of watched folders
+     */
+    int getWatchedFolderCount();
+
+    /**
+     * Returns the number of file watchers registered since the start of the server.
+     *
+     * @return number of registered file watchers
+     */
+    long getRegisteredWatcherCount();
+
+    /**
+     * Returns the number of file change events dispatched to the file watchers since the start of the server.
+     *
+     * @return number of dispatched events
+     */
+    long getDispatchedEventCount();
+
+    /**
+     * Returns the number of log files being tailed.
+     *
+     * @return number of active log tailers
+     */
+    int getActiveLogTailerCount();
+}
@@ -0,0 +1,473 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.testgrid.web.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.testgrid.common.util.StringUtil;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.websocket.SendHandler;
+import javax.websocket.SendResult;
+import javax.websocket.Session;
+
+/**
+ * Tails a log file and streams the appended contents to the subscribed web socket sessions.
+ * <p>
+ * A single tailer is shared by all the sessions of a log file. The tailer keeps the byte offset it has read
+ * up to, and reads only the bytes appended after that offset. The text read is fanned out to the sessions
+ * with asynchronous sends, one in flight per session. The text queued for a session is bounded. A session
+ * which lags behind that bound, and a newly subscribed session, reads from the file itself until it catches
+ * up with the tailer. The tailer is stopped when its last session is unsubscribed or closed.
+ *
+ * @since 1.0.0
+ */
+public class LogTailer {
+
+    private static final Logger logger = LoggerFactory.getLogger(LogTailer.class);
+    private static final String TAILER_PROPERTY = LogTailer.class.getName();
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final int MAX_PENDING_CHARS = 1024 * 1024;
+    private static final Map<Path, LogTailer> tailers = new ConcurrentHashMap<>();
+
+    private final Path logFile;
+    private final FileChannel channel;
+    private final FileWatcher fileWatcher;
+    private final ChunkDecoder decoder = new ChunkDecoder();
+    private final List<Subscriber> subscribers = new ArrayList<>();
+    private long offset;
+
+    /**
+     * Creates a tailer for the given log file.
+     *
+     * @param logFile log file to tail
+     * @throws FileWatcherException thrown when error on opening the log file
+     */
+    private LogTailer(Path logFile) throws FileWatcherException {
+        this.logFile = logFile;
+        this.fileWatcher = new LogFileWatcher(logFile);
+        try {
+            this.channel = FileChannel.open(logFile, StandardOpenOption.READ);
+        } catch (IOException e) {
+            throw new FileWatcherException(StringUtil.concatStrings("Error on opening the log file ", logFile), e);
+        }
+    }
+
+    /**
+     * Subscribes the given session to the contents of the given log file. The session first receives the
+     * current contents of the log file, and then the contents appended to it.
+     *
+     * @param logFile log file to tail
+     * @param session web socket session to send the log contents to
+     * @throws FileWatcherException thrown when error on tailing the log file
+     */
+    public static synchronized void subscribe(Path logFile, Session session) throws FileWatcherException {
+        Path key = logFile.toAbsolutePath().normalize();
+        LogTailer tailer = tailers.get(key);
+        boolean newTailer = tailer == null;
+        if (newTailer) {
+            tailer = new LogTailer(key);
+            tailers.put(key, tailer);
+        }
+        session.getUserProperties().put(TAILER_PROPERTY, tailer);
+        tailer.addSubscriber(session);
+        if (newTailer) {
+            try {
+                tailer.fileWatcher.start();
+            } catch (FileWatcherException e) {
+                session.getUserProperties().remove(TAILER_PROPERTY);
+                tailer.removeSubscriber(session);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Unsubscribes the given session from the log file it is subscribed to. The tailer of the log file is
+     * stopped if this is the last session subscribed to it.
+     *
+     * @param session web socket session
+     */
+    public static synchronized void unsubscribe(Session session) {
+        Object tailer = session.getUserProperties().remove(TAILER_PROPERTY);
+        if (tailer instanceof LogTailer) {
+            ((LogTailer) tailer).removeSubscriber(session);
+        }
+    }
+
+    /**
+     * Returns the number of log files being tailed.
+     *
+     * @return number of active tailers
+     */
+    public static int getActiveTailerCount() {
+        return tailers.size();
+    }
+
+    private synchronized void addSubscriber(Session session) {
+        Subscriber subscriber = new Subscriber(session);
+        subscribers.add(subscriber);
+        subscriber.drain();
+        logger.info(StringUtil.concatStrings("Session ", session.getId(), " subscribed to log file ", logFile,
+                ". Active sessions: ", subscribers.size()));
+    }
+
+    private void removeSubscriber(Session session) {
+        synchronized (this) {
+            subscribers.removeIf(subscriber -> subscriber.session == session);
+        }
+        closeIfUnused();
+    }
+
+    /**
+     * Stops tailing the log file if no session is subscribed to it.
+     */
+    private void closeIfUnused() {
+        synchronized (LogTailer.class) {
+            synchronized (this) {
+                if (!subscribers.isEmpty()) {
+                    return;
+                }
+            }
+            if (!tailers.remove(logFile, this)) {
+                return;
+            }
+        }
+        fileWatcher.stop();
+        synchronized (this) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.warn(StringUtil.concatStrings("Error on closing the log file ", logFile), e);
+            }
+        }
+        logger.info(StringUtil.concatStrings("Stopped tailing log file ", logFile));
+    }
+
+    /**
+     * Returns the byte offset up to which the log file is read and decoded into text.
+     *
+     * @return decoded byte offset
+     */
+    private long decodedOffset() {
+        return offset - decoder.pendingBytes();
+    }
+
+    /**
+     * Moves the offset of the tailer to the start of the last line of the log file, so that the tailer does
+     * not read the whole log file when it starts. The subscribers read the contents before that offset from
+     * the file themselves.
+     *
+     * @throws FileWatcherException thrown when error on reading the log file
+     */
+    private synchronized void seekToLastLine() throws FileWatcherException {
+        try {
+            long size = channel.size();
+            long start = Math.max(0, size - CHUNK_SIZE);
+            ByteBuffer buffer = ByteBuffer.allocate((int) (size - start));
+            while (buffer.hasRemaining() && channel.read(buffer, start + buffer.position()) > 0) {
+                // read the tail of the file
+            }
+            // a new line byte is never a part of a multi-byte UTF-8 character
+            for (int i = buffer.position() - 1; i >= 0; i--) {
+                if (buffer.get(i) == '\n') {
+                    offset = start + i + 1;
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            throw new FileWatcherException(StringUtil.concatStrings("Error on reading the log file ", logFile), e);
+        }
+    }
+
+    /**
+     * Reads the bytes appended to the log file since the last read, and fans them out to the subscribers.
+     * The subscribers whose sessions are closed are removed.
+     *
+     * @return {@code true} if there are subscribers left
+     * @throws FileWatcherException thrown when error on reading the log file
+     */
+    private synchronized boolean readAppended() throws FileWatcherException {
+        subscribers.removeIf(subscriber -> !subscriber.session.isOpen());
+        if (subscribers.isEmpty()) {
+            return false;
+        }
+        try {
+            if (!channel.isOpen()) {
+                return false;
+            }
+            long size = channel.size();
+            if (size < offset) {
+                logger.info(StringUtil.concatStrings("Log file ", logFile, " is truncated. Reading from start."));
+                offset = 0;
+                decoder.reset();
+                subscribers.forEach(Subscriber::restart);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+            while (offset < size) {
+                long start = decodedOffset();
+                buffer.clear();
+                int read = channel.read(buffer, offset);
+                if (read <= 0) {
+                    break;
+                }
+                offset += read;
+                buffer.flip();
+                String text = decoder.decode(buffer);
+                if (!text.isEmpty()) {
+                    long end = decodedOffset();
+                    for (Subscriber subscriber : subscribers) {
+                        subscriber.offer(text, start, end);
+                    }
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            throw new FileWatcherException(StringUtil.concatStrings("Error on reading the log file ", logFile), e);
+        }
+    }
+
+    /**
+     * A web socket session subscribed to the log file.
+     * <p>
+     * The state of a subscriber is guarded by the lock of the tailer.
+     */
+    private class Subscriber implements SendHandler {
+
+        private final Session session;
+        private final StringBuilder pending = new StringBuilder();
+        private final ChunkDecoder catchUpDecoder = new ChunkDecoder();
+        private long pendingEnd;
+        private long handedEnd;
+        private long readPosition;
+        private boolean sending;
+        private boolean draining;
+        private boolean failed;
+        private boolean catchingUp = true;
+
+        Subscriber(Session session) {
+            this.session = session;
+        }
+
+        /**
+         * Queues the text read by the tailer for the byte range [start, end) of the log file.
+         */
+        void offer(String text, long start, long end) {
+            if (catchingUp || failed) {
+                // will be read from the file while catching up
+                return;
+            }
+            if (start != pendingEnd || pending.length() + text.length() > MAX_PENDING_CHARS) {
+                // the session is too slow to keep up with the log, continue from the file
+                startCatchUp(handedEnd);
+            } else {
+                pending.append(text);
+                pendingEnd = end;
+            }
+            drain();
+        }
+
+        /**
+         * Starts over from the beginning of the log file.
+         */
+        void restart() {
+            handedEnd = 0;
+            startCatchUp(0);
+            drain();
+        }
+
+        private void startCatchUp(long position) {
+            pending.setLength(0);
+            catchingUp = true;
+            readPosition = position;
+            catchUpDecoder.reset();
+        }
+
+        /**
+         * Sends the queued text, or the next chunk read from the file while catching up, unless a send is
+         * already in flight.
+         * <p>
+         * The send handler may be called on the sending thread itself, so this method loops instead of
+         * recursing through the send handler.
+         */
+        void drain() {
+            if (draining) {
+                return;
+            }
+            draining = true;
+            try {
+                while (!sending && !failed) {
+                    if (catchingUp) {
+                        if (!catchUp() && catchingUp) {
+                            break;
+                        }
+                    } else if (!sendPending()) {
+                        break;
+                    }
+                }
+            } finally {
+                draining = false;
+            }
+        }
+
+        private boolean sendPending() {
+            if (pending.length() == 0) {
+                return false;
+            }
+            String text = pending.toString();
+            pending.setLength(0);
+            send(text, pendingEnd);
+            return true;
+        }
+
+        /**
+         * Sends the next chunk of the log file read from the file, or switches to the text read by the tailer
+         * once caught up with it.
+         *
+         * @return {@code true} if a chunk is sent
+         */
+        private boolean catchUp() {
+            try {
+                ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+                long target = decodedOffset();
+                while (readPosition < target) {
+                    buffer.clear();
+                    buffer.limit((int) Math.min(CHUNK_SIZE, target - readPosition));
+                    int read = channel.read(buffer, readPosition);
+                    if (read <= 0) {
+                        break;
+                    }
+                    readPosition += read;
+                    buffer.flip();
+                    String text = catchUpDecoder.decode(buffer);
+                    if (!text.isEmpty()) {
+                        send(text, readPosition - catchUpDecoder.pendingBytes());
+                        return true;
+                    }
+                }
+                catchingUp = false;
+                handedEnd = target;
+                pendingEnd = target;
+            } catch (IOException e) {
+                failed = true;
+                logger.error(StringUtil.concatStrings("Error on reading the log file ", logFile, " for session ",
+                        session.getId()), e);
+            }
+            return false;
+        }
+
+        private void send(String text, long end) {
+            sending = true;
+            handedEnd = end;
+            session.getAsyncRemote().sendText(text, this);
+        }
+
+        @Override
+        public void onResult(SendResult result) {
+            synchronized (LogTailer.this) {
+                sending = false;
+                if (!result.isOK()) {
+                    failed = true;
+                    logger.warn(StringUtil.concatStrings("Error on sending the log to session ", session.getId(),
+                            ". No more log contents will be sent to the session."), result.getException());
+                    return;
+                }
+                drain();
+            }
+        }
+    }
+
+    /**
+     * Watches the log file for the appended contents.
+     */
+    private class LogFileWatcher extends FileWatcher {
+
+        LogFileWatcher(Path watchFile) throws FileWatcherException {
+            super(watchFile);
+        }
+
+        @Override
+        public void beforeFileWatch() throws FileWatcherException {
+            seekToLastLine();
+            onModified();
+        }
+
+        @Override
+        public void onCreate() throws FileWatcherException {
+            onModified();
+        }
+
+        @Override
+        public void onModified() throws FileWatcherException {
+            if (!readAppended()) {
+                closeIfUnused();
+            }
+        }
+
+        @Override
+        public void onDelete() {
+            // Do nothing
+        }
+    }
+
+    /**
+     * Decodes UTF-8 text from chunks of bytes, carrying over the bytes of a character split between chunks.
+     */
+    private static class ChunkDecoder {
+
+        private final CharsetDecoder charsetDecoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private byte[] remainder = new byte[0];
+
+        String decode(ByteBuffer bytes) {
+            ByteBuffer input = bytes;
+            if (remainder.length > 0) {
+                input = ByteBuffer.allocate(remainder.length + bytes.remaining());
+                input.put(remainder).put(bytes).flip();
+            }
+            CharBuffer chars = CharBuffer.allocate(input.remaining());
+            charsetDecoder.decode(input, chars, false);
+            remainder = new byte[input.remaining()];
+            input.get(remainder);
+            chars.flip();
+            return chars.toString();
+        }
+
+        int pendingBytes() {
+            return remainder.length;
+        }
+
+        void reset() {
+            charsetDecoder.reset();
+            remainder = new byte[0];
+        }
+    }
+}
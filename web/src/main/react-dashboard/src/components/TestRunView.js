@@ -45,6 +45,7 @@ class TestRunView extends Component {
     this.state = {
       testScenarioSummaries: [],
       scenarioTestCaseEntries: [],
+      failureMessages: {},
       testSummaryLoadStatus: PENDING,
       logContent: "",
       logDownloadStatus: PENDING,
@@ -177,6 +178,23 @@ class TestRunView extends Component {
     return response;
   }
 
+  getFailureMessage(testCaseId) {
+    const url = TESTGRID_API_CONTEXT + '/api/test-cases/' + testCaseId + '/failure-message';
+    fetch(url, {
+      method: "GET",
+      credentials: 'same-origin',
+      headers: {
+        'Accept': 'text/plain'
+      }
+    })
+      .then(this.handleError)
+      .then(response => response.ok ? response.text() : Promise.reject(response.status))
+      .then(failureMessage => this.setState({
+        failureMessages: Object.assign({}, this.state.failureMessages, {[testCaseId]: failureMessage})
+      }))
+      .catch(error => console.error(error));
+  }
+
   toggle(Message) {
     this.setState({
       showLogDownloadStatusMessage: Message,
@@ -595,13 +613,18 @@ class TestRunView extends Component {
                                         paddingTop: 15,
                                         paddingBottom: 15
                                       }}>
-                                        {entry.failureMessage}
+                                        {this.state.failureMessages[entry.id] || entry.failureMessage}
+                                        {entry.failureMessageTruncated && !this.state.failureMessages[entry.id] &&
+                                          <a style={{cursor: "pointer"}}
+                                             onClick={() => this.getFailureMessage(entry.id)}> ...show more</a>}
                                       </td>
                                     </tr>
                                   )
                                 })}
                                 </tbody>
                               </Table>
+                              {data.totalCount > data.testCaseEntries.length &&
+                                <div>Showing {data.testCaseEntries.length} of {data.totalCount} failed tests.</div>}
                               <br/>
                             </div>)
                         } else {